@@ -0,0 +1,89 @@
+import java.math.MathContext;
+import java.util.Arrays;
+
+/**
+ * Description: Compares AdaptiveSolver with Brent's Method in double at the relative tolerance 1e-12, by the
+ *              root each returns, the precision the adaptive one needed and time per solve.
+ *
+ *              The first three problems are simple roots, which AdaptiveSolver accepts in double after the
+ *              error estimate, so its cost over Brent's Method is that estimate. The rest are roots double
+ *              gets wrong without saying so: a triple root, catastrophic cancellation in (1 + x) - 1, the
+ *              root 15 of Wilkinson's polynomial with its coefficients rounded to doubles, and a triple root
+ *              next to a simple one. The last three are (x - 1)^5 expanded, at the relative tolerance 1e-15,
+ *              where the rounding of Horner's scheme once let a root 1e-7 off pass as verified, and which
+ *              need 100 digits to prove. Time is the median of RUNS timed batches of about 10 ms, after 0.3 s
+ *              of untimed solves.
+ *
+ *              java -cp benchmarks/target/benchmarks.jar AdaptiveComparison
+ */
+public class AdaptiveComparison {
+
+    private static final int RUNS = 21;
+    private static final long WARM_UP_NS = 300_000_000;
+    private static final SolverConfig CONFIG = SolverConfig.DEFAULT.withRelativeTolerance(1e-12);
+    private static final SolverConfig TIGHT = SolverConfig.DEFAULT.withRelativeTolerance(1e-15);
+
+    private static volatile Object sink; // keeps the JIT from dropping solves
+
+    /**
+     * Main method
+     * @param args the input arguments
+     */
+    public static void main(String[] args) {
+        System.out.println("problem          \t| brent (double)       \t| adaptive                          \t| " +
+                "precision    \t| brent ns\t| adaptive ns");
+        System.out.println("---------------------------------------------------------------------------------------" +
+                "-----------------------------------------------------");
+        compare("#1 in [0, 1]", LocateRoots.FUNCTION_1_POLYNOMIAL, 0, 1);
+        compare("#1 in [3, 4]", LocateRoots.FUNCTION_1_POLYNOMIAL, 3, 4);
+        compare("#2 in [120, 130]", ExpressionCompiler.precise("x + 10 - x*cosh(50/x)"), 120, 130);
+        compare("(x - 1)^3 expanded", new Polynomial(-1, 3, -3, 1), 0, 3);
+        compare("(1 + x) - 1 - 1e-10", ExpressionCompiler.precise("(1 + x) - 1 - 1e-10"), -1, 1);
+        compare("Wilkinson x = 15", ExpressionCompiler.polynomial("(x - 1)(x - 2)(x - 3)(x - 4)(x - 5)(x - 6)"
+                + "(x - 7)(x - 8)(x - 9)(x - 10)(x - 11)(x - 12)(x - 13)(x - 14)(x - 15)(x - 16)(x - 17)(x - 18)"
+                + "(x - 19)(x - 20)"), 14.5, 15.5);
+        compare("(x - 1)^3 (x + 2)", ExpressionCompiler.precise("(x - 1)^3 * (x + 2)"), 0.5, 3);
+        Polynomial fifth = ExpressionCompiler.polynomial("(x - 1)^5");
+        compare("(x - 1)^5 [0.3, 3]", fifth, 0.3, 3, TIGHT);
+        compare("(x - 1)^5 [0.5, 3]", fifth, 0.5, 3, TIGHT);
+        compare("(x - 1)^5 [0, 3]", fifth, 0, 3, TIGHT);
+    }
+
+    private static void compare(String problem, PreciseFunction f, double a, double b) {
+        compare(problem, f, a, b, CONFIG);
+    }
+
+    private static void compare(String problem, PreciseFunction f, double a, double b, SolverConfig config) {
+        RootResult brent = BracketedRootFinder.brent(f, a, b, config, null);
+        AdaptiveSolver.Result adaptive = AdaptiveSolver.solve(f, a, b, config);
+        double brentTime = time(() -> sink = BracketedRootFinder.brent(f, a, b, config, null));
+        double adaptiveTime = time(() -> sink = AdaptiveSolver.solve(f, a, b, config));
+        System.out.printf("%-18s\t| %-21s\t| %-34s\t| %-13s\t| %8.0f\t| %10.0f\n", problem,
+                brent.root + (brent.found() ? "" : " (" + brent.status + ")"),
+                adaptive.exact().round(new MathContext(20)) + (adaptive.verified ? "" : " (not verified)"),
+                adaptive.precision.label, brentTime, adaptiveTime);
+    }
+
+    /**
+     * Median time per solve in ns, in batches of about 10 ms after about WARM_UP_NS of untimed solves
+     */
+    private static double time(Runnable solve) {
+        long start = System.nanoTime();
+        int count = 0;
+        while (System.nanoTime() - start < WARM_UP_NS) {
+            solve.run();
+            count++;
+        }
+        int batch = Math.max(1, count / 30);
+        long[] times = new long[RUNS];
+        for (int run = 0; run < RUNS; run++) {
+            start = System.nanoTime();
+            for (int i = 0; i < batch; i++) {
+                solve.run();
+            }
+            times[run] = System.nanoTime() - start;
+        }
+        Arrays.sort(times);
+        return (double) times[RUNS / 2] / batch;
+    }
+}
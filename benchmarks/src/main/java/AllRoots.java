@@ -0,0 +1,45 @@
+/**
+ * Description: Ways of finding all three roots of function #1, for AllRootsBenchmark:
+ *                  intervals  - Bisection on each of the intervals main() picks by hand
+ *                  precise    - the same, but down to a 1e-15 approximate error
+ *                  scan       - RootScanner over [0, 4]
+ *                  polynomial - Polynomial.realRoots, with no interval at all
+ *
+ *              intervals only gets to RootFinder's 1% approximate error, the others find the roots
+ *              to about the last bit.
+ */
+final class AllRoots {
+
+    private static final SolverConfig PRECISE = SolverConfig.DEFAULT.withRelativeTolerance(1e-15);
+
+    private AllRoots() {
+    }
+
+    static double[] intervals() {
+        return intervals(SolverConfig.DEFAULT);
+    }
+
+    static double[] precise() {
+        return intervals(PRECISE);
+    }
+
+    private static double[] intervals(SolverConfig config) {
+        double[] roots = new double[3];
+        int found = 0;
+        for (int a = 0; a < 4; a++) {
+            RootResult result = RootFinder.bisection(LocateRoots.FUNCTION_1, a, a + 1, config, null);
+            if (result.found()) {
+                roots[found++] = result.root;
+            }
+        }
+        return roots;
+    }
+
+    static double[] scan() {
+        return RootScanner.findAllRoots(LocateRoots.FUNCTION_1, 0, 4);
+    }
+
+    static double[] polynomial() {
+        return LocateRoots.FUNCTION_1_POLYNOMIAL.realRoots();
+    }
+}
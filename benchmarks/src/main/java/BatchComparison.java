@@ -0,0 +1,155 @@
+import java.util.Arrays;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+/**
+ * Description: Compares solving LANES equations of function #2's family, x + b - xcosh(a/x) for a from 40 to 60
+ *              and b = 10, one at a time with RootFinder against BatchSolver, first with the scalar
+ *              LocateRoots.FUNCTION_2_FAMILY and then with LocateRoots.function2BatchFamily(), which is
+ *              VectorFunction2Family, the same family on the JDK Vector API, when the run has the module.
+ *              Bisection starts from [60, 200] and Newton-Raphson from 130.
+ *
+ *              The Vector API is the incubating module jdk.incubator.vector; without it function2BatchFamily()
+ *              is the scalar family, and the vector rows are left out with a note:
+ *                  java --add-modules jdk.incubator.vector -cp benchmarks/target/benchmarks.jar BatchComparison
+ *
+ *              Prints the median ns per lane of RUNS solves of all lanes, the speedup over one at a time, and
+ *              how many lanes end with the same status as one at a time and the largest difference in root.
+ *              BatchSolver runs its blocks on the common fork-join pool, so on more than one processor its
+ *              rows also gain from running in parallel.
+ */
+public class BatchComparison {
+
+    private static final int LANES = 1 << 18;
+    private static final int RUNS = 7;
+    private static final double LOWER = 60;
+    private static final double UPPER = 200;
+    private static final double GUESS = 130;
+
+    private static volatile Object sink; // keeps the JIT from dropping solves
+
+    /**
+     * Main method
+     * @param args the input arguments
+     */
+    public static void main(String[] args) {
+        double[][] parameters = new double[2][LANES];
+        for (int i = 0; i < LANES; i++) {
+            parameters[0][i] = 40 + 20.0 * i / (LANES - 1);
+            parameters[1][i] = 10;
+        }
+        ParametricFunction vector = LocateRoots.function2BatchFamily();
+        if (vector != LocateRoots.FUNCTION_2_FAMILY) {
+            System.out.println(LANES + " lanes, " + Runtime.getRuntime().availableProcessors() + " processors, "
+                    + VectorFunction2Family.lanes() + " doubles per vector");
+        } else {
+            vector = null;
+            System.out.println(LANES + " lanes, " + Runtime.getRuntime().availableProcessors() + " processors, "
+                    + "no jdk.incubator.vector: run with --add-modules jdk.incubator.vector for the vector rows");
+        }
+
+        System.out.println("method    \t| tolerance\t| solver           \t| ns per lane\t| speedup\t| same status"
+                + "\t| max root difference");
+        System.out.println("-----------------------------------------------------------------------------------------"
+                + "-------------------------------------");
+        for (SolverConfig config : new SolverConfig[] {SolverConfig.DEFAULT,
+                SolverConfig.DEFAULT.withRelativeTolerance(1e-12)}) {
+            String tolerance = String.format("%.0e", config.relativeTolerance);
+            double[] lower = new double[LANES];
+            double[] upper = new double[LANES];
+            double[] guess = new double[LANES];
+            Arrays.fill(lower, LOWER);
+            Arrays.fill(upper, UPPER);
+            Arrays.fill(guess, GUESS);
+
+            RealFunction[] point = points(parameters);
+            compare("bisection", tolerance, vector,
+                    () -> oneByOne(point, lane -> RootFinder.bisection(point[lane], LOWER, UPPER, config, null)),
+                    family -> BatchSolver.bisection(family, parameters, lower, upper, config));
+            compare("newton", tolerance, vector,
+                    () -> oneByOne(point, lane -> RootFinder.newtonRaphson(point[lane], GUESS, config, null)),
+                    family -> BatchSolver.newtonRaphson(family, parameters, guess, config));
+        }
+    }
+
+    private static void compare(String method, String tolerance, ParametricFunction vector,
+                                Supplier<BatchSolver.Result> oneByOne,
+                                Function<ParametricFunction, BatchSolver.Result> batch) {
+        BatchSolver.Result reference = oneByOne.get();
+        double base = time(oneByOne);
+        print(method, tolerance, "RootFinder", base, base, reference, reference);
+
+        BatchSolver.Result scalar = batch.apply(LocateRoots.FUNCTION_2_FAMILY);
+        print(method, tolerance, "BatchSolver scalar", time(() -> batch.apply(LocateRoots.FUNCTION_2_FAMILY)), base,
+                scalar, reference);
+        if (vector != null) {
+            BatchSolver.Result vectorResult = batch.apply(vector);
+            print(method, tolerance, "BatchSolver vector", time(() -> batch.apply(vector)), base, vectorResult,
+                    reference);
+        }
+    }
+
+    /**
+     * Each lane's equation as a RealFunction of its own, the same f and f' as the family
+     */
+    private static RealFunction[] points(double[][] parameters) {
+        RealFunction[] point = new RealFunction[LANES];
+        for (int i = 0; i < LANES; i++) {
+            int lane = i;
+            point[i] = new RealFunction() {
+                @Override
+                public double valueAt(double x) {
+                    return LocateRoots.FUNCTION_2_FAMILY.valueAt(x, parameters, lane);
+                }
+
+                @Override
+                public double derivativeAt(double x) {
+                    return LocateRoots.FUNCTION_2_FAMILY.derivativeAt(x, parameters, lane);
+                }
+            };
+        }
+        return point;
+    }
+
+    /**
+     * Solve each lane alone, in BatchSolver's result layout
+     */
+    private static BatchSolver.Result oneByOne(RealFunction[] point, IntFunction<RootResult> solve) {
+        BatchSolver.Result result = new BatchSolver.Result(point.length);
+        for (int lane = 0; lane < point.length; lane++) {
+            RootResult r = solve.apply(lane);
+            result.roots[lane] = r.root;
+            result.iterations[lane] = r.iterations;
+            result.status[lane] = (byte) r.status;
+        }
+        return result;
+    }
+
+    /**
+     * Median time per lane in ns of RUNS solves of all lanes, after one untimed solve
+     */
+    private static double time(Supplier<BatchSolver.Result> solve) {
+        sink = solve.get();
+        long[] times = new long[RUNS];
+        for (int run = 0; run < RUNS; run++) {
+            long start = System.nanoTime();
+            sink = solve.get();
+            times[run] = System.nanoTime() - start;
+        }
+        Arrays.sort(times);
+        return (double) times[RUNS / 2] / LANES;
+    }
+
+    private static void print(String method, String tolerance, String solver, double nanos, double base,
+                              BatchSolver.Result result, BatchSolver.Result reference) {
+        int same = 0;
+        double difference = 0;
+        for (int i = 0; i < LANES; i++) {
+            same += result.status[i] == reference.status[i] ? 1 : 0;
+            difference = Math.max(difference, Math.abs(result.roots[i] - reference.roots[i]));
+        }
+        System.out.printf("%-10s\t| %-9s\t| %-18s\t| %8.1f   \t| %5.2fx \t| %-11d\t| %.3g\n", method, tolerance,
+                solver, nanos, base / nanos, same, difference);
+    }
+}
@@ -0,0 +1,60 @@
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Description: Compares the bracketed methods by how many f(x) evaluations they need for a tolerance.
+ *
+ *              Bisection and False-Position stop at RootFinder's 1% approximate error and cannot be
+ *              asked for more, so they are shown once with the relative error they actually reach.
+ *              Brent, Illinois, Anderson-Björck and Chandrupatla are run down to 1e-2, 1e-6 and 1e-12.
+ *              The true root is Brent's with a zero tolerance, i.e. to the last bit.
+ *
+ *              java -cp benchmarks/target/benchmarks.jar BracketComparison
+ */
+public class BracketComparison {
+
+    private static final double[] TOLERANCES = {1e-2, 1e-6, 1e-12};
+
+    /**
+     * Main method
+     * @param args the input arguments
+     */
+    public static void main(String[] args) {
+        Map<String, Problems.Problem> problems = new LinkedHashMap<>();
+        problems.put("1 [0,1]", new Problems.Problem(LocateRoots.FUNCTION_1, 0, 1));
+        problems.put("1 [1,2]", new Problems.Problem(LocateRoots.FUNCTION_1, 1, 2));
+        for (Map.Entry<String, Problems.Problem> entry : Problems.PROBLEMS.entrySet()) {
+            Problems.Problem p = entry.getValue();
+            problems.put(entry.getKey() + " [" + (int) p.a + "," + (int) p.b + "]", p);
+        }
+
+        System.out.println("problem       \t| method          \t| tolerance\t| f(x) \t| relative error");
+        System.out.println("--------------------------------------------------------------------------------");
+        for (Map.Entry<String, Problems.Problem> entry : problems.entrySet()) {
+            String name = entry.getKey();
+            Problems.Problem p = entry.getValue();
+            double root = BracketedRootFinder.brent(p.function, p.a, p.b, SolverConfig.DEFAULT.withRelativeTolerance(0),
+                    null).root;
+
+            print(name, "bisection", "1% approx", RootFinder.bisection(p.function, p.a, p.b), root);
+            print(name, "falsePosition", "1% approx", RootFinder.falsePosition(p.function, p.a, p.b), root);
+            for (double tolerance : TOLERANCES) {
+                String label = String.format("%.0e", tolerance);
+                SolverConfig config = SolverConfig.DEFAULT.withRelativeTolerance(tolerance);
+                print(name, "brent", label, BracketedRootFinder.brent(p.function, p.a, p.b, config, null), root);
+                print(name, "illinois", label, BracketedRootFinder.illinois(p.function, p.a, p.b, config, null),
+                        root);
+                print(name, "andersonBjorck", label, BracketedRootFinder.andersonBjorck(p.function, p.a, p.b, config,
+                        null), root);
+                print(name, "chandrupatla", label, BracketedRootFinder.chandrupatla(p.function, p.a, p.b, config,
+                        null), root);
+            }
+        }
+    }
+
+    private static void print(String problem, String method, String tolerance, RootResult result, double root) {
+        System.out.printf("%-14s\t| %-15s\t| %-9s\t| %4d \t| %.1e%s\n", problem, method, tolerance,
+                result.evaluations, Math.abs(result.root - root) / Math.abs(root),
+                result.found() ? "" : " (status " + result.status + ")");
+    }
+}
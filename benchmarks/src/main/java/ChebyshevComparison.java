@@ -0,0 +1,96 @@
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Description: Compares ChebyshevRootFinder with RootScanner by the roots each finds, evaluations of f(x) and
+ *              f'(x), and time per search. RootScanner only evaluates f(x).
+ *
+ *              RootScanner samples a grid of 4096 cells and refines every sign change on f, so its cost
+ *              grows with the roots. ChebyshevRootFinder samples f until its interpolant has converged,
+ *              which for a smooth f takes far fewer points, and only goes back to f to polish each root.
+ *              A kink and a pole are not smooth, so the interval has to be split. The last problem is an
+ *              integral that costs about 256 cosines per evaluation, where the evaluations decide the time.
+ *              Time is the median of RUNS timed batches of about 10 ms, after 0.3 s of untimed searches.
+ *              RootScanner runs on the common fork-join pool, ChebyshevRootFinder on one thread.
+ *
+ *              java -cp benchmarks/target/benchmarks.jar ChebyshevComparison
+ */
+public class ChebyshevComparison {
+
+    private static final int RUNS = 21;
+    private static final long WARM_UP_NS = 300_000_000;
+
+    private static volatile Object sink; // keeps the JIT from dropping searches
+
+    /**
+     * Main method
+     * @param args the input arguments
+     */
+    public static void main(String[] args) {
+        System.out.println("problem               \t| roots  \t| scanner f\t| chebyshev f, f'\t| scanner us\t| " +
+                "chebyshev us");
+        System.out.println("---------------------------------------------------------------------------------------" +
+                "------------------------");
+        compare("#1 in [0, 4]", LocateRoots.FUNCTION_1, 0, 4);
+        compare("#2 in [10, 200]", LocateRoots.FUNCTION_2, 10, 200);
+        compare("sin(x) in [0, 1000]", ExpressionCompiler.compile("sin(x)"), 0, 1000);
+        compare("sin(1/x) in [0.05, 1]", ExpressionCompiler.compile("sin(1/x)"), 0.05, 1);
+        compare("(x - 2)^2 (x + 1)", ExpressionCompiler.compile("(x - 2)^2 * (x + 1)"), -3, 4);
+        compare("|x - 0.3| - 0.1", ExpressionCompiler.compile("abs(x - 0.3) - 0.1"), 0, 1);
+        compare("1/x - 1 in [-1, 3]", ExpressionCompiler.compile("1/x - 1"), -1, 3);
+        compare("integral in [0, 30]", ChebyshevComparison::integral, 0, 30);
+    }
+
+    /**
+     * An f(x) that costs what f usually costs outside a textbook, the integral of cos(xt^2) dt from 0 to 1 minus
+     * 0.2, by Simpson's rule on 256 intervals
+     */
+    private static double integral(double x) {
+        int intervals = 256;
+        double h = 1.0 / intervals;
+        double sum = 1 + Math.cos(x);
+        for (int i = 1; i < intervals; i++) {
+            double t = i * h;
+            sum += (i % 2 == 0 ? 2 : 4) * Math.cos(x * t * t);
+        }
+        return sum * h / 3 - 0.2;
+    }
+
+    private static void compare(String problem, RealFunction f, double a, double b) {
+        AtomicInteger scanned = new AtomicInteger(); // RootScanner only needs f(x), from several threads
+        double[] scannerRoots = RootScanner.findAllRoots(x -> {
+            scanned.incrementAndGet();
+            return f.valueAt(x);
+        }, a, b);
+        CountingFunction interpolated = new CountingFunction(f);
+        double[] chebyshevRoots = ChebyshevRootFinder.findAllRoots(interpolated, a, b);
+        double scannerTime = time(() -> sink = RootScanner.findAllRoots(f, a, b));
+        double chebyshevTime = time(() -> sink = ChebyshevRootFinder.findAllRoots(f, a, b));
+        System.out.printf("%-22s\t| %3d %3d\t| %9d\t| %6d %6d\t| %10.1f\t| %10.1f\n", problem,
+                scannerRoots.length, chebyshevRoots.length, scanned.get(),
+                interpolated.values(), interpolated.derivatives(), scannerTime / 1e3, chebyshevTime / 1e3);
+    }
+
+    /**
+     * Median time per search in ns, in batches of about 10 ms after about WARM_UP_NS of untimed searches
+     */
+    private static double time(Runnable search) {
+        long start = System.nanoTime();
+        int count = 0;
+        while (System.nanoTime() - start < WARM_UP_NS) {
+            search.run();
+            count++;
+        }
+        int batch = Math.max(1, count / 30);
+        long[] times = new long[RUNS];
+        for (int run = 0; run < RUNS; run++) {
+            start = System.nanoTime();
+            for (int i = 0; i < batch; i++) {
+                search.run();
+            }
+            times[run] = System.nanoTime() - start;
+        }
+        Arrays.sort(times);
+        return (double) times[RUNS / 2] / batch;
+    }
+}
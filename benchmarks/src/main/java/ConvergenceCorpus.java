@@ -0,0 +1,185 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Description: Test problems for ConvergenceReport, each a function, a starting interval [a, b] and the root
+ *              in it. Bracketing methods start from [a, b], Newton-Raphson and the higher order methods from
+ *              b, and the secant methods from a and b, as in Problems.
+ *
+ *              aps1 to aps15 are the 15 families of Alefeld, Potra and Shi ("Algorithm 748: Enclosing Zeros
+ *              of Continuous Functions", 1995) with their parameters, 176 problems: poles next to the
+ *              bracket (aps2), very flat (aps13) and nearly discontinuous ones (aps14, aps15) among them.
+ *              The rest are functions #1 and #2, #2 started next to its pole at 0, multiple roots,
+ *              Kepler's equation, steep and flat functions, and brackets around a pole with no root in
+ *              them, where no method should report a root.
+ *
+ *              A root that is not given is found by bisecting the sign change down to neighbouring doubles.
+ */
+final class ConvergenceCorpus {
+
+    static final List<Problem> PROBLEMS;
+
+    static {
+        List<Problem> problems = new ArrayList<>();
+        aps(problems);
+        problems.add(new Problem("#1[0,1]", LocateRoots.FUNCTION_1, 0, 1));
+        problems.add(new Problem("#1[1,2]", LocateRoots.FUNCTION_1, 1, 2));
+        problems.add(new Problem("#1[3,4]", LocateRoots.FUNCTION_1, 3, 4));
+        problems.add(new Problem("#2[120,130]", LocateRoots.FUNCTION_2, 120, 130));
+        problems.add(new Problem("#2[10,200]", LocateRoots.FUNCTION_2, 10, 200));
+        problems.add(new Problem("#2[0.5,130]", LocateRoots.FUNCTION_2, 0.5, 130));
+        for (int k = 2; k <= 9; k++) {
+            problems.add(new Problem("multiple.k=" + k, formula("(x - 1)^" + k), 0, 3, 1));
+        }
+        for (double e : new double[] {0.1, 0.5, 0.9, 0.99}) {
+            problems.add(new Problem("kepler.e=" + e, formula("x - " + e + "sin(x) - 1"), 0, 3));
+        }
+        problems.add(new Problem("atan", formula("atan(x - 1)"), 0, 3));
+        for (int k : new int[] {10, 100, 1000}) {
+            problems.add(new Problem("steep.k=" + k, formula("tanh(" + k + "(x - 0.3))"), 0, 1));
+        }
+        problems.add(new Problem("flat.exp", formula("exp(-1/(x - 0.2)^2) - exp(-100)"), 0.2001, 1));
+        problems.add(new Problem("pole.1/(x-1)", formula("1/(x - 1)"), 0, 3, Double.NaN));
+        problems.add(new Problem("pole.tan", formula("tan(x)"), 1, 2, Double.NaN));
+        PROBLEMS = Collections.unmodifiableList(problems);
+    }
+
+    private ConvergenceCorpus() {
+    }
+
+    private static void aps(List<Problem> problems) {
+        problems.add(new Problem("aps1", formula("sin(x) - x/2"), Math.PI / 2, Math.PI));
+        for (int n = 1; n <= 19; n++) {
+            int m = n;
+            problems.add(new Problem("aps2.n=" + n, x -> {
+                double sum = 0;
+                for (int i = 1; i <= 20; i++) {
+                    double d = x - i * i;
+                    sum += (2 * i - 5) * (2 * i - 5) / (d * d * d);
+                }
+                return -2 * sum;
+            }, m * m + 1e-9, (m + 1) * (m + 1) - 1e-9));
+        }
+        int[][] ab = {{-40, -1}, {-100, -2}, {-200, -3}};
+        for (int[] p : ab) {
+            problems.add(new Problem("aps3.a=" + p[0] + ".b=" + p[1], formula(p[0] + "x exp(" + p[1] + "x)"), -9, 31));
+        }
+        for (double a : new double[] {0.2, 1}) {
+            for (int n = 4; n <= 12; n += 2) {
+                problems.add(new Problem("aps4.a=" + a + ".n=" + n, formula("x^" + n + " - " + a), 0, 5));
+            }
+        }
+        for (int n = 8; n <= 14; n += 2) {
+            problems.add(new Problem("aps4.a=1.n=" + n + "[-0.95,4.05]", formula("x^" + n + " - 1"), -0.95, 4.05));
+        }
+        problems.add(new Problem("aps5", formula("sin(x) - 0.5"), 0, 1.5));
+        for (int n : new int[] {1, 2, 3, 4, 5, 20, 40, 60, 80, 100}) {
+            problems.add(new Problem("aps6.n=" + n, formula("2x exp(-" + n + ") - 2exp(-" + n + "x) + 1"), 0, 1));
+        }
+        for (int n : new int[] {5, 10, 20}) {
+            problems.add(new Problem("aps7.n=" + n, formula("(1 + (1 - " + n + ")^2)x - (1 - " + n + "x)^2"), 0, 1));
+        }
+        for (int n : new int[] {2, 5, 10, 15, 20}) {
+            problems.add(new Problem("aps8.n=" + n, formula("x^2 - (1 - x)^" + n), 0, 1));
+        }
+        for (int n : new int[] {1, 2, 4, 5, 8, 15, 20}) {
+            problems.add(new Problem("aps9.n=" + n, formula("(1 + (1 - " + n + ")^4)x - (1 - " + n + "x)^4"), 0, 1));
+        }
+        for (int n : new int[] {1, 5, 10, 15, 20}) {
+            problems.add(new Problem("aps10.n=" + n, formula("exp(-" + n + "x)(x - 1) + x^" + n), 0, 1));
+        }
+        for (int n : new int[] {2, 5, 15, 20}) {
+            problems.add(new Problem("aps11.n=" + n, formula("(" + n + "x - 1)/((" + n + " - 1)x)"), 0.01, 1));
+        }
+        for (int n = 2; n <= 33; n++) {
+            problems.add(new Problem("aps12.n=" + n, formula("x^(1/" + n + ") - " + n + "^(1/" + n + ")"), 1, 100));
+        }
+        problems.add(new Problem("aps13", x -> x == 0 ? 0 : x * Math.exp(-1 / (x * x)), -1, 4, 0));
+        for (int n = 1; n <= 40; n++) {
+            double scale = n / 20.0;
+            problems.add(new Problem("aps14.n=" + n, x -> x >= 0 ? scale * (x / 1.5 + Math.sin(x) - 1) : -scale,
+                    -1e4, Math.PI / 2));
+        }
+        List<Integer> aps15 = new ArrayList<>();
+        for (int n = 20; n <= 40; n++) {
+            aps15.add(n);
+        }
+        for (int n = 100; n <= 1000; n += 100) {
+            aps15.add(n);
+        }
+        for (int n : aps15) {
+            double corner = 2e-3 / (1 + n);
+            problems.add(new Problem("aps15.n=" + n, x -> x < 0 ? -0.859
+                    : x > corner ? Math.E - 1.859 : Math.exp((n + 1) * x / 2 * 1000) - 1.859, -1e4, 1e-4));
+        }
+    }
+
+    private static RealFunction formula(String formula) {
+        return ExpressionCompiler.compile(formula);
+    }
+
+    /**
+     * A function, where the methods start and its root there
+     */
+    static final class Problem {
+        final String name;
+        final RealFunction function;
+        final double a;
+        final double b;
+        final double root; // NaN if there is none in [a, b]
+
+        /**
+         * @param root the root in [a, b], NaN if there is none
+         */
+        Problem(String name, RealFunction function, double a, double b, double root) {
+            this.name = name;
+            this.function = function;
+            this.a = a;
+            this.b = b;
+            this.root = root;
+        }
+
+        /**
+         * A problem where f changes sign once over [a, b]
+         */
+        Problem(String name, RealFunction function, double a, double b) {
+            this(name, function, a, b, bisect(function, a, b));
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%s [%s, %s]", name, a, b);
+        }
+    }
+
+    /**
+     * Bisect a sign change until a and b are neighbouring doubles
+     * @return the end where |f| is smaller
+     */
+    private static double bisect(RealFunction f, double a, double b) {
+        double fa = f.valueAt(a);
+        double fb = f.valueAt(b);
+        if (fa * fb > 0) {
+            throw new IllegalArgumentException("f does not change sign over [" + a + ", " + b + "]");
+        }
+        while (true) {
+            double c = a + (b - a) / 2;
+            if (c <= a || c >= b) {
+                return Math.abs(fa) <= Math.abs(fb) ? a : b;
+            }
+            double fc = f.valueAt(c);
+            if (fc == 0) {
+                return c;
+            }
+            if ((fa < 0) == (fc < 0)) {
+                a = c;
+                fa = fc;
+            } else {
+                b = c;
+                fb = fc;
+            }
+        }
+    }
+}
@@ -0,0 +1,135 @@
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.IntStream;
+
+/**
+ * Description: Runs every method on every problem of ConvergenceCorpus to a relative tolerance of 1e-12 and
+ *              prints, per method, how often it found the root, stopped without one, diverged, hit a zero
+ *              derivative or ran out of iterations, its mean evaluations and iterations, and the error of
+ *              its roots; then one line per problem and method.
+ *
+ *              The error of a root x is |x - root| / max(1, |root|), against the root the corpus gives. A
+ *              method that reports a root on a problem with none in it counts as wrong, as does one whose
+ *              root is more than WRONG from the corpus's.
+ *
+ *              The problems are solved in parallel, but the output depends only on the methods, not on
+ *              timing or thread count, so the report of one version can be diffed against the last one's:
+ *
+ *              java -cp benchmarks/target/benchmarks.jar ConvergenceReport > convergence.txt
+ *              diff benchmarks/convergence.txt convergence.txt
+ */
+public class ConvergenceReport {
+
+    static final SolverConfig CONFIG = SolverConfig.DEFAULT.withRelativeTolerance(1e-12).withFTolerance(1e-6);
+    private static final double WRONG = 1e-6; // error above which a found root is not the corpus's root
+
+    /**
+     * Main method
+     * @param args the input arguments
+     */
+    public static void main(String[] args) {
+        long start = System.nanoTime();
+        List<ConvergenceCorpus.Problem> problems = ConvergenceCorpus.PROBLEMS;
+        RootMethod[] methods = RootMethod.values();
+        RootResult[][] results = new RootResult[problems.size()][];
+        IntStream.range(0, problems.size()).parallel().forEach(i -> {
+            ConvergenceCorpus.Problem p = problems.get(i);
+            results[i] = new RootResult[methods.length];
+            for (int m = 0; m < methods.length; m++) {
+                results[i][m] = solve(methods[m], p);
+            }
+        });
+        long elapsed = System.nanoTime() - start;
+
+        System.out.printf(Locale.ROOT, "%d problems, relative tolerance %.0e, f tolerance %.0e, at most %d " +
+                "iterations\n\n", problems.size(), CONFIG.relativeTolerance, CONFIG.fTolerance, CONFIG.maxIterations);
+        System.out.println("method          \t| found\t| wrong\t| no root\t| diverged\t| f' = 0\t| max it.\t| " +
+                "evals\t| iterations\t| median error\t| worst error");
+        System.out.println("---------------------------------------------------------------------------------------" +
+                "---------------------------------------------------");
+        for (int m = 0; m < methods.length; m++) {
+            summary(methods[m], problems, results, m);
+        }
+
+        System.out.println("\nproblem                         \t| method          \t| status\t| iterations\t| " +
+                "f(x)\t| f'(x)\t| error");
+        System.out.println("---------------------------------------------------------------------------------------" +
+                "-----------------");
+        for (int i = 0; i < problems.size(); i++) {
+            for (int m = 0; m < methods.length; m++) {
+                RootResult r = results[i][m];
+                System.out.printf(Locale.ROOT, "%-32s\t| %-15s\t| %-8s\t| %10d\t| %4d\t| %5d\t| %s\n",
+                        problems.get(i).name, methods[m].label, status(r, problems.get(i)), r.iterations,
+                        r.evaluations, r.derivativeEvaluations, format(error(r, problems.get(i))));
+            }
+        }
+        System.err.printf(Locale.ROOT, "%d solves in %.0f ms\n", problems.size() * methods.length, elapsed / 1e6);
+    }
+
+    private static RootResult solve(RootMethod method, ConvergenceCorpus.Problem p) {
+        try {
+            return PortfolioSolver.run(method, p.function, p.a, p.b, CONFIG);
+        } catch (IllegalArgumentException | ArithmeticException e) { // e.g. no sign change for Brent
+            return new RootResult(method, Double.NaN, Double.NaN, Double.NaN, 0, RootResult.NO_ROOT, 0, 0);
+        }
+    }
+
+    private static void summary(RootMethod method, List<ConvergenceCorpus.Problem> problems, RootResult[][] results,
+                                int m) {
+        int[] counts = new int[6]; // found, wrong, no root, diverging, zero derivative, max iterations
+        long evaluations = 0;
+        long iterations = 0;
+        double[] errors = new double[problems.size()];
+        int found = 0;
+        for (int i = 0; i < problems.size(); i++) {
+            RootResult r = results[i][m];
+            String status = status(r, problems.get(i));
+            switch (status) {
+                case "found": counts[0]++; break;
+                case "wrong": counts[1]++; break;
+                case "diverged": counts[3]++; break;
+                case "f'=0": counts[4]++; break;
+                case "max it.": counts[5]++; break;
+                default: counts[2]++; break;
+            }
+            evaluations += r.evaluations + r.derivativeEvaluations;
+            iterations += r.iterations;
+            if (status.equals("found")) {
+                errors[found++] = error(r, problems.get(i));
+            }
+        }
+        Arrays.sort(errors, 0, found);
+        System.out.printf(Locale.ROOT, "%-15s\t| %5d\t| %5d\t| %7d\t| %8d\t| %6d\t| %7d\t| %5.1f\t| %10.1f\t| " +
+                "%12s\t| %s\n", method.label, counts[0], counts[1], counts[2], counts[3], counts[4], counts[5],
+                (double) evaluations / problems.size(), (double) iterations / problems.size(),
+                found == 0 ? "-" : format(errors[found / 2]), found == 0 ? "-" : format(errors[found - 1]));
+    }
+
+    /**
+     * found (and right), wrong (a root reported that is not the corpus's), or why the method stopped
+     */
+    private static String status(RootResult r, ConvergenceCorpus.Problem p) {
+        switch (r.status) {
+            case RootResult.FOUND: return error(r, p) <= WRONG ? "found" : "wrong";
+            case RootResult.DIVERGING: return "diverged";
+            case RootResult.ZERO_DERIVATIVE: return "f'=0";
+            case RootResult.MAX_ITERATIONS: return "max it.";
+            default: return "no root";
+        }
+    }
+
+    /**
+     * |x - root| / max(1, |root|), infinite if there is no root to compare with
+     */
+    private static double error(RootResult r, ConvergenceCorpus.Problem p) {
+        if (Double.isNaN(p.root) || Double.isNaN(r.root)) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return Math.abs(r.root - p.root) / Math.max(1, Math.abs(p.root));
+    }
+
+    private static String format(double error) {
+        return Double.isInfinite(error) ? "-" : String.format(Locale.ROOT, "%.1e", error);
+    }
+}
@@ -0,0 +1,38 @@
+/**
+ * Description: Prints how many times each method evaluates f(x) and f'(x) to solve each benchmark
+ *              problem. The counts do not change from run to run, so they are measured once here
+ *              rather than inside the timed JMH benchmark.
+ *
+ *              java -cp benchmarks/target/benchmarks.jar EvaluationCounts
+ */
+public class EvaluationCounts {
+
+    /**
+     * Main method
+     * @param args the input arguments
+     */
+    public static void main(String[] args) {
+        System.out.println("problem \t| method          \t| f(x) \t| f'(x) to f'''(x)");
+        System.out.println("----------------------------------------------------------");
+        for (String name : Problems.PROBLEMS.keySet()) {
+            Problems.Problem p = Problems.get(name);
+            print(name, "bisection", RootFinder.bisection(p.function, p.a, p.b));
+            print(name, "newtonRaphson", RootFinder.newtonRaphson(p.function, p.b));
+            print(name, "secant", RootFinder.secant(p.function, p.a, p.b));
+            print(name, "falsePosition", RootFinder.falsePosition(p.function, p.a, p.b));
+            print(name, "modifiedSecant", RootFinder.modifiedSecant(p.function, p.a, p.b));
+            print(name, "brent", BracketedRootFinder.brent(p.function, p.a, p.b));
+            print(name, "illinois", BracketedRootFinder.illinois(p.function, p.a, p.b));
+            print(name, "andersonBjorck", BracketedRootFinder.andersonBjorck(p.function, p.a, p.b));
+            print(name, "chandrupatla", BracketedRootFinder.chandrupatla(p.function, p.a, p.b));
+            print(name, "halley", HigherOrderRootFinder.halley(p.function, p.b));
+            print(name, "householder", HigherOrderRootFinder.householder(p.function, p.b));
+            print(name, "ostrowski", HigherOrderRootFinder.ostrowski(p.function, p.b));
+        }
+    }
+
+    private static void print(String problem, String method, RootResult result) {
+        System.out.printf("%-8s\t| %-15s\t| %4d \t| %4d\n", problem, method, result.evaluations,
+                result.derivativeEvaluations);
+    }
+}
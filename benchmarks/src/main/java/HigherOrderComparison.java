@@ -0,0 +1,75 @@
+import java.util.Arrays;
+
+/**
+ * Description: Compares Halley, Householder and Ostrowski with Newton-Raphson and Secant on functions #1
+ *              and #2, by iterations, evaluations of f(x) and of its derivatives, and time per solve, at
+ *              the default 1% and at 1e-12.
+ *
+ *              Function #1 starts from the guesses main() uses, 1, 2, 3 and 4 (Secant from 0 and 1, and
+ *              so on), function #2 from 130 (Secant from 120 and 130). Time is the median of RUNS timed
+ *              batches of BATCH solves, after the same number of untimed ones.
+ *
+ *              java -cp benchmarks/target/benchmarks.jar HigherOrderComparison
+ */
+public class HigherOrderComparison {
+
+    private static final int RUNS = 51;
+    private static final int BATCH = 2000;
+
+    private static volatile Object sink; // keeps the JIT from dropping solves
+
+    private interface Solver {
+        RootResult solve(RealFunction f, double previous, double x, SolverConfig config);
+    }
+
+    /**
+     * Main method
+     * @param args the input arguments
+     */
+    public static void main(String[] args) {
+        System.out.println("problem \t| tolerance\t| method       \t| iterations\t| f(x)\t| f'..f'''\t| ns / solve");
+        System.out.println("--------------------------------------------------------------------------------------------");
+        for (SolverConfig config : new SolverConfig[] {SolverConfig.DEFAULT,
+                SolverConfig.DEFAULT.withRelativeTolerance(1e-12)}) {
+            String tolerance = String.format("%.0e", config.relativeTolerance);
+            for (int guess = 1; guess <= 4; guess++) {
+                compare("1 x=" + guess, LocateRoots.FUNCTION_1, guess - 1, guess, tolerance, config);
+            }
+            compare("2 x=130", LocateRoots.FUNCTION_2, 120, 130, tolerance, config);
+        }
+    }
+
+    private static void compare(String problem, RealFunction f, double previous, double x, String tolerance,
+                                SolverConfig config) {
+        print(problem, tolerance, "newtonRaphson", f, previous, x, config,
+                (g, p, y, c) -> RootFinder.newtonRaphson(g, y, c, null));
+        print(problem, tolerance, "secant", f, previous, x, config,
+                (g, p, y, c) -> RootFinder.secant(g, p, y, c, null));
+        print(problem, tolerance, "halley", f, previous, x, config,
+                (g, p, y, c) -> HigherOrderRootFinder.halley(g, y, c, null));
+        print(problem, tolerance, "householder", f, previous, x, config,
+                (g, p, y, c) -> HigherOrderRootFinder.householder(g, y, c, null));
+        print(problem, tolerance, "ostrowski", f, previous, x, config,
+                (g, p, y, c) -> HigherOrderRootFinder.ostrowski(g, y, c, null));
+    }
+
+    private static void print(String problem, String tolerance, String method, RealFunction f, double previous,
+                              double x, SolverConfig config, Solver solver) {
+        RootResult result = solver.solve(f, previous, x, config);
+        for (int i = 0; i < RUNS * BATCH; i++) { // warm up
+            sink = solver.solve(f, previous, x, config);
+        }
+        long[] times = new long[RUNS];
+        for (int run = 0; run < RUNS; run++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < BATCH; i++) {
+                sink = solver.solve(f, previous, x, config);
+            }
+            times[run] = System.nanoTime() - start;
+        }
+        Arrays.sort(times);
+        System.out.printf("%-8s\t| %-9s\t| %-13s\t| %4d %s\t| %4d\t| %4d   \t| %8.1f\n", problem, tolerance, method,
+                result.iterations, result.found() ? "     " : "(" + result.status + ")  ", result.evaluations,
+                result.derivativeEvaluations, (double) times[RUNS / 2] / BATCH);
+    }
+}
@@ -0,0 +1,81 @@
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Description: Compares IntervalRootFinder with RootScanner by the roots each finds and time per search.
+ *              IntervalRootFinder also says how many of its roots are proved and how many boxes it could not
+ *              decide, around a multiple root or a pole.
+ *
+ *              RootScanner samples a grid of 4096 cells, so two roots closer than a cell look like none, and a
+ *              root it reports is only where |f| was small. IntervalRootFinder drops every box where f
+ *              cannot be 0 and proves the rest, so its cost follows the roots rather than the width of the
+ *              interval, as x^2 + 1 over [-1e6, 1e6] shows.
+ *              Time is the median of RUNS timed batches, after 0.3 s of untimed searches. Both run on the
+ *              common fork-join pool.
+ *
+ *              java -cp benchmarks/target/benchmarks.jar IntervalComparison
+ */
+public class IntervalComparison {
+
+    private static final int RUNS = 21;
+    private static final long WARM_UP_NS = 300_000_000;
+
+    private static volatile Object sink; // keeps the JIT from dropping searches
+
+    /**
+     * Main method
+     * @param args the input arguments
+     */
+    public static void main(String[] args) {
+        System.out.println("problem                    \t| scanner roots\t| proved undecided\t| scanner us\t| " +
+                "interval us");
+        System.out.println("---------------------------------------------------------------------------------------" +
+                "--------------------");
+        compare("#1 in [0, 4]", LocateRoots.FUNCTION_1_POLYNOMIAL, 0, 4);
+        compare("#2 in [10, 200]", "x + 10 - x*cosh(50/x)", 10, 200);
+        compare("sin(x) in [0, 1000]", "sin(x)", 0, 1000);
+        compare("(x - 1)(x - 1.000001)", "(x - 1)*(x - 1.000001)", 0, 2);
+        compare("(x - 2)^2 (x + 1)", "(x - 2)^2 * (x + 1)", -3, 4);
+        compare("|x - 0.3| - 0.1", "abs(x - 0.3) - 0.1", 0, 1);
+        compare("1/x - 1 in [-1, 3]", "1/x - 1", -1, 3);
+        compare("sin(1/x) in [0.05, 1]", "sin(1/x)", 0.05, 1);
+        compare("x^2 + 1 in [-1e6, 1e6]", "x^2 + 1", -1e6, 1e6);
+    }
+
+    private static void compare(String problem, String formula, double a, double b) {
+        compare(problem, ExpressionCompiler.interval(formula), a, b);
+    }
+
+    private static void compare(String problem, IntervalFunction f, double a, double b) {
+        double[] scannerRoots = RootScanner.findAllRoots(f, a, b);
+        List<IntervalRootFinder.Enclosure> enclosures = IntervalRootFinder.findAllRoots(f, a, b);
+        long proved = enclosures.stream().filter(e -> e.unique).count();
+        double scannerTime = time(() -> sink = RootScanner.findAllRoots(f, a, b));
+        double intervalTime = time(() -> sink = IntervalRootFinder.findAllRoots(f, a, b));
+        System.out.printf("%-27s\t| %13d\t| %6d %9d\t| %10.1f\t| %10.1f\n", problem, scannerRoots.length, proved,
+                enclosures.size() - proved, scannerTime / 1e3, intervalTime / 1e3);
+    }
+
+    /**
+     * Median time per search in ns, in batches of about 10 ms after about WARM_UP_NS of untimed searches
+     */
+    private static double time(Runnable search) {
+        long start = System.nanoTime();
+        int count = 0;
+        while (System.nanoTime() - start < WARM_UP_NS) {
+            search.run();
+            count++;
+        }
+        int batch = Math.max(1, count / 30);
+        long[] times = new long[RUNS];
+        for (int run = 0; run < RUNS; run++) {
+            start = System.nanoTime();
+            for (int i = 0; i < batch; i++) {
+                search.run();
+            }
+            times[run] = System.nanoTime() - start;
+        }
+        Arrays.sort(times);
+        return (double) times[RUNS / 2] / batch;
+    }
+}
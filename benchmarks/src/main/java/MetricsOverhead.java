@@ -0,0 +1,111 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Locale;
+import jdk.jfr.Recording;
+
+/**
+ * Description: Time per solve with SolverMetrics off, counting, and recording a SolveEvent for every solve to
+ *              JDK Flight Recorder, on solves of a few hundred nanoseconds, where the cost shows most.
+ *
+ *              Each of the three is timed in a JVM of its own, so the code one has run does not change how
+ *              the JIT compiles the solves for the next.
+ *              Time is the median of RUNS timed batches, after 0.3 s of untimed solves.
+ *
+ *              java -cp benchmarks/target/benchmarks.jar MetricsOverhead
+ */
+public class MetricsOverhead {
+
+    private static final int RUNS = 21;
+    private static final long WARM_UP_NS = 300_000_000;
+    private static final RootMethod[] METHODS = {RootMethod.BISECTION, RootMethod.NEWTON_RAPHSON,
+            RootMethod.BRENT, RootMethod.HALLEY};
+
+    private static volatile Object sink; // keeps the JIT from dropping solves
+
+    /**
+     * Main method
+     * @param args none to time every mode, each in its own JVM; or off, counting or jfr to time one and print
+     *             the times on one line
+     * @throws IOException if a JVM cannot be started
+     * @throws InterruptedException if interrupted while waiting for one
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length > 0) {
+            RealFunction formula = ExpressionCompiler.compile("x + 10 - xcosh(50/x)");
+            double[] times = new double[METHODS.length * 2];
+            if (args[0].equals("counting")) {
+                SolverMetrics.enable(true);
+            }
+            if (args[0].equals("jfr")) {
+                try (Recording recording = new Recording()) {
+                    recording.enable(SolveEvent.class);
+                    recording.start();
+                    timeAll(formula, times);
+                }
+            } else {
+                timeAll(formula, times);
+            }
+            StringBuilder line = new StringBuilder();
+            for (double time : times) {
+                line.append(time).append(' ');
+            }
+            System.out.println(line.toString().trim());
+            return;
+        }
+
+        String[] modes = {"off", "counting", "jfr"};
+        double[][] times = new double[modes.length][];
+        for (int i = 0; i < modes.length; i++) { // a fresh JVM each, so one mode's profile does not slow another
+            Process process = new ProcessBuilder(Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+                    "-cp", System.getProperty("java.class.path"), "MetricsOverhead", modes[i])
+                    .redirectError(ProcessBuilder.Redirect.DISCARD).start();
+            String line = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8).trim();
+            if (process.waitFor() != 0) {
+                throw new IllegalStateException("Timing " + modes[i] + " failed");
+            }
+            times[i] = Arrays.stream(line.split(" ")).mapToDouble(Double::parseDouble).toArray();
+        }
+
+        System.out.println("method          \t| function\t| off ns\t| counting ns\t| JFR ns");
+        System.out.println("-----------------------------------------------------------------------");
+        for (int i = 0; i < times[0].length; i++) {
+            System.out.printf(Locale.ROOT, "%-15s\t| %-8s\t| %6.0f\t| %11.0f\t| %6.0f\n", METHODS[i / 2].label,
+                    i % 2 == 0 ? "#1" : "formula", times[0][i], times[1][i], times[2][i]);
+        }
+    }
+
+    /**
+     * Time each method on #1 over [0, 1] and on #2 compiled from a formula over [120, 130]
+     */
+    private static void timeAll(RealFunction formula, double[] times) {
+        for (int m = 0; m < METHODS.length; m++) {
+            RootMethod method = METHODS[m];
+            times[2 * m] = time(() -> sink = PortfolioSolver.run(method, LocateRoots.FUNCTION_1, 0, 1,
+                    SolverConfig.DEFAULT));
+            times[2 * m + 1] = time(() -> sink = PortfolioSolver.run(method, formula, 120, 130,
+                    SolverConfig.DEFAULT));
+        }
+    }
+
+    private static double time(Runnable run) {
+        long start = System.nanoTime();
+        int count = 0;
+        while (System.nanoTime() - start < WARM_UP_NS) {
+            run.run();
+            count++;
+        }
+        int batch = Math.max(1, count / 30);
+        long[] times = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            start = System.nanoTime();
+            for (int j = 0; j < batch; j++) {
+                run.run();
+            }
+            times[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(times);
+        return (double) times[RUNS / 2] / batch;
+    }
+}
@@ -0,0 +1,101 @@
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Description: Compares the time to a root of racing all methods with PortfolioSolver against running
+ *              them one after another, in PortfolioSolver's order, until one finds a root.
+ *
+ *              Every evaluation of f is made to cost about COST_NANOS more by spinning, as for an
+ *              expensive f where the time spent in f dominates. The median and the slowest solve are
+ *              printed for each problem from Problems, plus cbrt(x - 1) where Newton-Raphson doubles its
+ *              distance from the root every iteration and only stops after MAX iterations.
+ *
+ *              java -cp benchmarks/target/benchmarks.jar PortfolioLatency
+ */
+public class PortfolioLatency {
+
+    private static final long COST_NANOS = 20_000;
+    private static final int RUNS = 200;
+
+    /**
+     * Main method
+     * @param args the input arguments
+     */
+    public static void main(String[] args) {
+        System.out.println(PortfolioSolver.THREADS + " threads, " + Runtime.getRuntime().availableProcessors()
+                + " processors, f(x) costs " + COST_NANOS / 1000 + " us");
+        System.out.println("problem \t| mode       \t| winner          \t| median ms\t| max ms");
+        System.out.println("--------------------------------------------------------------------------------");
+        Map<String, Problems.Problem> problems = new LinkedHashMap<>(Problems.PROBLEMS);
+        problems.put("cbrt", new Problems.Problem(ExpressionCompiler.compile("cbrt(x - 1)"), 0, 3));
+        for (Map.Entry<String, Problems.Problem> entry : problems.entrySet()) {
+            Problems.Problem p = entry.getValue();
+            RealFunction f = expensive(p.function);
+            for (int i = 0; i < RUNS; i++) { // warm up both modes before timing either
+                oneByOne(f, p.a, p.b);
+                PortfolioSolver.solve(f, p.a, p.b);
+            }
+            measure(entry.getKey(), "one by one", () -> oneByOne(f, p.a, p.b));
+            measure(entry.getKey(), "race", () -> PortfolioSolver.solve(f, p.a, p.b));
+        }
+    }
+
+    /**
+     * Run the methods in order until one finds a root
+     */
+    private static RootResult oneByOne(RealFunction f, double a, double b) {
+        RootResult best = null;
+        for (RootMethod method : PortfolioSolver.ALL_METHODS) {
+            RootResult result = PortfolioSolver.run(method, f, a, b, SolverConfig.DEFAULT);
+            if (result.found()) {
+                return result;
+            }
+            best = best == null || Math.abs(result.fx) < Math.abs(best.fx) ? result : best;
+        }
+        return best;
+    }
+
+    private static void measure(String problem, String mode, Supplier<RootResult> solve) {
+        long[] times = new long[RUNS];
+        RootResult result = null;
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            result = solve.get();
+            times[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(times);
+        System.out.printf("%-8s\t| %-10s\t| %-15s\t| %9.3f\t| %7.3f\n", problem, mode,
+                result.found() ? result.method.label : "none", times[RUNS / 2] / 1e6, times[RUNS - 1] / 1e6);
+    }
+
+    private static RealFunction expensive(RealFunction f) {
+        return new RealFunction() {
+            @Override
+            public double valueAt(double x) {
+                spin();
+                return f.valueAt(x);
+            }
+
+            @Override
+            public double derivativeAt(double x) {
+                spin();
+                return f.derivativeAt(x);
+            }
+
+            @Override
+            public void evaluate(double x, Dual out) {
+                spin();
+                f.evaluate(x, out);
+            }
+        };
+    }
+
+    private static void spin() {
+        long end = System.nanoTime() + COST_NANOS;
+        while (System.nanoTime() < end) {
+            Thread.onSpinWait();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Description: Benchmark problems. Functions #1 and #2 with the intervals used in main(), plus
+ *              harder functions given as formulas:
+ *                  multiple - (x - 1)^3, a triple root where f' = 0 at the root
+ *                  kepler   - Kepler's equation x - 0.9sin(x) - 1 for a high eccentricity orbit
+ *                  atan     - atan(x - 1), Newton-Raphson diverges when started more than ~1.39 away
+ */
+final class Problems {
+
+    static final Map<String, Problem> PROBLEMS = new LinkedHashMap<>();
+
+    static {
+        PROBLEMS.put("1", new Problem(LocateRoots.FUNCTION_1, 3, 4));
+        PROBLEMS.put("2", new Problem(LocateRoots.FUNCTION_2, 120, 130));
+        PROBLEMS.put("multiple", new Problem(ExpressionCompiler.compile("(x - 1)^3"), 0, 3));
+        PROBLEMS.put("kepler", new Problem(ExpressionCompiler.compile("x - 0.9sin(x) - 1"), 0, 3));
+        PROBLEMS.put("atan", new Problem(ExpressionCompiler.compile("atan(x - 1)"), 0, 3));
+    }
+
+    private Problems() {
+    }
+
+    /**
+     * Get a problem as plain objects, for SolverBenchmark
+     * @param name problem name
+     * @return function, a and b
+     */
+    static Object[] setUp(String name) {
+        Problem problem = get(name);
+        return new Object[] {problem.function, problem.a, problem.b};
+    }
+
+    static Problem get(String name) {
+        Problem problem = PROBLEMS.get(name);
+        if (problem == null) {
+            throw new IllegalArgumentException("Unknown problem " + name);
+        }
+        return problem;
+    }
+
+    /**
+     * A function with the interval [a, b] the methods start from. Bracketing methods use [a, b],
+     * Newton-Raphson starts at b and the secant methods at a and b, as main() does for function #2.
+     */
+    static final class Problem {
+        final RealFunction function;
+        final double a;
+        final double b;
+
+        Problem(RealFunction function, double a, double b) {
+            this.function = function;
+            this.a = a;
+            this.b = b;
+        }
+    }
+}
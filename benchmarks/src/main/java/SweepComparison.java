@@ -0,0 +1,103 @@
+/**
+ * Description: Compares Newton-Raphson iterations per point over parameter sweeps of function #2,
+ *              x + b - xcosh(a/x), started from the fixed guess 130 every time, from the previous root,
+ *              and from the line through the last two roots (ContinuationSolver).
+ *
+ *              The last sweep, x^2 - p for p from 1 down to -1, loses its root halfway, to show the
+ *              points where the branch disappears.
+ *
+ *              java -cp benchmarks/target/benchmarks.jar SweepComparison
+ */
+public class SweepComparison {
+
+    private static final int POINTS = 2001;
+    private static final double FIXED_GUESS = 130;
+
+    // f(x) = x^2 - p, parameters[0] = p
+    private static final ParametricFunction SQUARE = new ParametricFunction() {
+        @Override
+        public double valueAt(double x, double[][] parameters, int lane) {
+            return x * x - parameters[0][lane];
+        }
+
+        @Override
+        public double derivativeAt(double x, double[][] parameters, int lane) {
+            return 2 * x;
+        }
+    };
+
+    /**
+     * Main method
+     * @param args the input arguments
+     */
+    public static void main(String[] args) {
+        double[][] a = new double[2][POINTS]; // a from 40 to 60, b = 10
+        double[][] ab = new double[2][POINTS]; // a from 40 to 60 and b from 15 to 8 together
+        for (int i = 0; i < POINTS; i++) {
+            double t = (double) i / (POINTS - 1);
+            a[0][i] = 40 + 20 * t;
+            a[1][i] = 10;
+            ab[0][i] = 40 + 20 * t;
+            ab[1][i] = 15 - 7 * t;
+        }
+
+        System.out.println("sweep        \t| tolerance\t| start          \t| iterations\t| evaluations\t| bracketed");
+        System.out.println("-----------------------------------------------------------------------------------------");
+        for (SolverConfig config : new SolverConfig[] {SolverConfig.DEFAULT,
+                SolverConfig.DEFAULT.withRelativeTolerance(1e-12)}) {
+            String tolerance = String.format("%.0e", config.relativeTolerance);
+            compare("a 40..60", a, tolerance, config);
+            compare("a, b together", ab, tolerance, config);
+        }
+
+        double[][] p = new double[1][21];
+        for (int i = 0; i < 21; i++) {
+            p[0][i] = 1 - 0.1 * i;
+        }
+        ContinuationSolver.Sweep sweep = ContinuationSolver.solve(SQUARE, p, 0, 2);
+        System.out.println("\nx^2 - p, p from 1 to -1:");
+        for (int i = 0; i < 21; i++) {
+            System.out.printf("   p = %5.2f  root = %-10.6f status = %d%s\n", p[0][i], sweep.roots[i], sweep.status[i],
+                    sweep.restarted[i] ? " (bracketed search)" : "");
+        }
+    }
+
+    private static void compare(String name, double[][] parameters, String tolerance, SolverConfig config) {
+        long iterations = 0;
+        long evaluations = 0;
+        int[] lane = new int[1];
+        RealFunction point = new RealFunction() { // the same f and f' as the sweeps below
+            @Override
+            public double valueAt(double x) {
+                return LocateRoots.FUNCTION_2_FAMILY.valueAt(x, parameters, lane[0]);
+            }
+
+            @Override
+            public double derivativeAt(double x) {
+                return LocateRoots.FUNCTION_2_FAMILY.derivativeAt(x, parameters, lane[0]);
+            }
+        };
+        for (int i = 0; i < POINTS; i++) {
+            lane[0] = i;
+            RootResult result = RootFinder.newtonRaphson(point, FIXED_GUESS, config, null);
+            iterations += result.iterations;
+            evaluations += result.evaluations + result.derivativeEvaluations;
+        }
+        print(name, tolerance, "fixed guess 130", (double) iterations / POINTS, (double) evaluations / POINTS, 0);
+
+        ContinuationSolver.Sweep warm = ContinuationSolver.solve(LocateRoots.FUNCTION_2_FAMILY, parameters, 50, 300,
+                false, config);
+        print(name, tolerance, "previous root", warm.averageIterations(), warm.averageEvaluations(),
+                warm.restarts());
+        ContinuationSolver.Sweep line = ContinuationSolver.solve(LocateRoots.FUNCTION_2_FAMILY, parameters, 50, 300,
+                true, config);
+        print(name, tolerance, "extrapolated", line.averageIterations(), line.averageEvaluations(),
+                line.restarts());
+    }
+
+    private static void print(String sweep, String tolerance, String start, double iterations, double evaluations,
+                              int bracketed) {
+        System.out.printf("%-13s\t| %-9s\t| %-15s\t| %6.2f   \t| %6.2f   \t| %d\n", sweep, tolerance, start, iterations,
+                evaluations, bracketed);
+    }
+}
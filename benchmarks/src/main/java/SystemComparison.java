@@ -0,0 +1,191 @@
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Description: Compares Newton's Method with an analytic Jacobian, Newton's Method with forward differences and
+ *              Broyden's Method on small systems, by iterations, evaluations of F, Jacobians, bytes allocated
+ *              and time per solve, to 1e-12.
+ *
+ *              The problems are functions #1 and #2 coupled into one system, and Broyden's tridiagonal
+ *              function with 10 and 100 unknowns. Bytes per solve should not grow with the iterations,
+ *              since the solver works in the same arrays and only allocates its result. The last rows
+ *              solve the coupled system from 100000 random guesses, one after another on one SystemSolver
+ *              and with solveAll on the common fork-join pool.
+ *              Time is the median of RUNS timed batches, after 0.3 s of untimed solves.
+ *
+ *              java -cp benchmarks/target/benchmarks.jar SystemComparison
+ */
+public class SystemComparison {
+
+    private static final int RUNS = 21;
+    private static final long WARM_UP_NS = 300_000_000;
+    private static final int GUESSES = 100_000;
+    private static final SolverConfig CONFIG = SolverConfig.DEFAULT.withRelativeTolerance(1e-12).withFTolerance(1e-9);
+
+    private static volatile Object sink; // keeps the JIT from dropping solves
+
+    /**
+     * f1 = #1(x) - (y - 126) / 100, f2 = #2(y) + x: two equations of the same kind as #1 and #2
+     */
+    private static final class Coupled implements VectorFunction {
+        private final boolean analytic;
+
+        Coupled(boolean analytic) {
+            this.analytic = analytic;
+        }
+
+        @Override
+        public int dimension() {
+            return 2;
+        }
+
+        @Override
+        public void valueAt(double[] x, double[] fx) {
+            fx[0] = LocateRoots.FUNCTION_1.valueAt(x[0]) - (x[1] - 126) / 100;
+            fx[1] = LocateRoots.FUNCTION_2.valueAt(x[1]) + x[0];
+        }
+
+        @Override
+        public void jacobianAt(double[] x, double[] fx, double[] jacobian, double[] work) {
+            if (!analytic) {
+                VectorFunction.super.jacobianAt(x, fx, jacobian, work);
+                return;
+            }
+            jacobian[0] = LocateRoots.FUNCTION_1.derivativeAt(x[0]);
+            jacobian[1] = -0.01;
+            jacobian[2] = 1;
+            jacobian[3] = LocateRoots.FUNCTION_2.derivativeAt(x[1]);
+        }
+    }
+
+    /**
+     * Broyden's tridiagonal function, fi = (3 - 2xi) xi - x(i-1) - 2x(i+1) + 1 with x0 = x(n+1) = 0
+     */
+    private static final class Tridiagonal implements VectorFunction {
+        private final int n;
+        private final boolean analytic;
+
+        Tridiagonal(int n, boolean analytic) {
+            this.n = n;
+            this.analytic = analytic;
+        }
+
+        @Override
+        public int dimension() {
+            return n;
+        }
+
+        @Override
+        public void valueAt(double[] x, double[] fx) {
+            for (int i = 0; i < n; i++) {
+                double left = i > 0 ? x[i - 1] : 0;
+                double right = i < n - 1 ? x[i + 1] : 0;
+                fx[i] = (3 - 2 * x[i]) * x[i] - left - 2 * right + 1;
+            }
+        }
+
+        @Override
+        public void jacobianAt(double[] x, double[] fx, double[] jacobian, double[] work) {
+            if (!analytic) {
+                VectorFunction.super.jacobianAt(x, fx, jacobian, work);
+                return;
+            }
+            Arrays.fill(jacobian, 0);
+            for (int i = 0; i < n; i++) {
+                jacobian[i * n + i] = 3 - 4 * x[i];
+                if (i > 0) {
+                    jacobian[i * n + i - 1] = -1;
+                }
+                if (i < n - 1) {
+                    jacobian[i * n + i + 1] = -2;
+                }
+            }
+        }
+    }
+
+    /**
+     * Main method
+     * @param args the input arguments
+     */
+    public static void main(String[] args) {
+        System.out.println("problem           \t| method             \t| iterations\t| F\t| J\t| bytes\t| us / solve");
+        System.out.println("---------------------------------------------------------------------------------------" +
+                "-------------");
+        double[] tridiagonal10 = new double[10];
+        Arrays.fill(tridiagonal10, -1);
+        double[] tridiagonal100 = new double[100];
+        Arrays.fill(tridiagonal100, -1);
+        compare("coupled #1, #2", new Coupled(true), new Coupled(false), new double[] {3, 130});
+        compare("tridiagonal 10", new Tridiagonal(10, true), new Tridiagonal(10, false), tridiagonal10);
+        compare("tridiagonal 100", new Tridiagonal(100, true), new Tridiagonal(100, false), tridiagonal100);
+
+        Random random = new Random(42);
+        double[][] guesses = new double[GUESSES][];
+        for (int i = 0; i < GUESSES; i++) {
+            guesses[i] = new double[] {3 + random.nextDouble(), 120 + 20 * random.nextDouble()};
+        }
+        VectorFunction[] coupled = {new Coupled(true)};
+        SystemSolver solver = new SystemSolver(2);
+        double sequential = time(() -> {
+            SystemResult last = null;
+            for (double[] guess : guesses) {
+                last = solver.solve(coupled[0], guess, SystemSolver.Method.NEWTON, CONFIG);
+            }
+            sink = last;
+        });
+        double parallel = time(() -> sink = SystemSolver.solveAll(coupled, guesses, SystemSolver.Method.NEWTON,
+                CONFIG));
+        long found = Arrays.stream(SystemSolver.solveAll(coupled, guesses, SystemSolver.Method.NEWTON, CONFIG))
+                .filter(SystemResult::found).count();
+        System.out.printf("\n%d guesses, %d roots found: one after another %.1f ms, solveAll %.1f ms on %d " +
+                "threads\n", GUESSES, found, sequential / 1e6, parallel / 1e6,
+                java.util.concurrent.ForkJoinPool.getCommonPoolParallelism());
+    }
+
+    private static void compare(String problem, VectorFunction analytic, VectorFunction differenced,
+                                double[] guess) {
+        SystemSolver solver = new SystemSolver(guess.length);
+        compare(problem, "Newton, analytic J", solver, analytic, guess, SystemSolver.Method.NEWTON);
+        compare(problem, "Newton, differences", solver, differenced, guess, SystemSolver.Method.NEWTON);
+        compare(problem, "Broyden, analytic J", solver, analytic, guess, SystemSolver.Method.BROYDEN);
+    }
+
+    private static void compare(String problem, String label, SystemSolver solver, VectorFunction f,
+                                double[] guess, SystemSolver.Method method) {
+        SystemResult result = solver.solve(f, guess, method, CONFIG);
+        double time = time(() -> sink = solver.solve(f, guess, method, CONFIG));
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < 100; i++) {
+            sink = solver.solve(f, guess, method, CONFIG);
+        }
+        long bytes = (threads.getCurrentThreadAllocatedBytes() - before) / 100;
+        System.out.printf("%-18s\t| %-20s\t| %3d %-6s\t| %d\t| %d\t| %d\t| %10.2f\n", problem, label,
+                result.iterations, result.found() ? "found" : "status " + result.status, result.evaluations,
+                result.jacobians, bytes, time / 1e3);
+    }
+
+    /**
+     * Median time per run in ns, in batches of about 10 ms after about WARM_UP_NS of untimed runs
+     */
+    private static double time(Runnable run) {
+        long start = System.nanoTime();
+        int count = 0;
+        while (System.nanoTime() - start < WARM_UP_NS) {
+            run.run();
+            count++;
+        }
+        int batch = Math.max(1, count / 30);
+        long[] times = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            start = System.nanoTime();
+            for (int j = 0; j < batch; j++) {
+                run.run();
+            }
+            times[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(times);
+        return (double) times[RUNS / 2] / batch;
+    }
+}
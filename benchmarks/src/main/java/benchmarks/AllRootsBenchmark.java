@@ -0,0 +1,64 @@
+package benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Description: JMH benchmark of finding all three roots of function #1 by Bisection on hand picked
+ *              intervals, to 1% and to full precision, by RootScanner and by Polynomial.realRoots.
+ *              See AllRoots.
+ *
+ *              java -jar benchmarks/target/benchmarks.jar AllRootsBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AllRootsBenchmark {
+
+    private static final MethodHandle INTERVALS = find("intervals");
+    private static final MethodHandle PRECISE = find("precise");
+    private static final MethodHandle SCAN = find("scan");
+    private static final MethodHandle POLYNOMIAL = find("polynomial");
+
+    @Benchmark
+    public double[] intervals() throws Throwable {
+        return (double[]) INTERVALS.invokeExact();
+    }
+
+    @Benchmark
+    public double[] precise() throws Throwable {
+        return (double[]) PRECISE.invokeExact();
+    }
+
+    @Benchmark
+    public double[] scan() throws Throwable {
+        return (double[]) SCAN.invokeExact();
+    }
+
+    @Benchmark
+    public double[] polynomial() throws Throwable {
+        return (double[]) POLYNOMIAL.invokeExact();
+    }
+
+    private static MethodHandle find(String name) {
+        try {
+            Class<?> c = Class.forName("AllRoots");
+            return MethodHandles.privateLookupIn(c, MethodHandles.lookup())
+                    .findStatic(c, name, MethodType.methodType(double[].class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+}
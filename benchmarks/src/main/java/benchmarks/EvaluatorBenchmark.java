@@ -0,0 +1,161 @@
+package benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Description: JMH benchmark of function #1, 2x^3 - 11.7x^2 + 17.7x - 5, written by hand in LocateRoots and
+ *              compiled from the formula by ExpressionCompiler: f(x) and f'(x) at POINTS points in [0, 4],
+ *              and a Newton-Raphson and a Bisection solve, both without a TraceSink.
+ *
+ *              java -jar benchmarks/target/benchmarks.jar EvaluatorBenchmark
+ *
+ *              valueAt and derivativeAt report ns per evaluation. Each fork sees only one of the two
+ *              functions, so neither pays for a call site the other has made megamorphic.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EvaluatorBenchmark {
+
+    private static final int POINTS = 1024;
+    private static final String FORMULA = "2x^3 - 11.7x^2 + 17.7x - 5";
+
+    private static final MethodHandle HAND_WRITTEN = find("LocateRoots", "FUNCTION_1");
+    private static final MethodHandle COMPILE = find("ExpressionCompiler", "compile",
+            MethodType.methodType(type("RealFunction"), String.class));
+    private static final MethodHandle VALUE_AT = virtual("valueAt");
+    private static final MethodHandle DERIVATIVE_AT = virtual("derivativeAt");
+    private static final MethodHandle BISECTION = solver("bisection", 2);
+    private static final MethodHandle NEWTON_RAPHSON = solver("newtonRaphson", 1);
+
+    @Param({"hand-written", "compiled"})
+    public String function;
+
+    private Object f;
+    private final double[] x = new double[POINTS];
+
+    @Setup
+    public void setUp() throws Throwable {
+        f = function.equals("compiled") ? (Object) COMPILE.invoke(FORMULA) : (Object) HAND_WRITTEN.invoke();
+        for (int i = 0; i < POINTS; i++) {
+            x[i] = 4.0 * i / POINTS;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS)
+    public double valueAt() throws Throwable {
+        double sum = 0;
+        for (double value : x) {
+            sum += (double) VALUE_AT.invokeExact(f, value);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS)
+    public double derivativeAt() throws Throwable {
+        double sum = 0;
+        for (double value : x) {
+            sum += (double) DERIVATIVE_AT.invokeExact(f, value);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public Object newtonRaphson() throws Throwable {
+        return (Object) NEWTON_RAPHSON.invokeExact(f, 4.0);
+    }
+
+    @Benchmark
+    public Object bisection() throws Throwable {
+        return (Object) BISECTION.invokeExact(f, 0.0, 1.0);
+    }
+
+    private static Class<?> type(String name) {
+        try {
+            return Class.forName(name);
+        } catch (ClassNotFoundException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * Getter of a static field, typed with Object since this package cannot name its class
+     */
+    private static MethodHandle find(String className, String field) {
+        try {
+            Class<?> c = Class.forName(className);
+            return MethodHandles.privateLookupIn(c, MethodHandles.lookup())
+                    .findStaticGetter(c, field, type("RealFunction"))
+                    .asType(MethodType.methodType(Object.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private static MethodHandle find(String className, String name, MethodType type) {
+        try {
+            Class<?> c = Class.forName(className);
+            return MethodHandles.privateLookupIn(c, MethodHandles.lookup()).findStatic(c, name, type)
+                    .asType(type.changeReturnType(Object.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * A RealFunction method from double to double, taking the function as an Object
+     */
+    private static MethodHandle virtual(String name) {
+        try {
+            Class<?> c = type("RealFunction");
+            return MethodHandles.publicLookup()
+                    .findVirtual(c, name, MethodType.methodType(double.class, double.class))
+                    .asType(MethodType.methodType(double.class, Object.class, double.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * A RootFinder method taking a RealFunction and some doubles, as in SolverBenchmark
+     */
+    private static MethodHandle solver(String name, int doubles) {
+        Class<?>[] parameters = new Class<?>[doubles + 1];
+        Class<?>[] erased = new Class<?>[doubles + 1];
+        parameters[0] = type("RealFunction");
+        erased[0] = Object.class;
+        for (int i = 1; i <= doubles; i++) {
+            parameters[i] = double.class;
+            erased[i] = double.class;
+        }
+        try {
+            Class<?> c = type("RootFinder");
+            return MethodHandles.privateLookupIn(c, MethodHandles.lookup())
+                    .findStatic(c, name, MethodType.methodType(type("RootResult"), parameters))
+                    .asType(MethodType.methodType(Object.class, erased));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Description: JMH benchmark of the methods on every problem in Problems. The RootFinder,
+ *              BracketedRootFinder and HigherOrderRootFinder methods are called without a TraceSink, so
+ *              only the math is measured.
+ *
+ *              java -jar benchmarks/target/benchmarks.jar -prof gc
+ *
+ *              reports ns/op and gc.alloc.rate.norm (bytes allocated per solve). Function evaluations
+ *              per solve are deterministic and printed by EvaluationCounts instead.
+ *
+ *              JMH does not allow benchmarks in the default package, and a named package cannot
+ *              import RootFinder, so the methods are called through constant method handles, which
+ *              the JIT inlines like direct calls.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SolverBenchmark {
+
+    private static final MethodHandle SET_UP = find("Problems", "setUp",
+            MethodType.methodType(Object[].class, String.class));
+    private static final MethodHandle BISECTION = find("RootFinder", "bisection", 2);
+    private static final MethodHandle NEWTON_RAPHSON = find("RootFinder", "newtonRaphson", 1);
+    private static final MethodHandle SECANT = find("RootFinder", "secant", 2);
+    private static final MethodHandle FALSE_POSITION = find("RootFinder", "falsePosition", 2);
+    private static final MethodHandle MODIFIED_SECANT = find("RootFinder", "modifiedSecant", 2);
+    private static final MethodHandle BRENT = find("BracketedRootFinder", "brent", 2);
+    private static final MethodHandle ILLINOIS = find("BracketedRootFinder", "illinois", 2);
+    private static final MethodHandle ANDERSON_BJORCK = find("BracketedRootFinder", "andersonBjorck", 2);
+    private static final MethodHandle CHANDRUPATLA = find("BracketedRootFinder", "chandrupatla", 2);
+    private static final MethodHandle HALLEY = find("HigherOrderRootFinder", "halley", 1);
+    private static final MethodHandle HOUSEHOLDER = find("HigherOrderRootFinder", "householder", 1);
+    private static final MethodHandle OSTROWSKI = find("HigherOrderRootFinder", "ostrowski", 1);
+
+    @Param({"1", "2", "multiple", "kepler", "atan"})
+    public String problem;
+
+    private Object function;
+    private double a;
+    private double b;
+
+    @Setup
+    public void setUp() throws Throwable {
+        Object[] p = (Object[]) SET_UP.invokeExact(problem);
+        function = p[0];
+        a = (Double) p[1];
+        b = (Double) p[2];
+    }
+
+    @Benchmark
+    public Object bisection() throws Throwable {
+        return (Object) BISECTION.invokeExact(function, a, b);
+    }
+
+    @Benchmark
+    public Object newtonRaphson() throws Throwable {
+        return (Object) NEWTON_RAPHSON.invokeExact(function, b);
+    }
+
+    @Benchmark
+    public Object secant() throws Throwable {
+        return (Object) SECANT.invokeExact(function, a, b);
+    }
+
+    @Benchmark
+    public Object falsePosition() throws Throwable {
+        return (Object) FALSE_POSITION.invokeExact(function, a, b);
+    }
+
+    @Benchmark
+    public Object modifiedSecant() throws Throwable {
+        return (Object) MODIFIED_SECANT.invokeExact(function, a, b);
+    }
+
+    @Benchmark
+    public Object brent() throws Throwable {
+        return (Object) BRENT.invokeExact(function, a, b);
+    }
+
+    @Benchmark
+    public Object illinois() throws Throwable {
+        return (Object) ILLINOIS.invokeExact(function, a, b);
+    }
+
+    @Benchmark
+    public Object andersonBjorck() throws Throwable {
+        return (Object) ANDERSON_BJORCK.invokeExact(function, a, b);
+    }
+
+    @Benchmark
+    public Object chandrupatla() throws Throwable {
+        return (Object) CHANDRUPATLA.invokeExact(function, a, b);
+    }
+
+    @Benchmark
+    public Object halley() throws Throwable {
+        return (Object) HALLEY.invokeExact(function, b);
+    }
+
+    @Benchmark
+    public Object householder() throws Throwable {
+        return (Object) HOUSEHOLDER.invokeExact(function, b);
+    }
+
+    @Benchmark
+    public Object ostrowski() throws Throwable {
+        return (Object) OSTROWSKI.invokeExact(function, b);
+    }
+
+    /**
+     * Find a solver method taking a RealFunction and some doubles, typed with Object for the
+     * function and result since this package cannot name those classes
+     */
+    private static MethodHandle find(String className, String name, int doubles) {
+        try {
+            Class<?> c = Class.forName(className);
+            Class<?>[] parameters = new Class<?>[doubles + 1];
+            Class<?>[] erased = new Class<?>[doubles + 1];
+            parameters[0] = Class.forName("RealFunction");
+            erased[0] = Object.class;
+            for (int i = 1; i <= doubles; i++) {
+                parameters[i] = double.class;
+                erased[i] = double.class;
+            }
+            return MethodHandles.privateLookupIn(c, MethodHandles.lookup())
+                    .findStatic(c, name, MethodType.methodType(Class.forName("RootResult"), parameters))
+                    .asType(MethodType.methodType(Object.class, erased));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private static MethodHandle find(String className, String name, MethodType type) {
+        try {
+            Class<?> c = Class.forName(className);
+            return MethodHandles.privateLookupIn(c, MethodHandles.lookup()).findStatic(c, name, type);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+}
@@ -0,0 +1,439 @@
+import java.math.BigDecimal;
+import java.math.MathContext;
+
+/**
+ * Description: Solves in double first and only checks the answer in a wider precision when double
+ *              cannot be trusted, so the common case keeps the speed of double.
+ *
+ *              Brent's Method finds the root in doubles. Then the error of that root is estimated from
+ *              f'(x) and the residual: f(x) is evaluated at the doubles either side of the root, and how far
+ *              those stray from the tangent line is the rounding noise of f. A root can be trusted to about
+ *              (|f(x)| + noise) / |f'(x)|, which costs three evaluations on top of Brent's Method. Since the
+ *              tangent line puts a root of multiplicity m m times too close, the estimate has to be 16 times
+ *              inside the tolerance. A simple root with f' well away from 0 passes in double. A multiple
+ *              root, where f' is about 0, or one lost to catastrophic cancellation, where the noise is
+ *              large, does not, even though Brent's Method reports it as found.
+ *
+ *              The estimate only decides what to try. A root is verified once f is proven to change sign
+ *              across a bracket around it no wider than the tolerance: f is evaluated at both ends with
+ *              BallArithmetic, which bounds every rounding error, and both values have to be clear of 0.
+ *              For a root from double the ends are evaluated in double-double, since double carries no
+ *              bound. Noise samples miss most of the rounding of Horner's scheme near a multiple root, so a
+ *              root can pass the estimate and still fail this.
+ *
+ *              Roots that fail are solved again in double-double (DoubleDouble, about 32 digits) and, if
+ *              that still is not proven, in BigDecimal with 50, 100 and then 200 digits. Each level
+ *              runs Newton-Raphson from the last root, inside a bracket widened around it until f changes
+ *              sign, taking m times the Newton step once the steps show a root of multiplicity m, and
+ *              bisecting whenever a step leaves the bracket or does not halve. Its error is estimated by how
+ *              far from the root f stays within its noise of 0, which also holds where f' is 0, and then
+ *              proven in that precision as for double. The bracket and the estimate stop widening after
+ *              MAX_WIDENINGS steps, e.g. at a root at exactly 0 where f is 0 far past the noise. A root of
+ *              multiplicity m is only known to about the m-th root of the precision, so a triple root needs
+ *              double-double for 1e-10 and BigDecimal for 1e-12.
+ *
+ *              The function has to be a PreciseFunction: a Polynomial, or a formula from
+ *              ExpressionCompiler.precise, and f has to change sign over [a, b]. When Brent's Method stops
+ *              on a sign change that isRoot rejects, e.g. a root of a polynomial with large coefficients
+ *              whose f(x) is never below 0.5 in doubles, or runs out of iterations, that is escalated too,
+ *              and a pole is told apart from a root because f does not grow away from it. A root at 0
+ *              needs an absolute tolerance, since no number of digits gets it to a relative one; escalation
+ *              stops at the first level that does not get ten times closer to the tolerance.
+ */
+public final class AdaptiveSolver {
+
+    static final int SAMPLES = 1; // noise samples either side of the root, for the estimate only
+    static final int MAX_ITERATIONS = 100; // Newton-Raphson and bisection steps per wider precision
+    static final int MAX_WIDENINGS = 2100; // doublings from Double.MIN_NORMAL past Double.MAX_VALUE
+    static final int MAX_MULTIPLICITY = 16;
+    static final int[] DECIMAL_DIGITS = {50, 100, 200};
+
+    private AdaptiveSolver() {
+    }
+
+    /**
+     * Precision a root was last solved in
+     */
+    public enum Precision {
+        DOUBLE("double"),
+        DOUBLE_DOUBLE("double-double"),
+        DECIMAL("BigDecimal");
+
+        public final String label;
+
+        Precision(String label) {
+            this.label = label;
+        }
+    }
+
+    /**
+     * A root with the precision it took and an estimate of its error
+     */
+    public static final class Result {
+        public final double root; // nearest double to the root
+        private final BigDecimal wide; // the root in a wider precision, null if it was found in double
+        public final Precision precision;
+        public final int digits; // significant digits of that precision
+        public final double error; // |root - true root| if verified, else only an estimate, infinite if none
+        public final boolean verified; // f is proven to change sign within error of root, inside the tolerance
+        public final int status; // status code of the double solve
+        public final int evaluations; // f(x) and f'(x) evaluations in double
+        public final int preciseEvaluations; // f(x) and f'(x) evaluations in wider precisions
+
+        Result(BigDecimal wide, double root, Precision precision, int digits, double error, boolean verified,
+               int status, int evaluations, int preciseEvaluations) {
+            this.root = root;
+            this.wide = wide;
+            this.precision = precision;
+            this.digits = digits;
+            this.error = error;
+            this.verified = verified;
+            this.status = status;
+            this.evaluations = evaluations;
+            this.preciseEvaluations = preciseEvaluations;
+        }
+
+        /**
+         * @return the root in the last precision used, all its digits
+         */
+        public BigDecimal exact() {
+            return wide != null ? wide : new BigDecimal(root); // only made when asked for, it is slow
+        }
+
+        /**
+         * @return True if the double solve found a root
+         */
+        public boolean found() {
+            return status == RootResult.FOUND;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s in %s (%d digits), error %.1e%s, status %d",
+                    exact().round(new MathContext(Math.min(digits, 40))), precision.label, digits, error,
+                    verified ? "" : " (not verified)", status);
+        }
+    }
+
+    /**
+     * The root in one precision, its error and the evaluations it took
+     */
+    private static final class Refined {
+        final BigDecimal root;
+        final double error; // proven if verified, else estimated
+        final boolean verified;
+        final int evaluations;
+
+        Refined(BigDecimal root, double error, boolean verified, int evaluations) {
+            this.root = root;
+            this.error = error;
+            this.verified = verified;
+            this.evaluations = evaluations;
+        }
+    }
+
+    /**
+     * Find a root in [a, b] to the relative error 1e-12
+     * @param f function
+     * @param a left / lower value
+     * @param b right / upper value
+     * @return the root and the precision it took
+     */
+    public static Result solve(PreciseFunction f, double a, double b) {
+        return solve(f, a, b, SolverConfig.DEFAULT.withRelativeTolerance(1e-12));
+    }
+
+    /**
+     * Find a root in [a, b] to within the tolerances of config
+     * @param f function
+     * @param a left / lower value
+     * @param b right / upper value
+     * @param config stopping rules for Brent's Method, whose relative and absolute tolerances are also
+     *               the error the root has to be verified to
+     * @return the root and the precision it took
+     */
+    public static Result solve(PreciseFunction f, double a, double b, SolverConfig config) {
+        RootResult result = BracketedRootFinder.brent(f, a, b, config, null);
+        double x = result.root;
+        int evaluations = result.evaluations + result.derivativeEvaluations;
+        boolean bracketed = result.iterations > 0 || result.found(); // else f does not change sign in [a, b]
+        if (!bracketed || result.status == RootResult.BUDGET_EXHAUSTED) {
+            return new Result(null, x, Precision.DOUBLE, 16, Double.POSITIVE_INFINITY, false,
+                    result.status, evaluations, 0);
+        }
+
+        // error estimate in double, from f' and the noise of f over the neighbouring doubles
+        double error = Double.POSITIVE_INFINITY;
+        if (result.found()) { // not f(x) too far from 0 for isRoot, which may be a pole, or out of iterations
+            double fx = result.fx;
+            double fPrimeX = f.derivativeAt(x);
+            double h = Math.ulp(x);
+            double noise = 0;
+            for (int k = -SAMPLES; k <= SAMPLES; k++) {
+                if (k != 0) {
+                    noise = Math.max(noise, Math.abs(f.valueAt(x + k * h) - fx - fPrimeX * k * h));
+                }
+            }
+            evaluations += 1 + 2 * SAMPLES;
+            error = (Math.abs(fx) + noise) / Math.abs(fPrimeX);
+        }
+
+        int preciseEvaluations = 0;
+        if (error * MAX_MULTIPLICITY <= allowed(x, config)) { // up to 16 times off at a multiple root
+            Refined proof = f instanceof IntervalFunction ? verify((IntervalFunction) f, a, b, x, error, config)
+                    : verify(f, DoubleDouble.ARITHMETIC, a, b, DoubleDouble.of(x), null, error, config);
+            if (proof.verified) {
+                return new Result(null, x, Precision.DOUBLE, 16, proof.error, true, result.status,
+                        evaluations, proof.evaluations);
+            }
+            preciseEvaluations += proof.evaluations;
+        }
+
+        // suspicious, so double-double and then BigDecimal until the root is proven to the tolerance
+        Refined best = new Refined(new BigDecimal(x), error, false, 0);
+        Precision precision = Precision.DOUBLE;
+        int digits = 16;
+        try {
+            Refined refined = refine(f, DoubleDouble.ARITHMETIC, a, b, DoubleDouble.of(x), error, config);
+            preciseEvaluations += refined.evaluations;
+            best = refined;
+            precision = Precision.DOUBLE_DOUBLE;
+            digits = 32;
+            for (int i = 0; i < DECIMAL_DIGITS.length && !best.verified
+                    && allowed(best.root.doubleValue(), config) > 0; i++) { // not 0 with only a relative one
+                refined = refine(f, new DecimalArithmetic(DECIMAL_DIGITS[i]), a, b, best.root, best.error,
+                        config);
+                preciseEvaluations += refined.evaluations;
+                // more digits will not help once the error cannot be estimated, or stays outside the
+                // tolerance without shrinking; an estimate inside it that could not be proven may be wrong
+                double shortfall = shortfall(refined, config);
+                double bestShortfall = shortfall(best, config);
+                boolean progress = refined.verified || refined.error < Double.POSITIVE_INFINITY
+                        && (shortfall <= 1 || bestShortfall <= 1 || shortfall * 10 <= bestShortfall);
+                if (progress || !(best.error < Double.POSITIVE_INFINITY)) {
+                    best = refined;
+                    precision = Precision.DECIMAL;
+                    digits = DECIMAL_DIGITS[i];
+                }
+                if (!progress) {
+                    break;
+                }
+            }
+        } catch (ArithmeticException | NumberFormatException e) { // f has no value at some x, e.g. 1/0
+            // keep the best root so far
+        }
+        double root = best.root.doubleValue();
+        return new Result(best.root, root, precision, digits, best.error, best.verified, result.status,
+                evaluations, preciseEvaluations);
+    }
+
+    /**
+     * How many times over the allowed error a root is. A root that tends to 0 as the digits go up, like
+     * the triple root of e^x - 1 - x - x^2/2, never gets closer to a relative tolerance.
+     */
+    private static double shortfall(Refined refined, SolverConfig config) {
+        return refined.error / allowed(refined.root.doubleValue(), config);
+    }
+
+    /**
+     * Largest error the tolerances allow for a root at x
+     */
+    private static double allowed(double x, SolverConfig config) {
+        return config.relativeTolerance * Math.abs(x) + config.absoluteTolerance;
+    }
+
+    /**
+     * Solve again in a wider precision, from a root found in a narrower one
+     * @param f function
+     * @param arithmetic precision to solve in
+     * @param a left / lower value
+     * @param b right / upper value
+     * @param start root found so far
+     * @param error estimated error of start
+     * @param config tolerances the root has to be verified to
+     * @param <T> number type
+     * @return root, its error and the evaluations used
+     */
+    private static <T> Refined refine(PreciseFunction f, Arithmetic<T> arithmetic, double a, double b, T start,
+                                      double error, SolverConfig config) {
+        T x = start;
+        T fx = f.valueAt(x, arithmetic);
+        T fPrimeX = f.derivativeAt(x, arithmetic);
+        int evaluations = 2;
+        double scale = Math.max(Math.abs(arithmetic.toDouble(x)), Double.MIN_NORMAL);
+        double unit = Math.max(arithmetic.epsilon() * scale, Double.MIN_NORMAL); // one unit of this precision at x
+
+        // a bracket around start, widened from its error until f changes sign, or else all of [a, b]
+        T lower = arithmetic.of(Math.min(a, b));
+        T upper = arithmetic.of(Math.max(a, b));
+        T lo = lower;
+        T hi = upper;
+        int signLo = 0;
+        boolean bracketed = false;
+        double width = Math.abs(b - a);
+        double d = error > 4 * unit ? Math.min(error, width) : 4 * unit;
+        for (int i = 0; !bracketed; i++, d *= 4) {
+            boolean last = i == MAX_WIDENINGS; // all of [a, b] rather than widening any longer
+            lo = last ? lower : max(arithmetic, lower, arithmetic.subtract(x, arithmetic.of(d)));
+            hi = last ? upper : min(arithmetic, upper, arithmetic.add(x, arithmetic.of(d)));
+            signLo = arithmetic.signum(f.valueAt(lo, arithmetic));
+            bracketed = signLo * arithmetic.signum(f.valueAt(hi, arithmetic)) < 0;
+            evaluations += 2;
+            if (lo == lower && hi == upper) { // min and max return one of their arguments
+                break;
+            }
+        }
+
+        double multiplicity = 1;
+        double lastCorrection = Double.POSITIVE_INFINITY; // last Newton step f/f', before the multiplicity
+        double lastMove = Double.POSITIVE_INFINITY;
+        boolean lastNewton = false;
+        for (int n = 0; n < MAX_ITERATIONS && arithmetic.signum(fx) != 0; n++) {
+            if (Double.isNaN(arithmetic.toDouble(fx)) || arithmetic.signum(fPrimeX) == 0) {
+                break;
+            }
+            double floor = 4 * arithmetic.epsilon() * Math.abs(arithmetic.toDouble(x)); // smallest useful move
+            if (bracketed) {
+                if (arithmetic.signum(fx) == signLo) {
+                    lo = x;
+                } else {
+                    hi = x;
+                }
+                if (arithmetic.toDouble(arithmetic.subtract(hi, lo)) <= floor) {
+                    break;
+                }
+            }
+
+            T newton = arithmetic.divide(fx, fPrimeX);
+            double correction = Math.abs(arithmetic.toDouble(newton));
+            if (!bracketed && correction >= lastCorrection && n > 1) { // no longer converging, this is the noise
+                break;
+            }
+            double ratio = correction / lastCorrection; // (m - 1) / m near a root of multiplicity m
+            if (lastNewton && ratio > 0.4 && ratio < 1) {
+                multiplicity = Math.min(MAX_MULTIPLICITY, Math.rint(1 / (1 - ratio)));
+            }
+            T next = arithmetic.subtract(x, arithmetic.multiply(arithmetic.of(multiplicity), newton));
+            double move = multiplicity * correction;
+            lastNewton = true;
+            if (bracketed && (compare(arithmetic, next, lo) <= 0 || compare(arithmetic, hi, next) <= 0
+                    || move > lastMove / 2)) {
+                T half = arithmetic.divide(arithmetic.subtract(hi, lo), arithmetic.of(2));
+                next = arithmetic.add(lo, half);
+                move = arithmetic.toDouble(half);
+                lastNewton = false;
+            }
+            lastCorrection = correction;
+            lastMove = move;
+
+            x = next;
+            fx = f.valueAt(x, arithmetic);
+            fPrimeX = f.derivativeAt(x, arithmetic);
+            evaluations += 2;
+            if (move <= floor) {
+                break;
+            }
+        }
+
+        // the noise of f from samples one unit of this precision away, as in double
+        T h = arithmetic.of(unit);
+        double noise = 0;
+        for (int k = -SAMPLES; k <= SAMPLES; k++) {
+            if (k != 0) {
+                T kh = arithmetic.multiply(arithmetic.of(k), h);
+                T residual = arithmetic.subtract(arithmetic.subtract(f.valueAt(arithmetic.add(x, kh), arithmetic),
+                        fx), arithmetic.multiply(fPrimeX, kh));
+                noise = Math.max(noise, Math.abs(arithmetic.toDouble(residual)));
+            }
+        }
+        evaluations += 2 * SAMPLES;
+
+        // then the error is how far f stays within its noise of 0, which still works where f' is 0 at a
+        // multiple root: from the tangent line estimate, widened until f is clear of the noise both sides
+        double threshold = Math.abs(arithmetic.toDouble(fx)) + noise;
+        d = threshold / Math.abs(arithmetic.toDouble(fPrimeX));
+        d = d > unit && d < Double.POSITIVE_INFINITY ? d : unit;
+        boolean clear = false;
+        for (int i = 0; i < MAX_WIDENINGS && d <= width && !clear; i++) {
+            T step = arithmetic.of(d);
+            evaluations += 2;
+            clear = Math.abs(arithmetic.toDouble(f.valueAt(arithmetic.subtract(x, step), arithmetic))) > threshold
+                    && Math.abs(arithmetic.toDouble(f.valueAt(arithmetic.add(x, step), arithmetic))) > threshold;
+            if (!clear) {
+                d *= 2;
+            }
+        }
+
+        Refined proof = verify(f, arithmetic, a, b, x, arithmetic.toBigDecimal(x), clear ? d : Double.POSITIVE_INFINITY,
+                config);
+        return new Refined(proof.root, proof.verified ? proof.error : clear ? d : Double.POSITIVE_INFINITY,
+                proof.verified, evaluations + proof.evaluations);
+    }
+
+    /**
+     * Prove that f has a root within half the tolerance of a root found in double, as the other verify but
+     * with Interval, which bounds the rounding of double itself and costs little more than evaluating f
+     * @param f function
+     * @param a left / lower value
+     * @param b right / upper value
+     * @param x root
+     * @param estimate estimated error of x
+     * @param config tolerances
+     * @return half the tolerance if proven, else unverified with the estimate, and the evaluations used
+     */
+    private static Refined verify(IntervalFunction f, double a, double b, double x, double estimate,
+                                  SolverConfig config) {
+        double half = allowed(x, config) / 2;
+        if (!(estimate < Double.POSITIVE_INFINITY) || !(half > 0)) {
+            return new Refined(null, estimate, false, 0);
+        }
+        Interval fLo = f.valueAt(Interval.of(Math.max(Math.min(a, b), x - half)));
+        Interval fHi = f.valueAt(Interval.of(Math.min(Math.max(a, b), x + half)));
+        boolean verified = fLo.lo > 0 && fHi.hi < 0 || fLo.hi < 0 && fHi.lo > 0; // false for EMPTY, bounds NaN
+        return new Refined(null, verified ? half : estimate, verified, 2);
+    }
+
+    /**
+     * Prove that f has a root within d of x, d half the tolerance so the bracket is never wider than it:
+     * f changes sign between x - d and x + d, clamped to [a, b], and BallArithmetic bounds the rounding
+     * error of both values clear of 0, so neither sign is noise. A root whose estimate is not finite, as
+     * at a pole where f does not settle near 0, is not tried.
+     * @param f function
+     * @param arithmetic precision to evaluate f in
+     * @param a left / lower value
+     * @param b right / upper value
+     * @param x root
+     * @param root x as a BigDecimal for the result, or null if it is not needed
+     * @param estimate estimated error of x
+     * @param config tolerances
+     * @param <T> number type
+     * @return x with d if proven, else unverified with the estimate, and the evaluations used
+     */
+    private static <T> Refined verify(PreciseFunction f, Arithmetic<T> arithmetic, double a, double b, T x,
+                                      BigDecimal root, double estimate, SolverConfig config) {
+        double half = allowed(arithmetic.toDouble(x), config) / 2; // BigDecimal.doubleValue is slow
+        if (!(estimate < Double.POSITIVE_INFINITY) || !(half > 0)) {
+            return new Refined(root, estimate, false, 0);
+        }
+        BallArithmetic<T> ball = new BallArithmetic<>(arithmetic);
+        T lower = arithmetic.of(Math.min(a, b));
+        T upper = arithmetic.of(Math.max(a, b));
+        T lo = max(arithmetic, lower, arithmetic.subtract(x, arithmetic.of(half)));
+        T hi = min(arithmetic, upper, arithmetic.add(x, arithmetic.of(half)));
+        boolean verified = ball.provenSignum(f.valueAt(ball.exact(lo), ball))
+                * ball.provenSignum(f.valueAt(ball.exact(hi), ball)) < 0;
+        return new Refined(root, verified ? half : estimate, verified, 2);
+    }
+
+    private static <T> int compare(Arithmetic<T> arithmetic, T x, T y) {
+        return arithmetic.signum(arithmetic.subtract(x, y));
+    }
+
+    private static <T> T min(Arithmetic<T> arithmetic, T x, T y) {
+        return compare(arithmetic, x, y) <= 0 ? x : y;
+    }
+
+    private static <T> T max(Arithmetic<T> arithmetic, T x, T y) {
+        return compare(arithmetic, x, y) >= 0 ? x : y;
+    }
+}
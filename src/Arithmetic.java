@@ -0,0 +1,110 @@
+import java.math.BigDecimal;
+
+/**
+ * Arithmetic in a precision wider than double, for AdaptiveSolver to evaluate a PreciseFunction in.
+ * DoubleDouble.ARITHMETIC carries about 32 significant digits, and DecimalArithmetic any number of
+ * digits with BigDecimal.
+ *
+ * @param <T> number type
+ */
+public interface Arithmetic<T> {
+
+    /**
+     * @return relative rounding error of one operation, about 1e-32 for double-double
+     */
+    double epsilon();
+
+    /**
+     * @param x value
+     * @return x exactly
+     */
+    T of(double x);
+
+    /**
+     * @param x value
+     * @return x rounded to the nearest double
+     */
+    double toDouble(T x);
+
+    /**
+     * @param x value
+     * @return x exactly, or NaN and infinities as NumberFormatException
+     */
+    BigDecimal toBigDecimal(T x);
+
+    /**
+     * @param x value
+     * @return sign of x, -1, 0 or 1
+     */
+    int signum(T x);
+
+    /**
+     * @return x + y, rounded to this precision
+     */
+    T add(T x, T y);
+
+    /**
+     * @return x - y, rounded to this precision
+     */
+    T subtract(T x, T y);
+
+    /**
+     * @return x * y, rounded to this precision
+     */
+    T multiply(T x, T y);
+
+    /**
+     * @return x / y, rounded to this precision
+     */
+    T divide(T x, T y);
+
+    /**
+     * @return -x
+     */
+    T negate(T x);
+
+    /**
+     * @param x value, 0 or more
+     * @return square root of x
+     */
+    T sqrt(T x);
+
+    /**
+     * @param x value
+     * @return e^x
+     */
+    T exp(T x);
+
+    /**
+     * @param x value, more than 0
+     * @return natural logarithm of x
+     */
+    T log(T x);
+
+    /**
+     * @param x value
+     * @return |x|
+     */
+    default T abs(T x) {
+        return signum(x) < 0 ? negate(x) : x;
+    }
+
+    /**
+     * @param x value
+     * @param n whole power, may be negative
+     * @return x^n by repeated squaring
+     */
+    default T pow(T x, int n) {
+        T result = of(1);
+        T square = x;
+        for (int k = Math.abs(n); k > 0; k >>= 1) {
+            if ((k & 1) != 0) {
+                result = multiply(result, square);
+            }
+            if (k > 1) {
+                square = multiply(square, square);
+            }
+        }
+        return n < 0 ? divide(of(1), result) : result;
+    }
+}
@@ -0,0 +1,359 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Description: Writes the iteration number and approximate error of every iteration, and the root, to a CSV
+ *              file, off the solver's thread. Lines end in "\n" and are UTF-8 on every platform.
+ *
+ *              The solver only stores primitive values into a preallocated ring buffer. A background
+ *              thread turns the records into text and writes them to the file in large chunks through
+ *              a FileChannel. Any number of threads can trace into one writer.
+ *
+ *              When the solver produces records faster than the disk takes them the ring fills up, and
+ *              then the writer either makes the solver wait (BLOCK) or drops the record and counts
+ *              it (DROP). The file can be rotated at a size, continuing in name.1, name.2, ... Each file
+ *              then ends at the last whole line that fits, so only a line longer than the size on its own
+ *              makes a file larger.
+ */
+public class AsyncTraceWriter implements TraceSink, AutoCloseable {
+
+    /**
+     * What to do with a record when the ring buffer is full
+     */
+    public enum Overflow {
+        BLOCK, // wait for the background thread to make room
+        DROP // throw the record away and count it
+    }
+
+    static final int DEFAULT_CAPACITY = 1 << 16; // records
+    private static final int CHUNK = 1 << 20; // bytes written to the file at a time
+    private static final long IDLE_PARK = 200_000; // ns the background thread sleeps when there is nothing to write
+    private static final long BLOCKED_PARK = 10_000; // ns a producer sleeps while the ring buffer is full
+    private static final byte[] NEW_LINE = {'\n'};
+
+    // record kinds
+    private static final byte TITLE = 0;
+    private static final byte HEADER = 1;
+    private static final byte ROW = 2;
+    private static final byte ROOT = 3;
+    private static final byte NO_ROOT = 4;
+    private static final byte DIVERGING = 5;
+    private static final byte ZERO_DERIVATIVE = 6;
+    private static final byte NEWTON_ZERO_DERIVATIVE = 7;
+
+    private final Path path;
+    private final long rotateBytes;
+    private final Overflow overflow;
+
+    // ring buffer, record i is in slot i & mask
+    private final int mask;
+    private final byte[] kinds;
+    private final int[] iterations;
+    private final double[] values;
+    private final Object[] texts;
+    private final AtomicLongArray published; // record i + 1 once slot i & mask holds record i
+    private final AtomicLong claimed = new AtomicLong(); // records handed out to producers
+    private volatile long consumed; // records the background thread is done with
+
+    private final LongAdder dropped = new LongAdder();
+    private final Thread flusher;
+    private volatile boolean closed;
+    private volatile IOException failure;
+
+    // background thread only
+    private final ByteBuffer chunk = ByteBuffer.allocateDirect(CHUNK);
+    private FileChannel channel;
+    private int segment;
+    private long segmentBytes; // written to the current file, or in chunk to be written to it
+
+    /**
+     * Trace into a file, blocking when the ring buffer is full and never rotating
+     * @param path output file
+     * @throws IOException if the file cannot be created
+     */
+    public AsyncTraceWriter(Path path) throws IOException {
+        this(path, DEFAULT_CAPACITY, 0, Overflow.BLOCK);
+    }
+
+    /**
+     * Trace into a file
+     * @param path output file
+     * @param capacity records the ring buffer holds, rounded up to a power of two
+     * @param rotateBytes bytes a file holds before the next line starts a new one, or 0 for one file
+     * @param overflow what to do when the ring buffer is full
+     * @throws IOException if the file cannot be created
+     */
+    public AsyncTraceWriter(Path path, int capacity, long rotateBytes, Overflow overflow) throws IOException {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Capacity must be in [1, 2^30], got " + capacity);
+        }
+        int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.path = path;
+        this.rotateBytes = rotateBytes;
+        this.overflow = overflow;
+        mask = size - 1;
+        kinds = new byte[size];
+        iterations = new int[size];
+        values = new double[size];
+        texts = new Object[size];
+        published = new AtomicLongArray(size);
+        channel = open(path);
+        flusher = new Thread(this::flushLoop, "trace-writer " + path.getFileName());
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * Write a title line, e.g. which method and function the following solves are for
+     * @param title title
+     */
+    public void title(String title) {
+        record(TITLE, 0, 0, title);
+    }
+
+    /**
+     * Write a root
+     * @param root root
+     */
+    public void root(double root) {
+        record(ROOT, 0, root, null);
+    }
+
+    @Override
+    public void begin(RootMethod method, double first, double second) {
+        record(HEADER, 0, 0, null);
+    }
+
+    @Override
+    public void bracketing(int n, double a, double b, double c, double fa, double fb, double fc, double error) {
+        record(ROW, n, error, null);
+    }
+
+    @Override
+    public void newton(int n, double x, double fx, double fPrimeX, double error) {
+        record(ROW, n, error, null);
+    }
+
+    @Override
+    public void secant(int n, double previousX, double x, double fPreviousX, double fx, double fPrimeX,
+                       double error) {
+        record(ROW, n, error, null);
+    }
+
+    @Override
+    public void modifiedSecant(int n, double x, double deltaX, double fx, double fxAndDeltaX, double fPrimeX,
+                               double error) {
+        record(ROW, n, error, null);
+    }
+
+    @Override
+    public void end(RootResult result) {
+        switch (result.status) {
+            case RootResult.FOUND:
+                record(ROOT, 0, result.root, null);
+                break;
+            case RootResult.NO_ROOT:
+                record(NO_ROOT, 0, 0, null);
+                break;
+            case RootResult.DIVERGING:
+                record(DIVERGING, 0, 0, null);
+                break;
+            case RootResult.ZERO_DERIVATIVE:
+                record(result.method == RootMethod.NEWTON_RAPHSON ? NEWTON_ZERO_DERIVATIVE : ZERO_DERIVATIVE,
+                        0, 0, null);
+                break;
+            default: // MAX_ITERATIONS and BUDGET_EXHAUSTED are only reported on the console
+                break;
+        }
+    }
+
+    /**
+     * @return records thrown away because the ring buffer was full
+     */
+    public long dropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Write everything still in the ring buffer and close the file
+     * @throws UncheckedIOException if writing the file failed
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        LockSupport.unpark(flusher);
+        boolean interrupted = false;
+        while (flusher.isAlive()) {
+            try {
+                flusher.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (failure != null) {
+            throw new UncheckedIOException("Cannot write trace to " + path, failure);
+        }
+    }
+
+    /**
+     * Store one record in the ring buffer
+     */
+    private void record(byte kind, int n, double value, Object text) {
+        long sequence;
+        if (overflow == Overflow.DROP) {
+            do {
+                sequence = claimed.get();
+                if (sequence - consumed > mask) {
+                    dropped.increment();
+                    return;
+                }
+            } while (!claimed.compareAndSet(sequence, sequence + 1));
+        } else {
+            sequence = claimed.getAndIncrement();
+            while (sequence - consumed > mask) { // full, wait for the background thread
+                if (failure != null || !flusher.isAlive()) {
+                    throw new IllegalStateException("Trace writer for " + path + " has stopped", failure);
+                }
+                LockSupport.unpark(flusher);
+                LockSupport.parkNanos(BLOCKED_PARK);
+            }
+        }
+        int slot = (int) sequence & mask;
+        kinds[slot] = kind;
+        iterations[slot] = n;
+        values[slot] = value;
+        texts[slot] = text;
+        published.lazySet(slot, sequence + 1);
+    }
+
+    /**
+     * Background thread: format published records into the chunk buffer and write it out
+     */
+    private void flushLoop() {
+        try {
+            long next = consumed;
+            while (true) {
+                long start = next;
+                int slot = (int) next & mask;
+                while (published.get(slot) == next + 1) {
+                    format(slot);
+                    texts[slot] = null;
+                    next++;
+                    slot = (int) next & mask;
+                    if ((next & 1023) == 0) {
+                        consumed = next; // free up room for blocked producers as we go
+                    }
+                }
+                consumed = next;
+                if (chunk.position() > 0) {
+                    writeChunk();
+                }
+                if (next == start) {
+                    if (closed && claimed.get() == next) {
+                        break;
+                    }
+                    LockSupport.parkNanos(IDLE_PARK);
+                }
+            }
+            channel.force(false);
+            channel.close();
+        } catch (IOException e) {
+            failure = e;
+            try {
+                channel.close();
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+        }
+    }
+
+    /**
+     * Turn one record into a CSV line in the chunk buffer
+     */
+    private void format(int slot) throws IOException {
+        String line;
+        switch (kinds[slot]) {
+            case TITLE:
+                line = "\n" + texts[slot];
+                break;
+            case HEADER:
+                line = "Iteration, Error";
+                break;
+            case ROW:
+                line = iterations[slot] + "," + values[slot];
+                break;
+            case ROOT:
+                line = "root = " + values[slot];
+                break;
+            case NO_ROOT:
+                line = "root = DNE";
+                break;
+            case DIVERGING:
+                line = "ERROR: This equation is diverging.";
+                break;
+            case NEWTON_ZERO_DERIVATIVE:
+                line = "ERROR: f'(xn) = 0.";
+                break;
+            default: // ZERO_DERIVATIVE
+                line = "ERROR: f'(xn) = 0";
+                break;
+        }
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        int length = bytes.length + NEW_LINE.length;
+        if (rotateBytes > 0 && segmentBytes > 0 && segmentBytes + length > rotateBytes) {
+            writeChunk();
+            rotate();
+        }
+        segmentBytes += length;
+        if (chunk.remaining() < length) {
+            writeChunk();
+        }
+        if (chunk.remaining() < length) { // longer than a whole chunk
+            ByteBuffer whole = ByteBuffer.wrap(bytes);
+            while (whole.hasRemaining()) {
+                channel.write(whole);
+            }
+        } else {
+            chunk.put(bytes);
+        }
+        chunk.put(NEW_LINE);
+    }
+
+    private void writeChunk() throws IOException {
+        chunk.flip();
+        while (chunk.hasRemaining()) {
+            channel.write(chunk);
+        }
+        chunk.clear();
+    }
+
+    /**
+     * Continue in the next file, with the chunk already written
+     */
+    private void rotate() throws IOException {
+        channel.close();
+        segment++;
+        segmentBytes = 0;
+        channel = open(path.resolveSibling(path.getFileName() + "." + segment));
+    }
+
+    private static FileChannel open(Path path) throws IOException {
+        return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+    }
+}
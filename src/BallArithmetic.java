@@ -0,0 +1,172 @@
+import java.math.BigDecimal;
+
+/**
+ * Description: Another Arithmetic carried along with a bound on how far each value has strayed from the exact
+ *              result, so AdaptiveSolver can prove the sign of f(x) in that precision instead of trusting it.
+ *
+ *              A value is a ball: the midpoint the wrapped arithmetic computes and a radius in double that holds
+ *              every rounding error made so far. Each operation grows the radius by how the operation spreads
+ *              the radii of its arguments, plus the rounding error of the new midpoint, bounded by a few units
+ *              of epsilon(). exp and log get a much wider allowance, since double-double builds them from a
+ *              few dozen rounded operations. Radii are rounded up in double, so they stay bounds.
+ *
+ *              If the ball of f(x) does not hold 0, f(x) has the sign of its midpoint. This is the same idea
+ *              as Interval, which IntervalRootFinder uses, but in whatever precision f is being evaluated in.
+ *
+ * @param <T> number type of the wrapped arithmetic
+ */
+public final class BallArithmetic<T> implements Arithmetic<BallArithmetic.Ball<T>> {
+
+    private static final double OPERATION_ERROR = 4; // units of epsilon() one + - * / or sqrt may be off by
+    private static final double FUNCTION_ERROR = 1 << 12; // and exp or log, e.g. double-double squares 10 times
+    private static final double UP = 1 + 0x1p-50; // rounds a radius computed in double up past its own error
+
+    private final Arithmetic<T> arithmetic;
+
+    /**
+     * @param arithmetic precision to evaluate the midpoints in
+     */
+    public BallArithmetic(Arithmetic<T> arithmetic) {
+        this.arithmetic = arithmetic;
+    }
+
+    /**
+     * A value in the wrapped arithmetic and a bound on its error
+     * @param <T> number type
+     */
+    public static final class Ball<T> {
+        public final T mid;
+        public final double radius; // |exact - mid| is at most this, NaN or infinite if it is not known
+
+        Ball(T mid, double radius) {
+            this.mid = mid;
+            this.radius = radius;
+        }
+    }
+
+    /**
+     * @param x value
+     * @return sign of x, or 0 if the ball holds 0 and so the sign is not known
+     */
+    public int provenSignum(Ball<T> x) {
+        return lower(x.mid) > x.radius ? arithmetic.signum(x.mid) : 0;
+    }
+
+    @Override
+    public double epsilon() {
+        return arithmetic.epsilon();
+    }
+
+    @Override
+    public Ball<T> of(double x) {
+        return new Ball<>(arithmetic.of(x), 0);
+    }
+
+    /**
+     * @param x value
+     * @return x exactly, with no error
+     */
+    public Ball<T> exact(T x) {
+        return new Ball<>(x, 0);
+    }
+
+    @Override
+    public double toDouble(Ball<T> x) {
+        return arithmetic.toDouble(x.mid);
+    }
+
+    @Override
+    public BigDecimal toBigDecimal(Ball<T> x) {
+        return arithmetic.toBigDecimal(x.mid);
+    }
+
+    @Override
+    public int signum(Ball<T> x) {
+        return arithmetic.signum(x.mid);
+    }
+
+    @Override
+    public Ball<T> add(Ball<T> x, Ball<T> y) {
+        T mid = arithmetic.add(x.mid, y.mid);
+        return new Ball<>(mid, rounded(x.radius + y.radius, mid, OPERATION_ERROR));
+    }
+
+    @Override
+    public Ball<T> subtract(Ball<T> x, Ball<T> y) {
+        T mid = arithmetic.subtract(x.mid, y.mid);
+        return new Ball<>(mid, rounded(x.radius + y.radius, mid, OPERATION_ERROR));
+    }
+
+    @Override
+    public Ball<T> multiply(Ball<T> x, Ball<T> y) { // |xy - x'y'| <= |x'| ry + |y'| rx + rx ry
+        T mid = arithmetic.multiply(x.mid, y.mid);
+        double spread = upper(x.mid) * y.radius + upper(y.mid) * x.radius + x.radius * y.radius;
+        return new Ball<>(mid, rounded(spread, mid, OPERATION_ERROR));
+    }
+
+    @Override
+    public Ball<T> divide(Ball<T> x, Ball<T> y) { // |x/y - x'/y'| <= (|x'| ry + |y'| rx) / (|y'| (|y'| - ry))
+        T mid = arithmetic.divide(x.mid, y.mid);
+        double below = lower(y.mid) - y.radius; // |y| is at least this
+        if (!(below > 0)) {
+            return new Ball<>(mid, Double.POSITIVE_INFINITY); // the ball of y holds 0
+        }
+        double spread = (upper(x.mid) * y.radius + upper(y.mid) * x.radius) / (lower(y.mid) * below) * UP;
+        return new Ball<>(mid, rounded(spread, mid, OPERATION_ERROR));
+    }
+
+    @Override
+    public Ball<T> negate(Ball<T> x) {
+        return new Ball<>(arithmetic.negate(x.mid), x.radius);
+    }
+
+    @Override
+    public Ball<T> abs(Ball<T> x) { // ||x| - |x'|| <= |x - x'|
+        return arithmetic.signum(x.mid) < 0 ? negate(x) : x;
+    }
+
+    @Override
+    public Ball<T> sqrt(Ball<T> x) { // |sqrt(x) - sqrt(x')| <= r / sqrt(x'), and <= sqrt(r)
+        T mid = arithmetic.sqrt(x.mid);
+        double spread = x.radius > 0 ? Math.min(x.radius / Math.sqrt(lower(x.mid)), Math.sqrt(x.radius)) * UP : 0;
+        return new Ball<>(mid, rounded(spread, mid, OPERATION_ERROR));
+    }
+
+    @Override
+    public Ball<T> exp(Ball<T> x) { // |e^x - e^x'| <= e^x' (e^r - 1)
+        T mid = arithmetic.exp(x.mid);
+        double spread = upper(mid) * Math.expm1(x.radius) * UP;
+        return new Ball<>(mid, rounded(spread, mid, FUNCTION_ERROR));
+    }
+
+    @Override
+    public Ball<T> log(Ball<T> x) { // |ln x - ln x'| <= -ln(1 - r / x')
+        T mid = arithmetic.log(x.mid);
+        if (!(lower(x.mid) > x.radius)) {
+            return new Ball<>(mid, Double.POSITIVE_INFINITY); // the ball of x reaches 0
+        }
+        double spread = -Math.log1p(-x.radius / lower(x.mid)) * UP;
+        return new Ball<>(mid, rounded(spread + FUNCTION_ERROR * epsilon(), mid, FUNCTION_ERROR));
+    }
+
+    /**
+     * The spread of the arguments' radii plus the rounding error of mid, rounded up
+     */
+    private double rounded(double spread, T mid, double units) {
+        return (spread + units * epsilon() * upper(mid)) * UP + Double.MIN_VALUE;
+    }
+
+    /**
+     * |x| rounded up to a double, infinite if it is past the range of double
+     */
+    private double upper(T x) {
+        return Math.abs(arithmetic.toDouble(x)) * UP;
+    }
+
+    /**
+     * |x| rounded down to a double, 0 if it is below the range of double
+     */
+    private double lower(T x) {
+        return Math.abs(arithmetic.toDouble(x)) / UP;
+    }
+}
@@ -0,0 +1,258 @@
+import java.util.stream.IntStream;
+
+/**
+ * Description: Solves many equations of the same shape at once, e.g. millions of parameter sets of
+ *              f(x) = x + b - xcosh(a/x).
+ *
+ *              Inputs and outputs are structure-of-arrays. Lanes are cut into blocks of BLOCK equations
+ *              that iterate in lockstep: every pass evaluates f for the lanes of the block still running
+ *              with one call. A lane that finishes is swapped out with the last one still running, so the
+ *              running lanes stay packed at the front and later passes evaluate f for them only. For that,
+ *              f is given a copy of the block's parameters, packed the same way, and must find a lane's
+ *              parameters only through the array and lane it is given. Blocks are solved in parallel on
+ *              the common fork-join pool.
+ *
+ *              How a pass is evaluated is up to f. For function #2, LocateRoots.function2BatchFamily() gives
+ *              VectorFunction2Family, which evaluates the lanes with the Vector API, when the run has the
+ *              jdk.incubator.vector module, and the scalar LocateRoots.FUNCTION_2_FAMILY otherwise.
+ *
+ *              The stopping rules are the same as the single equation methods in RootFinder
+ *              (approximate error below ERROR, |f(x)| check, divergence and MAX iterations),
+ *              so a lane gives the same root as calling bisection / newtonRaphson on it alone.
+ *              The same SolverConfig can be given, except for its evaluation budget, which does not apply
+ *              to a whole block being evaluated at once.
+ */
+public final class BatchSolver {
+
+    // status codes, the same as RootResult's
+    public static final byte CONVERGED = RootResult.FOUND;
+    public static final byte NO_ROOT = RootResult.NO_ROOT; // stopped, but f(x) is not close to 0
+    public static final byte DIVERGING = RootResult.DIVERGING;
+    public static final byte ZERO_DERIVATIVE = RootResult.ZERO_DERIVATIVE;
+    public static final byte MAX_ITERATIONS = RootResult.MAX_ITERATIONS;
+
+    static final int BLOCK = 256; // lanes per block, small enough for the work arrays to stay in L1
+
+    private BatchSolver() {
+    }
+
+    /**
+     * Roots, iteration counts and status codes, one entry per lane
+     */
+    public static final class Result {
+        public final double[] roots;
+        public final int[] iterations;
+        public final byte[] status;
+
+        Result(int lanes) {
+            roots = new double[lanes];
+            iterations = new int[lanes];
+            status = new byte[lanes];
+        }
+    }
+
+    /**
+     * Bisection Method for every lane
+     * @param f function family
+     * @param parameters parameters[k][lane]
+     * @param lower a for each lane
+     * @param upper b for each lane
+     * @return roots, iterations and status for each lane
+     */
+    public static Result bisection(ParametricFunction f, double[][] parameters, double[] lower, double[] upper) {
+        return bisection(f, parameters, lower, upper, SolverConfig.DEFAULT);
+    }
+
+    /**
+     * Bisection Method for every lane
+     * @param f function family
+     * @param parameters parameters[k][lane]
+     * @param lower a for each lane
+     * @param upper b for each lane
+     * @param config stopping rules, its maxEvaluations is not used
+     * @return roots, iterations and status for each lane
+     */
+    public static Result bisection(ParametricFunction f, double[][] parameters, double[] lower, double[] upper,
+                                   SolverConfig config) {
+        checkLanes(lower.length, upper.length);
+        Result result = new Result(lower.length);
+        IntStream.range(0, blocks(lower.length)).parallel().forEach(block ->
+                bisectionBlock(f, parameters, lower, upper, block * BLOCK,
+                        Math.min(BLOCK, lower.length - block * BLOCK), config, result));
+        return result;
+    }
+
+    /**
+     * Newton-Raphson Method for every lane
+     * @param f function family
+     * @param parameters parameters[k][lane]
+     * @param guess initial root guess for each lane
+     * @return roots, iterations and status for each lane
+     */
+    public static Result newtonRaphson(ParametricFunction f, double[][] parameters, double[] guess) {
+        return newtonRaphson(f, parameters, guess, SolverConfig.DEFAULT);
+    }
+
+    /**
+     * Newton-Raphson Method for every lane
+     * @param f function family
+     * @param parameters parameters[k][lane]
+     * @param guess initial root guess for each lane
+     * @param config stopping rules, its maxEvaluations is not used
+     * @return roots, iterations and status for each lane
+     */
+    public static Result newtonRaphson(ParametricFunction f, double[][] parameters, double[] guess,
+                                       SolverConfig config) {
+        Result result = new Result(guess.length);
+        IntStream.range(0, blocks(guess.length)).parallel().forEach(block ->
+                newtonBlock(f, parameters, guess, block * BLOCK,
+                        Math.min(BLOCK, guess.length - block * BLOCK), config, result));
+        return result;
+    }
+
+    private static void bisectionBlock(ParametricFunction f, double[][] parameters, double[] lower,
+                                       double[] upper, int offset, int length, SolverConfig config,
+                                       Result result) {
+        double[] a = new double[length];
+        double[] b = new double[length];
+        double[] c = new double[length];
+        double[] fa = new double[length];
+        double[] fc = new double[length];
+        double[] previous = new double[length];
+        double[][] work = {a, b, c, fa, previous}; // what a running lane carries to the next pass
+        double[][] block = copy(parameters, offset, length);
+        int[] lane = lanes(offset, length);
+        System.arraycopy(lower, offset, a, 0, length);
+        System.arraycopy(upper, offset, b, 0, length);
+        f.valuesAt(a, block, 0, length, fa);
+        int running = length;
+
+        for (int n = 0; n < config.maxIterations && running > 0; n++) {
+            for (int i = 0; i < running; i++) {
+                c[i] = (a[i] + b[i]) / 2;
+            }
+            f.valuesAt(c, block, 0, running, fc);
+
+            for (int i = running - 1; i >= 0; i--) { // from the back, so a lane swapped into i has had its turn
+                double currentError = RootFinder.getError(c[i], previous[i]);
+                if (currentError > config.divergingError) {
+                    finish(result, lane[i], c[i], n + 1, DIVERGING);
+                } else if (fc[i] == 0 || config.converged(currentError,
+                        n == 0 ? Double.POSITIVE_INFINITY : Math.abs(c[i] - previous[i]))) { // found root
+                    finish(result, lane[i], c[i], n + 1, config.isRoot(fc[i]) ? CONVERGED : NO_ROOT);
+                } else {
+                    if (fa[i] * fc[i] < 0) {
+                        b[i] = c[i];
+                    } else { // fa * fc > 0, f(c) becomes the new f(a)
+                        a[i] = c[i];
+                        fa[i] = fc[i];
+                    }
+                    previous[i] = c[i];
+                    continue;
+                }
+                running--;
+                move(work, block, lane, running, i);
+            }
+        }
+        finishRunning(result, lane, c, running, config.maxIterations);
+    }
+
+    private static void newtonBlock(ParametricFunction f, double[][] parameters, double[] guess,
+                                    int offset, int length, SolverConfig config, Result result) {
+        double[] x = new double[length];
+        double[] fx = new double[length];
+        double[] fPrimeX = new double[length];
+        double[] previous = new double[length];
+        double[][] work = {x, previous};
+        double[][] block = copy(parameters, offset, length);
+        int[] lane = lanes(offset, length);
+        System.arraycopy(guess, offset, x, 0, length);
+        int running = length;
+
+        for (int n = 0; n < config.maxIterations && running > 0; n++) {
+            f.valuesAndDerivativesAt(x, block, 0, running, fx, fPrimeX);
+
+            for (int i = running - 1; i >= 0; i--) {
+                double currentError = RootFinder.getError(x[i], previous[i]);
+                if (currentError > config.divergingError) {
+                    finish(result, lane[i], x[i], n + 1, DIVERGING);
+                } else if (fx[i] == 0 || config.converged(currentError,
+                        n == 0 ? Double.POSITIVE_INFINITY : Math.abs(x[i] - previous[i]))) { // found root
+                    finish(result, lane[i], x[i], n + 1, config.isRoot(fx[i]) ? CONVERGED : NO_ROOT);
+                } else if (fPrimeX[i] == 0) {
+                    finish(result, lane[i], x[i], n + 1, ZERO_DERIVATIVE);
+                } else {
+                    // xn+1 = xn - f(xn)/f'(xn)
+                    previous[i] = x[i];
+                    x[i] = x[i] - (fx[i] / fPrimeX[i]);
+                    continue;
+                }
+                running--;
+                move(work, block, lane, running, i);
+            }
+        }
+        finishRunning(result, lane, x, running, config.maxIterations);
+    }
+
+    private static void finish(Result result, int lane, double root, int iterations, byte status) {
+        result.roots[lane] = root;
+        result.iterations[lane] = iterations;
+        result.status[lane] = status;
+    }
+
+    /**
+     * Mark lanes still running after the last iteration
+     */
+    private static void finishRunning(Result result, int[] lane, double[] x, int running, int iterations) {
+        for (int i = 0; i < running; i++) {
+            finish(result, lane[i], x[i], iterations, MAX_ITERATIONS);
+        }
+    }
+
+    /**
+     * @return parameters[k][offset .. offset + length), as block[k][0 .. length)
+     */
+    private static double[][] copy(double[][] parameters, int offset, int length) {
+        double[][] block = new double[parameters.length][];
+        for (int k = 0; k < parameters.length; k++) {
+            block[k] = new double[length];
+            System.arraycopy(parameters[k], offset, block[k], 0, length);
+        }
+        return block;
+    }
+
+    /**
+     * @return the lane each slot of a block starts with
+     */
+    private static int[] lanes(int offset, int length) {
+        int[] lane = new int[length];
+        for (int i = 0; i < length; i++) {
+            lane[i] = offset + i;
+        }
+        return lane;
+    }
+
+    /**
+     * Move the lane in slot from to slot to, over the finished lane there
+     */
+    private static void move(double[][] work, double[][] block, int[] lane, int from, int to) {
+        for (double[] array : work) {
+            array[to] = array[from];
+        }
+        for (double[] array : block) {
+            array[to] = array[from];
+        }
+        lane[to] = lane[from];
+    }
+
+    private static int blocks(int lanes) {
+        return (lanes + BLOCK - 1) / BLOCK;
+    }
+
+    private static void checkLanes(int lower, int upper) {
+        if (lower != upper) {
+            throw new IllegalArgumentException("Expected as many upper values as lower values, got "
+                    + upper + " and " + lower);
+        }
+    }
+}
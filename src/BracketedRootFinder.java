@@ -0,0 +1,427 @@
+import java.util.Arrays;
+
+/**
+ * Description: Bracketed methods that keep bisection's guarantee but converge superlinearly: Brent's
+ *              method, the Illinois and Anderson-Björck variants of False-Position, and Chandrupatla's
+ *              method.
+ *
+ *              Each starts from [a, b] with f(a) and f(b) of opposite signs and always keeps a bracket
+ *              around the root, so unlike Secant it cannot diverge, and unlike plain False-Position
+ *              both ends of the bracket keep moving. A solve stops once the bracket is narrower than
+ *              tolerance * |x|, so the reported error is a bound on the relative error of the root
+ *              rather than the change between two guesses. The default tolerance is RootFinder's 1%.
+ *
+ *              Results, evaluation counting, budgets, traces and SolverConfig work the same as in
+ *              RootFinder, except that a config's delta and diverging error do not apply to them.
+ */
+public final class BracketedRootFinder {
+
+    private static final int STALL_STEPS = 3; // Illinois / Anderson-Björck bisect unless these halve the bracket
+
+    private BracketedRootFinder() {
+    }
+
+    /**
+     * Brent's Method
+     * @param f function
+     * @param a left / lower value
+     * @param b right / upper value
+     * @return result
+     */
+    public static RootResult brent(RealFunction f, double a, double b) {
+        return brent(f, a, b, null);
+    }
+
+    /**
+     * Brent's Method
+     * @param f function
+     * @param a left / lower value
+     * @param b right / upper value
+     * @param trace receives every iteration, or null
+     * @return result
+     */
+    public static RootResult brent(RealFunction f, double a, double b, TraceSink trace) {
+        return brent(f, a, b, SolverConfig.DEFAULT, trace);
+    }
+
+    /**
+     * Brent's Method: inverse quadratic interpolation or secant steps, falling back to bisection
+     * whenever they would not shrink the bracket fast enough
+     * @param f function
+     * @param a left / lower value
+     * @param b right / upper value
+     * @param config stopping rules, relativeTolerance is the relative width of the final bracket
+     * @param trace receives every iteration, or null
+     * @return result
+     */
+    public static RootResult brent(RealFunction f, double a, double b, SolverConfig config,
+                                   TraceSink trace) {
+        CountingFunction counted = new CountingFunction(f, config.maxEvaluations);
+        if (trace != null) {
+            trace.begin(RootMethod.BRENT, a, b);
+        }
+        if (!counted.canEvaluate(2)) {
+            return RootFinder.end(trace, counted, RootMethod.BRENT, Double.NaN, Double.NaN, 1, 0,
+                    RootResult.BUDGET_EXHAUSTED);
+        }
+        double fa = counted.valueAt(a);
+        double fb = counted.valueAt(b);
+        RootResult rejected = checkBracket(counted, RootMethod.BRENT, a, fa, b, fb, trace);
+        if (rejected != null) {
+            return rejected;
+        }
+        double c = a; // b is the best guess and [b, c] the bracket, a is the previous b
+        double fc = fa;
+        double d = b - a; // last step
+        double e = d; // step before last
+        double currentError = 1;
+        int n = 0; // iterations
+
+        for (; n < config.maxIterations; n++) {
+            if (Math.abs(fc) < Math.abs(fb)) { // keep the smaller |f| in b
+                a = b;
+                b = c;
+                c = a;
+                fa = fb;
+                fb = fc;
+                fc = fa;
+            }
+            double tol = config.bracketTolerance(b) + 2 * Math.ulp(b);
+            double middle = (c - b) / 2;
+            currentError = Math.abs(c - b) / Math.abs(b);
+            if (fb == 0 || Math.abs(middle) <= tol) {
+                return RootFinder.end(trace, counted, RootMethod.BRENT, b, fb, currentError, n,
+                        config.isRoot(fb) ? RootResult.FOUND : RootResult.NO_ROOT);
+            }
+
+            if (Math.abs(e) >= tol && Math.abs(fa) > Math.abs(fb)) { // try interpolating
+                double p;
+                double q;
+                double s = fb / fa;
+                if (a == c) { // secant
+                    p = 2 * middle * s;
+                    q = 1 - s;
+                } else { // inverse quadratic interpolation
+                    double r = fb / fc;
+                    q = fa / fc;
+                    p = s * (2 * middle * q * (q - r) - (b - a) * (r - 1));
+                    q = (q - 1) * (r - 1) * (s - 1);
+                }
+                if (p > 0) {
+                    q = -q;
+                } else {
+                    p = -p;
+                }
+                if (2 * p < Math.min(3 * middle * q - Math.abs(tol * q), Math.abs(e * q))) {
+                    e = d;
+                    d = p / q;
+                } else { // interpolation is not converging fast enough, bisect
+                    d = middle;
+                    e = d;
+                }
+            } else {
+                d = middle;
+                e = d;
+            }
+
+            if (!counted.canEvaluate(1)) {
+                return RootFinder.end(trace, counted, RootMethod.BRENT, b, fb, currentError, n,
+                        RootResult.BUDGET_EXHAUSTED);
+            }
+            double lower = Math.min(b, c);
+            double upper = Math.max(b, c);
+            double fLower = b < c ? fb : fc;
+            double fUpper = b < c ? fc : fb;
+            a = b;
+            fa = fb;
+            b += Math.abs(d) > tol ? d : Math.copySign(tol, middle);
+            fb = counted.valueAt(b);
+            if (Math.signum(fb) == Math.signum(fc)) { // the root is between a and b now
+                c = a;
+                fc = fa;
+                d = b - a;
+                e = d;
+            }
+
+            if (trace != null) {
+                trace.bracketing(n, lower, upper, b, fLower, fUpper, fb, Math.abs(c - b) / Math.abs(b));
+            }
+        }
+        return RootFinder.end(trace, counted, RootMethod.BRENT, b, fb, currentError, n,
+                RootResult.MAX_ITERATIONS);
+    }
+
+    /**
+     * Illinois Method
+     * @param f function
+     * @param a left / lower value
+     * @param b right / upper value
+     * @return result
+     */
+    public static RootResult illinois(RealFunction f, double a, double b) {
+        return illinois(f, a, b, null);
+    }
+
+    /**
+     * Illinois Method
+     * @param f function
+     * @param a left / lower value
+     * @param b right / upper value
+     * @param trace receives every iteration, or null
+     * @return result
+     */
+    public static RootResult illinois(RealFunction f, double a, double b, TraceSink trace) {
+        return illinois(f, a, b, SolverConfig.DEFAULT, trace);
+    }
+
+    /**
+     * Illinois Method: False-Position that halves f at an end of the bracket that did not move
+     * @param f function
+     * @param a left / lower value
+     * @param b right / upper value
+     * @param config stopping rules, relativeTolerance is the relative width of the final bracket
+     * @param trace receives every iteration, or null
+     * @return result
+     */
+    public static RootResult illinois(RealFunction f, double a, double b, SolverConfig config,
+                                      TraceSink trace) {
+        return regulaFalsi(RootMethod.ILLINOIS, f, a, b, config, trace);
+    }
+
+    /**
+     * Anderson-Björck Method
+     * @param f function
+     * @param a left / lower value
+     * @param b right / upper value
+     * @return result
+     */
+    public static RootResult andersonBjorck(RealFunction f, double a, double b) {
+        return andersonBjorck(f, a, b, null);
+    }
+
+    /**
+     * Anderson-Björck Method
+     * @param f function
+     * @param a left / lower value
+     * @param b right / upper value
+     * @param trace receives every iteration, or null
+     * @return result
+     */
+    public static RootResult andersonBjorck(RealFunction f, double a, double b, TraceSink trace) {
+        return andersonBjorck(f, a, b, SolverConfig.DEFAULT, trace);
+    }
+
+    /**
+     * Anderson-Björck Method: like Illinois, but scales f at the end that did not move by
+     * 1 - f(c)/f(b) instead of 1/2
+     * @param f function
+     * @param a left / lower value
+     * @param b right / upper value
+     * @param config stopping rules, relativeTolerance is the relative width of the final bracket
+     * @param trace receives every iteration, or null
+     * @return result
+     */
+    public static RootResult andersonBjorck(RealFunction f, double a, double b, SolverConfig config,
+                                            TraceSink trace) {
+        return regulaFalsi(RootMethod.ANDERSON_BJORCK, f, a, b, config, trace);
+    }
+
+    /**
+     * Chandrupatla's Method
+     * @param f function
+     * @param a left / lower value
+     * @param b right / upper value
+     * @return result
+     */
+    public static RootResult chandrupatla(RealFunction f, double a, double b) {
+        return chandrupatla(f, a, b, null);
+    }
+
+    /**
+     * Chandrupatla's Method
+     * @param f function
+     * @param a left / lower value
+     * @param b right / upper value
+     * @param trace receives every iteration, or null
+     * @return result
+     */
+    public static RootResult chandrupatla(RealFunction f, double a, double b, TraceSink trace) {
+        return chandrupatla(f, a, b, SolverConfig.DEFAULT, trace);
+    }
+
+    /**
+     * Chandrupatla's Method: inverse quadratic interpolation only where the last three points show
+     * it is safe, bisection otherwise
+     * @param f function
+     * @param a left / lower value
+     * @param b right / upper value
+     * @param config stopping rules, relativeTolerance is the relative width of the final bracket
+     * @param trace receives every iteration, or null
+     * @return result
+     */
+    public static RootResult chandrupatla(RealFunction f, double a, double b, SolverConfig config,
+                                          TraceSink trace) {
+        CountingFunction counted = new CountingFunction(f, config.maxEvaluations);
+        if (trace != null) {
+            trace.begin(RootMethod.CHANDRUPATLA, a, b);
+        }
+        if (!counted.canEvaluate(2)) {
+            return RootFinder.end(trace, counted, RootMethod.CHANDRUPATLA, Double.NaN, Double.NaN, 1, 0,
+                    RootResult.BUDGET_EXHAUSTED);
+        }
+        double x1 = a; // newest point, the bracket is [x1, x2]
+        double f1 = counted.valueAt(a);
+        double x2 = b;
+        double f2 = counted.valueAt(b);
+        RootResult rejected = checkBracket(counted, RootMethod.CHANDRUPATLA, a, f1, b, f2, trace);
+        if (rejected != null) {
+            return rejected;
+        }
+        double x3; // the point dropped from the bracket last
+        double f3;
+        double best = Math.abs(f1) < Math.abs(f2) ? x1 : x2;
+        double fBest = Math.abs(f1) < Math.abs(f2) ? f1 : f2;
+        double t = 0.5; // next point as a fraction of the way from x1 to x2
+        double currentError = 1;
+        int n = 0; // iterations
+
+        for (; n < config.maxIterations; n++) {
+            if (!counted.canEvaluate(1)) {
+                return RootFinder.end(trace, counted, RootMethod.CHANDRUPATLA, best, fBest, currentError, n,
+                        RootResult.BUDGET_EXHAUSTED);
+            }
+            double x = x1 + t * (x2 - x1);
+            double fx = counted.valueAt(x);
+            double lower = Math.min(x1, x2);
+            double upper = Math.max(x1, x2);
+            double fLower = x1 < x2 ? f1 : f2;
+            double fUpper = x1 < x2 ? f2 : f1;
+
+            if (Math.signum(fx) == Math.signum(f1)) { // x replaces x1
+                x3 = x1;
+                f3 = f1;
+            } else { // x replaces x2, x1 is the other end
+                x3 = x2;
+                f3 = f2;
+                x2 = x1;
+                f2 = f1;
+            }
+            x1 = x;
+            f1 = fx;
+            best = Math.abs(f1) < Math.abs(f2) ? x1 : x2;
+            fBest = Math.abs(f1) < Math.abs(f2) ? f1 : f2;
+            currentError = Math.abs(x2 - x1) / Math.abs(best);
+
+            if (trace != null) {
+                trace.bracketing(n, lower, upper, x, fLower, fUpper, fx, currentError);
+            }
+
+            double limit = (config.bracketTolerance(best) + 2 * Math.ulp(best)) / Math.abs(x2 - x1);
+            if (fBest == 0 || limit > 0.5) {
+                return RootFinder.end(trace, counted, RootMethod.CHANDRUPATLA, best, fBest, currentError, n + 1,
+                        config.isRoot(fBest) ? RootResult.FOUND : RootResult.NO_ROOT);
+            }
+
+            double xi = (x1 - x2) / (x3 - x2);
+            double phi = (f1 - f2) / (f3 - f2);
+            if (phi * phi < xi && (1 - phi) * (1 - phi) < 1 - xi) { // inverse quadratic interpolation is safe
+                t = f1 / (f2 - f1) * f3 / (f2 - f3) + (x3 - x1) / (x2 - x1) * f1 / (f3 - f1) * f2 / (f3 - f2);
+            } else {
+                t = 0.5;
+            }
+            t = Math.min(1 - limit, Math.max(limit, t)); // step at least the tolerance away from the ends
+        }
+        return RootFinder.end(trace, counted, RootMethod.CHANDRUPATLA, best, fBest, currentError, n,
+                RootResult.MAX_ITERATIONS);
+    }
+
+    /**
+     * Illinois and Anderson-Björck. The bracket is [a, b] with b the newest point, and f at the older
+     * end a is scaled down every time that end does not move, so it cannot get stuck there.
+     */
+    private static RootResult regulaFalsi(RootMethod method, RealFunction f, double a, double b, SolverConfig config,
+                                          TraceSink trace) {
+        CountingFunction counted = new CountingFunction(f, config.maxEvaluations);
+        if (trace != null) {
+            trace.begin(method, a, b);
+        }
+        if (!counted.canEvaluate(2)) {
+            return RootFinder.end(trace, counted, method, Double.NaN, Double.NaN, 1, 0,
+                    RootResult.BUDGET_EXHAUSTED);
+        }
+        double fa = counted.valueAt(a);
+        double fb = counted.valueAt(b);
+        RootResult rejected = checkBracket(counted, method, a, fa, b, fb, trace);
+        if (rejected != null) {
+            return rejected;
+        }
+        double scaledFa = fa; // f(a) as used for the next False-Position point
+        double c = b;
+        double fc = fb;
+        double[] widths = new double[STALL_STEPS]; // bracket width of the last few iterations
+        Arrays.fill(widths, Double.POSITIVE_INFINITY);
+        double currentError = 1;
+        int n = 0; // iterations
+
+        for (; n < config.maxIterations; n++) {
+            if (!counted.canEvaluate(1)) {
+                return RootFinder.end(trace, counted, method, c, fc, currentError, n, RootResult.BUDGET_EXHAUSTED);
+            }
+            // c = (af(b) - bf(a)) / (f(b) - f(a))
+            c = (a * fb - b * scaledFa) / (fb - scaledFa);
+            double width = Math.abs(b - a);
+            if (width > widths[n % STALL_STEPS] / 2 || !(c > Math.min(a, b) && c < Math.max(a, b))) {
+                // the bracket did not halve in STALL_STEPS iterations (e.g. f flattens towards a multiple
+                // root faster than f(a) is scaled down), or rounding pushed c out of it, so bisect instead
+                c = (a + b) / 2;
+            }
+            widths[n % STALL_STEPS] = width;
+            fc = counted.valueAt(c);
+
+            double lower = Math.min(a, b);
+            double upper = Math.max(a, b);
+            double fLower = a < b ? fa : fb;
+            double fUpper = a < b ? fb : fa;
+
+            if (Math.signum(fc) == Math.signum(fb)) { // a stays, scale its f down
+                double m = method == RootMethod.ANDERSON_BJORCK ? 1 - fc / fb : 0.5;
+                scaledFa *= m > 0 ? m : 0.5;
+            } else { // b becomes the other end
+                a = b;
+                fa = fb;
+                scaledFa = fb;
+            }
+            b = c;
+            fb = fc;
+            currentError = Math.abs(b - a) / Math.abs(c);
+
+            if (trace != null) {
+                trace.bracketing(n, lower, upper, c, fLower, fUpper, fc, currentError);
+            }
+
+            if (fc == 0 || Math.abs(b - a) <= 2 * config.bracketTolerance(c) + 4 * Math.ulp(c)) {
+                return RootFinder.end(trace, counted, method, c, fc, currentError, n + 1,
+                        config.isRoot(fc) ? RootResult.FOUND : RootResult.NO_ROOT);
+            }
+        }
+        return RootFinder.end(trace, counted, method, c, fc, currentError, n, RootResult.MAX_ITERATIONS);
+    }
+
+    /**
+     * Check that f(a) and f(b) bracket a root
+     * @return the result if the solve is already over because a or b is a root or f does not change
+     *         sign, otherwise null
+     */
+    private static RootResult checkBracket(CountingFunction counted, RootMethod method, double a, double fa,
+                                           double b, double fb, TraceSink trace) {
+        if (fa == 0 || fb == 0) {
+            return RootFinder.end(trace, counted, method, fa == 0 ? a : b, 0, 0, 0, RootResult.FOUND);
+        }
+        if (!(fa * fb < 0)) {
+            boolean aIsCloser = Math.abs(fa) < Math.abs(fb);
+            return RootFinder.end(trace, counted, method, aIsCloser ? a : b, aIsCloser ? fa : fb, 1, 0,
+                    RootResult.NO_ROOT);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,388 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Description: A Chebyshev interpolant p(x) = c0 T0(t) + c1 T1(t) + ... + cn Tn(t) of f on [a, b], with
+ *              t = (2x - a - b) / (b - a), that stands in for f once it has been built.
+ *
+ *              f is sampled at the n + 1 Chebyshev points cos(j pi / n) for n = 16, 32, 64, ..., each
+ *              grid reusing the samples of the one before, so every point is evaluated once. The
+ *              coefficients come from a DCT of the samples, done as an FFT of their even extension, in
+ *              O(n log n). Sampling stops when the last eighth of the coefficients has fallen below
+ *              TOLERANCE times the largest |f|, or has stopped falling at the rounding noise of f, and
+ *              the trailing coefficients below that level are dropped. A smooth function like #2 on
+ *              [120, 130] needs 17 evaluations. A function that is not resolved with MAX_POINTS is left
+ *              unresolved, and ChebyshevRootFinder splits its interval.
+ *
+ *              The roots of p are found by recursive subdivision, without evaluating f again: a piece of
+ *              high degree is split in two near its middle, p is sampled on each half and its coefficients
+ *              recomputed, until a piece has degree SMALL_DEGREE or less. Then it is converted to powers
+ *              of t and solved with Polynomial.realRoots, which also finds roots of even multiplicity.
+ *              A piece where |c0| is more than the sum of the other |ck| cannot have a root and is
+ *              skipped, which prunes most of the pieces between roots.
+ */
+public final class ChebyshevProxy implements RealFunction {
+
+    static final int MIN_POINTS = 16; // first grid, n; always a power of two
+    static final int MAX_POINTS = 1 << 16; // largest grid before the interval has to be split
+    static final double TOLERANCE = 0x1p-46; // relative size of the coefficients that are dropped, about 1e-14
+    static final int SMALL_DEGREE = 8; // pieces up to this degree are solved as polynomials
+    private static final double SPLIT = -0.004849834917525; // split a piece just off its middle, not at a root
+    private static final int MAX_DEPTH = 40;
+
+    private final double a;
+    private final double b;
+    private final double[] coefficients;
+    private final double scale; // largest |f| sampled
+    private final double cutoff; // coefficients below this are noise
+    private final int evaluations;
+    private final boolean resolved;
+
+    private ChebyshevProxy(double a, double b, double[] coefficients, double scale, double cutoff,
+                           int evaluations, boolean resolved) {
+        this.a = a;
+        this.b = b;
+        this.coefficients = coefficients;
+        this.scale = scale;
+        this.cutoff = cutoff;
+        this.evaluations = evaluations;
+        this.resolved = resolved;
+    }
+
+    /**
+     * Sample f on [a, b] until its Chebyshev coefficients have decayed
+     * @param f function, smooth on [a, b]
+     * @param a left / lower value
+     * @param b right / upper value
+     * @return the interpolant
+     */
+    public static ChebyshevProxy of(RealFunction f, double a, double b) {
+        return of(f, a, b, MAX_POINTS);
+    }
+
+    /**
+     * Sample f on [a, b] until its Chebyshev coefficients have decayed, or maxPoints are reached
+     * @param f function, smooth on [a, b]
+     * @param a left / lower value
+     * @param b right / upper value
+     * @param maxPoints largest grid, a power of two
+     * @return the interpolant
+     */
+    public static ChebyshevProxy of(RealFunction f, double a, double b, int maxPoints) {
+        if (!(a < b)) {
+            throw new IllegalArgumentException("Expected a < b, got [" + a + ", " + b + "]");
+        }
+        double middle = (a + b) / 2;
+        double half = (b - a) / 2;
+        int n = MIN_POINTS;
+        double[] values = new double[n + 1];
+        for (int j = 0; j <= n; j++) {
+            values[j] = f.valueAt(point(middle, half, j, n));
+        }
+        double lastTail = Double.POSITIVE_INFINITY;
+        while (true) {
+            double scale = 0;
+            for (double v : values) {
+                if (!Double.isFinite(v)) {
+                    throw new IllegalArgumentException("f(x) is not finite on [" + a + ", " + b + "]");
+                }
+                scale = Math.max(scale, Math.abs(v));
+            }
+            double[] c = coefficients(values, cos(n), sin(n));
+            double tail = 0;
+            for (int k = n - n / 8; k <= n; k++) {
+                tail = Math.max(tail, Math.abs(c[k]));
+            }
+            boolean converged = tail <= TOLERANCE * scale;
+            boolean plateau = tail > lastTail / 4 && tail <= 1e-8 * scale; // stopped decaying, this is noise
+            if (converged || plateau || 2 * n > maxPoints) {
+                double cutoff = converged ? TOLERANCE * scale : 4 * tail;
+                return new ChebyshevProxy(a, b, chop(c, cutoff), scale, cutoff, n + 1, converged || plateau);
+            }
+            lastTail = tail;
+
+            // the grid for 2n keeps every point of the grid for n, only the odd points are new
+            double[] finer = new double[2 * n + 1];
+            for (int j = 0; j <= 2 * n; j++) {
+                finer[j] = j % 2 == 0 ? values[j / 2] : f.valueAt(point(middle, half, j, 2 * n));
+            }
+            values = finer;
+            n *= 2;
+        }
+    }
+
+    private static double point(double middle, double half, int j, int n) {
+        return middle + half * Math.cos(Math.PI * j / n);
+    }
+
+    /**
+     * cos(pi k / n) for k = 0 to n. The table for n also serves any smaller power of two m, at every
+     * (n / m)th entry, so one table is enough for all the pieces in roots.
+     */
+    private static double[] cos(int n) {
+        double[] cos = new double[n + 1];
+        for (int k = 0; k <= n; k++) {
+            cos[k] = Math.cos(Math.PI * k / n);
+        }
+        return cos;
+    }
+
+    /**
+     * sin(pi k / n) for k = 0 to n
+     */
+    private static double[] sin(int n) {
+        double[] sin = new double[n + 1];
+        for (int k = 0; k <= n; k++) {
+            sin[k] = Math.sin(Math.PI * k / n);
+        }
+        return sin;
+    }
+
+    /**
+     * @return n, the degree after dropping the coefficients below the noise
+     */
+    public int degree() {
+        return coefficients.length - 1;
+    }
+
+    /**
+     * @return evaluations of f it took
+     */
+    public int evaluations() {
+        return evaluations;
+    }
+
+    /**
+     * @return True if the coefficients decayed before MAX_POINTS
+     */
+    public boolean resolved() {
+        return resolved;
+    }
+
+    /**
+     * @return largest |f| sampled
+     */
+    public double scale() {
+        return scale;
+    }
+
+    @Override
+    public double valueAt(double x) {
+        return clenshaw(coefficients, coefficients.length - 1, (2 * x - a - b) / (b - a));
+    }
+
+    /**
+     * Find all roots of the interpolant in [a, b]. They are as accurate as the interpolant, so polish them
+     * on f for full precision.
+     * @return roots in increasing order, a root on the border of two pieces may be listed twice
+     */
+    public double[] roots() {
+        List<Double> roots = new ArrayList<>();
+        int points = Math.max(2, Integer.highestOneBit(Math.max(1, degree() - 1)) << 1);
+        roots(coefficients, -1, 1, roots, 0, cos(points), sin(points));
+        double[] x = new double[roots.size()];
+        for (int i = 0; i < x.length; i++) {
+            x[i] = a + (b - a) * (roots.get(i) + 1) / 2;
+        }
+        Arrays.sort(x);
+        return x;
+    }
+
+    /**
+     * Roots of one piece [lo, hi] of [-1, 1], whose own Chebyshev coefficients are c
+     */
+    private void roots(double[] c, double lo, double hi, List<Double> roots, int depth, double[] cos, double[] sin) {
+        int n = c.length - 1;
+        double rest = 0;
+        for (int k = 1; k <= n; k++) {
+            rest += Math.abs(c[k]);
+        }
+        if (n == 0 || Math.abs(c[0]) > rest) { // |Tk(t)| <= 1, so p keeps the sign of c0; this also skips constants
+            return;
+        }
+        if (n <= SMALL_DEGREE || depth == MAX_DEPTH) {
+            double[] t = new Polynomial(monomial(c)).realRoots(-1 - 1e-10, 1 + 1e-10);
+            for (double root : t) {
+                roots.add(lo + (hi - lo) * (Math.max(-1, Math.min(1, root)) + 1) / 2);
+            }
+            return;
+        }
+        int points = Integer.highestOneBit(n - 1) << 1; // a power of two, at least n, so no degree is lost
+        int stride = (cos.length - 1) / points;
+        for (int side = 0; side < 2; side++) {
+            double from = side == 0 ? -1 : SPLIT;
+            double to = side == 0 ? SPLIT : 1;
+            double[] values = new double[points + 1];
+            for (int j = 0; j <= points; j++) {
+                values[j] = (from + to) / 2 + (to - from) / 2 * cos[j * stride];
+            }
+            clenshaw(c, n, values);
+            roots(chop(coefficients(values, cos, sin), cutoff), lo + (hi - lo) * (from + 1) / 2,
+                    lo + (hi - lo) * (to + 1) / 2, roots, depth + 1, cos, sin);
+        }
+    }
+
+    /**
+     * Chebyshev coefficients from values at the n + 1 Chebyshev points cos(j pi / n), n a power of two.
+     * c_k = (2 / n) times the sum of v_j cos(jk pi / n), with the first and last terms, and c_0 and c_n,
+     * halved. That sum is the FFT of the even extension v_0, ..., v_n, v_n-1, ..., v_1.
+     * cos and sin are tables from cos(N) and sin(N) for some N at least n.
+     */
+    static double[] coefficients(double[] values, double[] cos, double[] sin) {
+        int n = values.length - 1;
+        double[] re = new double[2 * n];
+        double[] im = new double[2 * n];
+        for (int j = 0; j <= n; j++) {
+            re[j] = values[j];
+        }
+        for (int j = 1; j < n; j++) {
+            re[2 * n - j] = values[j];
+        }
+        fft(re, im, cos, sin);
+        double[] c = new double[n + 1];
+        for (int k = 0; k <= n; k++) {
+            c[k] = re[k] / n;
+        }
+        c[0] /= 2;
+        c[n] /= 2;
+        return c;
+    }
+
+    /**
+     * In-place radix-2 FFT, the length a power of two and at most twice the size of the cos and sin tables
+     */
+    private static void fft(double[] re, double[] im, double[] cos, double[] sin) {
+        int n = re.length;
+        for (int i = 1, j = 0; i < n; i++) { // bit reversed order
+            int bit = n >> 1;
+            for (; (j & bit) != 0; bit >>= 1) {
+                j ^= bit;
+            }
+            j ^= bit;
+            if (i < j) {
+                double t = re[i];
+                re[i] = re[j];
+                re[j] = t;
+                t = im[i];
+                im[i] = im[j];
+                im[j] = t;
+            }
+        }
+        int table = 2 * (cos.length - 1);
+        for (int length = 2; length <= n; length <<= 1) {
+            int stride = table / length; // e^(-2 pi i k / length) = cos(pi k stride / N) - i sin(pi k stride / N)
+            for (int i = 0; i < n; i += length) {
+                for (int k = 0; k < length / 2; k++) {
+                    double wr = cos[k * stride];
+                    double wi = -sin[k * stride];
+                    int p = i + k;
+                    int q = p + length / 2;
+                    double tr = re[q] * wr - im[q] * wi;
+                    double ti = re[q] * wi + im[q] * wr;
+                    re[q] = re[p] - tr;
+                    im[q] = im[p] - ti;
+                    re[p] += tr;
+                    im[p] += ti;
+                }
+            }
+        }
+    }
+
+    /**
+     * Sum of c_k T_k(t) for k up to n by Clenshaw's recurrence
+     */
+    private static double clenshaw(double[] c, int n, double t) {
+        double b1 = 0;
+        double b2 = 0;
+        for (int k = n; k >= 1; k--) {
+            double b0 = c[k] + 2 * t * b1 - b2;
+            b2 = b1;
+            b1 = b0;
+        }
+        return c[0] + t * b1 - b2;
+    }
+
+    /**
+     * Replace every t in the array by the sum of c_k T_k(t) for k up to n. Four points go through the
+     * recurrence together, so each step waits on one multiply-add instead of four in a row.
+     */
+    private static void clenshaw(double[] c, int n, double[] t) {
+        int j = 0;
+        for (; j + 4 <= t.length; j += 4) {
+            double t0 = 2 * t[j];
+            double t1 = 2 * t[j + 1];
+            double t2 = 2 * t[j + 2];
+            double t3 = 2 * t[j + 3];
+            double a0 = 0; // b_k+1 of each point
+            double a1 = 0;
+            double a2 = 0;
+            double a3 = 0;
+            double b0 = 0; // b_k+2 of each point
+            double b1 = 0;
+            double b2 = 0;
+            double b3 = 0;
+            for (int k = n; k >= 1; k--) {
+                double ck = c[k];
+                double n0 = ck + t0 * a0 - b0;
+                double n1 = ck + t1 * a1 - b1;
+                double n2 = ck + t2 * a2 - b2;
+                double n3 = ck + t3 * a3 - b3;
+                b0 = a0;
+                b1 = a1;
+                b2 = a2;
+                b3 = a3;
+                a0 = n0;
+                a1 = n1;
+                a2 = n2;
+                a3 = n3;
+            }
+            t[j] = c[0] + t0 / 2 * a0 - b0;
+            t[j + 1] = c[0] + t1 / 2 * a1 - b1;
+            t[j + 2] = c[0] + t2 / 2 * a2 - b2;
+            t[j + 3] = c[0] + t3 / 2 * a3 - b3;
+        }
+        for (; j < t.length; j++) {
+            t[j] = clenshaw(c, n, t[j]);
+        }
+    }
+
+    /**
+     * Drop the trailing coefficients below cutoff, keeping at least c_0
+     */
+    private static double[] chop(double[] c, double cutoff) {
+        int length = c.length;
+        while (length > 1 && Math.abs(c[length - 1]) <= cutoff) {
+            length--;
+        }
+        return Arrays.copyOf(c, length);
+    }
+
+    /**
+     * Coefficients of the same polynomial in powers of t, lowest first, from T_k+1 = 2t T_k - T_k-1
+     */
+    private static double[] monomial(double[] c) {
+        int n = c.length - 1; // at least 1
+        double[] result = new double[n + 1];
+        double[] previous = new double[n + 1]; // T_k-1
+        double[] current = new double[n + 1]; // T_k
+        previous[0] = 1;
+        current[1] = 1;
+        result[0] = c[0];
+        for (int k = 1; k <= n; k++) {
+            for (int i = 0; i <= k; i++) {
+                result[i] += c[k] * current[i];
+            }
+            if (k < n) {
+                double[] next = new double[n + 1];
+                for (int i = 0; i <= k; i++) {
+                    next[i + 1] += 2 * current[i];
+                    next[i] -= previous[i];
+                }
+                previous = current;
+                current = next;
+            }
+        }
+        return result;
+    }
+}
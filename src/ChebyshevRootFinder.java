@@ -0,0 +1,125 @@
+import java.util.Arrays;
+
+/**
+ * Description: Finds all roots of a smooth f(x) in [a, b] from one Chebyshev interpolant, instead of
+ *              refining every sign change on f itself like RootScanner.
+ *
+ *              f is sampled once by ChebyshevProxy, the roots of the interpolant are found without
+ *              evaluating f again, and each is polished with a few Newton-Raphson steps on f, or Secant
+ *              steps if Newton-Raphson does not improve it. A root is kept if |f| there is below
+ *              F_TOLERANCE relative to f's scale.
+ *
+ *              If f is not resolved with PIECE_POINTS samples, [a, b] is halved and each half gets its
+ *              own interpolant, up to MAX_SPLITS times. A piece that is still not resolved, or where f is
+ *              not finite, is left to RootScanner.
+ */
+public final class ChebyshevRootFinder {
+
+    static final int PIECE_POINTS = 1 << 10; // largest grid on one piece before it is halved
+    static final int MAX_SPLITS = 8;
+    private static final double F_TOLERANCE = 1e-10; // |f| accepted at a root, relative to f's scale
+    private static final SolverConfig POLISH = SolverConfig.DEFAULT.withRelativeTolerance(1e-15)
+            .withFTolerance(Double.POSITIVE_INFINITY).withDivergingError(Double.POSITIVE_INFINITY)
+            .withMaxIterations(5);
+
+    private ChebyshevRootFinder() {
+    }
+
+    /**
+     * Find all roots of f in [a, b]
+     * @param f function, smooth on [a, b] except at a few points
+     * @param a left / lower value
+     * @param b right / upper value
+     * @return roots in increasing order
+     */
+    public static double[] findAllRoots(RealFunction f, double a, double b) {
+        if (!(a < b)) {
+            throw new IllegalArgumentException("Expected a < b, got [" + a + ", " + b + "]");
+        }
+        double[] roots = findAllRoots(f, a, b, 0);
+        Arrays.sort(roots);
+        return removeDuplicates(roots, b - a);
+    }
+
+    private static double[] findAllRoots(RealFunction f, double a, double b, int depth) {
+        ChebyshevProxy proxy;
+        try {
+            proxy = ChebyshevProxy.of(f, a, b, PIECE_POINTS);
+        } catch (IllegalArgumentException | ArithmeticException e) { // f is not finite somewhere
+            proxy = null;
+        }
+        if (proxy == null || !proxy.resolved()) {
+            if (depth == MAX_SPLITS) {
+                return RootScanner.findAllRoots(f, a, b, RootScanner.DEFAULT_CELLS >> MAX_SPLITS);
+            }
+            double middle = (a + b) / 2;
+            double[] left = findAllRoots(f, a, middle, depth + 1);
+            double[] right = findAllRoots(f, middle, b, depth + 1);
+            double[] roots = Arrays.copyOf(left, left.length + right.length);
+            System.arraycopy(right, 0, roots, left.length, right.length);
+            return roots;
+        }
+
+        double tolerance = F_TOLERANCE * Math.max(1, proxy.scale());
+        double[] roots = proxy.roots();
+        int count = 0;
+        for (double x : roots) {
+            double root = polish(f, x, a, b, tolerance);
+            if (!Double.isNaN(root)) {
+                roots[count++] = root;
+            }
+        }
+        return Arrays.copyOf(roots, count);
+    }
+
+    /**
+     * A few Newton-Raphson steps from the interpolant's root x, then Secant steps if those do not converge
+     * inside [a, b], then x itself
+     * @return the first of those where |f| is within tolerance, or NaN if there is none
+     */
+    private static double polish(RealFunction f, double x, double a, double b, double tolerance) {
+        try {
+            RootResult newton = RootFinder.newtonRaphson(f, x, POLISH, null);
+            if (isRoot(newton, a, b, tolerance)) {
+                return newton.root;
+            }
+            double h = 1e-8 * Math.max(Math.abs(x), b - a);
+            RootResult secant = RootFinder.secant(f, x + h, x, POLISH, null);
+            if (isRoot(secant, a, b, tolerance)) {
+                return secant.root;
+            }
+        } catch (IllegalArgumentException | ArithmeticException e) {
+            // fall back to the interpolant's root
+        }
+        return Math.abs(sample(f, x)) <= tolerance ? x : Double.NaN;
+    }
+
+    /**
+     * With fTolerance infinite, FOUND means the method converged, and fx is f at the root
+     */
+    private static boolean isRoot(RootResult result, double a, double b, double tolerance) {
+        return result.found() && result.root >= a && result.root <= b && Math.abs(result.fx) <= tolerance;
+    }
+
+    private static double sample(RealFunction f, double x) {
+        try {
+            return f.valueAt(x);
+        } catch (IllegalArgumentException | ArithmeticException e) {
+            return Double.NaN;
+        }
+    }
+
+    /**
+     * Roots found twice, e.g. on the border of two pieces or both halves of a double root, polish to
+     * almost the same x
+     */
+    private static double[] removeDuplicates(double[] roots, double width) {
+        int count = 0;
+        for (double root : roots) {
+            if (count == 0 || root - roots[count - 1] > 1e-9 * Math.max(width, Math.abs(root))) {
+                roots[count++] = root;
+            }
+        }
+        return Arrays.copyOf(roots, count);
+    }
+}
@@ -0,0 +1,127 @@
+import java.io.PrintStream;
+
+/**
+ * Prints the iteration tables and result messages of a solve to the console
+ */
+public class ConsoleTraceSink implements TraceSink {
+
+    private final PrintStream console;
+    private final int functionNumber;
+    private double first; // initial a or x
+    private double second; // initial b or x
+
+    /**
+     * @param functionNumber function number shown in the result message
+     */
+    public ConsoleTraceSink(int functionNumber) {
+        this(System.out, functionNumber);
+    }
+
+    /**
+     * @param console where to print
+     * @param functionNumber function number shown in the result message
+     */
+    public ConsoleTraceSink(PrintStream console, int functionNumber) {
+        this.console = console;
+        this.functionNumber = functionNumber;
+    }
+
+    @Override
+    public void begin(RootMethod method, double first, double second) {
+        this.first = first;
+        this.second = second;
+        switch (method) {
+            case NEWTON_RAPHSON:
+            case HALLEY:
+            case HOUSEHOLDER:
+            case OSTROWSKI:
+                console.println("\n   n \t|     xn  \t|   f(xn) \t|   f'(xn) \t|   Error ");
+                console.println("------------------------------------------------------------------");
+                break;
+            case SECANT:
+                console.println("\n   n \t|    xn-1 \t|     xn \t|   f(xn-1)\t|   f(xn)\t|   f'(xn)\t|   Error ");
+                console.println("----------------------------------------------------------------------------------------------------");
+                break;
+            case MODIFIED_SECANT:
+                console.println("\n   n \t|    xn \t|  delta*xn\t|   f(xn)\t|  f(x+delta*x)\t|   f'(xn)\t|   Error ");
+                console.println("-------------------------------------------------------------------------------------------------------------------");
+                break;
+            default: // bracketing
+                console.println("\n   n \t|     a  \t|     b  \t|     c  \t|    f(a)\t|    f(b)\t|    f(c)\t|   Error ");
+                console.println("-------------------------------------------------------------------------------------------------------------------");
+                break;
+        }
+    }
+
+    @Override
+    public boolean needsDerivative() {
+        return true;
+    }
+
+    @Override
+    public void bracketing(int n, double a, double b, double c, double fa, double fb, double fc, double error) {
+        console.printf("   %d \t|   %.3f\t|   %.3f\t|   %.3f\t|   %.3f\t|   %.3f\t|   %.3f\t|   %.3f\n",
+                        n, a, b, c, fa, fb, fc, error);
+    }
+
+    @Override
+    public void newton(int n, double x, double fx, double fPrimeX, double error) {
+        console.printf("   %d \t|   %.3f\t|   %.3f\t|   %.3f\t|   %.3f \n", n, x, fx, fPrimeX, error);
+    }
+
+    @Override
+    public void secant(int n, double previousX, double x, double fPreviousX, double fx, double fPrimeX,
+                       double error) {
+        console.printf("   %d \t|   %.3f\t|   %.3f\t|   %.3f\t|   %.3f\t|   %.3f\t|   %.3f\n",
+                        n, previousX, x, fPreviousX, fx, fPrimeX, error);
+    }
+
+    @Override
+    public void modifiedSecant(int n, double x, double deltaX, double fx, double fxAndDeltaX, double fPrimeX,
+                               double error) {
+        console.printf("   %d \t|   %.3f\t|   %.3f\t|   %.3f\t|   %.3f\t|   %.3f\t|   %.3f\n",
+                n, x, deltaX, fx, fxAndDeltaX, fPrimeX, error);
+    }
+
+    @Override
+    public void end(RootResult result) {
+        RootMethod method = result.method;
+        switch (result.status) {
+            case RootResult.FOUND:
+                if (method.bracketing) {
+                    console.printf("%s - The root %.3f has been found in between %.0f and %.0f for " +
+                            "function #%d in %d iterations.\n", method.label, result.root, first, second,
+                            functionNumber, result.iterations);
+                } else {
+                    console.printf("%s - The root %.3f has been found for function #%d starting at x = %.0f in " +
+                            "%d iterations.\n", method.label, result.root, functionNumber, second, result.iterations);
+                }
+                break;
+            case RootResult.NO_ROOT:
+                if (method == RootMethod.BISECTION) {
+                    console.printf("BISECTION - There are no roots in between %.0f and %.0f for " +
+                            "function #%d.\n", first, second, functionNumber);
+                } else if (method.bracketing) {
+                    console.printf("%s - There is no root in between %.0f and %.0f for " +
+                            "function #%d.\n", method.label, first, second, functionNumber);
+                } else {
+                    console.printf("%s - There is no root for function #%d starting at " +
+                            "x = %.0f.\n", method.label, functionNumber, second);
+                }
+                break;
+            case RootResult.DIVERGING:
+                console.println("ERROR: This equation is diverging.");
+                break;
+            case RootResult.ZERO_DERIVATIVE:
+                console.println("ERROR: f'(xn) = 0, cannot continue finding the root.");
+                break;
+            case RootResult.BUDGET_EXHAUSTED:
+                console.println("\nRoot Has Not Been Found within "
+                        + (result.evaluations + result.derivativeEvaluations) + " function evaluations.");
+                break;
+            default: // MAX_ITERATIONS
+                console.println("\nRoot Has Not Been Found after " + result.iterations + " iterations.");
+                break;
+        }
+    }
+}
@@ -0,0 +1,230 @@
+/**
+ * Description: Solves f(x; p) along an ordered sweep of parameter sets p0, p1, ..., e.g. function #2
+ *              x + b - xcosh(a/x) for a = 40, 40.01, ..., 60, where each root is close to the last one.
+ *
+ *              Each point starts Newton-Raphson from the previous root, or with extrapolate from the
+ *              straight line through the last two roots, measured against the distance between the
+ *              parameter sets. A good start converges in one step plus the one that checks it, instead
+ *              of the five or so from a fixed guess.
+ *
+ *              Newton-Raphson is not trusted blindly. If it fails, leaves [lower, upper], or lands
+ *              further from the start than JUMP times the last step of the branch, it has probably jumped
+ *              to another root or the branch has turned back. Then an interval around the start is widened
+ *              until f changes sign and Brent's Method finds the root closest to the branch. If f does not
+ *              change sign anywhere in [lower, upper] the branch has disappeared: that point has no root,
+ *              and the next point starts over with Brent's Method on all of [lower, upper].
+ */
+public final class ContinuationSolver {
+
+    static final double JUMP = 8; // largest believable move, in steps of the branch so far
+
+    private ContinuationSolver() {
+    }
+
+    /**
+     * Roots, iteration and evaluation counts and status codes, one entry per sweep point
+     */
+    public static final class Sweep {
+        public final double[] roots; // NaN where there is no root
+        public final int[] iterations; // Newton-Raphson plus Brent iterations
+        public final int[] evaluations; // f(x) plus f'(x) evaluations, including widening the interval
+        public final int[] status; // RootResult status codes
+        public final boolean[] restarted; // fell back to a bracketed search
+
+        Sweep(int points) {
+            roots = new double[points];
+            iterations = new int[points];
+            evaluations = new int[points];
+            status = new int[points];
+            restarted = new boolean[points];
+        }
+
+        /**
+         * @return mean iterations per point
+         */
+        public double averageIterations() {
+            long sum = 0;
+            for (int n : iterations) {
+                sum += n;
+            }
+            return roots.length == 0 ? 0 : (double) sum / roots.length;
+        }
+
+        /**
+         * @return mean evaluations per point
+         */
+        public double averageEvaluations() {
+            long sum = 0;
+            for (int n : evaluations) {
+                sum += n;
+            }
+            return roots.length == 0 ? 0 : (double) sum / roots.length;
+        }
+
+        /**
+         * @return number of points that fell back to a bracketed search
+         */
+        public int restarts() {
+            int count = 0;
+            for (boolean r : restarted) {
+                if (r) {
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Solve every point of a sweep with the default stopping rules, predicting from the last two roots
+     * @param f function family
+     * @param parameters parameters[k][point], in sweep order
+     * @param lower lower end of the interval every root is searched for in
+     * @param upper upper end
+     * @return roots and per point counts
+     */
+    public static Sweep solve(ParametricFunction f, double[][] parameters, double lower, double upper) {
+        return solve(f, parameters, lower, upper, true, SolverConfig.DEFAULT);
+    }
+
+    /**
+     * Solve every point of a sweep
+     * @param f function family
+     * @param parameters parameters[k][point], in sweep order
+     * @param lower lower end of the interval every root is searched for in
+     * @param upper upper end
+     * @param extrapolate start from the line through the last two roots instead of the last root
+     * @param config stopping rules for Newton-Raphson and Brent's Method
+     * @return roots and per point counts
+     */
+    public static Sweep solve(ParametricFunction f, double[][] parameters, double lower, double upper,
+                              boolean extrapolate, SolverConfig config) {
+        if (!(lower < upper)) {
+            throw new IllegalArgumentException("Expected lower < upper, got " + lower + " and " + upper);
+        }
+        int points = parameters.length == 0 ? 0 : parameters[0].length;
+        Sweep sweep = new Sweep(points);
+        Lane lane = new Lane(f, parameters);
+        int known = 0; // how many of the last roots belong to the current branch, up to 2
+        for (int i = 0; i < points; i++) {
+            lane.lane = i;
+            double last = i > 0 ? sweep.roots[i - 1] : Double.NaN;
+            double branchStep = known == 2 ? Math.abs(last - sweep.roots[i - 2]) : Double.POSITIVE_INFINITY;
+            RootResult result = null;
+            double start = last;
+            int evaluations = 0;
+            int iterations = 0;
+            if (known > 0) {
+                if (extrapolate && known == 2) {
+                    double before = distance(parameters, i - 2, i - 1);
+                    if (before > 0) {
+                        start = last + (last - sweep.roots[i - 2]) * (distance(parameters, i - 1, i) / before);
+                    }
+                }
+                result = RootFinder.newtonRaphson(lane, start, config, null);
+                evaluations = result.evaluations + result.derivativeEvaluations;
+                iterations = result.iterations;
+                boolean jumped = !(result.root >= lower && result.root <= upper)
+                        || Math.abs(result.root - start) > JUMP * branchStep + config.bracketTolerance(start);
+                if (!result.found() || jumped) {
+                    result = null;
+                }
+            }
+            if (result == null) { // no branch yet, or Newton-Raphson lost it
+                sweep.restarted[i] = true;
+                double width = Math.abs(start - last) + (known == 2 ? branchStep : 0);
+                double[] bracket = known > 0 ? bracketNear(lane, start, width, lower, upper)
+                        : new double[] {lower, upper};
+                if (known > 0) {
+                    evaluations += (int) bracket[2];
+                }
+                result = BracketedRootFinder.brent(lane, bracket[0], bracket[1], config, null);
+                evaluations += result.evaluations + result.derivativeEvaluations;
+                iterations += result.iterations;
+            }
+            sweep.iterations[i] = iterations;
+            sweep.evaluations[i] = evaluations;
+            sweep.status[i] = result.status;
+            if (result.found()) {
+                sweep.roots[i] = result.root;
+                known = Math.min(known + 1, 2);
+            } else {
+                sweep.roots[i] = Double.NaN;
+                known = 0;
+            }
+        }
+        return sweep;
+    }
+
+    /**
+     * Widen an interval around x, twice as wide every time, until f changes sign over it or it covers
+     * [lower, upper]
+     * @param f function
+     * @param x middle of the first interval
+     * @param width half width of the first interval
+     * @param lower lowest value to widen to
+     * @param upper highest value to widen to
+     * @return a, b and the number of evaluations used
+     */
+    private static double[] bracketNear(RealFunction f, double x, double width, double lower, double upper) {
+        x = Math.min(Math.max(x, lower), upper);
+        width = Math.max(width, (upper - lower) * 0x1p-20);
+        double a = x;
+        double b = x;
+        double fa = f.valueAt(x);
+        double fb = fa;
+        int evaluations = 1;
+        while ((fa < 0) == (fb < 0) && fa != 0 && fb != 0 && (a > lower || b < upper)) {
+            double nextA = Math.max(x - width, lower);
+            double nextB = Math.min(x + width, upper);
+            if (nextA < a) {
+                a = nextA;
+                fa = f.valueAt(a);
+                evaluations++;
+            }
+            if (nextB > b && (fa < 0) == (fb < 0) && fa != 0) {
+                b = nextB;
+                fb = f.valueAt(b);
+                evaluations++;
+            }
+            width *= 2;
+        }
+        return new double[] {a, b, evaluations};
+    }
+
+    /**
+     * Euclidean distance between two parameter sets of the sweep
+     */
+    private static double distance(double[][] parameters, int i, int j) {
+        double sum = 0;
+        for (double[] p : parameters) {
+            double d = p[j] - p[i];
+            sum += d * d;
+        }
+        return Math.sqrt(sum);
+    }
+
+    /**
+     * One point of the sweep as a RealFunction, moved along by setting lane
+     */
+    private static final class Lane implements RealFunction {
+        private final ParametricFunction function;
+        private final double[][] parameters;
+        int lane;
+
+        Lane(ParametricFunction function, double[][] parameters) {
+            this.function = function;
+            this.parameters = parameters;
+        }
+
+        @Override
+        public double valueAt(double x) {
+            return function.valueAt(x, parameters, lane);
+        }
+
+        @Override
+        public double derivativeAt(double x) {
+            return function.derivativeAt(x, parameters, lane);
+        }
+    }
+}
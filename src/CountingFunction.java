@@ -0,0 +1,115 @@
+/**
+ * Wraps a function and counts how many times f(x) and f'(x) are evaluated, optionally up to a budget.
+ *
+ * The methods in RootFinder solve through one of these, so every RootResult reports exactly how many
+ * evaluations it cost. A fused evaluate counts as one f(x) and one f'(x) evaluation. f''(x) and f'''(x)
+ * count as derivative evaluations too, so evaluate(x, out, 3) counts as one f(x) and three derivatives.
+ */
+public final class CountingFunction implements RealFunction {
+
+    public static final int UNLIMITED = Integer.MAX_VALUE; // no evaluation budget
+
+    private final RealFunction function;
+    private final int budget;
+    final long started = SolverMetrics.start(); // for SolverMetrics, NOT_TIMED unless counting
+    final SolveEvent event = SolverMetrics.event(); // null unless a recording wants it
+    private int values;
+    private int derivatives;
+
+    /**
+     * Count evaluations without a budget
+     * @param function function to count
+     */
+    public CountingFunction(RealFunction function) {
+        this(function, UNLIMITED);
+    }
+
+    /**
+     * Count evaluations up to a budget
+     * @param function function to count
+     * @param budget f(x) plus f'(x) evaluations allowed, checked with canEvaluate
+     */
+    public CountingFunction(RealFunction function, int budget) {
+        if (budget < 0) {
+            throw new IllegalArgumentException("Evaluation budget must not be negative, got " + budget);
+        }
+        this.function = function;
+        this.budget = budget;
+    }
+
+    @Override
+    public double valueAt(double x) {
+        values++;
+        return function.valueAt(x);
+    }
+
+    @Override
+    public double derivativeAt(double x) {
+        derivatives++;
+        return function.derivativeAt(x);
+    }
+
+    @Override
+    public double secondDerivativeAt(double x) {
+        derivatives++;
+        return function.secondDerivativeAt(x);
+    }
+
+    @Override
+    public double thirdDerivativeAt(double x) {
+        derivatives++;
+        return function.thirdDerivativeAt(x);
+    }
+
+    @Override
+    public void evaluate(double x, Dual out) {
+        values++;
+        derivatives++;
+        function.evaluate(x, out);
+    }
+
+    @Override
+    public void evaluate(double x, Dual out, int order) {
+        values++;
+        derivatives += order;
+        function.evaluate(x, out, order);
+    }
+
+    /**
+     * Check whether the budget has room for more evaluations
+     * @param count f(x) plus f'(x) evaluations about to be made
+     * @return True if they fit in the budget
+     */
+    public boolean canEvaluate(int count) {
+        return count <= budget - values - derivatives;
+    }
+
+    /**
+     * @return f(x) evaluations so far
+     */
+    public int values() {
+        return values;
+    }
+
+    /**
+     * @return f'(x), f''(x) and f'''(x) evaluations so far
+     */
+    public int derivatives() {
+        return derivatives;
+    }
+
+    /**
+     * @return the function being counted
+     */
+    RealFunction function() {
+        return function;
+    }
+
+    /**
+     * Start counting from zero again
+     */
+    public void reset() {
+        values = 0;
+        derivatives = 0;
+    }
+}
@@ -0,0 +1,122 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.nio.file.attribute.PosixFilePermissions;
+
+/**
+ * Description: What SolverClient and SolverDaemon send each other over a Unix domain socket.
+ *
+ *              The client sends its working directory and then its arguments, as an int count and strings
+ *              written with DataOutputStream.writeUTF. The daemon answers with frames of a byte saying what
+ *              the frame is and an int:
+ *                  STDOUT or STDERR, the length, then that many bytes of output
+ *                  INPUT, 0, asking for the client's stdin, which the client then sends as plain bytes until
+ *                  it shuts down its side of the socket; only stream reads stdin
+ *              Until INPUT, the client sends nothing more, so the end of its stream before then means it has
+ *              gone, and the daemon stops its run.
+ *                  EXIT, the exit status, the last frame
+ *
+ *              The socket is in a directory only the user can open, since the daemon reads and writes files
+ *              with the user's rights for anyone who can connect. Both sides check that the directory is the
+ *              user's before using it: the default one is in the shared temporary directory, where another
+ *              user could make it first and serve a daemon of their own in it.
+ */
+public final class DaemonProtocol {
+
+    static final byte EXIT = 0;
+    static final byte STDOUT = 1;
+    static final byte STDERR = 2;
+    static final byte INPUT = 3;
+
+    static final int MAX_ARGUMENTS = 1 << 16;
+    static final String SOCKET_PROPERTY = "locateroots.socket"; // -Dlocateroots.socket=path changes the socket
+
+    private DaemonProtocol() {
+    }
+
+    /**
+     * @return the socket path given by SOCKET_PROPERTY, or daemon.sock in a locateroots-user directory in the
+     *         temporary directory
+     */
+    static Path socketPath() {
+        String path = System.getProperty(SOCKET_PROPERTY);
+        if (path != null) {
+            return Paths.get(path);
+        }
+        return Paths.get(System.getProperty("java.io.tmpdir"), "locateroots-" + System.getProperty("user.name"),
+                "daemon.sock");
+    }
+
+    /**
+     * @param directory directory the socket is in
+     * @return true if it is a directory, not a link to one, that belongs to the user running this JVM, and only
+     *         they can open it, rwx------; where there are no POSIX permissions, only the owner is checked
+     * @throws IOException if it cannot be read, e.g. it does not exist
+     */
+    static boolean isPrivate(Path directory) throws IOException {
+        String user = System.getProperty("user.name");
+        if (!FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+            return Files.isDirectory(directory, LinkOption.NOFOLLOW_LINKS)
+                    && Files.getOwner(directory, LinkOption.NOFOLLOW_LINKS).getName().equals(user);
+        }
+        PosixFileAttributes attributes = Files.readAttributes(directory, PosixFileAttributes.class,
+                LinkOption.NOFOLLOW_LINKS);
+        return attributes.isDirectory() && attributes.owner().getName().equals(user)
+                && attributes.permissions().equals(PosixFilePermissions.fromString("rwx------"));
+    }
+
+    /**
+     * Read from a channel in blocking mode. Unlike Channels.newInputStream, a read does not hold the channel's
+     * blocking lock, which a write from another thread also needs, so one thread can wait for input while
+     * another writes.
+     * @param channel connected channel
+     * @return stream over it, closing it does not close the channel
+     */
+    static InputStream input(SocketChannel channel) {
+        return new InputStream() {
+            @Override
+            public int read() throws IOException {
+                byte[] one = new byte[1];
+                return read(one, 0, 1) < 0 ? -1 : one[0] & 0xff;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                if (len == 0) {
+                    return 0;
+                }
+                return channel.read(ByteBuffer.wrap(b, off, len));
+            }
+        };
+    }
+
+    /**
+     * Write to a channel in blocking mode, without the channel's blocking lock, see input
+     * @param channel connected channel
+     * @return stream over it, closing it does not close the channel
+     */
+    static OutputStream output(SocketChannel channel) {
+        return new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[] {(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                ByteBuffer buffer = ByteBuffer.wrap(b, off, len);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+        };
+    }
+}
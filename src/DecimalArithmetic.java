@@ -0,0 +1,141 @@
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+
+/**
+ * Description: BigDecimal arithmetic to a fixed number of significant digits, the last step up for
+ *              AdaptiveSolver when double-double is not enough.
+ *
+ *              exp halves x until it is below 2^-10, sums the Taylor series and squares back up, carrying
+ *              extra guard digits for the squarings. log takes Halley steps on exp from Math.log, each of
+ *              which triples the digits. Both work for any x whose double value is finite.
+ */
+public final class DecimalArithmetic implements Arithmetic<BigDecimal> {
+
+    private static final int GUARD_DIGITS = 10;
+
+    private final int digits;
+    private final MathContext context;
+    private final MathContext working; // context plus guard digits, for exp and log
+    private final double epsilon;
+
+    /**
+     * @param digits significant decimal digits, 17 to 300
+     */
+    public DecimalArithmetic(int digits) {
+        if (digits < 17 || digits > 300) {
+            throw new IllegalArgumentException("Expected 17 to 300 digits, got " + digits);
+        }
+        this.digits = digits;
+        context = new MathContext(digits, RoundingMode.HALF_EVEN);
+        working = new MathContext(digits + GUARD_DIGITS, RoundingMode.HALF_EVEN);
+        epsilon = Math.pow(10, 1 - digits) / 2;
+    }
+
+    /**
+     * @return significant decimal digits
+     */
+    public int digits() {
+        return digits;
+    }
+
+    @Override
+    public double epsilon() {
+        return epsilon;
+    }
+
+    @Override
+    public BigDecimal of(double x) {
+        return new BigDecimal(x);
+    }
+
+    @Override
+    public double toDouble(BigDecimal x) {
+        return x.doubleValue();
+    }
+
+    @Override
+    public BigDecimal toBigDecimal(BigDecimal x) {
+        return x;
+    }
+
+    @Override
+    public int signum(BigDecimal x) {
+        return x.signum();
+    }
+
+    @Override
+    public BigDecimal add(BigDecimal x, BigDecimal y) {
+        return x.add(y, context);
+    }
+
+    @Override
+    public BigDecimal subtract(BigDecimal x, BigDecimal y) {
+        return x.subtract(y, context);
+    }
+
+    @Override
+    public BigDecimal multiply(BigDecimal x, BigDecimal y) {
+        return x.multiply(y, context);
+    }
+
+    @Override
+    public BigDecimal divide(BigDecimal x, BigDecimal y) {
+        return x.divide(y, context);
+    }
+
+    @Override
+    public BigDecimal negate(BigDecimal x) {
+        return x.negate();
+    }
+
+    @Override
+    public BigDecimal sqrt(BigDecimal x) {
+        return x.sqrt(context);
+    }
+
+    @Override
+    public BigDecimal exp(BigDecimal x) {
+        return exp(x, working).round(context);
+    }
+
+    private static BigDecimal exp(BigDecimal x, MathContext mc) {
+        if (x.signum() == 0) {
+            return BigDecimal.ONE;
+        }
+        int halvings = Math.max(0, Math.getExponent(x.doubleValue()) + 11); // |r| < 2^-10
+        MathContext extra = new MathContext(mc.getPrecision() + halvings / 3 + 1, RoundingMode.HALF_EVEN);
+        BigDecimal r = x.divide(BigDecimal.valueOf(2).pow(halvings), extra);
+        BigDecimal tiny = r.abs().movePointLeft(extra.getPrecision() + 1); // relative to e^r - 1, about r
+        BigDecimal sum = BigDecimal.ZERO; // e^r - 1, kept apart from the 1 so squaring does not lose it
+        BigDecimal term = BigDecimal.ONE;
+        for (int k = 1; term.abs().compareTo(tiny) > 0; k++) {
+            term = term.multiply(r, extra).divide(BigDecimal.valueOf(k), extra);
+            sum = sum.add(term, extra);
+        }
+        BigDecimal two = BigDecimal.valueOf(2);
+        for (int i = 0; i < halvings; i++) { // e^2r - 1 = (e^r - 1)(e^r - 1 + 2)
+            sum = sum.multiply(sum.add(two), extra);
+        }
+        return sum.add(BigDecimal.ONE, mc);
+    }
+
+    @Override
+    public BigDecimal log(BigDecimal x) {
+        if (x.signum() <= 0) {
+            throw new ArithmeticException("Logarithm of " + x);
+        }
+        BigDecimal y = new BigDecimal(Math.log(x.doubleValue()));
+        BigDecimal two = BigDecimal.valueOf(2);
+        BigDecimal tolerance = BigDecimal.ONE.movePointLeft(digits + 1);
+        for (int i = 0; i < 10; i++) { // y + 2(x - e^y) / (x + e^y)
+            BigDecimal e = exp(y, working);
+            BigDecimal step = two.multiply(x.subtract(e, working), working).divide(x.add(e, working), working);
+            y = y.add(step, working);
+            if (step.abs().compareTo(tolerance.multiply(y.abs().max(BigDecimal.ONE))) <= 0) {
+                break;
+            }
+        }
+        return y.round(context);
+    }
+}
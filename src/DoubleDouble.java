@@ -0,0 +1,270 @@
+import java.math.BigDecimal;
+import java.math.MathContext;
+
+/**
+ * Description: A number held as the unevaluated sum hi + lo of two doubles, |lo| <= ulp(hi) / 2, which
+ *              carries about 106 bits (32 digits) instead of 53.
+ *
+ *              Each operation is a handful of double operations: the rounding error of a sum or a product
+ *              is recovered exactly (Knuth's two-sum, and Math.fma for products) and carried in lo. That
+ *              makes it around ten times slower than double but still far faster than BigDecimal, so it
+ *              is the first step up for AdaptiveSolver.
+ *
+ *              exp reduces x by multiples of ln 2 and then by 2^10, sums the Taylor series and squares back
+ *              up. log takes Newton-Raphson steps on exp from Math.log. Values past the range of double
+ *              overflow to infinity like double does.
+ */
+public final class DoubleDouble implements Comparable<DoubleDouble> {
+
+    public static final DoubleDouble ZERO = new DoubleDouble(0, 0);
+    public static final DoubleDouble ONE = new DoubleDouble(1, 0);
+
+    private static final DoubleDouble LN2 = new DoubleDouble(0.6931471805599453, 2.3190468138462996e-17);
+    private static final double EPSILON = 0x1p-104;
+    private static final int EXP_HALVINGS = 10; // reduce exp's argument by 2^10 so its series is short
+
+    // 1/k! up to the last term exp's series needs for |r| < ln 2 / 2^11
+    private static final DoubleDouble[] INVERSE_FACTORIALS = new DoubleDouble[12];
+
+    static {
+        DoubleDouble factorial = ONE;
+        for (int k = 0; k < INVERSE_FACTORIALS.length; k++) {
+            factorial = factorial.multiply(of(k + 1));
+            INVERSE_FACTORIALS[k] = ONE.divide(factorial); // 1/(k+1)!
+        }
+    }
+
+    /**
+     * Double-double arithmetic for AdaptiveSolver and PreciseFunction
+     */
+    public static final Arithmetic<DoubleDouble> ARITHMETIC = new Arithmetic<DoubleDouble>() {
+        @Override
+        public double epsilon() {
+            return EPSILON;
+        }
+
+        @Override
+        public DoubleDouble of(double x) {
+            return DoubleDouble.of(x);
+        }
+
+        @Override
+        public double toDouble(DoubleDouble x) {
+            return x.hi;
+        }
+
+        @Override
+        public BigDecimal toBigDecimal(DoubleDouble x) {
+            return x.toBigDecimal();
+        }
+
+        @Override
+        public int signum(DoubleDouble x) {
+            return x.signum();
+        }
+
+        @Override
+        public DoubleDouble add(DoubleDouble x, DoubleDouble y) {
+            return x.add(y);
+        }
+
+        @Override
+        public DoubleDouble subtract(DoubleDouble x, DoubleDouble y) {
+            return x.subtract(y);
+        }
+
+        @Override
+        public DoubleDouble multiply(DoubleDouble x, DoubleDouble y) {
+            return x.multiply(y);
+        }
+
+        @Override
+        public DoubleDouble divide(DoubleDouble x, DoubleDouble y) {
+            return x.divide(y);
+        }
+
+        @Override
+        public DoubleDouble negate(DoubleDouble x) {
+            return x.negate();
+        }
+
+        @Override
+        public DoubleDouble sqrt(DoubleDouble x) {
+            return x.sqrt();
+        }
+
+        @Override
+        public DoubleDouble exp(DoubleDouble x) {
+            return x.exp();
+        }
+
+        @Override
+        public DoubleDouble log(DoubleDouble x) {
+            return x.log();
+        }
+    };
+
+    public final double hi; // x rounded to a double
+    public final double lo; // the rest, x - hi
+
+    private DoubleDouble(double hi, double lo) {
+        this.hi = hi;
+        this.lo = lo;
+    }
+
+    /**
+     * @param x value
+     * @return x exactly
+     */
+    public static DoubleDouble of(double x) {
+        return new DoubleDouble(x, 0);
+    }
+
+    /**
+     * hi + lo where |lo| may be as large as |hi|, renormalized
+     */
+    private static DoubleDouble quickTwoSum(double hi, double lo) {
+        double s = hi + lo;
+        return new DoubleDouble(s, lo - (s - hi));
+    }
+
+    /**
+     * @param y value
+     * @return this + y
+     */
+    public DoubleDouble add(DoubleDouble y) {
+        double s = hi + y.hi; // two-sum of the high parts
+        double v = s - hi;
+        double e = (hi - (s - v)) + (y.hi - v);
+        double t = lo + y.lo; // and of the low parts
+        double w = t - lo;
+        double f = (lo - (t - w)) + (y.lo - w);
+        e += t;
+        double sum = s + e;
+        e = e - (sum - s);
+        return quickTwoSum(sum, e + f);
+    }
+
+    /**
+     * @param y value
+     * @return this - y
+     */
+    public DoubleDouble subtract(DoubleDouble y) {
+        return add(y.negate());
+    }
+
+    /**
+     * @param y value
+     * @return this * y
+     */
+    public DoubleDouble multiply(DoubleDouble y) {
+        double p = hi * y.hi;
+        double e = Math.fma(hi, y.hi, -p); // exact rounding error of p
+        return quickTwoSum(p, e + (hi * y.lo + lo * y.hi));
+    }
+
+    /**
+     * @param y value
+     * @return this / y
+     */
+    public DoubleDouble divide(DoubleDouble y) {
+        double q1 = hi / y.hi;
+        if (!Double.isFinite(q1) || y.hi == 0) {
+            return of(q1);
+        }
+        DoubleDouble r = subtract(y.multiply(of(q1)));
+        double q2 = r.hi / y.hi;
+        r = r.subtract(y.multiply(of(q2)));
+        double q3 = r.hi / y.hi;
+        return quickTwoSum(q1, q2).add(of(q3));
+    }
+
+    /**
+     * @return -this
+     */
+    public DoubleDouble negate() {
+        return new DoubleDouble(-hi, -lo);
+    }
+
+    /**
+     * @return sign of this, -1, 0 or 1
+     */
+    public int signum() {
+        return hi != 0 ? (int) Math.signum(hi) : (int) Math.signum(lo);
+    }
+
+    /**
+     * @return square root of this, NaN if it is negative
+     */
+    public DoubleDouble sqrt() {
+        if (hi <= 0) {
+            return of(hi == 0 ? 0 : Double.NaN);
+        }
+        double q = Math.sqrt(hi);
+        DoubleDouble r = subtract(of(q).multiply(of(q))); // one Newton-Raphson step from sqrt(hi)
+        return quickTwoSum(q, r.hi / (2 * q));
+    }
+
+    /**
+     * @return e^this
+     */
+    public DoubleDouble exp() {
+        if (hi > 709.8) {
+            return of(Double.POSITIVE_INFINITY);
+        }
+        if (hi < -745.2) {
+            return ZERO;
+        }
+        double k = Math.rint(hi / LN2.hi);
+        DoubleDouble r = subtract(LN2.multiply(of(k)));
+        r = new DoubleDouble(Math.scalb(r.hi, -EXP_HALVINGS), Math.scalb(r.lo, -EXP_HALVINGS));
+        DoubleDouble sum = ZERO; // e^r - 1, kept apart from the 1 so squaring does not lose it
+        DoubleDouble power = ONE;
+        for (DoubleDouble inverse : INVERSE_FACTORIALS) {
+            power = power.multiply(r);
+            DoubleDouble term = power.multiply(inverse);
+            sum = sum.add(term);
+            if (Math.abs(term.hi) <= EPSILON * Math.abs(sum.hi)) {
+                break;
+            }
+        }
+        for (int i = 0; i < EXP_HALVINGS; i++) { // e^2r - 1 = (e^r - 1)(e^r - 1 + 2)
+            sum = sum.multiply(sum.add(of(2)));
+        }
+        sum = sum.add(ONE);
+        int scale = (int) k;
+        return new DoubleDouble(Math.scalb(sum.hi, scale), Math.scalb(sum.lo, scale));
+    }
+
+    /**
+     * @return natural logarithm of this, NaN if it is negative
+     */
+    public DoubleDouble log() {
+        if (hi <= 0 || !Double.isFinite(hi)) {
+            return of(Math.log(hi));
+        }
+        DoubleDouble y = of(Math.log(hi)); // y + x e^-y - 1 doubles the digits of y
+        for (int i = 0; i < 2; i++) {
+            y = y.add(multiply(y.negate().exp())).subtract(ONE);
+        }
+        return y;
+    }
+
+    /**
+     * @return hi + lo exactly
+     */
+    public BigDecimal toBigDecimal() {
+        return new BigDecimal(hi).add(new BigDecimal(lo));
+    }
+
+    @Override
+    public int compareTo(DoubleDouble other) {
+        int c = Double.compare(hi, other.hi);
+        return c != 0 ? c : Double.compare(lo, other.lo);
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().round(new MathContext(32)).toString();
+    }
+}
@@ -0,0 +1,43 @@
+/**
+ * A dual number value + derivative*ε, the result of evaluating f and f' in one pass.
+ *
+ * It is a mutable pair of primitive slots so a solver can allocate one per solve and have the
+ * function fill it in every iteration, instead of boxing two doubles per call. The higher order
+ * methods also have f'' and f''' filled in, see RealFunction.evaluate(x, out, order).
+ */
+public final class Dual {
+    public double value; // f(x)
+    public double derivative; // f'(x)
+    public double second; // f''(x), only filled in for order 2 or more
+    public double third; // f'''(x), only filled in for order 3
+
+    /**
+     * sinh(u) from expm1(|u|), so sinh and cosh together need only one exponential
+     * @param u argument
+     * @param expm1 e^|u| - 1
+     * @return sinh(u)
+     */
+    public static double sinh(double u, double expm1) {
+        if (expm1 == Double.POSITIVE_INFINITY) { // e^|u| overflows a little before sinh(u) does
+            return Math.sinh(u);
+        }
+        double e = expm1 + 1;
+        double sinh = expm1 < 2 ? expm1 * (expm1 + 2) / (2 * e) // |u| < ~1, (e - 1/e)/2 would cancel
+                : (e - 1 / e) / 2;
+        return Math.copySign(sinh, u);
+    }
+
+    /**
+     * cosh(u) from expm1(|u|), so sinh and cosh together need only one exponential
+     * @param u argument
+     * @param expm1 e^|u| - 1
+     * @return cosh(u)
+     */
+    public static double cosh(double u, double expm1) {
+        if (expm1 == Double.POSITIVE_INFINITY) {
+            return Math.cosh(u);
+        }
+        double e = expm1 + 1;
+        return (e + 1 / e) / 2;
+    }
+}
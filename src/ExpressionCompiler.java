@@ -0,0 +1,1577 @@
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Description: Compiles a formula such as "x + 10 - x*cosh(50/x)" into a RealFunction.
+ *
+ *              The formula is parsed once into a small tree, constant folded, differentiated
+ *              symbolically, and then written out as the bytecode of a hidden class. The JIT sees
+ *              plain straight-line arithmetic and Math calls, the same as the hand written
+ *              getFX / getFPrimeX, so there is no per-call interpreting.
+ *
+ *              The class also gets a forward-mode (dual number) evaluate(x, Dual) that carries
+ *              each subexpression's value and derivative together, so Newton's method gets f(x)
+ *              and f'(x) from one pass with every Math call made once. f''(x) and f'''(x), for the
+ *              higher order methods, are differentiated symbolically again and compiled the same way.
+ *
+ *              Supported: numbers, x, pi, e, + - * / ^, unary minus, parentheses and the
+ *              functions sin cos tan asin acos atan sinh cosh tanh exp ln log log10 sqrt cbrt abs.
+ */
+public final class ExpressionCompiler {
+
+    // node kinds
+    static final int CONST = 0;
+    static final int VAR = 1;
+    static final int NEG = 2;
+    static final int ADD = 3;
+    static final int SUB = 4;
+    static final int MUL = 5;
+    static final int DIV = 6;
+    static final int POW = 7;
+    static final int CALL = 8;
+
+    private static final String[] FUNCTIONS = {"sin", "cos", "tan", "asin", "acos", "atan", "sinh", "cosh",
+            "tanh", "exp", "ln", "log", "log10", "sqrt", "cbrt", "abs"};
+
+    // functions with a double-double and BigDecimal version, signum comes from differentiating abs
+    private static final List<String> PRECISE_FUNCTIONS = List.of("sinh", "cosh", "tanh", "exp", "ln", "log",
+            "log10", "sqrt", "cbrt", "abs", "signum");
+
+    // double arithmetic opcodes
+    private static final int DADD = 0x63;
+    private static final int DSUB = 0x67;
+    private static final int DMUL = 0x6b;
+    private static final int DDIV = 0x6f;
+
+    private static final int MAX_POLYNOMIAL_DEGREE = 64; // higher powers are left to the general path
+
+    private static final String CLASS_NAME = "CompiledFunction";
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private ExpressionCompiler() {
+    }
+
+    /**
+     * Parse and compile a formula in x
+     * @param formula formula, e.g. "2x^3 - 11.7x^2 + 17.7x - 5"
+     * @return compiled function with exact derivative
+     */
+    public static RealFunction compile(String formula) {
+        return compile(parse(formula), formula);
+    }
+
+    /**
+     * Parse and compile a formula in x that can also be evaluated in double-double or BigDecimal, for
+     * AdaptiveSolver. Constants such as 1/3 and pi are the doubles the compiled function uses, so the
+     * wider precision evaluates exactly the function that is solved in doubles.
+     * @param formula formula, e.g. "x + 10 - x*cosh(50/x)"
+     * @return compiled function, which is also an IntervalFunction, or null if the formula uses a
+     *         trigonometric function, which has no wider precision version
+     */
+    public static PreciseFunction precise(String formula) {
+        Node f = parse(formula);
+        Node fPrime = f.derivative();
+        if (!f.isPrecise() || !fPrime.isPrecise()) {
+            return null;
+        }
+        return new PreciseFormula(compile(f, formula), formula, f, fPrime);
+    }
+
+    /**
+     * Parse and compile a formula in x that can also be evaluated over intervals, for IntervalRootFinder.
+     * Constants such as 1/3 and pi are the doubles the compiled function uses, as for precise.
+     * @param formula formula, e.g. "x + 10 - x*cosh(50/x)"
+     * @return compiled function; every supported function has an interval version
+     */
+    public static IntervalFunction interval(String formula) {
+        Node f = parse(formula);
+        return new IntervalFormula(compile(f, formula), formula, f, f.derivative());
+    }
+
+    private static RealFunction compile(Node f, String formula) {
+        Node fPrime = f.derivative();
+        Node fSecond = fPrime.derivative();
+        byte[] bytes = new ClassWriter().write(f, fPrime, fSecond, fSecond.derivative(), formula);
+        try {
+            MethodHandles.Lookup hidden = LOOKUP.defineHiddenClass(bytes, true);
+            return (RealFunction) hidden.findConstructor(hidden.lookupClass(),
+                    MethodType.methodType(void.class)).invoke();
+        } catch (Throwable e) {
+            throw new IllegalStateException("Cannot compile f(x) = " + formula, e);
+        }
+    }
+
+    /**
+     * Parse a formula as a polynomial, so all its real roots can be found with Polynomial.realRoots
+     * @param formula formula in x, e.g. "2x^3 - 11.7x^2 + 17.7x - 5"
+     * @return the polynomial, or null if the formula is not a polynomial in x
+     */
+    public static Polynomial polynomial(String formula) {
+        double[] coefficients = coefficients(parse(formula));
+        return coefficients == null ? null : new Polynomial(coefficients);
+    }
+
+    /**
+     * Expand a tree made of +, -, *, division by constants and whole powers into coefficients
+     * @param node root of the tree
+     * @return c0, c1, ..., or null if the tree is not a polynomial in x
+     */
+    private static double[] coefficients(Node node) {
+        switch (node.kind) {
+            case CONST:
+                return new double[] {node.value};
+            case VAR:
+                return new double[] {0, 1};
+            case NEG: {
+                double[] u = coefficients(node.left);
+                if (u != null) {
+                    for (int i = 0; i < u.length; i++) {
+                        u[i] = -u[i];
+                    }
+                }
+                return u;
+            }
+            case ADD:
+            case SUB: {
+                double[] u = coefficients(node.left);
+                double[] v = coefficients(node.right);
+                if (u == null || v == null) {
+                    return null;
+                }
+                double[] sum = new double[Math.max(u.length, v.length)];
+                for (int i = 0; i < sum.length; i++) {
+                    double vi = i < v.length ? v[i] : 0;
+                    sum[i] = (i < u.length ? u[i] : 0) + (node.kind == ADD ? vi : -vi);
+                }
+                return sum;
+            }
+            case MUL: {
+                double[] u = coefficients(node.left);
+                double[] v = coefficients(node.right);
+                return u == null || v == null ? null : multiply(u, v);
+            }
+            case DIV: {
+                double[] u = coefficients(node.left);
+                if (u == null || node.right.kind != CONST || node.right.value == 0) {
+                    return null;
+                }
+                for (int i = 0; i < u.length; i++) {
+                    u[i] /= node.right.value;
+                }
+                return u;
+            }
+            case POW: {
+                double[] u = coefficients(node.left);
+                double n = node.right.kind == CONST ? node.right.value : -1;
+                if (u == null || n < 0 || n != Math.rint(n) || (u.length - 1) * n > MAX_POLYNOMIAL_DEGREE) {
+                    return null;
+                }
+                double[] power = {1};
+                for (int i = 0; i < n; i++) {
+                    power = multiply(power, u);
+                }
+                return power;
+            }
+            default:
+                return null;
+        }
+    }
+
+    private static double[] multiply(double[] u, double[] v) {
+        double[] product = new double[u.length + v.length - 1];
+        for (int i = 0; i < u.length; i++) {
+            for (int j = 0; j < v.length; j++) {
+                product[i + j] += u[i] * v[j];
+            }
+        }
+        return product;
+    }
+
+    /**
+     * Parse a formula into a constant folded expression tree
+     * @param formula formula in x
+     * @return root of the tree
+     */
+    static Node parse(String formula) {
+        Parser parser = new Parser(formula);
+        Node node = parser.expression();
+        if (parser.pos < formula.length()) {
+            throw parser.error("Unexpected '" + formula.charAt(parser.pos) + "'");
+        }
+        return node;
+    }
+
+    /**
+     * A compiled formula, which evaluates doubles, together with its tree, which evaluates anything else
+     */
+    private abstract static class Formula implements RealFunction {
+        final RealFunction compiled;
+        final String formula;
+        final Node f;
+        final Node fPrime;
+
+        Formula(RealFunction compiled, String formula, Node f, Node fPrime) {
+            this.compiled = compiled;
+            this.formula = formula;
+            this.f = f;
+            this.fPrime = fPrime;
+        }
+
+        @Override
+        public double valueAt(double x) {
+            return compiled.valueAt(x);
+        }
+
+        @Override
+        public double derivativeAt(double x) {
+            return compiled.derivativeAt(x);
+        }
+
+        @Override
+        public double secondDerivativeAt(double x) {
+            return compiled.secondDerivativeAt(x);
+        }
+
+        @Override
+        public double thirdDerivativeAt(double x) {
+            return compiled.thirdDerivativeAt(x);
+        }
+
+        @Override
+        public void evaluate(double x, Dual out) {
+            compiled.evaluate(x, out);
+        }
+
+        @Override
+        public void evaluate(double x, Dual out, int order) {
+            compiled.evaluate(x, out, order);
+        }
+
+        @Override
+        public String toString() {
+            return formula;
+        }
+    }
+
+    private static final class PreciseFormula extends Formula implements PreciseFunction, IntervalFunction {
+        PreciseFormula(RealFunction compiled, String formula, Node f, Node fPrime) {
+            super(compiled, formula, f, fPrime);
+        }
+
+        @Override
+        public <T> T valueAt(T x, Arithmetic<T> arithmetic) {
+            return f.evaluate(x, arithmetic);
+        }
+
+        @Override
+        public <T> T derivativeAt(T x, Arithmetic<T> arithmetic) {
+            return fPrime.evaluate(x, arithmetic);
+        }
+
+        @Override
+        public Interval valueAt(Interval x) {
+            return f.evaluate(x);
+        }
+
+        @Override
+        public Interval derivativeAt(Interval x) {
+            return fPrime.evaluate(x);
+        }
+    }
+
+    private static final class IntervalFormula extends Formula implements IntervalFunction {
+        IntervalFormula(RealFunction compiled, String formula, Node f, Node fPrime) {
+            super(compiled, formula, f, fPrime);
+        }
+
+        @Override
+        public Interval valueAt(Interval x) {
+            return f.evaluate(x);
+        }
+
+        @Override
+        public Interval derivativeAt(Interval x) {
+            return fPrime.evaluate(x);
+        }
+    }
+
+    /**
+     * Node of an expression tree. Nodes are immutable and built through the factory methods,
+     * which fold constants and drop identities like 0 + u and 1 * u. 0 * u is only folded to 0 where u is
+     * known to be finite, since it is NaN for an infinite or NaN u, and 0 / u is never folded, since it is
+     * NaN for u = 0. The derivative tree is built through the same methods, so the same rule holds there.
+     */
+    static final class Node {
+        // nodes of a tree with its shared subtrees counted every time, as derivative and code generation walk it;
+        // a method holds at most 0xFFFF bytes of code, so a larger tree could not be compiled anyway
+        static final int MAX_SIZE = 0xFFFF;
+
+        final int kind;
+        final double value; // CONST
+        final String function; // CALL
+        final Node left;
+        final Node right;
+        final int size; // nodes, subtrees counted as often as they are used, at most MAX_SIZE + 1
+
+        private Node(int kind, double value, String function, Node left, Node right) {
+            this.kind = kind;
+            this.value = value;
+            this.function = function;
+            this.left = left;
+            this.right = right;
+            size = Math.min(MAX_SIZE + 1, 1 + (left == null ? 0 : left.size) + (right == null ? 0 : right.size));
+        }
+
+        static Node constant(double value) {
+            return new Node(CONST, value, null, null, null);
+        }
+
+        static Node variable() {
+            return new Node(VAR, 0, null, null, null);
+        }
+
+        static Node negate(Node u) {
+            if (u.kind == CONST) {
+                return constant(-u.value);
+            }
+            if (u.kind == NEG) {
+                return u.left;
+            }
+            return new Node(NEG, 0, null, u, null);
+        }
+
+        static Node binary(int kind, Node u, Node v) {
+            if (u.kind == CONST && v.kind == CONST) {
+                return constant(apply(kind, u.value, v.value));
+            }
+            switch (kind) {
+                case ADD:
+                    if (u.isConstant(0)) return v;
+                    if (v.isConstant(0)) return u;
+                    break;
+                case SUB:
+                    if (v.isConstant(0)) return u;
+                    if (u.isConstant(0)) return negate(v);
+                    break;
+                case MUL:
+                    if ((u.isConstant(0) && v.isFinite()) || (v.isConstant(0) && u.isFinite())) return constant(0);
+                    if (u.isConstant(1)) return v;
+                    if (v.isConstant(1)) return u;
+                    if (u.isConstant(-1)) return negate(v);
+                    if (v.isConstant(-1)) return negate(u);
+                    break;
+                case DIV:
+                    if (v.isConstant(1)) return u;
+                    break;
+                case POW:
+                    if (v.isConstant(0)) return constant(1);
+                    if (v.isConstant(1)) return u;
+                    break;
+                default:
+                    break;
+            }
+            return new Node(kind, 0, null, u, v);
+        }
+
+        static Node call(String function, Node u) {
+            if (u.kind == CONST) {
+                return constant(call(function, u.value));
+            }
+            return new Node(CALL, 0, function, u, null);
+        }
+
+        boolean isConstant(double c) {
+            return kind == CONST && value == c;
+        }
+
+        /**
+         * @return true if this node is finite wherever x is, so 0 * node is 0
+         */
+        boolean isFinite() {
+            switch (kind) {
+                case CONST:
+                    return Double.isFinite(value);
+                case VAR:
+                    return true;
+                case NEG:
+                    return left.isFinite();
+                case CALL:
+                    switch (function) {
+                        case "sin":
+                        case "cos":
+                        case "atan":
+                        case "tanh":
+                        case "abs":
+                        case "signum":
+                            return left.isFinite();
+                        default:
+                            return false;
+                    }
+                default:
+                    return false;
+            }
+        }
+
+        /**
+         * @return true if this node is x raised to a small whole power that is cheaper as multiplications
+         */
+        boolean isSmallIntegerPower() {
+            return kind == POW && right.kind == CONST && right.value == Math.rint(right.value)
+                    && Math.abs(right.value) <= 16;
+        }
+
+        /**
+         * Symbolic derivative with respect to x. Nested calls and powers repeat subtrees in each derivative, so
+         * the derivatives of a deeply nested formula grow exponentially: a tree over MAX_SIZE is refused.
+         * @return d/dx of this node
+         * @throws IllegalArgumentException if the tree is over MAX_SIZE
+         */
+        Node derivative() {
+            if (size > MAX_SIZE) {
+                throw new IllegalArgumentException("f(x) or its derivatives are too large to compile");
+            }
+            switch (kind) {
+                case CONST:
+                    return constant(0);
+                case VAR:
+                    return constant(1);
+                case NEG:
+                    return negate(left.derivative());
+                case ADD:
+                case SUB:
+                    return binary(kind, left.derivative(), right.derivative());
+                case MUL: // u'v + uv'
+                    return binary(ADD, binary(MUL, left.derivative(), right),
+                            binary(MUL, left, right.derivative()));
+                case DIV: // (u'v - uv') / v^2
+                    return binary(DIV, binary(SUB, binary(MUL, left.derivative(), right),
+                            binary(MUL, left, right.derivative())), binary(POW, right, constant(2)));
+                case POW:
+                    if (right.kind == CONST) { // c * u^(c-1) * u'
+                        return binary(MUL, binary(MUL, right, binary(POW, left, constant(right.value - 1))),
+                                left.derivative());
+                    }
+                    // u^v * (v' ln(u) + v u' / u)
+                    return binary(MUL, this, binary(ADD, binary(MUL, right.derivative(), call("ln", left)),
+                            binary(DIV, binary(MUL, right, left.derivative()), left)));
+                default:
+                    return binary(MUL, callDerivative(), left.derivative());
+            }
+        }
+
+        /**
+         * Outer derivative g'(u) of a function call g(u)
+         */
+        private Node callDerivative() {
+            Node u = left;
+            switch (function) {
+                case "sin": return call("cos", u);
+                case "cos": return negate(call("sin", u));
+                case "tan": return binary(DIV, constant(1), binary(POW, call("cos", u), constant(2)));
+                case "asin": return binary(DIV, constant(1),
+                        call("sqrt", binary(SUB, constant(1), binary(POW, u, constant(2)))));
+                case "acos": return binary(DIV, constant(-1),
+                        call("sqrt", binary(SUB, constant(1), binary(POW, u, constant(2)))));
+                case "atan": return binary(DIV, constant(1), binary(ADD, constant(1), binary(POW, u, constant(2))));
+                case "sinh": return call("cosh", u);
+                case "cosh": return call("sinh", u);
+                case "tanh": return binary(DIV, constant(1), binary(POW, call("cosh", u), constant(2)));
+                case "exp": return this;
+                case "ln":
+                case "log": return binary(DIV, constant(1), u);
+                case "log10": return binary(DIV, constant(1 / Math.log(10)), u);
+                case "sqrt": return binary(DIV, constant(0.5), this);
+                case "cbrt": return binary(DIV, constant(1.0 / 3), binary(POW, this, constant(2)));
+                case "abs": return call("signum", u);
+                default: return constant(0); // signum
+            }
+        }
+
+        /**
+         * Evaluate the tree directly. Only used for folding, the compiled class is used for solving.
+         * @param x current value
+         * @return value at x
+         */
+        double evaluate(double x) {
+            switch (kind) {
+                case CONST: return value;
+                case VAR: return x;
+                case NEG: return -left.evaluate(x);
+                case CALL: return call(function, left.evaluate(x));
+                default: return apply(kind, left.evaluate(x), right.evaluate(x));
+            }
+        }
+
+        /**
+         * @return true if every function called in the tree has a double-double and BigDecimal version
+         */
+        boolean isPrecise() {
+            if (kind == CALL && !PRECISE_FUNCTIONS.contains(function)) {
+                return false;
+            }
+            return (left == null || left.isPrecise()) && (right == null || right.isPrecise());
+        }
+
+        /**
+         * Evaluate the tree in a wider precision than double, for PreciseFunction
+         * @param x current value
+         * @param a arithmetic to evaluate in
+         * @param <T> number type
+         * @return value at x
+         */
+        <T> T evaluate(T x, Arithmetic<T> a) {
+            switch (kind) {
+                case CONST: return a.of(value);
+                case VAR: return x;
+                case NEG: return a.negate(left.evaluate(x, a));
+                case CALL: return call(function, left.evaluate(x, a), a);
+                case ADD: return a.add(left.evaluate(x, a), right.evaluate(x, a));
+                case SUB: return a.subtract(left.evaluate(x, a), right.evaluate(x, a));
+                case MUL: return a.multiply(left.evaluate(x, a), right.evaluate(x, a));
+                case DIV: return a.divide(left.evaluate(x, a), right.evaluate(x, a));
+                default: // POW
+                    if (right.kind == CONST && right.value == Math.rint(right.value) && Math.abs(right.value) <= 1024) {
+                        return a.pow(left.evaluate(x, a), (int) right.value);
+                    }
+                    return a.exp(a.multiply(right.evaluate(x, a), a.log(left.evaluate(x, a))));
+            }
+        }
+
+        /**
+         * Evaluate the tree over an interval, for IntervalFunction. A power with an exponent that is not a
+         * whole constant is exp(v ln u), so it is only defined for u > 0.
+         * @param x interval of values
+         * @return bounds of the value over x
+         */
+        Interval evaluate(Interval x) {
+            switch (kind) {
+                case CONST: return Interval.of(value);
+                case VAR: return x;
+                case NEG: return left.evaluate(x).negate();
+                case CALL: return call(function, left.evaluate(x));
+                case ADD: return left.evaluate(x).add(right.evaluate(x));
+                case SUB: return left.evaluate(x).subtract(right.evaluate(x));
+                case MUL: return left.evaluate(x).multiply(right.evaluate(x));
+                case DIV: return left.evaluate(x).divide(right.evaluate(x));
+                default: // POW
+                    if (right.kind == CONST && right.value == Math.rint(right.value) && Math.abs(right.value) <= 1024) {
+                        return left.evaluate(x).pow((int) right.value);
+                    }
+                    return right.evaluate(x).multiply(left.evaluate(x).log()).exp();
+            }
+        }
+
+        private static Interval call(String function, Interval u) {
+            switch (function) {
+                case "sin": return u.sin();
+                case "cos": return u.cos();
+                case "tan": return u.tan();
+                case "asin": return u.asin();
+                case "acos": return u.acos();
+                case "atan": return u.atan();
+                case "sinh": return u.sinh();
+                case "cosh": return u.cosh();
+                case "tanh": return u.tanh();
+                case "exp": return u.exp();
+                case "ln":
+                case "log": return u.log();
+                case "log10": return u.log10();
+                case "sqrt": return u.sqrt();
+                case "cbrt": return u.cbrt();
+                case "abs": return u.abs();
+                default: return u.signum();
+            }
+        }
+
+        private static <T> T call(String function, T u, Arithmetic<T> a) {
+            switch (function) {
+                case "sinh": { // (e^u - e^-u) / 2 cancels for small |u|, where the series is used instead
+                    if (Math.abs(a.toDouble(u)) < 1) {
+                        return sinhSeries(u, a);
+                    }
+                    T e = a.exp(u);
+                    return a.divide(a.subtract(e, a.divide(a.of(1), e)), a.of(2));
+                }
+                case "cosh": {
+                    T e = a.exp(u);
+                    return a.divide(a.add(e, a.divide(a.of(1), e)), a.of(2));
+                }
+                case "tanh": { // (e^2u - 1) / (e^2u + 1), from the side where e^2u cannot overflow
+                    if (Math.abs(a.toDouble(u)) < 1) { // sinh(u) / sqrt(1 + sinh(u)^2), which does not cancel
+                        T sinh = sinhSeries(u, a);
+                        return a.divide(sinh, a.sqrt(a.add(a.of(1), a.multiply(sinh, sinh))));
+                    }
+                    T e = a.exp(a.multiply(a.of(-2), a.abs(u)));
+                    T t = a.divide(a.subtract(a.of(1), e), a.add(a.of(1), e));
+                    return a.signum(u) < 0 ? a.negate(t) : t;
+                }
+                case "exp": return a.exp(u);
+                case "ln":
+                case "log": return a.log(u);
+                case "log10": return a.divide(a.log(u), a.log(a.of(10)));
+                case "sqrt": return a.sqrt(u);
+                case "cbrt": {
+                    if (a.signum(u) == 0) {
+                        return u;
+                    }
+                    T r = a.exp(a.divide(a.log(a.abs(u)), a.of(3)));
+                    return a.signum(u) < 0 ? a.negate(r) : r;
+                }
+                case "abs": return a.abs(u);
+                case "signum": return a.of(a.signum(u));
+                default: throw new AssertionError(function + "(x) is in PRECISE_FUNCTIONS but has no wider precision");
+            }
+        }
+
+        /**
+         * sinh(u) = u + u^3/3! + u^5/5! + ... for |u| < 1, summed until a term is below a's epsilon
+         */
+        private static <T> T sinhSeries(T u, Arithmetic<T> a) {
+            T square = a.multiply(u, u);
+            T term = u;
+            T sum = u;
+            for (int k = 2; Math.abs(a.toDouble(term)) > a.epsilon() * Math.abs(a.toDouble(sum)); k += 2) {
+                term = a.divide(a.multiply(term, square), a.of(k * (k + 1)));
+                sum = a.add(sum, term);
+            }
+            return sum;
+        }
+
+        private static double apply(int kind, double u, double v) {
+            switch (kind) {
+                case ADD: return u + v;
+                case SUB: return u - v;
+                case MUL: return u * v;
+                case DIV: return u / v;
+                default: return Math.pow(u, v);
+            }
+        }
+
+        private static double call(String function, double u) {
+            switch (function) {
+                case "sin": return Math.sin(u);
+                case "cos": return Math.cos(u);
+                case "tan": return Math.tan(u);
+                case "asin": return Math.asin(u);
+                case "acos": return Math.acos(u);
+                case "atan": return Math.atan(u);
+                case "sinh": return Math.sinh(u);
+                case "cosh": return Math.cosh(u);
+                case "tanh": return Math.tanh(u);
+                case "exp": return Math.exp(u);
+                case "ln":
+                case "log": return Math.log(u);
+                case "log10": return Math.log10(u);
+                case "sqrt": return Math.sqrt(u);
+                case "cbrt": return Math.cbrt(u);
+                case "abs": return Math.abs(u);
+                default: return Math.signum(u);
+            }
+        }
+
+        @Override
+        public String toString() {
+            switch (kind) {
+                case CONST: return Double.toString(value);
+                case VAR: return "x";
+                case NEG: return "-(" + left + ")";
+                case CALL: return function + "(" + left + ")";
+                default: return "(" + left + " " + "+-*/^".charAt(kind - ADD) + " " + right + ")";
+            }
+        }
+    }
+
+    /**
+     * Recursive descent parser:
+     *   expression = term (('+' | '-') term)*
+     *   term       = unary (('*' | '/') unary | implicit product)*
+     *   unary      = ('-' | '+') unary | power
+     *   power      = primary ('^' unary)?
+     *   primary    = number | x | pi | e | name '(' expression ')' | '(' expression ')'
+     *
+     * Every nesting, of parentheses, calls, signs or powers, goes through unary, which stops at MAX_DEPTH
+     * levels with an IllegalArgumentException rather than running out of stack.
+     */
+    private static final class Parser {
+        private static final int MAX_DEPTH = 256; // far more than a formula needs, far less than the stack holds
+
+        private final String text;
+        private int pos;
+        private int depth;
+
+        Parser(String text) {
+            this.text = text;
+        }
+
+        Node expression() {
+            Node node = term();
+            while (true) {
+                if (accept('+')) {
+                    node = Node.binary(ADD, node, term());
+                } else if (accept('-')) {
+                    node = Node.binary(SUB, node, term());
+                } else {
+                    return node;
+                }
+            }
+        }
+
+        private Node term() {
+            Node node = unary();
+            while (true) {
+                if (accept('*')) {
+                    node = Node.binary(MUL, node, unary());
+                } else if (accept('/')) {
+                    node = Node.binary(DIV, node, unary());
+                } else if (startsPrimary()) { // 2x, 2(x+1), x cosh(x)
+                    node = Node.binary(MUL, node, power());
+                } else {
+                    return node;
+                }
+            }
+        }
+
+        private Node unary() {
+            if (++depth > MAX_DEPTH) {
+                throw error("Nested more than " + MAX_DEPTH + " deep");
+            }
+            try {
+                if (accept('-')) {
+                    return Node.negate(unary());
+                }
+                if (accept('+')) {
+                    return unary();
+                }
+                return power();
+            } finally {
+                depth--;
+            }
+        }
+
+        private Node power() {
+            Node base = primary();
+            if (accept('^')) {
+                return Node.binary(POW, base, unary());
+            }
+            return base;
+        }
+
+        private Node primary() {
+            skipSpaces();
+            if (accept('(')) {
+                Node node = expression();
+                expect(')');
+                return node;
+            }
+            if (pos < text.length() && (Character.isDigit(text.charAt(pos)) || text.charAt(pos) == '.')) {
+                int start = pos;
+                while (pos < text.length() && (Character.isDigit(text.charAt(pos)) || text.charAt(pos) == '.')) {
+                    pos++;
+                }
+                if (pos < text.length() && (text.charAt(pos) == 'e' || text.charAt(pos) == 'E')
+                        && pos + 1 < text.length() && (Character.isDigit(text.charAt(pos + 1))
+                        || text.charAt(pos + 1) == '-' || text.charAt(pos + 1) == '+')) {
+                    pos += 2;
+                    while (pos < text.length() && Character.isDigit(text.charAt(pos))) {
+                        pos++;
+                    }
+                }
+                try {
+                    return Node.constant(Double.parseDouble(text.substring(start, pos)));
+                } catch (NumberFormatException e) {
+                    throw error("Bad number '" + text.substring(start, pos) + "'");
+                }
+            }
+            if (pos < text.length() && Character.isLetter(text.charAt(pos))) {
+                int start = pos;
+                while (pos < text.length() && Character.isLetterOrDigit(text.charAt(pos))) {
+                    pos++;
+                }
+                String name = text.substring(start, pos);
+                if (isFunction(name)) {
+                    expect('(');
+                    Node argument = expression();
+                    expect(')');
+                    return Node.call(name, argument);
+                }
+                pos = start + 1; // single letter names, so "xcosh" reads as x * cosh
+                switch (text.charAt(start)) {
+                    case 'x': return Node.variable();
+                    case 'e': return Node.constant(Math.E);
+                    case 'p':
+                        if (text.startsWith("pi", start)) {
+                            pos = start + 2;
+                            return Node.constant(Math.PI);
+                        }
+                        break;
+                    default:
+                        break;
+                }
+                throw error("Unknown name '" + name + "'");
+            }
+            throw error(pos < text.length() ? "Unexpected '" + text.charAt(pos) + "'" : "Unexpected end");
+        }
+
+        private boolean isFunction(String name) {
+            for (String function : FUNCTIONS) {
+                if (function.equals(name)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean startsPrimary() {
+            skipSpaces();
+            if (pos >= text.length()) {
+                return false;
+            }
+            char c = text.charAt(pos);
+            return c == '(' || Character.isLetterOrDigit(c) || c == '.';
+        }
+
+        private boolean accept(char c) {
+            skipSpaces();
+            if (pos < text.length() && text.charAt(pos) == c) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(char c) {
+            if (!accept(c)) {
+                throw error("Expected '" + c + "'");
+            }
+        }
+
+        private void skipSpaces() {
+            while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+                pos++;
+            }
+        }
+
+        IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at position " + pos + " in \"" + text + "\"");
+        }
+    }
+
+    /**
+     * Writes the class file for a final class implementing RealFunction with valueAt, derivativeAt,
+     * secondDerivativeAt, thirdDerivativeAt and evaluate. All methods are straight-line code, so no stack map
+     * frames are needed.
+     */
+    private static final class ClassWriter {
+        private final ByteArrayOutputStream pool = new ByteArrayOutputStream();
+        private final DataOutputStream poolOut = new DataOutputStream(pool);
+        private static final int MAX_CONSTANT = 0xFFFF / 3; // chars that always fit a constant pool entry
+        private final Map<String, Integer> entries = new HashMap<>();
+        private int poolCount = 1;
+
+        // per method state
+        private ByteArrayOutputStream code;
+        private int stack;
+        private int maxStack;
+        private int maxLocals;
+        private final Map<Integer, Double> knownDerivatives = new HashMap<>(); // r to a constant r + 2 holds
+
+        byte[] write(Node f, Node fPrime, Node fSecond, Node fThird, String formula) {
+            try {
+                int thisClass = classEntry(CLASS_NAME);
+                int superClass = classEntry("java/lang/Object");
+                int anInterface = classEntry("RealFunction");
+                int codeName = utf8("Code");
+                List<byte[]> methods = new ArrayList<>();
+                methods.add(constructor(superClass, codeName));
+                methods.add(method("valueAt", f, codeName));
+                methods.add(method("derivativeAt", fPrime, codeName));
+                methods.add(method("secondDerivativeAt", fSecond, codeName));
+                methods.add(method("thirdDerivativeAt", fThird, codeName));
+                methods.add(dualMethod(f, codeName));
+                if (formula.length() <= MAX_CONSTANT) {
+                    methods.add(toStringMethod(formula, codeName));
+                }
+
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                DataOutputStream out = new DataOutputStream(bytes);
+                out.writeInt(0xCAFEBABE);
+                out.writeShort(0);
+                out.writeShort(52); // Java 8 class file, plenty for straight-line code
+                out.writeShort(poolCount);
+                out.write(pool.toByteArray());
+                out.writeShort(0x0031); // public final super
+                out.writeShort(thisClass);
+                out.writeShort(superClass);
+                out.writeShort(1);
+                out.writeShort(anInterface);
+                out.writeShort(0); // fields
+                out.writeShort(methods.size());
+                for (byte[] method : methods) {
+                    out.write(method);
+                }
+                out.writeShort(0); // attributes
+                return bytes.toByteArray();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private byte[] constructor(int superClass, int codeName) throws IOException {
+            int init = methodEntry(superClass, "<init>", "()V");
+            code = new ByteArrayOutputStream();
+            code.write(0x2a); // aload_0
+            code.write(0xb7); // invokespecial
+            writeShort(init);
+            code.write(0xb1); // return
+            maxStack = 1;
+            maxLocals = 1;
+            return methodInfo(0x0001, "<init>", "()V", codeName); // public
+        }
+
+        private byte[] method(String name, Node body, int codeName) throws IOException {
+            code = new ByteArrayOutputStream();
+            stack = 0;
+            maxStack = 0;
+            maxLocals = 3; // this, x (two slots)
+            emit(body, maxLocals);
+            code.write(0xaf); // dreturn
+            return methodInfo(0x0011, name, "(D)D", codeName); // public final
+        }
+
+        /**
+         * evaluate(x, out): forward mode, every node's value and derivative are kept in a pair of locals
+         */
+        private byte[] dualMethod(Node f, int codeName) throws IOException {
+            code = new ByteArrayOutputStream();
+            stack = 0;
+            maxStack = 0;
+            maxLocals = 4; // this, x (two slots), out
+            knownDerivatives.clear();
+            int result = emitDual(f);
+            putDual("value", result);
+            putDual("derivative", result + 2);
+            code.write(0xb1); // return
+            return methodInfo(0x0011, "evaluate", "(DLDual;)V", codeName); // public final
+        }
+
+        /**
+         * toString(): the formula, so the function can be told apart, e.g. by SolverMetrics
+         */
+        private byte[] toStringMethod(String formula, int codeName) throws IOException {
+            code = new ByteArrayOutputStream();
+            code.write(0x13); // ldc_w
+            writeShort(stringEntry(formula));
+            code.write(0xb0); // areturn
+            maxStack = 1;
+            maxLocals = 1;
+            return methodInfo(0x0011, "toString", "()Ljava/lang/String;", codeName); // public final
+        }
+
+        /**
+         * out.field = the double in local
+         */
+        private void putDual(String field, int local) throws IOException {
+            code.write(0x2d); // aload_3
+            stack++;
+            load(local);
+            code.write(0xb5); // putfield
+            writeShort(fieldEntry(classEntry("Dual"), field, "D"));
+            stack -= 3;
+        }
+
+        private byte[] methodInfo(int access, String name, String descriptor, int codeName) throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeShort(access);
+            out.writeShort(utf8(name));
+            out.writeShort(utf8(descriptor));
+            out.writeShort(1);
+            out.writeShort(codeName);
+            out.writeInt(12 + code.size());
+            out.writeShort(maxStack);
+            out.writeShort(maxLocals);
+            out.writeInt(code.size());
+            out.write(code.toByteArray());
+            out.writeShort(0); // exception table
+            out.writeShort(0); // attributes
+            return bytes.toByteArray();
+        }
+
+        /**
+         * Emit code leaving the value of node on the operand stack
+         * @param node node to evaluate
+         * @param freeLocal first local slot not in use
+         */
+        private void emit(Node node, int freeLocal) throws IOException {
+            switch (node.kind) {
+                case CONST:
+                    constant(node.value);
+                    break;
+                case VAR:
+                    code.write(0x27); // dload_1
+                    push();
+                    break;
+                case NEG:
+                    emit(node.left, freeLocal);
+                    code.write(0x77); // dneg
+                    break;
+                case CALL:
+                    emit(node.left, freeLocal);
+                    math(mathName(node.function));
+                    break;
+                case POW:
+                    if (node.isSmallIntegerPower()) {
+                        emitIntegerPower(node, freeLocal);
+                        break;
+                    }
+                    emit(node.left, freeLocal);
+                    emit(node.right, freeLocal);
+                    pow();
+                    break;
+                default:
+                    emit(node.left, freeLocal);
+                    emit(node.right, freeLocal);
+                    op(node.kind == ADD ? DADD : node.kind == SUB ? DSUB : node.kind == MUL ? DMUL : DDIV);
+                    break;
+            }
+        }
+
+        /**
+         * u^n for whole n by repeated squaring, keeping u in a local
+         */
+        private void emitIntegerPower(Node node, int freeLocal) throws IOException {
+            int base = freeLocal;
+            maxLocals = Math.max(maxLocals, base + 2);
+            if (node.left.kind == VAR) {
+                base = 1; // x is already a local
+            } else {
+                emit(node.left, freeLocal);
+                store(base);
+            }
+            int square = base == 1 ? freeLocal : freeLocal + 2;
+            maxLocals = Math.max(maxLocals, square + 2);
+            power(base, (int) node.right.value, square);
+        }
+
+        /**
+         * Push local^n for whole n, multiplying out the binary expansion of |n| and squaring the
+         * running power in a second local
+         */
+        private void power(int base, int n, int square) throws IOException {
+            boolean reciprocal = n < 0;
+            if (reciprocal) {
+                constant(1);
+                n = -n;
+            }
+            if (n == 0) {
+                constant(1);
+            }
+            boolean first = true;
+            int current = base;
+            while (n > 0) {
+                if ((n & 1) != 0) {
+                    load(current);
+                    if (!first) {
+                        op(DMUL);
+                    }
+                    first = false;
+                }
+                n >>= 1;
+                if (n > 0) {
+                    load(current);
+                    load(current);
+                    op(DMUL);
+                    store(square);
+                    current = square;
+                }
+            }
+            if (reciprocal) {
+                op(DDIV);
+            }
+        }
+
+        /**
+         * Emit forward mode code for node, storing its value in local r and its derivative in local r + 2.
+         * Where a derivative is known to be 0 or 1, as for constants and x, the terms it would zero out or
+         * multiply by 1 are left out: the JIT cannot drop them itself, since 0 * u is NaN for an infinite u.
+         * @param node node to evaluate
+         * @return r
+         */
+        private int emitDual(Node node) throws IOException {
+            if (node.kind == CONST || node.kind == VAR) {
+                int r = allocate(4);
+                if (node.kind == CONST) {
+                    constant(node.value);
+                } else {
+                    load(1);
+                }
+                store(r);
+                constant(node.kind == CONST ? 0 : 1);
+                store(r + 2);
+                knownDerivatives.put(r, node.kind == CONST ? 0.0 : 1.0);
+                return r;
+            }
+            int u = emitDual(node.left);
+            int w = node.right == null ? -1 : emitDual(node.right);
+            int r = allocate(4);
+            switch (node.kind) {
+                case NEG:
+                    load(u);
+                    code.write(0x77); // dneg
+                    store(r);
+                    load(u + 2);
+                    code.write(0x77);
+                    store(r + 2);
+                    if (knownDerivatives.containsKey(u)) {
+                        knownDerivatives.put(r, -knownDerivatives.get(u));
+                    }
+                    break;
+                case ADD:
+                case SUB:
+                    int opcode = node.kind == ADD ? DADD : DSUB;
+                    load(u);
+                    load(w);
+                    op(opcode);
+                    store(r);
+                    if (isZero(w)) {
+                        load(u + 2);
+                    } else if (isZero(u)) {
+                        load(w + 2);
+                        if (node.kind == SUB) {
+                            code.write(0x77); // dneg
+                        }
+                    } else {
+                        load(u + 2);
+                        load(w + 2);
+                        op(opcode);
+                    }
+                    store(r + 2);
+                    if (isZero(u) && isZero(w)) {
+                        knownDerivatives.put(r, 0.0);
+                    }
+                    break;
+                case MUL: // (uw)' = u'w + uw'
+                    load(u);
+                    load(w);
+                    op(DMUL);
+                    store(r);
+                    if (isZero(u) && isZero(w)) {
+                        constant(0);
+                        knownDerivatives.put(r, 0.0);
+                    } else if (isZero(u)) {
+                        loadTimesDerivative(u, w);
+                    } else if (isZero(w)) {
+                        loadTimesDerivative(w, u);
+                    } else {
+                        loadTimesDerivative(w, u);
+                        loadTimesDerivative(u, w);
+                        op(DADD);
+                    }
+                    store(r + 2);
+                    break;
+                case DIV: // (u/w)' = (u' - (u/w)w') / w
+                    load(u);
+                    load(w);
+                    op(DDIV);
+                    store(r);
+                    if (isZero(w)) { // u' / w
+                        load(u + 2);
+                        load(w);
+                        op(DDIV);
+                        store(r + 2);
+                        break;
+                    }
+                    load(u + 2);
+                    load(r);
+                    load(w + 2);
+                    op(DMUL);
+                    op(DSUB);
+                    load(w);
+                    op(DDIV);
+                    store(r + 2);
+                    break;
+                case POW:
+                    emitDualPower(node, u, w, r);
+                    break;
+                default: // CALL
+                    emitDualCall(node.function, u, r);
+                    break;
+            }
+            return r;
+        }
+
+        private void emitDualPower(Node node, int u, int w, int r) throws IOException {
+            if (node.right.kind != CONST) { // (u^w)' = u^w (w' ln(u) + w u'/u)
+                load(u);
+                load(w);
+                pow();
+                store(r);
+                load(r);
+                load(w + 2);
+                load(u);
+                math("log");
+                op(DMUL);
+                load(w);
+                load(u + 2);
+                op(DMUL);
+                load(u);
+                op(DDIV);
+                op(DADD);
+                op(DMUL);
+                store(r + 2);
+                return;
+            }
+            // (u^c)' = c u^(c-1) u', with u^(c-1) kept in r + 2 until the derivative overwrites it
+            double c = node.right.value;
+            if (node.isSmallIntegerPower() && c >= 1) {
+                power(u, (int) c - 1, allocate(2));
+                store(r + 2);
+                load(r + 2);
+                load(u);
+                op(DMUL);
+            } else {
+                load(u);
+                constant(c - 1);
+                pow();
+                store(r + 2);
+                load(u);
+                constant(c);
+                pow();
+            }
+            store(r);
+            constant(c);
+            load(r + 2);
+            op(DMUL);
+            if (!isOne(u)) {
+                load(u + 2);
+                op(DMUL);
+            }
+            store(r + 2);
+        }
+
+        /**
+         * Value and derivative of function(u), sharing work between the two where the derivative
+         * is a simple expression of the value
+         */
+        private void emitDualCall(String function, int u, int r) throws IOException {
+            int du = u + 2;
+            switch (function) {
+                case "sinh":
+                case "cosh": { // one expm1 for both, sinh' = cosh and cosh' = sinh
+                    int expm1 = allocate(2);
+                    String other = function.equals("sinh") ? "cosh" : "sinh";
+                    load(u);
+                    math("abs");
+                    math("expm1");
+                    store(expm1);
+                    fromExpm1(function, u, expm1);
+                    store(r);
+                    fromExpm1(other, u, expm1);
+                    if (!isOne(u)) {
+                        load(du);
+                        op(DMUL);
+                    }
+                    store(r + 2);
+                    return;
+                }
+                case "signum": // the derivative of abs
+                    load(u);
+                    math("signum");
+                    store(r);
+                    constant(0);
+                    store(r + 2);
+                    return;
+                default:
+                    break;
+            }
+            load(u);
+            math(mathName(function));
+            store(r);
+            switch (function) {
+                case "sin": // cos(u) u'
+                    load(u);
+                    math("cos");
+                    break;
+                case "cos": // -sin(u) u'
+                    load(u);
+                    math("sin");
+                    code.write(0x77); // dneg
+                    break;
+                case "tan": // (1 + tan^2) u'
+                    constant(1);
+                    load(r);
+                    load(r);
+                    op(DMUL);
+                    op(DADD);
+                    break;
+                case "tanh": // (1 - tanh^2) u'
+                    constant(1);
+                    load(r);
+                    load(r);
+                    op(DMUL);
+                    op(DSUB);
+                    break;
+                case "exp": // e^u u'
+                    load(r);
+                    break;
+                case "asin": // u' / sqrt(1 - u^2)
+                case "acos": // -u' / sqrt(1 - u^2)
+                case "atan": // u' / (1 + u^2)
+                    constant(function.equals("acos") ? -1 : 1);
+                    constant(1);
+                    load(u);
+                    load(u);
+                    op(DMUL);
+                    op(function.equals("atan") ? DADD : DSUB);
+                    if (!function.equals("atan")) {
+                        math("sqrt");
+                    }
+                    op(DDIV);
+                    break;
+                case "ln":
+                case "log": // u' / u
+                    constant(1);
+                    load(u);
+                    op(DDIV);
+                    break;
+                case "log10": // u' / (u ln 10)
+                    constant(1);
+                    load(u);
+                    constant(Math.log(10));
+                    op(DMUL);
+                    op(DDIV);
+                    break;
+                case "sqrt": // u' / (2 sqrt(u))
+                    constant(0.5);
+                    load(r);
+                    op(DDIV);
+                    break;
+                case "cbrt": // u' / (3 cbrt(u)^2)
+                    constant(1);
+                    constant(3);
+                    load(r);
+                    op(DMUL);
+                    load(r);
+                    op(DMUL);
+                    op(DDIV);
+                    break;
+                default: // abs, signum(u) u'
+                    load(u);
+                    math("signum");
+                    break;
+            }
+            if (!isOne(u)) {
+                load(du);
+                op(DMUL);
+            }
+            store(r + 2);
+        }
+
+        /**
+         * @return true if the derivative in local r + 2 is known to be 0
+         */
+        private boolean isZero(int r) {
+            Double derivative = knownDerivatives.get(r);
+            return derivative != null && derivative == 0;
+        }
+
+        /**
+         * @return true if the derivative in local r + 2 is known to be 1
+         */
+        private boolean isOne(int r) {
+            Double derivative = knownDerivatives.get(r);
+            return derivative != null && derivative == 1;
+        }
+
+        /**
+         * Push the value in local v times the derivative in local r + 2, just the value if that is 1
+         */
+        private void loadTimesDerivative(int v, int r) throws IOException {
+            load(v);
+            if (!isOne(r)) {
+                load(r + 2);
+                op(DMUL);
+            }
+        }
+
+        private int allocate(int slots) {
+            int local = maxLocals;
+            maxLocals += slots;
+            return local;
+        }
+
+        private void constant(double value) throws IOException {
+            if (value == 0 && 1 / value > 0) {
+                code.write(0x0e); // dconst_0
+            } else if (value == 1) {
+                code.write(0x0f); // dconst_1
+            } else {
+                code.write(0x14); // ldc2_w
+                writeShort(doubleEntry(value));
+            }
+            push();
+        }
+
+        /**
+         * Binary double arithmetic, two operands in and one out
+         */
+        private void op(int opcode) {
+            code.write(opcode);
+            pop();
+        }
+
+        private void math(String name) throws IOException {
+            code.write(0xb8); // invokestatic
+            writeShort(methodEntry(classEntry("java/lang/Math"), name, "(D)D"));
+        }
+
+        private void pow() throws IOException {
+            code.write(0xb8);
+            writeShort(methodEntry(classEntry("java/lang/Math"), "pow", "(DD)D"));
+            pop();
+        }
+
+        /**
+         * Push Dual.sinh(u, expm1) or Dual.cosh(u, expm1)
+         */
+        private void fromExpm1(String function, int u, int expm1) throws IOException {
+            load(u);
+            load(expm1);
+            code.write(0xb8);
+            writeShort(methodEntry(classEntry("Dual"), function, "(DD)D"));
+            pop();
+        }
+
+        private void load(int local) throws IOException {
+            localInstruction(0x18, local); // dload
+            push();
+        }
+
+        private void store(int local) throws IOException {
+            localInstruction(0x39, local); // dstore
+            pop();
+        }
+
+        private void localInstruction(int opcode, int local) {
+            if (local > 255) {
+                code.write(0xc4); // wide
+                code.write(opcode);
+                writeShort(local);
+            } else {
+                code.write(opcode);
+                code.write(local);
+            }
+        }
+
+        private void push() {
+            stack += 2;
+            maxStack = Math.max(maxStack, stack);
+        }
+
+        private void pop() {
+            stack -= 2;
+        }
+
+        private void writeShort(int value) {
+            code.write(value >>> 8);
+            code.write(value);
+        }
+
+        private static String mathName(String function) {
+            return function.equals("ln") ? "log" : function;
+        }
+
+        private int utf8(String text) throws IOException {
+            Integer index = entries.get("U" + text);
+            if (index == null) {
+                poolOut.writeByte(1);
+                poolOut.writeUTF(text);
+                index = poolCount++;
+                entries.put("U" + text, index);
+            }
+            return index;
+        }
+
+        private int stringEntry(String text) throws IOException {
+            Integer index = entries.get("S" + text);
+            if (index == null) {
+                int textIndex = utf8(text);
+                poolOut.writeByte(8);
+                poolOut.writeShort(textIndex);
+                index = poolCount++;
+                entries.put("S" + text, index);
+            }
+            return index;
+        }
+
+        private int classEntry(String name) throws IOException {
+            Integer index = entries.get("C" + name);
+            if (index == null) {
+                int nameIndex = utf8(name);
+                poolOut.writeByte(7);
+                poolOut.writeShort(nameIndex);
+                index = poolCount++;
+                entries.put("C" + name, index);
+            }
+            return index;
+        }
+
+        private int methodEntry(int owner, String name, String descriptor) throws IOException {
+            String key = "M" + owner + "." + name + descriptor;
+            Integer index = entries.get(key);
+            if (index == null) {
+                int nameIndex = utf8(name);
+                int typeIndex = utf8(descriptor);
+                poolOut.writeByte(12); // NameAndType
+                poolOut.writeShort(nameIndex);
+                poolOut.writeShort(typeIndex);
+                int nameAndType = poolCount++;
+                poolOut.writeByte(10); // Methodref
+                poolOut.writeShort(owner);
+                poolOut.writeShort(nameAndType);
+                index = poolCount++;
+                entries.put(key, index);
+            }
+            return index;
+        }
+
+        private int fieldEntry(int owner, String name, String descriptor) throws IOException {
+            String key = "F" + owner + "." + name + descriptor;
+            Integer index = entries.get(key);
+            if (index == null) {
+                int nameIndex = utf8(name);
+                int typeIndex = utf8(descriptor);
+                poolOut.writeByte(12); // NameAndType
+                poolOut.writeShort(nameIndex);
+                poolOut.writeShort(typeIndex);
+                int nameAndType = poolCount++;
+                poolOut.writeByte(9); // Fieldref
+                poolOut.writeShort(owner);
+                poolOut.writeShort(nameAndType);
+                index = poolCount++;
+                entries.put(key, index);
+            }
+            return index;
+        }
+
+        private int doubleEntry(double value) throws IOException {
+            String key = "D" + Double.doubleToRawLongBits(value);
+            Integer index = entries.get(key);
+            if (index == null) {
+                poolOut.writeByte(6);
+                poolOut.writeDouble(value);
+                index = poolCount;
+                poolCount += 2; // doubles take two pool slots
+                entries.put(key, index);
+            }
+            return index;
+        }
+    }
+}
@@ -0,0 +1,234 @@
+/**
+ * Description: Methods that converge faster than Newton-Raphson per iteration, for functions where every
+ *              evaluation is expensive.
+ *
+ *              Halley's Method uses f''(x) as well and converges cubically. Householder's Method of order 3
+ *              uses f'''(x) too and converges quartically. Ostrowski's Method is a two-point method: a Newton
+ *              step to y, then one more f(y) corrects it, which converges quartically from f(x), f'(x) and
+ *              f(y) only, without any higher derivatives.
+ *
+ *              Each starts from one guess like Newton-Raphson, prints Newton-Raphson's table (x, f(x),
+ *              f'(x) and error) and stops on the same approximate error. The derivatives come from
+ *              RealFunction.evaluate(x, out, order), so a function that knows them all, like #1, #2 and
+ *              compiled formulas, gives them in one call. Results, evaluation counting, budgets, traces
+ *              and SolverConfig work the same as in RootFinder, except that delta does not apply.
+ */
+public final class HigherOrderRootFinder {
+
+    private HigherOrderRootFinder() {
+    }
+
+    /**
+     * Halley's Method
+     * @param f function
+     * @param x initial root guess
+     * @return result
+     */
+    public static RootResult halley(RealFunction f, double x) {
+        return halley(f, x, null);
+    }
+
+    /**
+     * Halley's Method
+     * @param f function
+     * @param x initial root guess
+     * @param trace receives every iteration, or null
+     * @return result
+     */
+    public static RootResult halley(RealFunction f, double x, TraceSink trace) {
+        return halley(f, x, SolverConfig.DEFAULT, trace);
+    }
+
+    /**
+     * Halley's Method
+     * @param f function
+     * @param x initial root guess
+     * @param config stopping rules
+     * @param trace receives every iteration, or null
+     * @return result
+     */
+    public static RootResult halley(RealFunction f, double x, SolverConfig config, TraceSink trace) {
+        return householder(RootMethod.HALLEY, f, x, 2, config, trace);
+    }
+
+    /**
+     * Householder's Method of order 3
+     * @param f function
+     * @param x initial root guess
+     * @return result
+     */
+    public static RootResult householder(RealFunction f, double x) {
+        return householder(f, x, null);
+    }
+
+    /**
+     * Householder's Method of order 3
+     * @param f function
+     * @param x initial root guess
+     * @param trace receives every iteration, or null
+     * @return result
+     */
+    public static RootResult householder(RealFunction f, double x, TraceSink trace) {
+        return householder(f, x, SolverConfig.DEFAULT, trace);
+    }
+
+    /**
+     * Householder's Method of order 3
+     * @param f function
+     * @param x initial root guess
+     * @param config stopping rules
+     * @param trace receives every iteration, or null
+     * @return result
+     */
+    public static RootResult householder(RealFunction f, double x, SolverConfig config, TraceSink trace) {
+        return householder(RootMethod.HOUSEHOLDER, f, x, 3, config, trace);
+    }
+
+    /**
+     * Halley's Method (order 2) or Householder's Method of order 3, the same iteration apart from the step
+     */
+    private static RootResult householder(RootMethod method, RealFunction f, double x, int order,
+                                          SolverConfig config, TraceSink trace) {
+        CountingFunction counted = new CountingFunction(f, config.maxEvaluations);
+        double fx = 0;
+        double currentError = 1;
+        double previous = 0;
+        int n = 0; // iterations
+        Dual dual = new Dual(); // f(x) and its derivatives from one evaluation
+
+        if (trace != null) {
+            trace.begin(method, x, x);
+        }
+
+        for (; n < config.maxIterations; n++) {
+            if (!counted.canEvaluate(1 + order)) {
+                return RootFinder.end(trace, counted, method, x, fx, currentError, n, RootResult.BUDGET_EXHAUSTED);
+            }
+            counted.evaluate(x, dual, order);
+            fx = dual.value;
+            double d1 = dual.derivative;
+            double d2 = dual.second;
+            currentError = RootFinder.getError(x, previous);
+            double step = n == 0 ? Double.POSITIVE_INFINITY : Math.abs(x - previous); // no previous x yet
+
+            double denominator;
+            double next;
+            if (order == 2) { // xn+1 = xn - 2f f' / (2f'^2 - f f'')
+                denominator = 2 * d1 * d1 - fx * d2;
+                next = x - 2 * fx * d1 / denominator;
+            } else { // xn+1 = xn - f (f'^2 - f f''/2) / (f'^3 - f f' f'' + f^2 f'''/6)
+                denominator = d1 * d1 * d1 - fx * d1 * d2 + fx * fx * dual.third / 6;
+                next = x - fx * (d1 * d1 - fx * d2 / 2) / denominator;
+            }
+
+            if (trace != null) {
+                trace.newton(n, x, fx, d1, currentError);
+            }
+
+            if (currentError > config.divergingError) {
+                return RootFinder.end(trace, counted, method, x, fx, currentError, n + 1, RootResult.DIVERGING);
+            }
+
+            if (fx == 0 || config.converged(currentError, step)) { // found root
+                return RootFinder.end(trace, counted, method, x, fx, currentError, n + 1,
+                        config.isRoot(fx) ? RootResult.FOUND : RootResult.NO_ROOT);
+            }
+
+            if (denominator == 0) {
+                return RootFinder.end(trace, counted, method, x, fx, currentError, n + 1,
+                        RootResult.ZERO_DERIVATIVE);
+            }
+
+            previous = x;
+            x = next;
+        }
+        return RootFinder.end(trace, counted, method, x, fx, currentError, n, RootResult.MAX_ITERATIONS);
+    }
+
+    /**
+     * Ostrowski's Method
+     * @param f function
+     * @param x initial root guess
+     * @return result
+     */
+    public static RootResult ostrowski(RealFunction f, double x) {
+        return ostrowski(f, x, null);
+    }
+
+    /**
+     * Ostrowski's Method
+     * @param f function
+     * @param x initial root guess
+     * @param trace receives every iteration, or null
+     * @return result
+     */
+    public static RootResult ostrowski(RealFunction f, double x, TraceSink trace) {
+        return ostrowski(f, x, SolverConfig.DEFAULT, trace);
+    }
+
+    /**
+     * Ostrowski's Method
+     * @param f function
+     * @param x initial root guess
+     * @param config stopping rules
+     * @param trace receives every iteration, or null
+     * @return result
+     */
+    public static RootResult ostrowski(RealFunction f, double x, SolverConfig config, TraceSink trace) {
+        CountingFunction counted = new CountingFunction(f, config.maxEvaluations);
+        double fx = 0;
+        double fPrimeX;
+        double currentError = 1;
+        double previous = 0;
+        int n = 0; // iterations
+        Dual dual = new Dual();
+
+        if (trace != null) {
+            trace.begin(RootMethod.OSTROWSKI, x, x);
+        }
+
+        for (; n < config.maxIterations; n++) {
+            if (!counted.canEvaluate(2)) {
+                return RootFinder.end(trace, counted, RootMethod.OSTROWSKI, x, fx, currentError, n,
+                        RootResult.BUDGET_EXHAUSTED);
+            }
+            counted.evaluate(x, dual);
+            fx = dual.value;
+            fPrimeX = dual.derivative;
+            currentError = RootFinder.getError(x, previous);
+            double step = n == 0 ? Double.POSITIVE_INFINITY : Math.abs(x - previous); // no previous x yet
+
+            if (trace != null) {
+                trace.newton(n, x, fx, fPrimeX, currentError);
+            }
+
+            if (currentError > config.divergingError) {
+                return RootFinder.end(trace, counted, RootMethod.OSTROWSKI, x, fx, currentError, n + 1,
+                        RootResult.DIVERGING);
+            }
+
+            if (fx == 0 || config.converged(currentError, step)) { // found root
+                return RootFinder.end(trace, counted, RootMethod.OSTROWSKI, x, fx, currentError, n + 1,
+                        config.isRoot(fx) ? RootResult.FOUND : RootResult.NO_ROOT);
+            }
+
+            if (fPrimeX == 0) {
+                return RootFinder.end(trace, counted, RootMethod.OSTROWSKI, x, fx, currentError, n + 1,
+                        RootResult.ZERO_DERIVATIVE);
+            }
+
+            // y = xn - f(xn)/f'(xn), then xn+1 = y - f(y)/f'(xn) * f(xn) / (f(xn) - 2f(y))
+            double y = x - fx / fPrimeX;
+            previous = x;
+            if (!counted.canEvaluate(1)) { // the Newton step is as far as the budget goes
+                x = y;
+                continue;
+            }
+            double fy = counted.valueAt(y);
+            double denominator = fx - 2 * fy;
+            x = fy == 0 || denominator == 0 ? y : y - fy / fPrimeX * fx / denominator;
+        }
+        return RootFinder.end(trace, counted, RootMethod.OSTROWSKI, x, fx, currentError, n,
+                RootResult.MAX_ITERATIONS);
+    }
+}
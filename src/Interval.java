@@ -0,0 +1,350 @@
+/**
+ * Description: A closed interval [lo, hi] of doubles, for interval arithmetic: every operation returns an
+ *              interval that holds the exact result for every choice of operands in its operand intervals,
+ *              so evaluating f over an interval bounds f on all of it.
+ *
+ *              Java has no directed rounding, so each bound is rounded to nearest and then moved outwards:
+ *              by one ulp with Math.nextDown / nextUp for + - * / and sqrt, which are correctly rounded, and
+ *              by two for the other Math functions, which are only within 1 ulp. The bounds are a few ulps
+ *              wider than with hardware rounding modes, but never too narrow.
+ *
+ *              An operation on values where the function is not defined, such as sqrt([-2, -1]), gives
+ *              EMPTY; one partly outside, such as sqrt([-1, 4]), gives the bounds over the part inside.
+ *              Division by an interval holding 0 gives ENTIRE.
+ */
+public final class Interval {
+
+    public static final Interval EMPTY = new Interval(Double.NaN, Double.NaN, false);
+    public static final Interval ENTIRE = new Interval(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+    public static final Interval ZERO = new Interval(0, 0);
+    public static final Interval ONE = new Interval(1, 1);
+
+    private static final double TWO_PI = 2 * Math.PI;
+    private static final double HALF_PI = Math.PI / 2;
+
+    public final double lo;
+    public final double hi;
+
+    /**
+     * @param lo lower bound
+     * @param hi upper bound, at least lo
+     */
+    public Interval(double lo, double hi) {
+        if (!(lo <= hi)) {
+            throw new IllegalArgumentException("Expected lo <= hi, got [" + lo + ", " + hi + "]");
+        }
+        this.lo = lo;
+        this.hi = hi;
+    }
+
+    private Interval(double lo, double hi, boolean empty) { // only for EMPTY
+        this.lo = lo;
+        this.hi = hi;
+    }
+
+    /**
+     * @param x value
+     * @return [x, x]
+     */
+    public static Interval of(double x) {
+        return new Interval(x, x);
+    }
+
+    /**
+     * Bounds rounded to nearest moved out by one ulp, or ENTIRE if either is NaN, from infinity - infinity
+     */
+    private static Interval outward(double lo, double hi) {
+        if (Double.isNaN(lo) || Double.isNaN(hi)) {
+            return ENTIRE;
+        }
+        return new Interval(Math.nextDown(lo), Math.nextUp(hi));
+    }
+
+    /**
+     * Bounds of a Math function moved out by two ulps, clipped to the function's range [min, max], or EMPTY if
+     * either is NaN, from an EMPTY argument
+     */
+    private static Interval outward(double lo, double hi, double min, double max) {
+        if (Double.isNaN(lo) || Double.isNaN(hi)) {
+            return EMPTY;
+        }
+        return new Interval(Math.max(min, Math.nextDown(Math.nextDown(lo))),
+                Math.min(max, Math.nextUp(Math.nextUp(hi))));
+    }
+
+    public boolean isEmpty() {
+        return !(lo <= hi);
+    }
+
+    /**
+     * @return hi - lo, rounded up
+     */
+    public double width() {
+        return Math.nextUp(hi - lo);
+    }
+
+    /**
+     * @return a double in [lo, hi] close to its middle
+     */
+    public double mid() {
+        double mid = 0.5 * lo + 0.5 * hi;
+        return Math.min(hi, Math.max(lo, mid));
+    }
+
+    public boolean contains(double x) {
+        return lo <= x && x <= hi;
+    }
+
+    /**
+     * @param other interval
+     * @return true if other lies in the interior (lo, hi) of this one
+     */
+    public boolean containsInInterior(Interval other) {
+        return lo < other.lo && other.hi < hi;
+    }
+
+    /**
+     * @param other interval
+     * @return the intersection, or EMPTY if they do not meet
+     */
+    public Interval intersect(Interval other) {
+        double l = Math.max(lo, other.lo);
+        double h = Math.min(hi, other.hi);
+        return l <= h ? new Interval(l, h) : EMPTY;
+    }
+
+    /**
+     * @param other interval
+     * @return the smallest interval holding both
+     */
+    public Interval hull(Interval other) {
+        if (isEmpty()) {
+            return other;
+        }
+        return other.isEmpty() ? this : new Interval(Math.min(lo, other.lo), Math.max(hi, other.hi));
+    }
+
+    public Interval negate() {
+        return isEmpty() ? EMPTY : new Interval(-hi, -lo);
+    }
+
+    public Interval add(Interval other) {
+        if (isEmpty() || other.isEmpty()) {
+            return EMPTY;
+        }
+        return outward(lo + other.lo, hi + other.hi);
+    }
+
+    public Interval subtract(Interval other) {
+        if (isEmpty() || other.isEmpty()) {
+            return EMPTY;
+        }
+        return outward(lo - other.hi, hi - other.lo);
+    }
+
+    public Interval multiply(Interval other) {
+        if (isEmpty() || other.isEmpty()) {
+            return EMPTY;
+        }
+        double p1 = product(lo, other.lo);
+        double p2 = product(lo, other.hi);
+        double p3 = product(hi, other.lo);
+        double p4 = product(hi, other.hi);
+        return outward(Math.min(Math.min(p1, p2), Math.min(p3, p4)), Math.max(Math.max(p1, p2), Math.max(p3, p4)));
+    }
+
+    /**
+     * Product of two bounds, with 0 * infinity = 0: a bound of 0 is attained while infinity is only approached
+     */
+    private static double product(double u, double v) {
+        return u == 0 || v == 0 ? 0 : u * v;
+    }
+
+    public Interval divide(Interval other) {
+        if (isEmpty() || other.isEmpty() || (other.lo == 0 && other.hi == 0)) {
+            return EMPTY;
+        }
+        if (other.contains(0)) {
+            return ENTIRE;
+        }
+        double q1 = lo / other.lo;
+        double q2 = lo / other.hi;
+        double q3 = hi / other.lo;
+        double q4 = hi / other.hi;
+        if (Double.isNaN(q1) || Double.isNaN(q2) || Double.isNaN(q3) || Double.isNaN(q4)) { // infinity / infinity
+            return ENTIRE;
+        }
+        return outward(Math.min(Math.min(q1, q2), Math.min(q3, q4)), Math.max(Math.max(q1, q2), Math.max(q3, q4)));
+    }
+
+    /**
+     * @param n exponent
+     * @return x^n for every x in the interval, the same as Math.pow for whole powers
+     */
+    public Interval pow(int n) {
+        if (isEmpty()) {
+            return EMPTY;
+        }
+        if (n == 0) {
+            return ONE;
+        }
+        if (n < 0) {
+            return ONE.divide(pow(-n));
+        }
+        if (n % 2 == 1 || lo >= 0) { // increasing
+            return outward(Math.pow(lo, n), Math.pow(hi, n), Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+        }
+        if (hi <= 0) { // even power, decreasing
+            return outward(Math.pow(hi, n), Math.pow(lo, n), 0, Double.POSITIVE_INFINITY);
+        }
+        return outward(0, Math.pow(Math.max(-lo, hi), n), 0, Double.POSITIVE_INFINITY);
+    }
+
+    public Interval sqrt() {
+        if (isEmpty() || hi < 0) {
+            return EMPTY;
+        }
+        return new Interval(lo <= 0 ? 0 : Math.max(0, Math.nextDown(Math.sqrt(lo))), Math.nextUp(Math.sqrt(hi)));
+    }
+
+    public Interval cbrt() {
+        return outward(Math.cbrt(lo), Math.cbrt(hi), Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+    }
+
+    public Interval exp() {
+        return outward(Math.exp(lo), Math.exp(hi), 0, Double.POSITIVE_INFINITY);
+    }
+
+    public Interval log() {
+        if (isEmpty() || hi <= 0) {
+            return EMPTY;
+        }
+        return outward(lo <= 0 ? Double.NEGATIVE_INFINITY : Math.log(lo), Math.log(hi), Double.NEGATIVE_INFINITY,
+                Double.POSITIVE_INFINITY);
+    }
+
+    public Interval log10() {
+        if (isEmpty() || hi <= 0) {
+            return EMPTY;
+        }
+        return outward(lo <= 0 ? Double.NEGATIVE_INFINITY : Math.log10(lo), Math.log10(hi),
+                Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+    }
+
+    public Interval sin() {
+        if (isEmpty() || Double.isInfinite(lo) || Double.isInfinite(hi)) {
+            return isEmpty() ? EMPTY : new Interval(-1, 1);
+        }
+        return periodic(Math.sin(lo), Math.sin(hi), HALF_PI, -HALF_PI);
+    }
+
+    public Interval cos() {
+        if (isEmpty() || Double.isInfinite(lo) || Double.isInfinite(hi)) {
+            return isEmpty() ? EMPTY : new Interval(-1, 1);
+        }
+        return periodic(Math.cos(lo), Math.cos(hi), 0, Math.PI);
+    }
+
+    /**
+     * Bounds of sin or cos on a finite interval: the values at the ends, or 1 / -1 if a maximum / minimum might
+     * lie in between
+     * @param u value at lo
+     * @param v value at hi
+     * @param maximum where the function is 1, modulo 2 pi
+     * @param minimum where the function is -1, modulo 2 pi
+     */
+    private Interval periodic(double u, double v, double maximum, double minimum) {
+        if (hi - lo >= TWO_PI) {
+            return new Interval(-1, 1);
+        }
+        Interval bounds = outward(Math.min(u, v), Math.max(u, v), -1, 1);
+        return new Interval(mightHold(minimum) ? -1 : bounds.lo, mightHold(maximum) ? 1 : bounds.hi);
+    }
+
+    /**
+     * @return false if no phase + 2 pi k lies in the interval; pi is not exact and 2 pi k is rounded, so a
+     *         point close to the interval counts as inside
+     */
+    private boolean mightHold(double phase) {
+        double slack = 0x1p-40 * Math.max(1, Math.max(Math.abs(lo), Math.abs(hi)));
+        double k = Math.floor((lo - phase) / TWO_PI);
+        for (int i = -1; i <= 2; i++) { // k may be one off either way
+            double point = phase + (k + i) * TWO_PI;
+            if (point >= lo - slack && point <= hi + slack) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public Interval tan() {
+        if (isEmpty() || Double.isInfinite(lo) || Double.isInfinite(hi) || hi - lo >= Math.PI
+                || mightHoldPole()) {
+            return isEmpty() ? EMPTY : ENTIRE;
+        }
+        return outward(Math.tan(lo), Math.tan(hi), Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+    }
+
+    private boolean mightHoldPole() {
+        return mightHold(HALF_PI) || mightHold(-HALF_PI);
+    }
+
+    public Interval asin() {
+        if (isEmpty() || hi < -1 || lo > 1) {
+            return EMPTY;
+        }
+        return outward(Math.asin(Math.max(-1, lo)), Math.asin(Math.min(1, hi)), -HALF_PI - 1e-15,
+                HALF_PI + 1e-15);
+    }
+
+    public Interval acos() {
+        if (isEmpty() || hi < -1 || lo > 1) {
+            return EMPTY;
+        }
+        return outward(Math.acos(Math.min(1, hi)), Math.acos(Math.max(-1, lo)), 0, Math.PI + 1e-15);
+    }
+
+    public Interval atan() {
+        return outward(Math.atan(lo), Math.atan(hi), -HALF_PI - 1e-15, HALF_PI + 1e-15);
+    }
+
+    public Interval sinh() {
+        return outward(Math.sinh(lo), Math.sinh(hi), Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+    }
+
+    public Interval cosh() {
+        if (isEmpty()) {
+            return EMPTY;
+        }
+        if (lo >= 0) {
+            return outward(Math.cosh(lo), Math.cosh(hi), 1, Double.POSITIVE_INFINITY);
+        }
+        if (hi <= 0) {
+            return outward(Math.cosh(hi), Math.cosh(lo), 1, Double.POSITIVE_INFINITY);
+        }
+        return outward(1, Math.cosh(Math.max(-lo, hi)), 1, Double.POSITIVE_INFINITY);
+    }
+
+    public Interval tanh() {
+        return outward(Math.tanh(lo), Math.tanh(hi), -1, 1);
+    }
+
+    public Interval abs() {
+        if (isEmpty() || lo >= 0) {
+            return this;
+        }
+        return hi <= 0 ? negate() : new Interval(0, Math.max(-lo, hi));
+    }
+
+    /**
+     * @return the signs of the interval's values, which is also the derivative of abs wherever it has one
+     */
+    public Interval signum() {
+        return isEmpty() ? EMPTY : new Interval(Math.signum(lo), Math.signum(hi));
+    }
+
+    @Override
+    public String toString() {
+        return isEmpty() ? "[]" : "[" + lo + ", " + hi + "]";
+    }
+}
@@ -0,0 +1,22 @@
+/**
+ * A RealFunction that can also be evaluated over an interval of x, giving bounds that hold f(x) for every x
+ * in it, so IntervalRootFinder can prove where roots are and where there are none.
+ *
+ * Polynomial implements this with Horner's scheme, and ExpressionCompiler.interval gives one for any formula.
+ */
+public interface IntervalFunction extends RealFunction {
+
+    /**
+     * Get bounds of f over x
+     * @param x interval of values
+     * @return interval holding f(x) for every x, EMPTY if f is defined nowhere in x
+     */
+    Interval valueAt(Interval x);
+
+    /**
+     * Get bounds of f' over x
+     * @param x interval of values
+     * @return interval holding f'(x) for every x, EMPTY if f' is defined nowhere in x
+     */
+    Interval derivativeAt(Interval x);
+}
@@ -0,0 +1,248 @@
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Description: Finds all roots of f(x) in [a, b] with interval arithmetic, so each root comes with a proof
+ *              that there is exactly one root in its enclosure, and every part of [a, b] left out is proved
+ *              to hold no root at all.
+ *
+ *              A box X is dropped as soon as the bounds of f over X leave out 0. Otherwise a Krawczyk step
+ *                  K = m - y f(m) + (1 - y f'(X)) (X - m),  m the middle of X, y = 1 / f'(m)
+ *              holds every root in X: if K lies inside X there is exactly one, and more Krawczyk steps
+ *              shrink it to a few ulps; if K misses X there is none; otherwise X is cut down to X and K, and
+ *              split in two if that does not halve it. f is bounded over X both directly and in the mean
+ *              value form f(m) + f'(X) (X - m), which is much tighter on small boxes near a multiple root.
+ *
+ *              Boxes are split into fork-join tasks, so idle threads steal the halves still to be searched.
+ *              Most of a large domain is dropped in a few splits. A box narrower than the given width that
+ *              is neither proved nor dropped, such as one around a double root or a pole, is reported as
+ *              undecided. A root on the border of [a, b] or of two boxes is proved on a slightly wider box,
+ *              so its enclosure may reach just past the border.
+ */
+public final class IntervalRootFinder {
+
+    static final double DEFAULT_WIDTH = 1e-9; // width of an undecided box, relative to max(1, |x|)
+    private static final int FORK_DEPTH = 12; // boxes split deeper than this are searched in the same task
+    private static final double SPLIT = 0.5 - 0x1p-10; // off the middle, so a round number is rarely on a border
+    private static final int MAX_STEPS = 64;
+
+    private IntervalRootFinder() {
+    }
+
+    /**
+     * A box holding exactly one root, or one that could not be decided
+     */
+    public static final class Enclosure {
+        public final double lo;
+        public final double hi;
+        public final boolean unique; // true if proved to hold exactly one root, false if it may hold any number
+
+        Enclosure(Interval x, boolean unique) {
+            this.lo = x.lo;
+            this.hi = x.hi;
+            this.unique = unique;
+        }
+
+        Interval interval() {
+            return new Interval(lo, hi);
+        }
+
+        @Override
+        public String toString() {
+            return "[" + lo + ", " + hi + "] " + (unique ? "holds exactly one root" : "may hold roots");
+        }
+    }
+
+    /**
+     * Find all roots of f in [a, b], leaving undecided boxes DEFAULT_WIDTH wide
+     * @param f function
+     * @param a left / lower value
+     * @param b right / upper value
+     * @return enclosures in increasing order
+     */
+    public static List<Enclosure> findAllRoots(IntervalFunction f, double a, double b) {
+        return findAllRoots(f, a, b, DEFAULT_WIDTH);
+    }
+
+    /**
+     * Find all roots of f in [a, b]
+     * @param f function
+     * @param a left / lower value
+     * @param b right / upper value
+     * @param width width at which a box that is neither proved nor dropped is reported as undecided, relative
+     *              to max(1, |x|)
+     * @return enclosures in increasing order
+     */
+    public static List<Enclosure> findAllRoots(IntervalFunction f, double a, double b, double width) {
+        if (!(a < b) || Double.isInfinite(a) || Double.isInfinite(b) || !(width > 0)) {
+            throw new IllegalArgumentException("Expected finite a < b and a positive width, got [" + a + ", " + b
+                    + "] with width " + width);
+        }
+        List<Enclosure> found = ForkJoinPool.commonPool().invoke(new SearchTask(f, new Interval(a, b), width, 0));
+        found.sort(Comparator.comparingDouble(e -> e.lo));
+        return merge(f, found);
+    }
+
+    /**
+     * Searches one box and returns the enclosures found in it
+     */
+    private static final class SearchTask extends RecursiveTask<List<Enclosure>> {
+        private static final long serialVersionUID = 1L;
+        private final IntervalFunction f;
+        private final Interval box;
+        private final double width;
+        private final int depth;
+
+        SearchTask(IntervalFunction f, Interval box, double width, int depth) {
+            this.f = f;
+            this.box = box;
+            this.width = width;
+            this.depth = depth;
+        }
+
+        @Override
+        protected List<Enclosure> compute() {
+            List<Enclosure> found = new ArrayList<>();
+            search(box, depth, found);
+            return found;
+        }
+
+        private void search(Interval x, int level, List<Enclosure> found) {
+            while (true) {
+                Interval fPrime = f.derivativeAt(x);
+                double m = x.mid();
+                Interval fm = f.valueAt(Interval.of(m));
+                if (!bounds(f, x, m, fm, fPrime).contains(0)) {
+                    return;
+                }
+                Interval k = krawczyk(f, x, m, fm, fPrime);
+                if (k != null && x.containsInInterior(k)) {
+                    found.add(new Enclosure(contract(f, k), true));
+                    return;
+                }
+                if (k != null) {
+                    Interval next = x.intersect(k);
+                    if (next.isEmpty()) {
+                        return;
+                    }
+                    boolean halved = next.width() <= 0.5 * x.width();
+                    x = next;
+                    if (halved) {
+                        continue;
+                    }
+                }
+                double split = x.lo + (x.hi - x.lo) * SPLIT;
+                if (x.width() <= width * Math.max(1, Math.abs(m)) || !(split > x.lo && split < x.hi)) {
+                    Interval proved = prove(f, x);
+                    found.add(proved != null ? new Enclosure(proved, true) : new Enclosure(x, false));
+                    return;
+                }
+                Interval left = new Interval(x.lo, split);
+                Interval right = new Interval(split, x.hi);
+                if (level < FORK_DEPTH) {
+                    SearchTask task = new SearchTask(f, left, width, level + 1);
+                    task.fork();
+                    search(right, level + 1, found);
+                    found.addAll(task.join());
+                    return;
+                }
+                search(left, level + 1, found);
+                x = right;
+                level++;
+            }
+        }
+    }
+
+    /**
+     * Bounds of f over x, from f(x) itself and from the mean value form
+     */
+    private static Interval bounds(IntervalFunction f, Interval x, double m, Interval fm, Interval fPrime) {
+        Interval direct = f.valueAt(x);
+        if (fm.isEmpty() || fPrime.isEmpty()) {
+            return direct;
+        }
+        return direct.intersect(fm.add(fPrime.multiply(x.subtract(Interval.of(m)))));
+    }
+
+    /**
+     * A Krawczyk step on x
+     * @return K, or null if it says nothing about x, e.g. where f'(m) is 0 or f is not defined at m
+     */
+    private static Interval krawczyk(IntervalFunction f, Interval x, double m, Interval fm, Interval fPrime) {
+        double y = 1 / f.derivativeAt(m);
+        if (!Double.isFinite(y) || y == 0) {
+            y = 1 / fPrime.mid();
+        }
+        if (!Double.isFinite(y) || y == 0 || fm.isEmpty() || fPrime.isEmpty()) {
+            return null;
+        }
+        Interval iy = Interval.of(y);
+        Interval im = Interval.of(m);
+        Interval k = im.subtract(iy.multiply(fm)).add(Interval.ONE.subtract(iy.multiply(fPrime))
+                .multiply(x.subtract(im)));
+        return k.isEmpty() ? null : k;
+    }
+
+    private static Interval krawczyk(IntervalFunction f, Interval x) {
+        double m = x.mid();
+        return krawczyk(f, x, m, f.valueAt(Interval.of(m)), f.derivativeAt(x));
+    }
+
+    /**
+     * More Krawczyk steps on a box known to hold exactly one root, while they shrink it
+     */
+    private static Interval contract(IntervalFunction f, Interval x) {
+        for (int step = 0; step < MAX_STEPS; step++) {
+            Interval k = krawczyk(f, x);
+            Interval next = k == null ? x : x.intersect(k);
+            if (next.isEmpty() || !(next.width() < x.width())) {
+                break;
+            }
+            x = next;
+        }
+        return x;
+    }
+
+    /**
+     * Try to prove a root in a small box by widening it (epsilon inflation), for a root on or next to its border
+     * @return an enclosure of exactly one root, or null if there is no proof
+     */
+    private static Interval prove(IntervalFunction f, Interval x) {
+        double delta = Math.max(x.hi - x.lo, 4 * Math.ulp(Math.max(Math.abs(x.lo), Math.abs(x.hi))));
+        Interval wider = new Interval(x.lo - delta, x.hi + delta);
+        for (int step = 0; step < 4; step++) {
+            Interval k = krawczyk(f, wider);
+            if (k == null || Double.isInfinite(k.width())) {
+                return null;
+            }
+            if (wider.containsInInterior(k)) {
+                return contract(f, k);
+            }
+            wider = new Interval(Math.min(wider.lo, k.lo) - delta, Math.max(wider.hi, k.hi) + delta);
+            delta *= 2;
+        }
+        return null;
+    }
+
+    /**
+     * Join enclosures that overlap, e.g. a root proved from both sides of a border. Two proved ones stay proved
+     * if their hull can be proved to hold a single root.
+     */
+    private static List<Enclosure> merge(IntervalFunction f, List<Enclosure> found) {
+        List<Enclosure> merged = new ArrayList<>();
+        for (Enclosure e : found) {
+            Enclosure last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+            if (last == null || e.lo > last.hi) {
+                merged.add(e);
+                continue;
+            }
+            Interval hull = last.interval().hull(e.interval());
+            Interval proved = last.unique && e.unique ? prove(f, hull) : null;
+            merged.set(merged.size() - 1, proved != null ? new Enclosure(proved, true) : new Enclosure(hull, false));
+        }
+        return merged;
+    }
+}
@@ -0,0 +1,133 @@
+import java.util.Arrays;
+
+/**
+ * Description: Solves small dense linear systems A x = b by LU decomposition with partial pivoting, in place.
+ *
+ *              A is a row-major n by n array, a[i * n + j] = Aij. factor overwrites it with L below the
+ *              diagonal (its unit diagonal is not stored) and U on and above it, and records the row swaps in
+ *              pivot. solve then overwrites b with x, and invert fills another array with A^-1. Nothing is
+ *              allocated, so SystemSolver can factor a Jacobian every iteration in the same arrays.
+ */
+public final class LinearSystem {
+
+    private LinearSystem() {
+    }
+
+    /**
+     * Factor A = P L U in place
+     * @param a row-major n by n matrix, overwritten with L and U
+     * @param n size
+     * @param pivot receives the row swapped into each row, length n
+     * @return false if A is singular (a pivot is 0 or not finite), and a is left partly factored
+     */
+    public static boolean factor(double[] a, int n, int[] pivot) {
+        for (int k = 0; k < n; k++) {
+            int p = k;
+            double largest = Math.abs(a[k * n + k]);
+            for (int i = k + 1; i < n; i++) {
+                double v = Math.abs(a[i * n + k]);
+                if (v > largest) {
+                    largest = v;
+                    p = i;
+                }
+            }
+            pivot[k] = p;
+            if (largest == 0 || !Double.isFinite(largest)) {
+                return false;
+            }
+            if (p != k) {
+                for (int j = 0; j < n; j++) {
+                    double t = a[k * n + j];
+                    a[k * n + j] = a[p * n + j];
+                    a[p * n + j] = t;
+                }
+            }
+            double inverse = 1 / a[k * n + k];
+            for (int i = k + 1; i < n; i++) {
+                double l = a[i * n + k] * inverse;
+                a[i * n + k] = l;
+                if (l != 0) {
+                    for (int j = k + 1; j < n; j++) {
+                        a[i * n + j] -= l * a[k * n + j];
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Solve A x = b from a factored A
+     * @param lu A as left by factor
+     * @param n size
+     * @param pivot row swaps from factor
+     * @param b right hand side, overwritten with x
+     */
+    public static void solve(double[] lu, int n, int[] pivot, double[] b) {
+        for (int k = 0; k < n; k++) { // P b, then L y = P b
+            int p = pivot[k];
+            double t = b[p];
+            b[p] = b[k];
+            b[k] = t;
+            for (int j = 0; j < k; j++) {
+                t -= lu[k * n + j] * b[j];
+            }
+            b[k] = t;
+        }
+        for (int i = n - 1; i >= 0; i--) { // U x = y
+            double t = b[i];
+            for (int j = i + 1; j < n; j++) {
+                t -= lu[i * n + j] * b[j];
+            }
+            b[i] = t / lu[i * n + i];
+        }
+    }
+
+    /**
+     * Invert A from a factored A, solving for all columns of the identity at once with whole row operations
+     * @param lu A as left by factor
+     * @param n size
+     * @param pivot row swaps from factor
+     * @param inverse receives A^-1, row-major, length n * n
+     */
+    public static void invert(double[] lu, int n, int[] pivot, double[] inverse) {
+        Arrays.fill(inverse, 0);
+        for (int i = 0; i < n; i++) {
+            inverse[i * n + i] = 1;
+        }
+        for (int k = 0; k < n; k++) { // P I
+            int p = pivot[k];
+            if (p != k) {
+                for (int j = 0; j < n; j++) {
+                    double t = inverse[k * n + j];
+                    inverse[k * n + j] = inverse[p * n + j];
+                    inverse[p * n + j] = t;
+                }
+            }
+        }
+        for (int k = 0; k < n; k++) { // L Y = P I
+            for (int i = k + 1; i < n; i++) {
+                double l = lu[i * n + k];
+                if (l != 0) {
+                    for (int j = 0; j < n; j++) {
+                        inverse[i * n + j] -= l * inverse[k * n + j];
+                    }
+                }
+            }
+        }
+        for (int k = n - 1; k >= 0; k--) { // U X = Y
+            for (int i = k + 1; i < n; i++) {
+                double u = lu[k * n + i];
+                if (u != 0) {
+                    for (int j = 0; j < n; j++) {
+                        inverse[k * n + j] -= u * inverse[i * n + j];
+                    }
+                }
+            }
+            double scale = 1 / lu[k * n + k];
+            for (int j = 0; j < n; j++) {
+                inverse[k * n + j] *= scale;
+            }
+        }
+    }
+}
@@ -7,6 +7,7 @@
  *
  * Description: This program will locate roots of an equation using Bisection,
  *              Newton-Raphson, Secant, False-Position, and Modified Secant methods.
+ *              Other equations can be given on the command line as a formula in x.
  *
  *              Function #1 f(x) = 2x3 – 11.7x2 + 17.7x – 5 has 3 roots in range [0, 4]
  *                  - actual roots: 0.365, 1.922, 3.563
@@ -14,568 +15,982 @@
  *                  - actual root: 126.632
  */
 
-import java.io.*;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.MathContext;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
 
 public class LocateRoots {
+    private static AsyncTraceWriter csv; // output iteration and error to file
+    private static SolverConfig config = SolverConfig.DEFAULT; // stopping rules for every solve
 
-    private static final int MAX = 100; // max iterations
-    private static final double DELTA = 0.01; // DELTA for modified secant
-    private static final double ERROR = 0.01; // 1% desired approx error
-    private static final double DIVERGING_ERROR = 20; // 2000% error for checking divergence
-    private static PrintStream output; // output iteration and error to file
+    // #1. f(x) = 2x3 – 11.7x2 + 17.7x – 5
+    //     f'(x) = 6x^2 - 23.4x + 17.7
+    //     f''(x) = 12x - 23.4, f'''(x) = 12
+    static final RealFunction FUNCTION_1 = new RealFunction() {
+        @Override
+        public double valueAt(double x) {
+            return ((2 * x * x * x) - (11.7 * x * x) + (17.7 * x) - 5);
+        }
+
+        @Override
+        public double derivativeAt(double x) {
+            return ((6 * x * x) - (23.4 * x) + 17.7);
+        }
+
+        @Override
+        public double secondDerivativeAt(double x) {
+            return (12 * x) - 23.4;
+        }
+
+        @Override
+        public double thirdDerivativeAt(double x) {
+            return 12;
+        }
+
+        @Override
+        public String toString() {
+            return "#1 2x^3 - 11.7x^2 + 17.7x - 5";
+        }
+    };
+
+    // #1 as coefficients, so all of its roots can be found at once without intervals
+    static final Polynomial FUNCTION_1_POLYNOMIAL = new Polynomial(-5, 17.7, -11.7, 2);
+
+    // #2. f(x) = x + 10 – xcosh(50/x)
+    //     f'(x) = 1 - cosh(50/x) + (50sinh(50/x))/x
+    //     with u = 50/x, f''(x) = -u^2cosh(u)/x and f'''(x) = (3u^2cosh(u) + u^3sinh(u))/x^2
+    static final RealFunction FUNCTION_2 = new RealFunction() {
+        @Override
+        public double valueAt(double x) {
+            if (x == 0) {
+                throw new IllegalArgumentException("Cannot Divide By Zero!!");
+            }
+            return (x + 10 - (x * Math.cosh(50/x)));
+        }
+
+        @Override
+        public double derivativeAt(double x) {
+            if (x == 0) {
+                throw new IllegalArgumentException("\nERROR: Cannot Divide By Zero!!");
+            }
+            return (1 - Math.cosh(50/x) + ((50*Math.sinh(50/x))/x));
+        }
+
+        @Override
+        public void evaluate(double x, Dual out) {
+            if (x == 0) {
+                throw new IllegalArgumentException("Cannot Divide By Zero!!");
+            }
+            double u = 50/x;
+            double expm1 = Math.expm1(Math.abs(u)); // one exponential for both cosh and sinh
+            double cosh = Dual.cosh(u, expm1);
+            out.value = x + 10 - (x * cosh);
+            out.derivative = 1 - cosh + (u * Dual.sinh(u, expm1));
+        }
+
+        @Override
+        public double secondDerivativeAt(double x) {
+            if (x == 0) {
+                throw new IllegalArgumentException("Cannot Divide By Zero!!");
+            }
+            double u = 50/x;
+            return -u * u * Math.cosh(u) / x;
+        }
+
+        @Override
+        public double thirdDerivativeAt(double x) {
+            if (x == 0) {
+                throw new IllegalArgumentException("Cannot Divide By Zero!!");
+            }
+            double u = 50/x;
+            return u * u * (3 * Math.cosh(u) + u * Math.sinh(u)) / (x * x);
+        }
+
+        @Override
+        public void evaluate(double x, Dual out, int order) {
+            if (x == 0) {
+                throw new IllegalArgumentException("Cannot Divide By Zero!!");
+            }
+            double u = 50/x;
+            double expm1 = Math.expm1(Math.abs(u)); // still one exponential for all four
+            double cosh = Dual.cosh(u, expm1);
+            double sinh = Dual.sinh(u, expm1);
+            out.value = x + 10 - (x * cosh);
+            out.derivative = 1 - cosh + (u * sinh);
+            out.second = -u * u * cosh / x;
+            out.third = u * u * (3 * cosh + u * sinh) / (x * x);
+        }
+
+        @Override
+        public String toString() {
+            return "#2 x + 10 - xcosh(50/x)";
+        }
+    };
+
+    // #2 with its constants as parameters, f(x) = x + b – xcosh(a/x), parameters[0] = a and parameters[1] = b
+    static final ParametricFunction FUNCTION_2_FAMILY = new ParametricFunction() {
+        @Override
+        public double valueAt(double x, double[][] parameters, int lane) {
+            return x + parameters[1][lane] - x * Math.cosh(parameters[0][lane] / x);
+        }
+
+        @Override
+        public double derivativeAt(double x, double[][] parameters, int lane) {
+            double a = parameters[0][lane];
+            return 1 - Math.cosh(a / x) + (a * Math.sinh(a / x)) / x;
+        }
+
+        @Override
+        public void valuesAt(double[] x, double[][] parameters, int offset, int length, double[] fx) {
+            double[] a = parameters[0];
+            double[] b = parameters[1];
+            for (int i = 0; i < length; i++) {
+                fx[i] = x[i] + b[offset + i] - x[i] * Math.cosh(a[offset + i] / x[i]);
+            }
+        }
+
+        @Override
+        public void derivativesAt(double[] x, double[][] parameters, int offset, int length, double[] fPrimeX) {
+            double[] a = parameters[0];
+            for (int i = 0; i < length; i++) {
+                double u = a[offset + i] / x[i];
+                fPrimeX[i] = 1 - Math.cosh(u) + a[offset + i] * Math.sinh(u) / x[i];
+            }
+        }
+
+        @Override
+        public void valuesAndDerivativesAt(double[] x, double[][] parameters, int offset, int length,
+                                           double[] fx, double[] fPrimeX) {
+            double[] a = parameters[0];
+            double[] b = parameters[1];
+            for (int i = 0; i < length; i++) {
+                double u = a[offset + i] / x[i];
+                double expm1 = Math.expm1(Math.abs(u));
+                double cosh = Dual.cosh(u, expm1);
+                fx[i] = x[i] + b[offset + i] - x[i] * cosh;
+                fPrimeX[i] = 1 - cosh + u * Dual.sinh(u, expm1);
+            }
+        }
+    };
 
     /**
-     * Write iteration number and the approximate error to output file
-     * @param n iteration
-     * @param error approximate error
+     * @return function #2's family for BatchSolver: VectorFunction2Family if jdk.incubator.vector was added to
+     *         the run, or else FUNCTION_2_FAMILY
      */
-    private static void writeToFile(int n, double error) {
-        output.println(n + "," + error);
+    static ParametricFunction function2BatchFamily() {
+        return Function2Batch.FAMILY;
     }
 
     /**
-     * Write header for Iteration and Error to output file
+     * Holder, so only a run that solves batches looks for the module and loads the Vector API
      */
-    private static void header() {
-        output.println("Iteration, Error");
+    private static final class Function2Batch {
+        static final ParametricFunction FAMILY = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()
+                ? VectorFunction2Family.create() : FUNCTION_2_FAMILY;
     }
 
+    // functions by number, #1 and #2 are built in and user defined formulas are added after them
+    private static final List<RealFunction> functions = new ArrayList<>(Arrays.asList(FUNCTION_1, FUNCTION_2));
+
+    static final BooleanSupplier NEVER = () -> false; // a run that only stops when it is done
+    private static BooleanSupplier stop = NEVER; // true once the run holding runProgram should stop, see run
+
+    private static final int CACHE = 64; // compiled formulas kept between runs, for SolverDaemon
+    private static final Map<String, RealFunction> compiled = new LinkedHashMap<>(CACHE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, RealFunction> eldest) {
+            return size() > CACHE;
+        }
+    };
+
     /**
-     * Print formatted table for bracketing methods (Bisection and False-Position) to console
-     * @param n iteration
-     * @param a left / lower value
-     * @param b right / upper value
-     * @param c current root guess
-     * @param fa f(a)
-     * @param fb f(b)
-     * @param fc f(c)
-     * @param error approximate error
+     * Get the function registered under this number
+     * @param functionNumber function 1, 2 or a number returned by register
+     * @return the function
      */
-    private static void printBracketing(int n, double a, double b, double c, double fa, double fb,
-                                        double fc, double error) {
-        System.out.printf("   %d \t|   %.3f\t|   %.3f\t|   %.3f\t|   %.3f\t|   %.3f\t|   %.3f\t|   %.3f\n",
-                        n, a, b, c, fa, fb, fc, error);
+    private static RealFunction getFunction(int functionNumber) {
+        return stoppable(registered(functionNumber));
     }
 
     /**
-     * Print formatted table for Newton-Raphson method to console
-     * @param n iteration
-     * @param x current root x
-     * @param fx f(x) value
-     * @param fPrimeX f'(x) value
-     * @param error approximate error
+     * Get the function registered under this number, as it was registered
+     * @param functionNumber function 1, 2 or a number returned by register
+     * @return the function
      */
-    private static void printNewton(int n, double x, double fx, double fPrimeX, double error) {
-        System.out.printf("   %d \t|   %.3f\t|   %.3f\t|   %.3f\t|   %.3f \n", n, x, fx, fPrimeX, error);
+    private static RealFunction registered(int functionNumber) {
+        if (functionNumber < 1 || functionNumber > functions.size()) {
+            throw new IllegalArgumentException("No function #" + functionNumber);
+        }
+        return functions.get(functionNumber - 1);
     }
 
     /**
-     * Print formatted table for Secant and Modified Secant methods to console
-     * @param n iteration
-     * @param previousX xn-1
-     * @param x xn
-     * @param fPreviousX f(xn-1)
-     * @param fx f(x)
-     * @param fPrimeX f'(x)
-     * @param error approximate error
+     * @param function function of this run
+     * @return function, stopping the run at its next evaluation once stop says so
      */
-    private static void printSecant(int n, double previousX, double x, double fPreviousX, double fx,
-                                    double fPrimeX, double error) {
-        System.out.printf("   %d \t|   %.3f\t|   %.3f\t|   %.3f\t|   %.3f\t|   %.3f\t|   %.3f\n",
-                        n, previousX, x, fPreviousX, fx, fPrimeX, error);
+    private static RealFunction stoppable(RealFunction function) {
+        return stop == NEVER ? function : StoppableFunction.of(function, stop);
     }
 
-    private static void printModSecant(int n, double x, double deltaX, double fx, double fxAndDeltaX, double fPrimeX, double currentError) {
-        System.out.printf("   %d \t|   %.3f\t|   %.3f\t|   %.3f\t|   %.3f\t|   %.3f\t|   %.3f\n",
-                n, x, deltaX, fx, fxAndDeltaX, fPrimeX, currentError);
+    /**
+     * Get the function registered under this number as a polynomial
+     * @param functionNumber function 1, 2 or a number returned by register
+     * @return the polynomial, or null if the function is not one
+     */
+    private static Polynomial getPolynomial(int functionNumber) {
+        if (functionNumber == 1) {
+            return FUNCTION_1_POLYNOMIAL;
+        }
+        RealFunction function = registered(functionNumber);
+        return function instanceof Polynomial ? (Polynomial) function : null;
     }
 
     /**
-     * Check if we found a root by checking if f(x) is close to 0
-     * @param fx current x value
-     * @return True if root
+     * Register a user defined function so the methods can refer to it by number
+     * @param function function to register
+     * @return its function number
      */
-    private static boolean isRoot(double fx){
-        if (fx > -.5 && fx < .5) {
-            return true;
-        }
-        return false;
+    static int register(RealFunction function) {
+        functions.add(function);
+        return functions.size();
     }
 
-     /**
-     * Get f(x) at this x value
-     * @param functionNumber function 1 or 2
-     * @param x current value
-     * @return f(x) value
+    /**
+     * Compile a formula, or reuse the function compiled for it by an earlier run in the same JVM
+     * @param formula formula in x
+     * @return compiled function
      */
-    // #1. f(x) = 2x3 – 11.7x2 + 17.7x – 5
-    // #2. f(x) = x + 10 – xcosh(50/x)
-     private static double getFX(int functionNumber, double x) {
-        if (functionNumber == 1) { // function #1
-            return ((2 * x * x * x) - (11.7 * x * x) + (17.7 * x) - 5);
-        }
-        else { // function #2
-            if (x == 0) {
-                throw new IllegalArgumentException("Cannot Divide By Zero!!");
-            }
-            return (x + 10 - (x * Math.cosh(50/x)));
+    private static RealFunction compile(String formula) {
+        RealFunction f = compiled.get(formula);
+        if (f == null) {
+            f = ExpressionCompiler.compile(formula);
+            compiled.put(formula, f);
         }
+        return f;
     }
 
     /**
-     * Get f'(x) at this x value
-     * @param functionNumber function 1 or 2
-     * @param x current value
-     * @return f'(x) value
+     * Print the iteration table and result to the console and write the iterations to the output file
+     * @param functionNumber function number
+     * @return trace for one solve
      */
-    // #1. f'(x) = 6x^2 - 23.4x + 17.7
-    // #2. f'(x) = 1 - cosh(50/x) + (50sinh(50/x))/x
-    private static double getFPrimeX(int functionNumber, double x) {
-        if (functionNumber == 1) { // function #1
-            return ((6 * x * x) - (23.4 * x) + 17.7);
-        }
-        else { // function #2
-            if (x == 0) {
-                throw new IllegalArgumentException("\nERROR: Cannot Divide By Zero!!");
-            }
-            return (1 - Math.cosh(50/x) + ((50*Math.sinh(50/x))/x));
+    private static TraceSink trace(int functionNumber) {
+        return TraceSink.both(new ConsoleTraceSink(functionNumber), csv);
+    }
 
-        }
+    /**
+     * Bisection Method
+     * @param functionNumber function number
+     * @param a left / lower value
+     * @param b right / upper value
+     */
+    static void bisection(int functionNumber, double a, double b) {
+        RootFinder.bisection(getFunction(functionNumber), a, b, config, trace(functionNumber));
     }
 
     /**
-     * Check if we have ran the method for the maximum iterations (100)
-     * @param n iterations
-     * @return True if we hit 100
+     * Newton-Raphson Method
+     * @param functionNumber function number
+     * @param x initial root guess
      */
-    private static boolean maxIterations(int n) {
-        if (n == MAX) {
-            System.out.println("\nRoot Has Not Been Found after 100 iterations.");
-            return true;
-        }
-        return false;
+    static void newtonRaphson(int functionNumber, double x) {
+        RootFinder.newtonRaphson(getFunction(functionNumber), x, config, trace(functionNumber));
+    }
+
+    /**
+     * Secant Method.
+     * @param functionNumber function number
+     * @param previous previous value
+     * @param x current value
+     */
+    static void secant(int functionNumber, double previous, double x) {
+        RootFinder.secant(getFunction(functionNumber), previous, x, config, trace(functionNumber));
     }
 
     /**
-     * Get absolute value of the approximate error for current value
-     * @param current current value
+     * False-Position Method
+     * @param functionNumber function number
+     * @param a left / lower value
+     * @param b right / upper value
+     */
+    static void falsePosition(int functionNumber, double a, double b) {
+        RootFinder.falsePosition(getFunction(functionNumber), a, b, config, trace(functionNumber));
+    }
+
+    /**
+     * Modified Secant Method, with DELTA = 0.01
+     * @param functionNumber function number
      * @param previous previous value
-     * @return error
+     * @param x current value
      */
-    private static double getError(double current, double previous) {
-        return Math.abs((current - previous) / current);
+    static void modifiedSecant(int functionNumber, double previous, double x) {
+        RootFinder.modifiedSecant(getFunction(functionNumber), previous, x, config, trace(functionNumber));
     }
 
     /**
-     * Bisection Method
-     * @param functionNumber function 1 or 2
+     * Brent's Method
+     * @param functionNumber function number
      * @param a left / lower value
      * @param b right / upper value
      */
-    private static void bisection(int functionNumber, double a, double b) {
-        double initialA = a;
-        double initialB = b;
-        double c = 0;
-        double fa = 0;
-        double fb = 0;
-        double fc = 0;
-        double previous = 0;
-        double currentError = 1;
-        int n = 0; // iterations
-
-        System.out.println("\n   n \t|     a  \t|     b  \t|     c  \t|    f(a)\t|    f(b)\t|    f(c)\t|   Error ");
-        System.out.println("-------------------------------------------------------------------------------------------------------------------");
-
-        while (!maxIterations(n)) {
-            c = (a + b) / 2;
-            fa = getFX(functionNumber, a);
-            fb = getFX(functionNumber, b);
-            fc = getFX(functionNumber, c);
-            currentError = getError(c, previous);
-
-            // print to console and output file
-            printBracketing(n, a, b, c, fa, fb, fc, currentError);
-            writeToFile(n, currentError);
-
-            if (currentError > DIVERGING_ERROR) {
-                System.out.println("ERROR: This equation is diverging.");
-                output.println("ERROR: This equation is diverging.");
-                return;
-            }
+    static void brent(int functionNumber, double a, double b) {
+        BracketedRootFinder.brent(getFunction(functionNumber), a, b, config, trace(functionNumber));
+    }
 
-            if (fc == 0 || currentError < ERROR) { // found root
-                // check if it is an actual root
-                if (isRoot(fc)) {
-                    System.out.printf("BISECTION - The root %.3f has been found in between %.0f and %.0f for " +
-                            "function #%d in %d iterations.\n", c, initialA, initialB, functionNumber, n+1);
-                    output.println("root = " + c);
-                }
-                else {
-                    System.out.printf("BISECTION - There are no roots in between %.0f and %.0f for " +
-                            "function #%d.\n", initialA, initialB, functionNumber);
-                    output.println("root = DNE");
-                }
-                return;
-            }
-            else { // fc != 0
-                if (fa * fc < 0) {
-                    b = c;
-                }
-                else { // fa * fc > 0
-                    a = c;
-                }
-            }
+    /**
+     * Illinois Method
+     * @param functionNumber function number
+     * @param a left / lower value
+     * @param b right / upper value
+     */
+    static void illinois(int functionNumber, double a, double b) {
+        BracketedRootFinder.illinois(getFunction(functionNumber), a, b, config, trace(functionNumber));
+    }
 
-            previous = c;
-            n++;
-        }
+    /**
+     * Anderson-Björck Method
+     * @param functionNumber function number
+     * @param a left / lower value
+     * @param b right / upper value
+     */
+    static void andersonBjorck(int functionNumber, double a, double b) {
+        BracketedRootFinder.andersonBjorck(getFunction(functionNumber), a, b, config, trace(functionNumber));
     }
 
     /**
-     * Newton-Raphson Method
-     * @param functionNumber function 1 or 2
+     * Chandrupatla's Method
+     * @param functionNumber function number
+     * @param a left / lower value
+     * @param b right / upper value
+     */
+    static void chandrupatla(int functionNumber, double a, double b) {
+        BracketedRootFinder.chandrupatla(getFunction(functionNumber), a, b, config, trace(functionNumber));
+    }
+
+    /**
+     * Halley's Method
+     * @param functionNumber function number
      * @param x initial root guess
      */
-    private static void newtonRaphson(int functionNumber, double x) {
-        double initialX = x;
-        double next = 0;
-        double fx = 0;
-        double fPrimeX = 0;
-        double currentError = 1;
-        double previous = 0;
-        int n = 0; // iterations
-
-        System.out.println("\n   n \t|     xn  \t|   f(xn) \t|   f'(xn) \t|   Error ");
-        System.out.println("------------------------------------------------------------------");
-
-        while (!maxIterations(n)) {
-            fx = getFX(functionNumber, x);
-            fPrimeX = getFPrimeX(functionNumber, x);
-            currentError = getError(x, previous);
-
-            // xn+1 = xn - f(xn)/f'(xn)
-            next = x - (fx / fPrimeX);
-
-            // print to console and output file
-            printNewton(n, x, fx, fPrimeX, currentError);
-            writeToFile(n, currentError);
-
-            if (currentError > DIVERGING_ERROR) {
-                System.out.println("ERROR: This equation is diverging.");
-                output.println("ERROR: This equation is diverging.");
-                return;
-            }
+    static void halley(int functionNumber, double x) {
+        HigherOrderRootFinder.halley(getFunction(functionNumber), x, config, trace(functionNumber));
+    }
 
-            if (fx == 0 || currentError < ERROR) { // found root
-                // check if it is an actual root
-                if (isRoot(fx)) {
-                    System.out.printf("NEWTON - The root %.3f has been found for function #%d starting at x = %.0f in " +
-                            "%d iterations.\n", x, functionNumber, initialX, n+1);
-                    output.println("root = " + x);
-                }
-                else {
-                    System.out.printf("NEWTON - There is no root for function #%d starting at " +
-                            "x = %.0f.\n", functionNumber, initialX);
-                    output.println("root = DNE");
-                }
-                return;
-            }
+    /**
+     * Householder's Method of order 3
+     * @param functionNumber function number
+     * @param x initial root guess
+     */
+    static void householder(int functionNumber, double x) {
+        HigherOrderRootFinder.householder(getFunction(functionNumber), x, config, trace(functionNumber));
+    }
 
-            if (fPrimeX == 0) {
-                System.out.println("ERROR: f'(xn) = 0, cannot continue finding the root.");
-                output.println("ERROR: f'(xn) = 0.");
-                return;
-            }
+    /**
+     * Ostrowski's Method
+     * @param functionNumber function number
+     * @param x initial root guess
+     */
+    static void ostrowski(int functionNumber, double x) {
+        HigherOrderRootFinder.ostrowski(getFunction(functionNumber), x, config, trace(functionNumber));
+    }
 
-            previous = x;
-            x = next;
-            n++;
+    /**
+     * Run all methods on a user defined formula, e.g. "x + 10 - x*cosh(50/x)" 120 130
+     * @param args formula, lower value a and upper value b
+     */
+    private static void runFormula(String[] args) {
+        if (args.length != 3) {
+            System.out.println("Usage: java -jar LocateRoots.jar \"f(x)\" a b");
+            return;
         }
+        int functionNumber = register(compile(args[0]));
+        double a = Double.parseDouble(args[1]);
+        double b = Double.parseDouble(args[2]);
+        System.out.println("Function #" + functionNumber + " f(x) = " + args[0]);
+
+        csv.title("Bisection Function #" + functionNumber);
+        bisection(functionNumber, a, b);
+        csv.title("Newton-Raphson Function #" + functionNumber);
+        newtonRaphson(functionNumber, b);
+        csv.title("Secant Function #" + functionNumber);
+        secant(functionNumber, a, b);
+        csv.title("False Position Function #" + functionNumber);
+        falsePosition(functionNumber, a, b);
+        csv.title("Modified Secant Function #" + functionNumber);
+        modifiedSecant(functionNumber, a, b);
+        csv.title("Brent Function #" + functionNumber);
+        brent(functionNumber, a, b);
+        csv.title("Illinois Function #" + functionNumber);
+        illinois(functionNumber, a, b);
+        csv.title("Anderson-Bjorck Function #" + functionNumber);
+        andersonBjorck(functionNumber, a, b);
+        csv.title("Chandrupatla Function #" + functionNumber);
+        chandrupatla(functionNumber, a, b);
+        csv.title("Halley Function #" + functionNumber);
+        halley(functionNumber, b);
+        csv.title("Householder Function #" + functionNumber);
+        householder(functionNumber, b);
+        csv.title("Ostrowski Function #" + functionNumber);
+        ostrowski(functionNumber, b);
     }
 
     /**
-     * Secant Method.
-     * @param functionNumber function 1 or 2
-     * @param previous previous value
-     * @param x current value
+     * Race all methods on a function and print the first root found, e.g. race "atan(x - 1)" 0 3
+     * @param args "race", function number or formula, lower value a and upper value b
      */
-    private static void secant(int functionNumber, double previous, double x) {
-        double initialX = x;
-        double next = 0;
-        double fPreviousX = 0;
-        double fx = 0;
-        double fPrimeX = 0;
-        double currentError = 1;
-        int n = 0; // iterations
-
-        System.out.println("\n   n \t|    xn-1 \t|     xn \t|   f(xn-1)\t|   f(xn)\t|   f'(xn)\t|   Error ");
-        System.out.println("----------------------------------------------------------------------------------------------------");
-
-        while (!maxIterations(n)) {
-            fx = getFX(functionNumber, x);
-            fPreviousX = getFX(functionNumber, previous);
-            fPrimeX = getFPrimeX(functionNumber, x);
-            currentError = getError(x, previous);
-
-            // xn+1 = xn - f(xn) * (xn - xn-1) / (f(xn) - f(xn-1))
-            next = x - fx * (x - previous) / (fx - fPreviousX);
-
-            // print to console and output file
-            printSecant(n, previous, x, fPreviousX, fx, fPrimeX, currentError);
-            writeToFile(n, currentError);
-
-            if (currentError > DIVERGING_ERROR) {
-                System.out.println("ERROR: This equation is diverging.");
-                output.println("ERROR: This equation is diverging.");
-                return;
-            }
-
-            if (fx == 0 || currentError < ERROR) { // found root
-                // check if it is an actual root
-                if (isRoot(fx)) {
-                    System.out.printf("SECANT - The root %.3f has been found for function #%d starting at x = %.0f in " +
-                            "%d iterations.\n", x, functionNumber, initialX, n+1);
-                    output.println("root = " + x);
-                }
-                else {
-                    System.out.printf("SECANT - There is no root for function #%d starting at " +
-                            "x = %.0f.\n", functionNumber, initialX);
-                    output.println("root = DNE");
-                }
-                return;
-            }
+    private static void runRace(String[] args) {
+        if (args.length != 4) {
+            System.out.println("Usage: java -jar LocateRoots.jar race <function number | \"f(x)\"> a b");
+            return;
+        }
+        int functionNumber = args[1].matches("\\d+") ? Integer.parseInt(args[1])
+                : register(compile(args[1]));
+        double a = Double.parseDouble(args[2]);
+        double b = Double.parseDouble(args[3]);
+
+        long start = System.nanoTime();
+        RootResult result = PortfolioSolver.solve(getFunction(functionNumber), a, b,
+                PortfolioSolver.ALL_METHODS, config);
+        long elapsed = System.nanoTime() - start;
+
+        csv.title("Race Function #" + functionNumber);
+        if (result.found()) {
+            System.out.printf("RACE - %s found the root %.6f first for function #%d in %.3f ms, after %d " +
+                    "iterations.\n", result.method.label, result.root, functionNumber, elapsed / 1e6,
+                    result.iterations);
+            csv.root(result.root);
+        } else {
+            System.out.printf("RACE - No method found a root for function #%d, closest was %s at %.6f " +
+                    "with f(x) = %.6f.\n", functionNumber, result.method.label, result.root, result.fx);
+        }
+    }
 
-            if (fPrimeX == 0) {
-                System.out.println("ERROR: f'(xn) = 0, cannot continue finding the root.");
-                output.println("ERROR: f'(xn) = 0");
-                return;
-            }
+    /**
+     * Find all roots of a function in [a, b] without picking intervals, e.g. roots 1 0 4. A polynomial
+     * needs no interval at all, e.g. roots 1 or roots "x^4 - 10x^2 + 9".
+     * @param args "roots", function number or formula, and lower value a and upper value b unless the
+     *             function is a polynomial
+     */
+    private static void runAllRoots(String[] args) {
+        if (args.length != 2 && args.length != 4) {
+            System.out.println("Usage: java -jar LocateRoots.jar roots <function number | \"f(x)\"> [a b]");
+            return;
+        }
+        int functionNumber;
+        if (args[1].matches("\\d+")) {
+            functionNumber = Integer.parseInt(args[1]);
+        } else {
+            Polynomial polynomial = ExpressionCompiler.polynomial(args[1]);
+            functionNumber = register(polynomial != null ? polynomial : compile(args[1]));
+        }
+        Polynomial polynomial = getPolynomial(functionNumber);
+        if (args.length == 2 && polynomial == null) {
+            System.out.println("Function #" + functionNumber + " is not a polynomial, give an interval a b.");
+            return;
+        }
 
-            previous = x;
-            x = next;
-            n++;
+        long start = System.nanoTime();
+        double[] roots;
+        if (args.length == 2) {
+            roots = polynomial.realRoots();
+        } else if (polynomial != null) {
+            roots = polynomial.realRoots(Double.parseDouble(args[2]), Double.parseDouble(args[3]));
+        } else {
+            roots = RootScanner.findAllRoots(getFunction(functionNumber), Double.parseDouble(args[2]),
+                    Double.parseDouble(args[3]));
+        }
+        long elapsed = System.nanoTime() - start;
+
+        csv.title("All Roots Function #" + functionNumber);
+        if (args.length == 2) {
+            System.out.printf("ALL ROOTS - %d real roots have been found for function #%d in %.3f ms.\n",
+                    roots.length, functionNumber, elapsed / 1e6);
+        } else {
+            System.out.printf("ALL ROOTS - %d roots have been found in between %s and %s for function #%d " +
+                    "in %.3f ms.\n", roots.length, args[2], args[3], functionNumber, elapsed / 1e6);
+        }
+        for (double root : roots) {
+            System.out.printf("   %.6f\n", root);
+            csv.root(root);
         }
     }
 
     /**
-     * False-Position Method
-     * @param functionNumber function 1 or 2
-     * @param a left / lower value
-     * @param b right / upper value
+     * Find all roots of a smooth function in [a, b] from one Chebyshev interpolant, sampling f once instead of
+     * refining every sign change on f, e.g. chebyshev "sin(x)" 0 1000
+     * @param args "chebyshev", function number or formula, lower value a and upper value b
      */
-    private static void falsePosition(int functionNumber, double a, double b) {
-        double initialA = a;
-        double initialB = b;
-        double c = 0;
-        double fa = 0;
-        double fb = 0;
-        double fc = 0;
-        double previous = 0;
-        double currentError = 1;
-        int n = 0; // iterations
-
-        System.out.println("\n   n \t|     a  \t|     b  \t|     c  \t|    f(a)\t|    f(b)\t|    f(c)\t|   Error ");
-        System.out.println("-------------------------------------------------------------------------------------------------------------------");
-
-        while (!maxIterations(n)) {
-            fa = getFX(functionNumber, a);
-            fb = getFX(functionNumber, b);
-
-            // c = (af(b) - bf(a)) / (f(b) - f(a))
-            c = (a*fb - b*fa) / (fb - fa);
-            fc = getFX(functionNumber, c);
-            currentError = getError(c, previous);
-
-            // print to console and output file
-            printBracketing(n, a, b, c, fa, fb, fc, currentError);
-            writeToFile(n, currentError);
-
-            if (currentError > DIVERGING_ERROR) {
-                System.out.println("ERROR: This equation is diverging.");
-                output.println("ERROR: This equation is diverging.");
-                return;
-            }
+    private static void runChebyshev(String[] args) {
+        if (args.length != 4) {
+            System.out.println("Usage: java -jar LocateRoots.jar chebyshev <function number | \"f(x)\"> a b");
+            return;
+        }
+        int functionNumber = args[1].matches("\\d+") ? Integer.parseInt(args[1])
+                : register(compile(args[1]));
+        double a = Double.parseDouble(args[2]);
+        double b = Double.parseDouble(args[3]);
+        CountingFunction counted = new CountingFunction(getFunction(functionNumber));
+
+        long start = System.nanoTime();
+        double[] roots = ChebyshevRootFinder.findAllRoots(counted, a, b);
+        long elapsed = System.nanoTime() - start;
+
+        csv.title("Chebyshev Roots Function #" + functionNumber);
+        System.out.printf("CHEBYSHEV - %d roots have been found in between %s and %s for function #%d in %.3f ms, " +
+                "with %d evaluations of f(x) and %d of f'(x).\n", roots.length, args[2], args[3], functionNumber,
+                elapsed / 1e6, counted.values(), counted.derivatives());
+        for (double root : roots) {
+            System.out.printf("   %.6f\n", root);
+            csv.root(root);
+        }
+    }
 
-            if (fc == 0 || currentError < ERROR) { // found root
-                // check if it is an actual root
-                if (isRoot(fc)) { // a root
-                    System.out.printf("FALSE-POSITION - The root %.3f has been found in between %.0f and %.0f for " +
-                            "function #%d in %d iterations.\n", c, initialA, initialB, functionNumber, n+1);
-                    output.println("root = " + c);
-                } else { // not a root
-                    System.out.printf("FALSE-POSITION - There is no root in between %.0f and %.0f for " +
-                            "function #%d.\n", initialA, initialB, functionNumber);
-                    output.println("root = DNE");
-                }
-                return;
-            }
-            else { // fc != 0
-                if (fa * fc < 0) {
-                    b = c;
-                }
-                else { // fa * fc > 0
-                    a = c;
-                }
+    /**
+     * Find all roots in [a, b] with interval arithmetic, proving each root and that the rest of [a, b] holds
+     * none, e.g. interval "sin(x)" 0 1000
+     * @param args "interval", function number or formula, lower value a and upper value b, and optionally the
+     *             width at which an undecided box is given up, relative to max(1, |x|)
+     */
+    private static void runInterval(String[] args) {
+        if (args.length != 4 && args.length != 5) {
+            System.out.println("Usage: java -jar LocateRoots.jar interval <function number | \"f(x)\"> a b [width]");
+            return;
+        }
+        int functionNumber;
+        IntervalFunction f;
+        if (args[1].matches("\\d+")) {
+            functionNumber = Integer.parseInt(args[1]);
+            f = functionNumber == 1 ? FUNCTION_1_POLYNOMIAL
+                    : functionNumber == 2 ? ExpressionCompiler.interval("x + 10 - x*cosh(50/x)")
+                    : registered(functionNumber) instanceof IntervalFunction
+                    ? (IntervalFunction) registered(functionNumber) : null;
+        } else {
+            f = ExpressionCompiler.interval(args[1]);
+            functionNumber = register(f);
+        }
+        if (f == null) {
+            System.out.println("Function #" + functionNumber + " cannot be evaluated over intervals.");
+            return;
+        }
+        double a = Double.parseDouble(args[2]);
+        double b = Double.parseDouble(args[3]);
+        double width = args.length == 5 ? Double.parseDouble(args[4]) : IntervalRootFinder.DEFAULT_WIDTH;
+
+        long start = System.nanoTime();
+        List<IntervalRootFinder.Enclosure> enclosures = IntervalRootFinder.findAllRoots(
+                (IntervalFunction) stoppable(f), a, b, width);
+        long elapsed = System.nanoTime() - start;
+
+        long proved = enclosures.stream().filter(e -> e.unique).count();
+        csv.title("Interval Roots Function #" + functionNumber);
+        System.out.printf("INTERVAL - %d roots have been proved in between %s and %s for function #%d in %.3f ms, " +
+                "%d boxes are undecided.\n", proved, args[2], args[3], functionNumber, elapsed / 1e6,
+                enclosures.size() - proved);
+        for (IntervalRootFinder.Enclosure e : enclosures) {
+            if (e.unique) {
+                double root = e.lo / 2 + e.hi / 2;
+                System.out.printf("   %.6f, exactly one root in [%s, %s]\n", root, e.lo, e.hi);
+                csv.root(root);
+            } else {
+                System.out.printf("   undecided [%s, %s]\n", e.lo, e.hi);
             }
+        }
+    }
 
-            previous = c;
-            n++;
+    /**
+     * Find a root in [a, b] in double and check it, solving it again in double-double or BigDecimal if double
+     * cannot be trusted, e.g. adaptive "x^3 - 3x^2 + 3x - 1" 0 3
+     * @param args "adaptive", function number or formula, lower value a and upper value b, and optionally the
+     *             relative tolerance, 1e-12 if there is none
+     */
+    private static void runAdaptive(String[] args) {
+        if (args.length != 4 && args.length != 5) {
+            System.out.println("Usage: java -jar LocateRoots.jar adaptive <function number | \"f(x)\"> a b " +
+                    "[tolerance]");
+            return;
+        }
+        int functionNumber;
+        PreciseFunction f;
+        if (args[1].matches("\\d+")) {
+            functionNumber = Integer.parseInt(args[1]);
+            f = functionNumber == 1 ? FUNCTION_1_POLYNOMIAL
+                    : functionNumber == 2 ? ExpressionCompiler.precise("x + 10 - x*cosh(50/x)")
+                    : registered(functionNumber) instanceof PreciseFunction
+                    ? (PreciseFunction) registered(functionNumber) : null;
+        } else {
+            Polynomial polynomial = ExpressionCompiler.polynomial(args[1]);
+            f = polynomial != null ? polynomial : ExpressionCompiler.precise(args[1]);
+            functionNumber = register(f != null ? f : compile(args[1]));
         }
+        if (f == null) {
+            System.out.println("Function #" + functionNumber + " cannot be evaluated in a wider precision than " +
+                    "double, only + - * / ^, sqrt, exp, ln and the hyperbolic functions can.");
+            return;
+        }
+        double a = Double.parseDouble(args[2]);
+        double b = Double.parseDouble(args[3]);
+        double tolerance = args.length == 5 ? Double.parseDouble(args[4]) : 1e-12;
+
+        long start = System.nanoTime();
+        AdaptiveSolver.Result result = AdaptiveSolver.solve((PreciseFunction) stoppable(f), a, b,
+                config.withRelativeTolerance(tolerance));
+        long elapsed = System.nanoTime() - start;
+
+        csv.title("Adaptive Function #" + functionNumber);
+        if (result.verified) {
+            System.out.printf("ADAPTIVE - The root %s has been found for function #%d in %s in %.3f ms, to within " +
+                    "%.1e.\n", result.exact().round(new MathContext(Math.min(result.digits, 32))),
+                    functionNumber, result.precision.label, elapsed / 1e6, result.error);
+            csv.root(result.root);
+        } else {
+            System.out.printf("ADAPTIVE - The root of function #%d could not be verified to %.0e, closest was %s in " +
+                    "%s, estimated error %.1e.\n", functionNumber, tolerance,
+                    result.exact().round(new MathContext(Math.min(result.digits, 32))), result.precision.label,
+                    result.error);
+        }
+        System.out.printf("   %d evaluations in double, %d in wider precisions.\n", result.evaluations,
+                result.preciseEvaluations);
     }
 
     /**
-     * Modified Secant Method, with DELTA = 0.01
-     * @param functionNumber function 1 or 2
-     * @param previous previous value
-     * @param x current value
+     * Solve function #2 with its 50 swept from one value to another, each point starting from the roots
+     * before it, e.g. sweep 40 60 1000 100 200
+     * @param args "sweep", first and last value of a, number of points, and the interval lower and upper
+     *             every root is searched for in when a point has to start over
      */
-    private static void modifiedSecant(int functionNumber, double previous, double x) {
-        double initialX = x;
-        double next = 0;
-        double fx = 0;
-        double deltaX = 0;
-        double fPrimeX = 0;
-        double fxAndDeltaX = 0;
-        double currentError = 1;
-        int n = 0; // iterations
-
-        System.out.println("\n   n \t|    xn \t|  delta*xn\t|   f(xn)\t|  f(x+delta*x)\t|   f'(xn)\t|   Error ");
-        System.out.println("-------------------------------------------------------------------------------------------------------------------");
-
-        while (!maxIterations(n)) {
-            fx = getFX(functionNumber, x);
-            deltaX = x * DELTA;
-            fPrimeX = getFPrimeX(functionNumber, x);
-            fxAndDeltaX = getFX(functionNumber, (x + (DELTA * x)));
-            currentError = getError(x, previous);
-
-            // xn+1 = xn - (f(xn) * ((DELTA * xn)) / (f(xn + (DELTA * xn)) - f(xn)))
-            next = x - (fx*(DELTA * x))/(fxAndDeltaX - fx);
-
-            // print to console and output file
-            printModSecant(n, x, deltaX, fx, fxAndDeltaX, fPrimeX, currentError);
-            writeToFile(n, currentError);
-
-            if (currentError > DIVERGING_ERROR) {
-                System.out.println("ERROR: This equation is diverging.");
-                output.println("ERROR: This equation is diverging.");
-                return;
-            }
+    private static void runSweep(String[] args) {
+        if (args.length != 6) {
+            System.out.println("Usage: java -jar LocateRoots.jar sweep <a from> <a to> <points> <lower> <upper>");
+            return;
+        }
+        double from = Double.parseDouble(args[1]);
+        double to = Double.parseDouble(args[2]);
+        int points = Integer.parseInt(args[3]);
+        double[][] parameters = new double[2][points]; // a and b of x + b - xcosh(a/x)
+        for (int i = 0; i < points; i++) {
+            parameters[0][i] = points == 1 ? from : from + (to - from) * i / (points - 1);
+            parameters[1][i] = 10;
+        }
 
-            if (fx == 0 || currentError < ERROR) { // found root
-                // check if it is an actual root
-                if (isRoot(fx)) {
-                    System.out.printf("MODIFIED SECANT - The root %.3f has been found for function #%d starting at x = %.0f in " +
-                            "%d iterations.\n", x, functionNumber, initialX, n+1);
-                    output.println("root = " + x);
-                }
-                else {
-                    System.out.printf("MODIFIED SECANT - There is no root for function #%d starting at " +
-                            "x = %.0f.\n", functionNumber, initialX);
-                    output.println("root = DNE");
-                }
-                return;
-            }
+        long start = System.nanoTime();
+        ContinuationSolver.Sweep sweep = ContinuationSolver.solve(
+                stop == NEVER ? FUNCTION_2_FAMILY : StoppableFunction.of(FUNCTION_2_FAMILY, stop), parameters,
+                Double.parseDouble(args[4]), Double.parseDouble(args[5]), true, config);
+        long elapsed = System.nanoTime() - start;
+
+        csv.title("Sweep Function #2");
+        for (int i = 0; i < points; i++) {
+            System.out.printf("   a = %-10.4f root = %-12.6f iterations = %d%s\n", parameters[0][i], sweep.roots[i],
+                    sweep.iterations[i], sweep.restarted[i] ? " (bracketed search)" : "");
+            csv.root(sweep.roots[i]);
+        }
+        System.out.printf("SWEEP - %d points of function #2 have been solved in %.3f ms, %.2f iterations and %.2f " +
+                "evaluations per point, %d bracketed searches.\n", points, elapsed / 1e6,
+                sweep.averageIterations(), sweep.averageEvaluations(), sweep.restarts());
+    }
 
-            if (fPrimeX == 0) {
-                System.out.println("ERROR: f'(xn) = 0, cannot continue finding the root.");
-                output.println("ERROR: f'(xn) = 0");
-                return;
-            }
+    /**
+     * Solve jobs from a file or stdin and write one result line per job to stdout, e.g. stream jobs.txt.
+     * Nothing else is printed to stdout, and there is no output file.
+     * @param args "stream", optionally --json, and optionally the job file, stdin if there is none
+     * @param directory directory the job file name is relative to
+     * @param stdin standard input
+     * @param stdout standard output, for the results
+     * @param settings stopping rules
+     * @throws IOException if reading the jobs or writing the results fails
+     */
+    private static void runStream(String[] args, Path directory, InputStream stdin, OutputStream stdout,
+                                  SolverConfig settings) throws IOException {
+        boolean json = args.length > 1 && args[1].equals("--json");
+        int file = json ? 2 : 1;
+        if (args.length > file + 1) {
+            System.err.println("Usage: java -jar LocateRoots.jar stream [--json] [jobs file]");
+            return;
+        }
+        BufferedReader in = args.length == file + 1
+                ? Files.newBufferedReader(directory.resolve(args[file]), StandardCharsets.UTF_8)
+                : new BufferedReader(new InputStreamReader(stdin, StandardCharsets.UTF_8), 1 << 16);
+        Writer out = new BufferedWriter(new OutputStreamWriter(stdout, StandardCharsets.UTF_8), 1 << 16);
+        long start = System.nanoTime();
+        long jobs;
+        try (in) { // only the built in functions, so streams can run while other runs register formulas
+            jobs = StreamSolver.solve(in, out, List.of(FUNCTION_1, FUNCTION_2), settings, json);
+        }
+        System.err.printf("STREAM - %d jobs have been solved in %.3f s.\n", jobs, (System.nanoTime() - start) / 1e9);
+    }
 
-            previous = x;
-            x = next;
-            n++;
+    /**
+     * Finish writing the output file
+     */
+    private static void closeOutput() {
+        csv.close();
+        if (csv.dropped() > 0) {
+            System.out.println("\nWARNING: " + csv.dropped() + " lines of the output file were dropped.");
         }
+        System.out.println("\nEnd of Program\n");
     }
 
     /**
      * Main method
      * @param args the input arguments
      */
-    public static void main(String[] args) throws FileNotFoundException {
+    public static void main(String[] args) throws IOException {
+        // stream writes its results to stdout itself, not through System.out, which locks on every write
+        run(args, Paths.get(""), System.in, new FileOutputStream(FileDescriptor.out), NEVER);
+    }
+
+    /**
+     * Run the program once. SolverDaemon calls this for each client, from several threads at once, with
+     * System.out and System.err switched to the client's for the calling thread.
+     * @param args the input arguments
+     * @param directory directory that file names in args are relative to
+     * @param stdin standard input, read by stream only
+     * @param stdout standard output, for the results of stream
+     * @param stop polled at every evaluation of f by the runs that go one at a time, which stop with a
+     *             CancellationException once it is true, so one run cannot hold up the others for good, and at
+     *             every checkpoint of a job, which stops the same way; NEVER for none
+     * @throws IOException if stream cannot read its jobs or write its results
+     */
+    static void run(String[] args, Path directory, InputStream stdin, OutputStream stdout, BooleanSupplier stop)
+            throws IOException {
+        SolverConfig settings = SolverConfig.DEFAULT;
         String fileName = "output.csv";
-        FileOutputStream out = new FileOutputStream(fileName);
-        output = new PrintStream(out);
+        long rotateBytes = 0;
+        AsyncTraceWriter.Overflow overflow = AsyncTraceWriter.Overflow.BLOCK;
+        int first = 0; // first argument after the options
+        while (first < args.length && args[first].startsWith("--")) {
+            if (args[first].equals("--trace-drop")) {
+                overflow = AsyncTraceWriter.Overflow.DROP;
+                first++;
+            } else if (first + 1 < args.length && args[first].equals("--trace")) {
+                fileName = args[first + 1];
+                first += 2;
+            } else if (first + 1 < args.length && args[first].equals("--trace-rotate")) {
+                rotateBytes = Long.parseLong(args[first + 1]);
+                first += 2;
+            } else if (first + 1 < args.length && args[first].equals("--max-evaluations")) {
+                settings = settings.withMaxEvaluations(Integer.parseInt(args[first + 1]));
+                first += 2;
+            } else {
+                System.out.println("Usage: java -jar LocateRoots.jar [--trace file] [--trace-rotate bytes] " +
+                        "[--trace-drop] [--max-evaluations count] ...");
+                return;
+            }
+        }
+        args = Arrays.copyOfRange(args, first, args.length);
+        if (args.length > 0 && args[0].equals("stream")) { // stdout is only results, so no banner
+            runStream(args, directory, stdin, stdout, settings);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("metrics")) { // of this JVM, through SolverClient the daemon's
+            runMetrics(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("job")) { // may run for hours, so not one at a time with the rest
+            runJob(args, directory, settings, stop);
+            return;
+        }
+        runProgram(args, settings, directory.resolve(fileName), rotateBytes, overflow, stop);
+    }
+
+    /**
+     * Start, join or merge a sweep of function #2 split into shards, e.g.
+     * job sweeps/a 40 60 1000000000 60 200 to start one, job sweeps/a to join it from another process or
+     * machine, or to resume it after a crash, and job sweeps/a merge once every shard is done
+     * @param args "job", the job directory, and the sweep as for sweep and optionally the points per shard,
+     *             nothing, or merge
+     * @param directory directory the job directory is relative to
+     * @param settings stopping rules, the same for every process of a job
+     * @param stop polled at every checkpoint; once it is true the claims are released and the run stops with a
+     *             CancellationException, and the job can be resumed
+     * @throws IOException if the job's files cannot be read or written
+     */
+    private static void runJob(String[] args, Path directory, SolverConfig settings, BooleanSupplier stop)
+            throws IOException {
+        if (args.length != 2 && args.length != 3 && args.length != 7 && args.length != 8
+                || args.length == 3 && !args[2].equals("merge")) {
+            System.out.println("Usage: java -jar LocateRoots.jar job <directory> [<a from> <a to> <points> <lower> " +
+                    "<upper> [points per shard] | merge]");
+            return;
+        }
+        Path job = directory.resolve(args[1]);
+        SweepJob.Spec spec = args.length < 7 ? SweepJob.open(job, settings)
+                : SweepJob.create(job, new SweepJob.Spec(Double.parseDouble(args[2]), Double.parseDouble(args[3]),
+                Long.parseLong(args[4]), 10, Double.parseDouble(args[5]), Double.parseDouble(args[6]),
+                args.length == 8 ? Integer.parseInt(args[7]) : SweepJob.DEFAULT_SHARD), settings);
+
+        long start = System.nanoTime();
+        if (args.length == 3) {
+            SweepJob.Summary summary = SweepJob.merge(job, spec, job.resolve(SweepJob.MERGED_FILE));
+            System.out.printf("MERGE - %d points of function #2 have been merged into %s in %.3f s, %d roots " +
+                    "found, %.2f iterations and %.2f evaluations per point.\n", summary.points,
+                    job.resolve(SweepJob.MERGED_FILE), (System.nanoTime() - start) / 1e9, summary.found,
+                    (double) summary.iterations / summary.points, (double) summary.evaluations / summary.points);
+            return;
+        }
+        System.out.printf("JOB - %d points of function #2 in %d shards of %d in %s\n", spec.points, spec.shards(),
+                spec.shardPoints, job);
+        SweepJob.Report report = SweepJob.work(job, spec, FUNCTION_2_FAMILY, settings,
+                Runtime.getRuntime().availableProcessors(), shard -> System.out.printf("   shard %d is done, " +
+                        "%.3f s\n", shard, (System.nanoTime() - start) / 1e9), stop);
+        System.out.printf("JOB - %d shards (%d points) have been solved here in %.3f s, %d of %d shards are done" +
+                        "%s.\n", report.shards, report.points, (System.nanoTime() - start) / 1e9, report.done,
+                spec.shards(), report.elsewhere > 0 ? ", " + report.elsewhere + " are being solved elsewhere" : "");
+        if (report.done < spec.shards() && stop.getAsBoolean()) { // like a run stopped in f, see run
+            throw new CancellationException("The run was stopped");
+        }
+    }
 
+    /**
+     * Print the solves SolverMetrics has counted, and turn counting on or off or start from zero again
+     */
+    private static void runMetrics(String[] args) {
+        if (args.length > 2 || (args.length == 2 && !args[1].matches("on|off|reset"))) {
+            System.out.println("Usage: java -jar LocateRoots.jar metrics [on | off | reset]");
+            return;
+        }
+        System.out.print(SolverMetrics.snapshot());
+        if (args.length == 2 && args[1].equals("reset")) {
+            SolverMetrics.clear();
+        } else if (args.length == 2) {
+            SolverMetrics.enable(args[1].equals("on"));
+            System.out.println(args[1].equals("on") ? "Counting solves from now on" : "Stopped counting solves");
+        }
+    }
+
+    /**
+     * Everything but stream, one run at a time, since the output file, the config and the registered
+     * formulas are kept in static fields
+     * @throws IOException if the output file cannot be opened
+     */
+    private static synchronized void runProgram(String[] args, SolverConfig settings, Path file, long rotateBytes,
+                                                AsyncTraceWriter.Overflow overflow, BooleanSupplier stop)
+            throws IOException {
+        LocateRoots.stop = stop;
+        try {
+            runProgram(args, settings, file, rotateBytes, overflow);
+        } finally {
+            LocateRoots.stop = NEVER;
+        }
+    }
+
+    /**
+     * Run the program, called by runProgram above with its lock held and stop set
+     */
+    private static void runProgram(String[] args, SolverConfig settings, Path file, long rotateBytes,
+                                   AsyncTraceWriter.Overflow overflow) throws IOException {
+        config = settings;
+        functions.subList(2, functions.size()).clear();
+        csv = new AsyncTraceWriter(file, AsyncTraceWriter.DEFAULT_CAPACITY, rotateBytes, overflow);
+        try {
+            runProgram(args);
+        } finally { // however the run ends, so one that fails still writes every line it traced
+            closeOutput();
+        }
+    }
+
+    /**
+     * Run the mode args ask for, or the original program, with csv open
+     */
+    private static void runProgram(String[] args) {
         System.out.println("\n Program 2: Locating Roots of a Function - Annie Wu\n");
 
+        if (args.length > 0 && args[0].equals("roots")) {
+            runAllRoots(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("chebyshev")) {
+            runChebyshev(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("interval")) {
+            runInterval(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("adaptive")) {
+            runAdaptive(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("sweep")) {
+            runSweep(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("race")) {
+            runRace(args);
+            return;
+        }
+        if (args.length > 0) {
+            runFormula(args);
+            return;
+        }
+
         // Function #1
         // Bisection
-        output.println("\nBisection Function #1");
-        header();
+        csv.title("Bisection Function #1");
         bisection(1, 0, 1);
-        header();
         bisection(1, 1, 2);
-        header();
         bisection(1, 2, 3);
-        header();
         bisection(1, 3, 4);
 
 
         // Newton-Raphson
-        output.println("\nNewton-Raphson Function #1");
-        header();
+        csv.title("Newton-Raphson Function #1");
         newtonRaphson(1, 1);
-        header();
         newtonRaphson(1, 2);
-        header();
         newtonRaphson(1, 3);
-        header();
         newtonRaphson(1, 4);
 
         // Secant
-        output.println("\nSecant Function #1");
-        header();
+        csv.title("Secant Function #1");
         secant(1, 0, 1);
-        header();
         secant(1, 1, 2);
-        header();
         secant(1, 2, 3);
-        header();
         secant(1, 3, 4);
 
         // False-Position
-        output.println("\nFalse-Position Function #1");
-        header();
+        csv.title("False-Position Function #1");
         falsePosition(1, 0, 1);
-        header();
         falsePosition(1, 1, 2);
-        header();
         falsePosition(1, 2, 3);
-        header();
         falsePosition(1, 3, 4);
 
         //Modified Secant
-        output.println("\nModified Secant Function #1");
-        header();
+        csv.title("Modified Secant Function #1");
         modifiedSecant(1, 0, 1);
-        header();
         modifiedSecant(1, 1, 2);
-        header();
         modifiedSecant(1, 2, 3);
-        header();
         modifiedSecant(1, 3, 4);
 
         // Function #2
-        output.println("\nBisection Function #2");
-        header();
+        csv.title("Bisection Function #2");
         bisection(2, 120, 130);
-        output.println("\nNewton-Raphson Function #2");
-        header();
+        csv.title("Newton-Raphson Function #2");
         newtonRaphson(2, 130);
-        output.println("\nSecant Function #2");
-        header();
+        csv.title("Secant Function #2");
         secant(2, 120, 130);
-        output.println("\nFalse Position Function #2");
-        header();
+        csv.title("False Position Function #2");
         falsePosition(2, 120, 130);
-        output.println("\nModified Secant Function #2");
-        header();
+        csv.title("Modified Secant Function #2");
         modifiedSecant(2, 120, 130);
 
-        output.close();
-
-        System.out.println("\nEnd of Program\n");
     }
 }
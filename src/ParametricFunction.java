@@ -0,0 +1,75 @@
+/**
+ * A family of functions f(x; p) where the parameters p change from one equation to the next,
+ * e.g. f(x) = x + b - xcosh(a/x) for many different a and b.
+ *
+ * Parameters are stored structure-of-arrays: parameters[k][lane] is parameter k of equation lane.
+ * The batch solver evaluates whole blocks of lanes at once through valuesAt / valuesAndDerivativesAt,
+ * so an implementation can override those with a tight loop instead of one call per lane.
+ */
+public interface ParametricFunction {
+
+    /**
+     * Get f(x) for one equation
+     * @param x current value
+     * @param parameters parameters[k][lane]
+     * @param lane equation index
+     * @return f(x) value
+     */
+    double valueAt(double x, double[][] parameters, int lane);
+
+    /**
+     * Get f'(x) for one equation. Uses a central difference unless the function knows its own derivative.
+     * @param x current value
+     * @param parameters parameters[k][lane]
+     * @param lane equation index
+     * @return f'(x) value
+     */
+    default double derivativeAt(double x, double[][] parameters, int lane) {
+        double h = 6.0554544523933395e-6 * Math.max(1, Math.abs(x)); // cube root of machine epsilon
+        return (valueAt(x + h, parameters, lane) - valueAt(x - h, parameters, lane)) / (2 * h);
+    }
+
+    /**
+     * Get f(x[i]) for lanes offset to offset + length - 1
+     * @param x current values, x[i] belongs to lane offset + i
+     * @param parameters parameters[k][lane]
+     * @param offset first lane
+     * @param length number of lanes
+     * @param fx output f(x) values
+     */
+    default void valuesAt(double[] x, double[][] parameters, int offset, int length, double[] fx) {
+        for (int i = 0; i < length; i++) {
+            fx[i] = valueAt(x[i], parameters, offset + i);
+        }
+    }
+
+    /**
+     * Get f'(x[i]) for lanes offset to offset + length - 1
+     * @param x current values, x[i] belongs to lane offset + i
+     * @param parameters parameters[k][lane]
+     * @param offset first lane
+     * @param length number of lanes
+     * @param fPrimeX output f'(x) values
+     */
+    default void derivativesAt(double[] x, double[][] parameters, int offset, int length, double[] fPrimeX) {
+        for (int i = 0; i < length; i++) {
+            fPrimeX[i] = derivativeAt(x[i], parameters, offset + i);
+        }
+    }
+
+    /**
+     * Get f(x[i]) and f'(x[i]) for lanes offset to offset + length - 1 together, so an implementation
+     * can share the work between the two
+     * @param x current values, x[i] belongs to lane offset + i
+     * @param parameters parameters[k][lane]
+     * @param offset first lane
+     * @param length number of lanes
+     * @param fx output f(x) values
+     * @param fPrimeX output f'(x) values
+     */
+    default void valuesAndDerivativesAt(double[] x, double[][] parameters, int offset, int length,
+                                        double[] fx, double[] fPrimeX) {
+        valuesAt(x, parameters, offset, length, fx);
+        derivativesAt(x, parameters, offset, length, fPrimeX);
+    }
+}
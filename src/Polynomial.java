@@ -0,0 +1,377 @@
+import java.util.Arrays;
+
+/**
+ * Description: A polynomial c0 + c1x + c2x^2 + ... + cnx^n given by its coefficients.
+ *
+ *              f(x) and f'(x) are evaluated together with Horner's scheme, n multiply-adds each, so the
+ *              methods in RootFinder can solve it like any other function.
+ *
+ *              realRoots finds every real root with no intervals picked by hand. Between two neighbouring
+ *              roots of p' (critical points), p only rises or only falls, so it has a root there exactly
+ *              when it changes sign, and that root is the only one. The critical points are found the same
+ *              way from p'', and so on down to a quadratic, which has a formula. Each root is solved by
+ *              Newton-Raphson, starting from the quadratic Taylor polynomial at the nearer critical point
+ *              and falling back to bisection whenever a step would leave its interval.
+ *
+ *              A repeated root is a critical point where p is 0 to within its rounding error. It is found
+ *              as a simple root of the derivative whose root it still is, e.g. the triple root of
+ *              (x - 1)^3 as the simple root of its second derivative, so it is as accurate as any other.
+ *
+ *              The roots are only as good as p(x) can be evaluated in doubles. Roots much closer together
+ *              than the rest, or a badly conditioned polynomial such as (x - 1)(x - 2)...(x - 20), whose
+ *              coefficients are not exact in doubles, can be off or missed. As a PreciseFunction it can
+ *              also be evaluated in double-double or BigDecimal, for AdaptiveSolver to refine such a root,
+ *              and as an IntervalFunction over intervals, for IntervalRootFinder to prove it.
+ */
+public final class Polynomial implements PreciseFunction, IntervalFunction {
+
+    private static final double ROUNDING = 2 * Math.ulp(1.0); // relative rounding error of one multiply-add
+
+    private final double[] coefficients; // coefficients[i] multiplies x^i, the last one is not 0 unless p = 0
+
+    /**
+     * @param coefficients c0, c1, ..., cn, lowest power first
+     */
+    public Polynomial(double... coefficients) {
+        int length = coefficients.length;
+        while (length > 1 && coefficients[length - 1] == 0) {
+            length--;
+        }
+        this.coefficients = length == 0 ? new double[1] : Arrays.copyOf(coefficients, length);
+        for (double c : this.coefficients) {
+            if (!Double.isFinite(c)) {
+                throw new IllegalArgumentException("Coefficients must be finite, got "
+                        + Arrays.toString(coefficients));
+            }
+        }
+    }
+
+    /**
+     * @return n, the highest power of x, 0 for a constant
+     */
+    public int degree() {
+        return coefficients.length - 1;
+    }
+
+    /**
+     * @param power power of x
+     * @return coefficient of x^power, 0 above the degree
+     */
+    public double coefficient(int power) {
+        return power < coefficients.length ? coefficients[power] : 0;
+    }
+
+    @Override
+    public double valueAt(double x) {
+        double p = coefficients[coefficients.length - 1];
+        for (int i = coefficients.length - 2; i >= 0; i--) {
+            p = p * x + coefficients[i];
+        }
+        return p;
+    }
+
+    @Override
+    public double derivativeAt(double x) {
+        double d = 0;
+        for (int i = coefficients.length - 1; i >= 1; i--) {
+            d = d * x + i * coefficients[i];
+        }
+        return d;
+    }
+
+    @Override
+    public void evaluate(double x, Dual out) {
+        double p = coefficients[coefficients.length - 1];
+        double d = 0;
+        for (int i = coefficients.length - 2; i >= 0; i--) { // d uses p before it takes the next coefficient
+            d = d * x + p;
+            p = p * x + coefficients[i];
+        }
+        out.value = p;
+        out.derivative = d;
+    }
+
+    @Override
+    public <T> T valueAt(T x, Arithmetic<T> arithmetic) {
+        T p = arithmetic.of(coefficients[coefficients.length - 1]);
+        for (int i = coefficients.length - 2; i >= 0; i--) {
+            p = arithmetic.add(arithmetic.multiply(p, x), arithmetic.of(coefficients[i]));
+        }
+        return p;
+    }
+
+    @Override
+    public <T> T derivativeAt(T x, Arithmetic<T> arithmetic) {
+        T d = arithmetic.of(0);
+        for (int i = coefficients.length - 1; i >= 1; i--) {
+            T c = arithmetic.multiply(arithmetic.of(i), arithmetic.of(coefficients[i])); // i * ci may not be a double
+            d = arithmetic.add(arithmetic.multiply(d, x), c);
+        }
+        return d;
+    }
+
+    @Override
+    public Interval valueAt(Interval x) {
+        Interval p = Interval.of(coefficients[coefficients.length - 1]);
+        for (int i = coefficients.length - 2; i >= 0; i--) {
+            p = p.multiply(x).add(Interval.of(coefficients[i]));
+        }
+        return p;
+    }
+
+    @Override
+    public Interval derivativeAt(Interval x) {
+        Interval d = Interval.ZERO;
+        for (int i = coefficients.length - 1; i >= 1; i--) {
+            d = d.multiply(x).add(Interval.of(i).multiply(Interval.of(coefficients[i])));
+        }
+        return d;
+    }
+
+    /**
+     * @return p'
+     */
+    public Polynomial derivative() {
+        return coefficients.length == 1 ? new Polynomial(0) : new Polynomial(derivative(coefficients));
+    }
+
+    /**
+     * Find all real roots. A repeated root is returned once.
+     * @return roots in increasing order
+     */
+    public double[] realRoots() {
+        if (degree() == 0) {
+            if (coefficients[0] == 0) {
+                throw new IllegalArgumentException("Every x is a root of p(x) = 0");
+            }
+            return new double[0];
+        }
+        double[] p = normalize(coefficients);
+        return roots(p, rootBound(p));
+    }
+
+    /**
+     * Find all real roots in [a, b]
+     * @param a left / lower value
+     * @param b right / upper value
+     * @return roots in increasing order
+     */
+    public double[] realRoots(double a, double b) {
+        double[] roots = realRoots();
+        int from = 0;
+        while (from < roots.length && roots[from] < a) {
+            from++;
+        }
+        int to = from;
+        while (to < roots.length && roots[to] <= b) {
+            to++;
+        }
+        return Arrays.copyOfRange(roots, from, to);
+    }
+
+    /**
+     * Distinct real roots of p in (-bound, bound), isolated by the roots of p'
+     * @param p coefficients, lowest power first, of degree 1 or more
+     * @param bound every root has |x| < bound
+     * @return roots in increasing order
+     */
+    private static double[] roots(double[] p, double bound) {
+        if (p.length == 2) {
+            return new double[] {-p[0] / p[1] + 0.0}; // a root at 0 is 0, not -0
+        }
+        if (p.length == 3) {
+            return quadraticRoots(p[2], p[1], p[0]);
+        }
+        double[] critical = roots(derivative(p), bound); // all in (-bound, bound) as well
+        double[] roots = new double[p.length - 1];
+        int found = 0;
+        double lo = -bound;
+        double fLo = horner(p, lo);
+        double curvatureLo = 0; // p''(lo) / 2, 0 while lo is the bound rather than a critical point
+        for (int i = 0; i <= critical.length; i++) {
+            double hi = i < critical.length ? critical[i] : bound;
+            double fHi = horner(p, hi);
+            double curvatureHi = i < critical.length ? halfSecondDerivative(p, hi) : 0;
+            if (i < critical.length && Math.abs(fHi) <= roundingError(p, hi)) { // a repeated root
+                fHi = 0;
+            }
+            if (fLo != 0 && fHi != 0 && (fLo < 0) != (fHi < 0)) {
+                roots[found++] = solve(p, lo, hi, fLo, start(lo, hi, fLo, fHi, curvatureLo, curvatureHi));
+            } else if (fHi == 0 && (found == 0 || roots[found - 1] != hi)) {
+                roots[found++] = hi;
+            }
+            lo = hi;
+            fLo = fHi;
+            curvatureLo = curvatureHi;
+        }
+        return Arrays.copyOf(roots, found);
+    }
+
+    /**
+     * Roots of ax^2 + bx + c without the cancellation of the textbook formula
+     */
+    private static double[] quadraticRoots(double a, double b, double c) {
+        double discriminant = b * b - 4 * a * c;
+        if (discriminant < 0) {
+            return new double[0];
+        }
+        if (discriminant == 0) {
+            return new double[] {-b / (2 * a) + 0.0};
+        }
+        double q = -(b + Math.copySign(Math.sqrt(discriminant), b)) / 2;
+        double x1 = q / a + 0.0;
+        double x2 = c / q + 0.0;
+        return x1 < x2 ? new double[] {x1, x2} : new double[] {x2, x1};
+    }
+
+    /**
+     * Starting point for the one root of p in (lo, hi). At a critical point c, p'(c) = 0, so near c
+     * p(x) is about p(c) + p''(c) / 2 (x - c)^2, whose root is used from the end where |p| is smaller.
+     * Otherwise, or if that root is not inside, it is the False-Position point, or the midpoint.
+     */
+    private static double start(double lo, double hi, double fLo, double fHi, double curvatureLo,
+                                double curvatureHi) {
+        double x = Double.NaN;
+        if (curvatureLo != 0 && (Math.abs(fLo) <= Math.abs(fHi) || curvatureHi == 0)) {
+            x = lo + Math.sqrt(-fLo / curvatureLo);
+        } else if (curvatureHi != 0) {
+            x = hi - Math.sqrt(-fHi / curvatureHi);
+        }
+        if (!(x > lo && x < hi)) {
+            x = (lo * fHi - hi * fLo) / (fHi - fLo);
+        }
+        if (!(x > lo && x < hi)) {
+            x = lo + (hi - lo) / 2;
+        }
+        return x;
+    }
+
+    /**
+     * Newton-Raphson on the one root of p in (lo, hi), bisecting whenever a step would leave the bracket.
+     * Once a step is within a few ulps the next one could only be rounding, so that is the root.
+     */
+    private static double solve(double[] p, double lo, double hi, double fLo, double x) {
+        for (int n = 0; n < RootFinder.MAX; n++) {
+            double fx = p[p.length - 1];
+            double d = 0;
+            for (int i = p.length - 2; i >= 0; i--) {
+                d = d * x + fx;
+                fx = fx * x + p[i];
+            }
+            if (fx == 0) {
+                break;
+            }
+            if ((fx < 0) == (fLo < 0)) {
+                lo = x;
+            } else {
+                hi = x;
+            }
+            double next = x - fx / d;
+            if (!(next > lo && next < hi)) {
+                next = lo + (hi - lo) / 2;
+            } else if (Math.abs(next - x) <= 4 * Math.ulp(x)) {
+                x = next;
+                break;
+            }
+            if (next == x) {
+                break;
+            }
+            x = next;
+        }
+        return x + 0.0;
+    }
+
+    /**
+     * Every root has |x| below both Cauchy's bound 1 + max |ci / cn| and Fujiwara's bound
+     * 2 max |c(n-k) / cn|^(1/k). The smaller one is made a little wider so no root is at the end.
+     */
+    private static double rootBound(double[] p) {
+        int n = p.length - 1;
+        double cauchy = 0;
+        double fujiwara = 0;
+        for (int k = 1; k <= n; k++) {
+            double ratio = Math.abs(p[n - k] / p[n]);
+            cauchy = Math.max(cauchy, ratio);
+            fujiwara = Math.max(fujiwara, k == 1 ? ratio : Math.pow(k == n ? ratio / 2 : ratio, 1.0 / k));
+        }
+        return Math.min(1 + cauchy, 2 * fujiwara) * 1.0625;
+    }
+
+    private static double halfSecondDerivative(double[] p, double x) {
+        double value = p[p.length - 1];
+        double d = 0;
+        double h = 0;
+        for (int i = p.length - 2; i >= 0; i--) {
+            h = h * x + d;
+            d = d * x + value;
+            value = value * x + p[i];
+        }
+        return h;
+    }
+
+    private static double horner(double[] p, double x) {
+        double value = p[p.length - 1];
+        for (int i = p.length - 2; i >= 0; i--) {
+            value = value * x + p[i];
+        }
+        return value;
+    }
+
+    /**
+     * Bound on the rounding error of horner(p, x): n multiply-adds, each off by up to ROUNDING
+     * times the sum of |ci x^i|
+     */
+    private static double roundingError(double[] p, double x) {
+        double sum = Math.abs(p[p.length - 1]);
+        double ax = Math.abs(x);
+        for (int i = p.length - 2; i >= 0; i--) {
+            sum = sum * ax + Math.abs(p[i]);
+        }
+        return 2 * (p.length - 1) * ROUNDING * sum;
+    }
+
+    private static double[] derivative(double[] p) {
+        double[] d = new double[p.length - 1];
+        for (int i = 1; i < p.length; i++) {
+            d[i - 1] = i * p[i];
+        }
+        return d;
+    }
+
+    /**
+     * Scale by a power of two so the largest coefficient is in [1, 2). This keeps the roots exactly,
+     * but stops the derivatives of a high degree polynomial from overflowing.
+     */
+    private static double[] normalize(double[] p) {
+        double max = 0;
+        for (double c : p) {
+            max = Math.max(max, Math.abs(c));
+        }
+        int exponent = -Math.getExponent(max);
+        double[] normalized = new double[p.length];
+        for (int i = 0; i < p.length; i++) {
+            normalized[i] = Math.scalb(p[i], exponent);
+        }
+        return normalized;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder s = new StringBuilder();
+        for (int i = coefficients.length - 1; i >= 0; i--) {
+            if (coefficients[i] == 0 && coefficients.length > 1) {
+                continue;
+            }
+            if (s.length() > 0) {
+                s.append(coefficients[i] < 0 ? " - " : " + ");
+            } else if (coefficients[i] < 0) {
+                s.append('-');
+            }
+            s.append(Math.abs(coefficients[i]));
+            if (i > 0) {
+                s.append(i == 1 ? "x" : "x^" + i);
+            }
+        }
+        return s.toString();
+    }
+}
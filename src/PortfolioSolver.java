@@ -0,0 +1,213 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Description: Races several methods on the same function and returns the first root found.
+ *
+ *              Which method converges fastest, or whether Newton-Raphson or Secant diverges, is not
+ *              known in advance. Here every method is started on a small fixed pool of daemon threads,
+ *              all sharing one cancellation flag. The first result that passes the root check wins, the
+ *              flag is set, and the other methods stop at their next evaluation of f instead of running
+ *              on to MAX iterations. Methods that have not started yet are not started at all.
+ *
+ *              The methods start from the same data as a formula given on the command line: bracketing
+ *              methods from [a, b], Newton-Raphson from b, Secant and Modified Secant from a and b.
+ *              Halley, Householder and Ostrowski can be raced too, and also start from b.
+ *              f is called from several threads at once, so it must not keep state between calls.
+ *              Which method wins can change from run to run when two finish at about the same time.
+ */
+public final class PortfolioSolver {
+
+    // fast methods first, so they get a thread when there are fewer threads than methods, and Brent second so
+    // a method that cannot diverge is always racing
+    public static final List<RootMethod> ALL_METHODS = List.of(RootMethod.NEWTON_RAPHSON, RootMethod.BRENT,
+            RootMethod.SECANT, RootMethod.CHANDRUPATLA, RootMethod.ANDERSON_BJORCK, RootMethod.ILLINOIS,
+            RootMethod.MODIFIED_SECANT, RootMethod.FALSE_POSITION, RootMethod.BISECTION);
+
+    static final int THREADS = Math.min(4, Math.max(2, Runtime.getRuntime().availableProcessors()));
+    // with fewer processors than threads, a method would run for a whole time slice before the next one gets a
+    // turn, so every evaluation gives up the processor instead
+    private static final boolean TAKE_TURNS = Runtime.getRuntime().availableProcessors() < THREADS;
+
+    private static final AtomicInteger threadNumber = new AtomicInteger();
+    private static final ExecutorService POOL = Executors.newFixedThreadPool(THREADS, task -> {
+        Thread thread = new Thread(task, "portfolio-" + threadNumber.incrementAndGet());
+        thread.setDaemon(true); // an idle pool does not keep the program running
+        return thread;
+    });
+
+    private PortfolioSolver() {
+    }
+
+    /**
+     * Race all methods
+     * @param f function
+     * @param a left / lower value
+     * @param b right / upper value
+     * @return first root found, or the closest miss
+     */
+    public static RootResult solve(RealFunction f, double a, double b) {
+        return solve(f, a, b, ALL_METHODS, SolverConfig.DEFAULT);
+    }
+
+    /**
+     * Race some methods
+     * @param f function
+     * @param a left / lower value
+     * @param b right / upper value
+     * @param methods methods to race, started in this order
+     * @param config stopping rules for every method
+     * @return the first result that found a root; if none did, the result with the smallest |f(x)|
+     */
+    public static RootResult solve(RealFunction f, double a, double b, List<RootMethod> methods,
+                                   SolverConfig config) {
+        if (methods.isEmpty()) {
+            throw new IllegalArgumentException("No methods to race");
+        }
+        CancellableFunction shared = new CancellableFunction(f);
+        ExecutorCompletionService<RootResult> race = new ExecutorCompletionService<>(POOL);
+        List<Future<RootResult>> running = new ArrayList<>(methods.size());
+        for (RootMethod method : methods) {
+            running.add(race.submit(() -> run(method, shared, a, b, config)));
+        }
+
+        RootResult best = null;
+        RuntimeException failure = null;
+        try {
+            for (int i = 0; i < running.size(); i++) {
+                RootResult result;
+                try {
+                    result = race.take().get();
+                } catch (ExecutionException e) { // f threw, e.g. divided by zero, only this method fails
+                    if (failure == null) {
+                        failure = e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause()
+                                : new IllegalStateException(e.getCause());
+                    }
+                    continue;
+                }
+                if (result.found()) {
+                    return result;
+                }
+                if (best == null || closer(result, best)) {
+                    best = result;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while waiting for the methods");
+        } finally {
+            shared.cancelled = true;
+            for (Future<RootResult> future : running) {
+                future.cancel(false); // methods already running stop at their next evaluation of f
+            }
+        }
+        if (best == null) {
+            throw failure;
+        }
+        return best;
+    }
+
+    /**
+     * Run one method on the starting data, on the calling thread
+     * @param method method to run
+     * @param f function
+     * @param a left / lower value
+     * @param b right / upper value
+     * @param config stopping rules
+     * @return result
+     */
+    static RootResult run(RootMethod method, RealFunction f, double a, double b, SolverConfig config) {
+        switch (method) {
+            case BISECTION: return RootFinder.bisection(f, a, b, config, null);
+            case NEWTON_RAPHSON: return RootFinder.newtonRaphson(f, b, config, null);
+            case SECANT: return RootFinder.secant(f, a, b, config, null);
+            case FALSE_POSITION: return RootFinder.falsePosition(f, a, b, config, null);
+            case MODIFIED_SECANT: return RootFinder.modifiedSecant(f, a, b, config, null);
+            case BRENT: return BracketedRootFinder.brent(f, a, b, config, null);
+            case ILLINOIS: return BracketedRootFinder.illinois(f, a, b, config, null);
+            case ANDERSON_BJORCK: return BracketedRootFinder.andersonBjorck(f, a, b, config, null);
+            case CHANDRUPATLA: return BracketedRootFinder.chandrupatla(f, a, b, config, null);
+            case HALLEY: return HigherOrderRootFinder.halley(f, b, config, null);
+            case HOUSEHOLDER: return HigherOrderRootFinder.householder(f, b, config, null);
+            case OSTROWSKI: return HigherOrderRootFinder.ostrowski(f, b, config, null);
+            default: throw new IllegalArgumentException("Unknown method " + method);
+        }
+    }
+
+    /**
+     * Check if a result ended closer to a root than another one, NaN counts as furthest
+     */
+    private static boolean closer(RootResult result, RootResult than) {
+        return Math.abs(result.fx) < Math.abs(than.fx) || (Double.isNaN(than.fx) && !Double.isNaN(result.fx));
+    }
+
+    /**
+     * f for one race. Once cancelled every evaluation throws, which ends the method evaluating it
+     * at its next iteration.
+     */
+    private static final class CancellableFunction implements RealFunction {
+        private final RealFunction function;
+        volatile boolean cancelled;
+
+        CancellableFunction(RealFunction function) {
+            this.function = function;
+        }
+
+        @Override
+        public double valueAt(double x) {
+            checkCancelled();
+            return function.valueAt(x);
+        }
+
+        @Override
+        public double derivativeAt(double x) {
+            checkCancelled();
+            return function.derivativeAt(x);
+        }
+
+        @Override
+        public double secondDerivativeAt(double x) {
+            checkCancelled();
+            return function.secondDerivativeAt(x);
+        }
+
+        @Override
+        public double thirdDerivativeAt(double x) {
+            checkCancelled();
+            return function.thirdDerivativeAt(x);
+        }
+
+        @Override
+        public void evaluate(double x, Dual out) {
+            checkCancelled();
+            function.evaluate(x, out);
+        }
+
+        @Override
+        public void evaluate(double x, Dual out, int order) {
+            checkCancelled();
+            function.evaluate(x, out, order);
+        }
+
+        @Override
+        public String toString() {
+            return SolverMetrics.name(function);
+        }
+
+        private void checkCancelled() {
+            if (TAKE_TURNS) {
+                Thread.yield();
+            }
+            if (cancelled) {
+                throw new CancellationException();
+            }
+        }
+    }
+}
@@ -0,0 +1,27 @@
+/**
+ * A RealFunction that can also be evaluated in a wider precision than double, so AdaptiveSolver can
+ * check and refine a root that double cannot pin down.
+ *
+ * Polynomial implements this with Horner's scheme, and ExpressionCompiler.precise gives one for formulas
+ * made of + - * / ^, sqrt, exp, ln and the hyperbolic functions.
+ */
+public interface PreciseFunction extends RealFunction {
+
+    /**
+     * Get f(x) in the given arithmetic
+     * @param x current value
+     * @param arithmetic precision to evaluate in
+     * @param <T> number type
+     * @return f(x) value
+     */
+    <T> T valueAt(T x, Arithmetic<T> arithmetic);
+
+    /**
+     * Get f'(x) in the given arithmetic
+     * @param x current value
+     * @param arithmetic precision to evaluate in
+     * @param <T> number type
+     * @return f'(x) value
+     */
+    <T> T derivativeAt(T x, Arithmetic<T> arithmetic);
+}
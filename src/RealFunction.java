@@ -0,0 +1,74 @@
+/**
+ * A real valued function of one variable f(x) that the root finding methods can evaluate.
+ *
+ * Built-in functions #1 and #2 implement this by hand, and user defined formulas are turned
+ * into implementations by the ExpressionCompiler.
+ */
+public interface RealFunction {
+
+    /**
+     * Get f(x) at this x value
+     * @param x current value
+     * @return f(x) value
+     */
+    double valueAt(double x);
+
+    /**
+     * Get f'(x) at this x value. Uses a central difference unless the function knows its own derivative.
+     * @param x current value
+     * @return f'(x) value
+     */
+    default double derivativeAt(double x) {
+        double h = 6.0554544523933395e-6 * Math.max(1, Math.abs(x)); // cube root of machine epsilon
+        return (valueAt(x + h) - valueAt(x - h)) / (2 * h);
+    }
+
+    /**
+     * Get f''(x) at this x value, for Halley's and Householder's Methods. Uses a central difference of
+     * f'(x) unless the function knows its own second derivative.
+     * @param x current value
+     * @return f''(x) value
+     */
+    default double secondDerivativeAt(double x) {
+        double h = 6.0554544523933395e-6 * Math.max(1, Math.abs(x)); // cube root of machine epsilon
+        return (derivativeAt(x + h) - derivativeAt(x - h)) / (2 * h);
+    }
+
+    /**
+     * Get f'''(x) at this x value, for Householder's Method. Uses a second central difference of f'(x)
+     * unless the function knows its own third derivative.
+     * @param x current value
+     * @return f'''(x) value
+     */
+    default double thirdDerivativeAt(double x) {
+        double h = 1.220703125e-4 * Math.max(1, Math.abs(x)); // fourth root of machine epsilon
+        return (derivativeAt(x + h) - 2 * derivativeAt(x) + derivativeAt(x - h)) / (h * h);
+    }
+
+    /**
+     * Get f(x) and f'(x) at this x value together. Functions that share work between the two
+     * (compiled formulas, function #2's cosh and sinh) override this to evaluate in a single pass.
+     * @param x current value
+     * @param out receives f(x) and f'(x)
+     */
+    default void evaluate(double x, Dual out) {
+        out.value = valueAt(x);
+        out.derivative = derivativeAt(x);
+    }
+
+    /**
+     * Get f(x) and its derivatives up to f''(x) or f'''(x) at this x value together
+     * @param x current value
+     * @param out receives f(x), f'(x), and f''(x) and f'''(x) up to order
+     * @param order highest derivative wanted, 1, 2 or 3
+     */
+    default void evaluate(double x, Dual out, int order) {
+        evaluate(x, out);
+        if (order >= 2) {
+            out.second = secondDerivativeAt(x);
+        }
+        if (order >= 3) {
+            out.third = thirdDerivativeAt(x);
+        }
+    }
+}
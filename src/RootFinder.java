@@ -0,0 +1,483 @@
+/**
+ * Description: The numerical core of the Bisection, Newton-Raphson, Secant, False-Position, and
+ *              Modified Secant methods.
+ *
+ *              Each method only computes: it returns a RootResult and allocates nothing per
+ *              iteration. Printing the iteration tables and writing output.csv is done by an optional
+ *              TraceSink, which is only called when one is given.
+ *
+ *              f is evaluated through a CountingFunction. Values already computed are carried over to
+ *              the next iteration instead of evaluating f again at the same point, every result reports
+ *              its exact evaluation counts, and a solve can be capped by an evaluation budget as well
+ *              as by MAX iterations.
+ *
+ *              The stopping rules come from a SolverConfig, DEFAULT unless one is given. The methods keep
+ *              no state outside the call, so solves with different configs can run on many threads at once.
+ */
+public final class RootFinder {
+
+    static final int MAX = 100; // max iterations
+    static final double DELTA = 0.01; // DELTA for modified secant
+    static final double ERROR = 0.01; // 1% desired approx error
+    static final double DIVERGING_ERROR = 20; // 2000% error for checking divergence
+    static final double F_TOLERANCE = 0.5; // |f(x)| below this is a root
+
+    private RootFinder() {
+    }
+
+    /**
+     * Get absolute value of the approximate error for current value
+     * @param current current value
+     * @param previous previous value
+     * @return error
+     */
+    static double getError(double current, double previous) {
+        return Math.abs((current - previous) / current);
+    }
+
+    /**
+     * Bisection Method
+     * @param f function
+     * @param a left / lower value
+     * @param b right / upper value
+     * @return result
+     */
+    public static RootResult bisection(RealFunction f, double a, double b) {
+        return bisection(f, a, b, null);
+    }
+
+    /**
+     * Bisection Method
+     * @param f function
+     * @param a left / lower value
+     * @param b right / upper value
+     * @param trace receives every iteration, or null
+     * @return result
+     */
+    public static RootResult bisection(RealFunction f, double a, double b, TraceSink trace) {
+        return bisection(f, a, b, SolverConfig.DEFAULT, trace);
+    }
+
+    /**
+     * Bisection Method
+     * @param f function
+     * @param a left / lower value
+     * @param b right / upper value
+     * @param config stopping rules
+     * @param trace receives every iteration, or null
+     * @return result
+     */
+    public static RootResult bisection(RealFunction f, double a, double b, SolverConfig config, TraceSink trace) {
+        CountingFunction counted = new CountingFunction(f, config.maxEvaluations);
+        double c = 0;
+        double fa;
+        double fb;
+        double fc = 0;
+        double previous = 0;
+        double currentError = 1;
+        int n = 0; // iterations
+
+        if (trace != null) {
+            trace.begin(RootMethod.BISECTION, a, b);
+        }
+
+        if (!counted.canEvaluate(2)) {
+            return end(trace, counted, RootMethod.BISECTION, Double.NaN, Double.NaN, currentError, n,
+                    RootResult.BUDGET_EXHAUSTED);
+        }
+        fa = counted.valueAt(a);
+        fb = counted.valueAt(b);
+
+        for (; n < config.maxIterations; n++) {
+            if (!counted.canEvaluate(1)) {
+                return end(trace, counted, RootMethod.BISECTION, c, fc, currentError, n,
+                        RootResult.BUDGET_EXHAUSTED);
+            }
+            c = (a + b) / 2;
+            fc = counted.valueAt(c); // f(a) and f(b) are carried over from earlier iterations
+            currentError = getError(c, previous);
+            double step = n == 0 ? Double.POSITIVE_INFINITY : Math.abs(c - previous); // no previous c yet
+
+            if (trace != null) {
+                trace.bracketing(n, a, b, c, fa, fb, fc, currentError);
+            }
+
+            if (currentError > config.divergingError) {
+                return end(trace, counted, RootMethod.BISECTION, c, fc, currentError, n + 1, RootResult.DIVERGING);
+            }
+
+            if (fc == 0 || config.converged(currentError, step)) { // found root
+                // check if it is an actual root
+                return end(trace, counted, RootMethod.BISECTION, c, fc, currentError, n + 1,
+                        config.isRoot(fc) ? RootResult.FOUND : RootResult.NO_ROOT);
+            }
+
+            if (fa * fc < 0) {
+                b = c;
+                fb = fc;
+            }
+            else { // fa * fc > 0
+                a = c;
+                fa = fc;
+            }
+            previous = c;
+        }
+        return end(trace, counted, RootMethod.BISECTION, c, fc, currentError, n, RootResult.MAX_ITERATIONS);
+    }
+
+    /**
+     * Newton-Raphson Method
+     * @param f function
+     * @param x initial root guess
+     * @return result
+     */
+    public static RootResult newtonRaphson(RealFunction f, double x) {
+        return newtonRaphson(f, x, null);
+    }
+
+    /**
+     * Newton-Raphson Method
+     * @param f function
+     * @param x initial root guess
+     * @param trace receives every iteration, or null
+     * @return result
+     */
+    public static RootResult newtonRaphson(RealFunction f, double x, TraceSink trace) {
+        return newtonRaphson(f, x, SolverConfig.DEFAULT, trace);
+    }
+
+    /**
+     * Newton-Raphson Method
+     * @param f function
+     * @param x initial root guess
+     * @param config stopping rules
+     * @param trace receives every iteration, or null
+     * @return result
+     */
+    public static RootResult newtonRaphson(RealFunction f, double x, SolverConfig config, TraceSink trace) {
+        CountingFunction counted = new CountingFunction(f, config.maxEvaluations);
+        double next;
+        double fx = 0;
+        double fPrimeX;
+        double currentError = 1;
+        double previous = 0;
+        int n = 0; // iterations
+        Dual dual = new Dual(); // f(x) and f'(x) from one evaluation
+
+        if (trace != null) {
+            trace.begin(RootMethod.NEWTON_RAPHSON, x, x);
+        }
+
+        for (; n < config.maxIterations; n++) {
+            if (!counted.canEvaluate(2)) {
+                return end(trace, counted, RootMethod.NEWTON_RAPHSON, x, fx, currentError, n,
+                        RootResult.BUDGET_EXHAUSTED);
+            }
+            counted.evaluate(x, dual);
+            fx = dual.value;
+            fPrimeX = dual.derivative;
+            currentError = getError(x, previous);
+            double step = n == 0 ? Double.POSITIVE_INFINITY : Math.abs(x - previous); // no previous x yet
+
+            // xn+1 = xn - f(xn)/f'(xn)
+            next = x - (fx / fPrimeX);
+
+            if (trace != null) {
+                trace.newton(n, x, fx, fPrimeX, currentError);
+            }
+
+            if (currentError > config.divergingError) {
+                return end(trace, counted, RootMethod.NEWTON_RAPHSON, x, fx, currentError, n + 1, RootResult.DIVERGING);
+            }
+
+            if (fx == 0 || config.converged(currentError, step)) { // found root
+                return end(trace, counted, RootMethod.NEWTON_RAPHSON, x, fx, currentError, n + 1,
+                        config.isRoot(fx) ? RootResult.FOUND : RootResult.NO_ROOT);
+            }
+
+            if (fPrimeX == 0) {
+                return end(trace, counted, RootMethod.NEWTON_RAPHSON, x, fx, currentError, n + 1,
+                        RootResult.ZERO_DERIVATIVE);
+            }
+
+            previous = x;
+            x = next;
+        }
+        return end(trace, counted, RootMethod.NEWTON_RAPHSON, x, fx, currentError, n, RootResult.MAX_ITERATIONS);
+    }
+
+    /**
+     * Secant Method
+     * @param f function
+     * @param previous previous value
+     * @param x current value
+     * @return result
+     */
+    public static RootResult secant(RealFunction f, double previous, double x) {
+        return secant(f, previous, x, null);
+    }
+
+    /**
+     * Secant Method
+     * @param f function
+     * @param previous previous value
+     * @param x current value
+     * @param trace receives every iteration, or null
+     * @return result
+     */
+    public static RootResult secant(RealFunction f, double previous, double x, TraceSink trace) {
+        return secant(f, previous, x, SolverConfig.DEFAULT, trace);
+    }
+
+    /**
+     * Secant Method
+     * @param f function
+     * @param previous previous value
+     * @param x current value
+     * @param config stopping rules
+     * @param trace receives every iteration, or null
+     * @return result
+     */
+    public static RootResult secant(RealFunction f, double previous, double x, SolverConfig config, TraceSink trace) {
+        CountingFunction counted = new CountingFunction(f, config.maxEvaluations);
+        double next;
+        double fPreviousX;
+        double fx = 0;
+        double currentError = 1;
+        int n = 0; // iterations
+
+        if (trace != null) {
+            trace.begin(RootMethod.SECANT, previous, x);
+        }
+
+        if (!counted.canEvaluate(1)) {
+            return end(trace, counted, RootMethod.SECANT, x, Double.NaN, currentError, n,
+                    RootResult.BUDGET_EXHAUSTED);
+        }
+        fPreviousX = counted.valueAt(previous);
+
+        for (; n < config.maxIterations; n++) {
+            if (!counted.canEvaluate(1)) {
+                return end(trace, counted, RootMethod.SECANT, x, fx, currentError, n, RootResult.BUDGET_EXHAUSTED);
+            }
+            fx = counted.valueAt(x); // f(xn-1) is carried over from the previous iteration
+            currentError = getError(x, previous);
+
+            // xn+1 = xn - f(xn) * (xn - xn-1) / (f(xn) - f(xn-1))
+            next = x - fx * (x - previous) / (fx - fPreviousX);
+
+            if (trace != null) { // f'(xn) is only shown in the table, so it is not counted
+                trace.secant(n, previous, x, fPreviousX, fx, trace.needsDerivative() ? f.derivativeAt(x) : Double.NaN,
+                        currentError);
+            }
+
+            if (currentError > config.divergingError) {
+                return end(trace, counted, RootMethod.SECANT, x, fx, currentError, n + 1, RootResult.DIVERGING);
+            }
+
+            if (fx == 0 || config.converged(currentError, Math.abs(x - previous))) { // found root
+                return end(trace, counted, RootMethod.SECANT, x, fx, currentError, n + 1,
+                        config.isRoot(fx) ? RootResult.FOUND : RootResult.NO_ROOT);
+            }
+
+            if (fx == fPreviousX) { // the secant is flat
+                return end(trace, counted, RootMethod.SECANT, x, fx, currentError, n + 1, RootResult.ZERO_DERIVATIVE);
+            }
+
+            previous = x;
+            fPreviousX = fx;
+            x = next;
+        }
+        return end(trace, counted, RootMethod.SECANT, x, fx, currentError, n, RootResult.MAX_ITERATIONS);
+    }
+
+    /**
+     * False-Position Method
+     * @param f function
+     * @param a left / lower value
+     * @param b right / upper value
+     * @return result
+     */
+    public static RootResult falsePosition(RealFunction f, double a, double b) {
+        return falsePosition(f, a, b, null);
+    }
+
+    /**
+     * False-Position Method
+     * @param f function
+     * @param a left / lower value
+     * @param b right / upper value
+     * @param trace receives every iteration, or null
+     * @return result
+     */
+    public static RootResult falsePosition(RealFunction f, double a, double b, TraceSink trace) {
+        return falsePosition(f, a, b, SolverConfig.DEFAULT, trace);
+    }
+
+    /**
+     * False-Position Method
+     * @param f function
+     * @param a left / lower value
+     * @param b right / upper value
+     * @param config stopping rules
+     * @param trace receives every iteration, or null
+     * @return result
+     */
+    public static RootResult falsePosition(RealFunction f, double a, double b, SolverConfig config, TraceSink trace) {
+        CountingFunction counted = new CountingFunction(f, config.maxEvaluations);
+        double c = 0;
+        double fa;
+        double fb;
+        double fc = 0;
+        double previous = 0;
+        double currentError = 1;
+        int n = 0; // iterations
+
+        if (trace != null) {
+            trace.begin(RootMethod.FALSE_POSITION, a, b);
+        }
+
+        if (!counted.canEvaluate(2)) {
+            return end(trace, counted, RootMethod.FALSE_POSITION, Double.NaN, Double.NaN, currentError, n,
+                    RootResult.BUDGET_EXHAUSTED);
+        }
+        fa = counted.valueAt(a);
+        fb = counted.valueAt(b);
+
+        for (; n < config.maxIterations; n++) {
+            if (!counted.canEvaluate(1)) {
+                return end(trace, counted, RootMethod.FALSE_POSITION, c, fc, currentError, n,
+                        RootResult.BUDGET_EXHAUSTED);
+            }
+
+            // c = (af(b) - bf(a)) / (f(b) - f(a))
+            c = (a*fb - b*fa) / (fb - fa);
+            fc = counted.valueAt(c); // f(a) and f(b) are carried over from earlier iterations
+            currentError = getError(c, previous);
+            double step = n == 0 ? Double.POSITIVE_INFINITY : Math.abs(c - previous); // no previous c yet
+
+            if (trace != null) {
+                trace.bracketing(n, a, b, c, fa, fb, fc, currentError);
+            }
+
+            if (currentError > config.divergingError) {
+                return end(trace, counted, RootMethod.FALSE_POSITION, c, fc, currentError, n + 1, RootResult.DIVERGING);
+            }
+
+            if (fc == 0 || config.converged(currentError, step)) { // found root
+                return end(trace, counted, RootMethod.FALSE_POSITION, c, fc, currentError, n + 1,
+                        config.isRoot(fc) ? RootResult.FOUND : RootResult.NO_ROOT);
+            }
+
+            if (fa * fc < 0) {
+                b = c;
+                fb = fc;
+            }
+            else { // fa * fc > 0
+                a = c;
+                fa = fc;
+            }
+            previous = c;
+        }
+        return end(trace, counted, RootMethod.FALSE_POSITION, c, fc, currentError, n, RootResult.MAX_ITERATIONS);
+    }
+
+    /**
+     * Modified Secant Method, with DELTA = 0.01
+     * @param f function
+     * @param previous previous value
+     * @param x current value
+     * @return result
+     */
+    public static RootResult modifiedSecant(RealFunction f, double previous, double x) {
+        return modifiedSecant(f, previous, x, null);
+    }
+
+    /**
+     * Modified Secant Method, with DELTA = 0.01
+     * @param f function
+     * @param previous previous value
+     * @param x current value
+     * @param trace receives every iteration, or null
+     * @return result
+     */
+    public static RootResult modifiedSecant(RealFunction f, double previous, double x, TraceSink trace) {
+        return modifiedSecant(f, previous, x, SolverConfig.DEFAULT, trace);
+    }
+
+    /**
+     * Modified Secant Method, with DELTA = config.delta
+     * @param f function
+     * @param previous previous value
+     * @param x current value
+     * @param config stopping rules
+     * @param trace receives every iteration, or null
+     * @return result
+     */
+    public static RootResult modifiedSecant(RealFunction f, double previous, double x, SolverConfig config,
+                                            TraceSink trace) {
+        CountingFunction counted = new CountingFunction(f, config.maxEvaluations);
+        double next;
+        double fx = 0;
+        double deltaX;
+        double fxAndDeltaX;
+        double currentError = 1;
+        int n = 0; // iterations
+
+        if (trace != null) {
+            trace.begin(RootMethod.MODIFIED_SECANT, previous, x);
+        }
+
+        for (; n < config.maxIterations; n++) {
+            if (!counted.canEvaluate(2)) {
+                return end(trace, counted, RootMethod.MODIFIED_SECANT, x, fx, currentError, n,
+                        RootResult.BUDGET_EXHAUSTED);
+            }
+            fx = counted.valueAt(x);
+            deltaX = x * config.delta;
+            fxAndDeltaX = counted.valueAt(x + (config.delta * x));
+            currentError = getError(x, previous);
+
+            // xn+1 = xn - (f(xn) * ((DELTA * xn)) / (f(xn + (DELTA * xn)) - f(xn)))
+            next = x - (fx*(config.delta * x))/(fxAndDeltaX - fx);
+
+            if (trace != null) { // f'(xn) is only shown in the table, so it is not counted
+                trace.modifiedSecant(n, x, deltaX, fx, fxAndDeltaX,
+                        trace.needsDerivative() ? f.derivativeAt(x) : Double.NaN, currentError);
+            }
+
+            if (currentError > config.divergingError) {
+                return end(trace, counted, RootMethod.MODIFIED_SECANT, x, fx, currentError, n + 1,
+                        RootResult.DIVERGING);
+            }
+
+            if (fx == 0 || config.converged(currentError, Math.abs(x - previous))) { // found root
+                return end(trace, counted, RootMethod.MODIFIED_SECANT, x, fx, currentError, n + 1,
+                        config.isRoot(fx) ? RootResult.FOUND : RootResult.NO_ROOT);
+            }
+
+            if (fxAndDeltaX == fx) { // the secant is flat
+                return end(trace, counted, RootMethod.MODIFIED_SECANT, x, fx, currentError, n + 1,
+                        RootResult.ZERO_DERIVATIVE);
+            }
+
+            previous = x;
+            x = next;
+        }
+        return end(trace, counted, RootMethod.MODIFIED_SECANT, x, fx, currentError, n, RootResult.MAX_ITERATIONS);
+    }
+
+    /**
+     * Make the result of a solve, pass it to the trace and count it in SolverMetrics
+     */
+    static RootResult end(TraceSink trace, CountingFunction counted, RootMethod method, double root, double fx,
+                          double error, int iterations, int status) {
+        RootResult result = new RootResult(method, root, fx, error, iterations, status, counted.values(),
+                counted.derivatives());
+        SolverMetrics.end(counted, result);
+        if (trace != null) {
+            trace.end(result);
+        }
+        return result;
+    }
+}
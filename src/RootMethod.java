@@ -0,0 +1,25 @@
+/**
+ * The root finding methods, with the name each one prints in its result message
+ */
+public enum RootMethod {
+    BISECTION("BISECTION", true),
+    NEWTON_RAPHSON("NEWTON", false),
+    SECANT("SECANT", false),
+    FALSE_POSITION("FALSE-POSITION", true),
+    MODIFIED_SECANT("MODIFIED SECANT", false),
+    BRENT("BRENT", true),
+    ILLINOIS("ILLINOIS", true),
+    ANDERSON_BJORCK("ANDERSON-BJORCK", true),
+    CHANDRUPATLA("CHANDRUPATLA", true),
+    HALLEY("HALLEY", false),
+    HOUSEHOLDER("HOUSEHOLDER", false),
+    OSTROWSKI("OSTROWSKI", false);
+
+    final String label;
+    final boolean bracketing; // starts from an interval [a, b] instead of one or two guesses
+
+    RootMethod(String label, boolean bracketing) {
+        this.label = label;
+        this.bracketing = bracketing;
+    }
+}
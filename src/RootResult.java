@@ -0,0 +1,49 @@
+/**
+ * Outcome of one solve: the root, how many iterations and function evaluations it took, the final
+ * approximate error and why the method stopped.
+ */
+public final class RootResult {
+
+    // status codes
+    public static final int FOUND = 0;
+    public static final int NO_ROOT = 1; // converged, but f(x) is not close to 0
+    public static final int DIVERGING = 2;
+    public static final int ZERO_DERIVATIVE = 3;
+    public static final int MAX_ITERATIONS = 4;
+    public static final int BUDGET_EXHAUSTED = 5; // stopped before going over the evaluation budget
+
+    public final RootMethod method;
+    public final double root; // last root guess, also when no root was found
+    public final double fx; // f(root)
+    public final double error; // approximate error of the last iteration
+    public final int iterations;
+    public final int status;
+    public final int evaluations; // f(x) evaluations
+    public final int derivativeEvaluations; // f'(x), f''(x) and f'''(x) evaluations
+
+    RootResult(RootMethod method, double root, double fx, double error, int iterations, int status,
+               int evaluations, int derivativeEvaluations) {
+        this.method = method;
+        this.root = root;
+        this.fx = fx;
+        this.error = error;
+        this.iterations = iterations;
+        this.status = status;
+        this.evaluations = evaluations;
+        this.derivativeEvaluations = derivativeEvaluations;
+    }
+
+    /**
+     * @return True if a root was found
+     */
+    public boolean found() {
+        return status == FOUND;
+    }
+
+    @Override
+    public String toString() {
+        return method + " root = " + root + ", f(root) = " + fx + ", error = " + error + ", iterations = "
+                + iterations + ", evaluations = " + evaluations + ", derivative evaluations = "
+                + derivativeEvaluations + ", status = " + status;
+    }
+}
@@ -0,0 +1,278 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.IntStream;
+
+/**
+ * Description: Finds all roots of f(x) in [a, b] without hand-picked intervals.
+ *
+ *              [a, b] is cut into a grid of equal cells, f is sampled on the whole grid in parallel, and
+ *              the cells are split recursively into fork-join tasks. Each task
+ *                  - refines every cell where f changes sign with BracketedRootFinder.illinois, and
+ *                  - checks every local minimum of |f| where f does not change sign, so roots of even
+ *                    multiplicity such as (x - 2)^2 that only touch zero are not missed.
+ *              Roots found from neighbouring cells are merged at the end.
+ *
+ *              A minimum of |f| is only a touching root if |f| there is within f's rounding noise: how far f
+ *              strays over the doubles next to the minimum, and at least NOISE_ULPS ulps of the largest |f| on
+ *              the grid. A fixed tolerance would also accept a minimum that misses zero by a little, such as
+ *              cosh(x) - 1 + 1e-11 at 0.
+ */
+public final class RootScanner {
+
+    static final int DEFAULT_CELLS = 4096; // grid cells over [a, b]
+    private static final int LEAF_CELLS = 64; // cells handled by one task without splitting
+    private static final double F_TOLERANCE = 1e-10; // |f| allowed at a sign change next to a near-root endpoint
+    private static final double NOISE_ULPS = 16; // least rounding noise of f, in ulps of the largest |f| on the grid
+    private static final int NOISE_STEPS = 4; // doubles on each side of a minimum sampled for f's rounding noise
+    private static final SolverConfig REFINE = SolverConfig.DEFAULT.withRelativeTolerance(0); // to a few ulps
+    private static final double GOLDEN = 0.3819660112501051; // 2 - golden ratio
+
+    private RootScanner() {
+    }
+
+    /**
+     * Find all roots of f in [a, b] on the default grid
+     * @param f function
+     * @param a left / lower value
+     * @param b right / upper value
+     * @return roots in increasing order
+     */
+    public static double[] findAllRoots(RealFunction f, double a, double b) {
+        return findAllRoots(f, a, b, DEFAULT_CELLS);
+    }
+
+    /**
+     * Find all roots of f in [a, b]. Two roots closer together than (b - a) / cells may be missed.
+     * @param f function
+     * @param a left / lower value
+     * @param b right / upper value
+     * @param cells number of grid cells
+     * @return roots in increasing order
+     */
+    public static double[] findAllRoots(RealFunction f, double a, double b, int cells) {
+        if (!(a < b) || cells < 1) {
+            throw new IllegalArgumentException("Expected a < b and at least one cell, got [" + a + ", " + b
+                    + "] with " + cells + " cells");
+        }
+        double h = (b - a) / cells;
+        double[] fx = new double[cells + 1];
+        IntStream.rangeClosed(0, cells).parallel().forEach(i -> fx[i] = sample(f, gridPoint(a, h, i)));
+        double scale = 0;
+        for (double value : fx) {
+            if (Math.abs(value) < Double.POSITIVE_INFINITY) {
+                scale = Math.max(scale, Math.abs(value));
+            }
+        }
+        double[] roots = ForkJoinPool.commonPool().invoke(new ScanTask(f, a, h, fx, scale, 0, cells));
+        return removeDuplicates(roots, h);
+    }
+
+    private static double gridPoint(double a, double h, int i) {
+        return a + h * i;
+    }
+
+    /**
+     * Scans grid cells [first, last) and returns the roots found there in increasing order
+     */
+    private static final class ScanTask extends RecursiveTask<double[]> {
+        private static final long serialVersionUID = 1L;
+        private final RealFunction f;
+        private final double a;
+        private final double h;
+        private final double[] fx; // f on every grid point
+        private final double scale; // largest finite |f| on the grid
+        private final int first;
+        private final int last;
+
+        ScanTask(RealFunction f, double a, double h, double[] fx, double scale, int first, int last) {
+            this.f = f;
+            this.a = a;
+            this.h = h;
+            this.fx = fx;
+            this.scale = scale;
+            this.first = first;
+            this.last = last;
+        }
+
+        @Override
+        protected double[] compute() {
+            if (last - first > LEAF_CELLS) {
+                int middle = (first + last) >>> 1;
+                ScanTask left = new ScanTask(f, a, h, fx, scale, first, middle);
+                ScanTask right = new ScanTask(f, a, h, fx, scale, middle, last);
+                left.fork();
+                double[] rightRoots = right.compute();
+                double[] leftRoots = left.join();
+                double[] roots = Arrays.copyOf(leftRoots, leftRoots.length + rightRoots.length);
+                System.arraycopy(rightRoots, 0, roots, leftRoots.length, rightRoots.length);
+                return roots;
+            }
+            return scan();
+        }
+
+        private double[] scan() {
+            int cells = fx.length - 1;
+            double[] roots = new double[8];
+            int count = 0;
+            for (int i = first; i < last; i++) {
+                double x0 = gridPoint(a, h, i);
+                double x1 = gridPoint(a, h, i + 1);
+                double f0 = fx[i];
+                double f1 = fx[i + 1];
+                double root = Double.NaN;
+                if (f0 == 0) {
+                    root = x0;
+                } else if (f0 * f1 < 0) { // sign change
+                    root = refine(f, x0, f0, x1, f1);
+                } else if (i + 2 <= cells) {
+                    root = touchingRoot(i);
+                }
+                if (!Double.isNaN(root)) {
+                    roots = add(roots, count++, root);
+                }
+                if (i + 1 == cells && f1 == 0) { // after the cell's own root, to keep the roots in order
+                    roots = add(roots, count++, x1);
+                }
+            }
+            return Arrays.copyOf(roots, count);
+        }
+
+        /**
+         * Look for a root of even multiplicity around grid point i + 1 where |f| has a local minimum
+         * and f keeps its sign, and |f| at the minimum is within f's rounding noise there
+         */
+        private double touchingRoot(int i) {
+            double f0 = fx[i];
+            double f1 = fx[i + 1];
+            double f2 = fx[i + 2];
+            if (!(Math.abs(f1) <= Math.abs(f0) && Math.abs(f1) < Math.abs(f2)) || f1 * f2 < 0) {
+                return Double.NaN;
+            }
+            double x = minimizeAbs(f, gridPoint(a, h, i), gridPoint(a, h, i + 2));
+            double fMin = sample(f, x);
+            if (Math.abs(fMin) <= noise(f, x, fMin, scale)) {
+                return x;
+            }
+            return Double.NaN;
+        }
+    }
+
+    /**
+     * Estimate the rounding noise of f at x: the largest change of f over the NOISE_STEPS doubles on
+     * each side of x, but at least NOISE_ULPS ulps of scale. Near a minimum f is flat, so any change
+     * between neighbouring doubles is rounding.
+     * @return the noise, or NaN if f is undefined next to x
+     */
+    private static double noise(RealFunction f, double x, double fx, double scale) {
+        double noise = NOISE_ULPS * Math.ulp(scale);
+        double below = x;
+        double above = x;
+        for (int k = 0; k < NOISE_STEPS; k++) {
+            below = Math.nextDown(below);
+            above = Math.nextUp(above);
+            noise = Math.max(noise, Math.max(Math.abs(sample(f, below) - fx), Math.abs(sample(f, above) - fx)));
+        }
+        return noise;
+    }
+
+    /**
+     * Refine a bracket [a, b] with f(a)f(b) < 0 using BracketedRootFinder.illinois down to a few ulps.
+     * At a pole |f| grows as the bracket shrinks, so the sign change is only a root if |f| ends up below
+     * the smaller endpoint value, or within F_TOLERANCE of the larger one when that endpoint is almost
+     * a root itself. An endpoint that is not finite is a pole on the grid.
+     * @return the root, or NaN if the sign change is a pole rather than a root
+     */
+    static double refine(RealFunction f, double a, double fa, double b, double fb) {
+        if (!Double.isFinite(fa) || !Double.isFinite(fb)) {
+            return Double.NaN;
+        }
+        RootResult result = BracketedRootFinder.illinois(new Sampled(f), a, b, REFINE, null);
+        double fc = Math.abs(result.fx);
+        double smaller = Math.min(Math.abs(fa), Math.abs(fb));
+        double larger = Math.max(Math.abs(fa), Math.abs(fb));
+        return fc <= smaller || fc <= F_TOLERANCE * larger ? result.root : Double.NaN;
+    }
+
+    /**
+     * Golden-section search for the minimum of |f| in [a, b]
+     */
+    private static double minimizeAbs(RealFunction f, double a, double b) {
+        double x1 = a + GOLDEN * (b - a);
+        double x2 = b - GOLDEN * (b - a);
+        double f1 = Math.abs(sample(f, x1));
+        double f2 = Math.abs(sample(f, x2));
+        for (int n = 0; n < RootFinder.MAX && b - a > 2 * Math.ulp(x1); n++) {
+            if (f1 < f2) {
+                b = x2;
+                x2 = x1;
+                f2 = f1;
+                x1 = a + GOLDEN * (b - a);
+                f1 = Math.abs(sample(f, x1));
+            } else {
+                a = x1;
+                x1 = x2;
+                f1 = f2;
+                x2 = b - GOLDEN * (b - a);
+                f2 = Math.abs(sample(f, x2));
+            }
+        }
+        return f1 < f2 ? x1 : x2;
+    }
+
+    /**
+     * f(x), or NaN where f is undefined (e.g. function #2 at x = 0)
+     */
+    private static double sample(RealFunction f, double x) {
+        try {
+            return f.valueAt(x);
+        } catch (IllegalArgumentException | ArithmeticException e) {
+            return Double.NaN;
+        }
+    }
+
+    /**
+     * f with sample's NaN where f is undefined, named like f in SolverMetrics
+     */
+    private static final class Sampled implements RealFunction {
+        private final RealFunction f;
+
+        Sampled(RealFunction f) {
+            this.f = f;
+        }
+
+        @Override
+        public double valueAt(double x) {
+            return sample(f, x);
+        }
+
+        @Override
+        public String toString() {
+            return SolverMetrics.name(f);
+        }
+    }
+
+    private static double[] add(double[] roots, int count, double root) {
+        if (count == roots.length) {
+            roots = Arrays.copyOf(roots, 2 * count);
+        }
+        roots[count] = root;
+        return roots;
+    }
+
+    /**
+     * Merge roots found twice from neighbouring cells
+     * @param roots roots in increasing order
+     * @param h grid cell width
+     * @return distinct roots
+     */
+    private static double[] removeDuplicates(double[] roots, double h) {
+        int count = 0;
+        for (double root : roots) {
+            if (count == 0 || root - roots[count - 1] > 1e-9 * Math.max(h, Math.abs(root))) {
+                roots[count++] = root;
+            }
+        }
+        return Arrays.copyOf(roots, count);
+    }
+}
@@ -0,0 +1,47 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One solve, for JDK Flight Recorder. SolverMetrics only makes one while a recording has this event
+ * enabled, so without a recording a solve does not allocate or time anything for it:
+ *     java -XX:StartFlightRecording=filename=solves.jfr -jar LocateRoots.jar
+ *     jfr print --events locateroots.Solve solves.jfr
+ */
+@Name("locateroots.Solve")
+@Label("Solve")
+@Category("LocateRoots")
+@Description("One solve by one method, from its first evaluation of f to its result")
+@StackTrace(false)
+final class SolveEvent extends jdk.jfr.Event {
+
+    @Label("Method")
+    String method;
+
+    @Label("Function")
+    String function;
+
+    @Label("Status")
+    @Description("found, no root, diverging, zero derivative, max iterations or budget exhausted")
+    String status;
+
+    @Label("Iterations")
+    int iterations;
+
+    @Label("Evaluations")
+    @Description("f(x) evaluations")
+    int evaluations;
+
+    @Label("Derivative Evaluations")
+    @Description("f'(x), f''(x) and f'''(x) evaluations")
+    int derivativeEvaluations;
+
+    @Label("Root")
+    double root;
+
+    @Label("Error")
+    @Description("Approximate relative error of the last iteration")
+    double error;
+}
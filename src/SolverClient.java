@@ -0,0 +1,119 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Description: Takes the same arguments as LocateRoots and prints the same output, but has SolverDaemon do the
+ *              work, so a call pays for starting a small JVM instead of starting the solvers cold:
+ *                  java -cp LocateRoots.jar SolverClient roots "sin(x)" 0 1000
+ *              The output file is written by the daemon, relative to the client's working directory, and the
+ *              exit status is the daemon's. If no daemon is listening, or the socket's directory is not
+ *              private to the user, see DaemonProtocol, the client runs LocateRoots itself.
+ *
+ *              It only loads the classes it needs to talk to the daemon, which is what makes it quicker to
+ *              start than LocateRoots.
+ */
+public final class SolverClient {
+
+    private SolverClient() {
+    }
+
+    /**
+     * Main method
+     * @param args the input arguments, as for LocateRoots
+     * @throws IOException if the daemon goes away during the run
+     */
+    public static void main(String[] args) throws IOException {
+        Path socket = DaemonProtocol.socketPath().toAbsolutePath();
+        SocketChannel channel;
+        try {
+            if (!DaemonProtocol.isPrivate(socket.getParent())) { // someone else's daemon could be listening
+                System.err.println("SolverClient: " + socket.getParent() + " is not private to " +
+                        System.getProperty("user.name") + ", running without the daemon");
+                LocateRoots.main(args);
+                return;
+            }
+            channel = SocketChannel.open(UnixDomainSocketAddress.of(socket));
+        } catch (IOException e) { // no daemon
+            LocateRoots.main(args);
+            return;
+        }
+        int status;
+        try (channel) {
+            status = run(channel, args);
+        }
+        if (status != 0) {
+            System.exit(status);
+        }
+    }
+
+    /**
+     * Send the arguments and copy the daemon's output frames to stdout and stderr
+     * @return exit status
+     */
+    private static int run(SocketChannel channel, String[] args) throws IOException {
+        DataOutputStream request = new DataOutputStream(new BufferedOutputStream(DaemonProtocol.output(channel)));
+        request.writeUTF(Paths.get("").toAbsolutePath().toString());
+        request.writeInt(args.length);
+        for (String arg : args) {
+            request.writeUTF(arg);
+        }
+        request.flush();
+
+        DataInputStream frames = new DataInputStream(new BufferedInputStream(DaemonProtocol.input(channel), 1 << 16));
+        OutputStream stdout = new FileOutputStream(FileDescriptor.out);
+        OutputStream stderr = new FileOutputStream(FileDescriptor.err);
+        byte[] buffer = new byte[1 << 16];
+        while (true) {
+            byte type = frames.readByte();
+            int length = frames.readInt();
+            if (type == DaemonProtocol.EXIT) {
+                return length;
+            }
+            if (type == DaemonProtocol.INPUT) {
+                Thread input = new Thread(() -> sendInput(channel), "stdin");
+                input.setDaemon(true); // the run can end before stdin does
+                input.start();
+                continue;
+            }
+            OutputStream out = type == DaemonProtocol.STDOUT ? stdout : stderr;
+            while (length > 0) {
+                int read = frames.read(buffer, 0, Math.min(length, buffer.length));
+                if (read < 0) {
+                    throw new EOFException("The daemon closed the connection in the middle of a frame");
+                }
+                out.write(buffer, 0, read);
+                length -= read;
+            }
+        }
+    }
+
+    /**
+     * Copy stdin to the daemon, then shut down the sending side so the daemon sees the end of it
+     */
+    private static void sendInput(SocketChannel channel) {
+        InputStream in = System.in;
+        OutputStream out = DaemonProtocol.output(channel);
+        byte[] buffer = new byte[1 << 16];
+        try {
+            int read;
+            while ((read = in.read(buffer)) >= 0) {
+                out.write(buffer, 0, read);
+            }
+            channel.shutdownOutput();
+        } catch (IOException e) {
+            // the daemon has ended the run, the EXIT frame says how
+        }
+    }
+}
@@ -0,0 +1,156 @@
+/**
+ * Description: Stopping rules for one solve: tolerances, the root check, iteration and evaluation limits,
+ *              Modified Secant's delta and when a method counts as diverging.
+ *
+ *              A config is immutable, so one can be shared by any number of threads, and each solve can be
+ *              given its own without locking. The solvers keep all their state in local variables and a
+ *              per-solve CountingFunction, so concurrent solves only share what the caller shares, i.e. f
+ *              and the TraceSink. Give each concurrent solve its own sink, or none.
+ *
+ *              DEFAULT is the original program's rules. Other configs are made from it with the with
+ *              methods, e.g. SolverConfig.DEFAULT.withRelativeTolerance(1e-10).withMaxIterations(50).
+ */
+public final class SolverConfig {
+
+    public static final SolverConfig DEFAULT = new SolverConfig(RootFinder.ERROR, 0, RootFinder.F_TOLERANCE,
+            RootFinder.MAX, RootFinder.DELTA, RootFinder.DIVERGING_ERROR, CountingFunction.UNLIMITED);
+
+    public final double relativeTolerance; // stop once the approximate relative error is below this
+    public final double absoluteTolerance; // or once x changes by less than this
+    public final double fTolerance; // |f(x)| below this is a root
+    public final int maxIterations;
+    public final double delta; // Modified Secant's step, as a fraction of x
+    public final double divergingError; // approximate relative error above which a method is diverging
+    public final int maxEvaluations; // f(x) plus f'(x) evaluations per solve
+
+    /**
+     * @param relativeTolerance stop once the approximate relative error is below this. The bracketed
+     *                          methods stop once the bracket is narrower than this relative to x
+     * @param absoluteTolerance stop once x changes by less than this, or 0 to only use relativeTolerance
+     * @param fTolerance |f(x)| below this is a root
+     * @param maxIterations most iterations per solve
+     * @param delta Modified Secant's step, as a fraction of x
+     * @param divergingError approximate relative error above which a method is diverging
+     * @param maxEvaluations most f(x) plus f'(x) evaluations per solve
+     */
+    public SolverConfig(double relativeTolerance, double absoluteTolerance, double fTolerance, int maxIterations,
+                        double delta, double divergingError, int maxEvaluations) {
+        if (!(relativeTolerance >= 0) || !(absoluteTolerance >= 0) || !(fTolerance >= 0)) {
+            throw new IllegalArgumentException("Tolerances must not be negative, got " + relativeTolerance + ", "
+                    + absoluteTolerance + " and " + fTolerance);
+        }
+        if (maxIterations < 0 || maxEvaluations < 0) {
+            throw new IllegalArgumentException("Iteration and evaluation limits must not be negative, got "
+                    + maxIterations + " and " + maxEvaluations);
+        }
+        if (!(delta != 0) || Double.isInfinite(delta) || !(divergingError > 0)) {
+            throw new IllegalArgumentException("Expected a finite, non-zero delta and a positive diverging error, "
+                    + "got " + delta + " and " + divergingError);
+        }
+        this.relativeTolerance = relativeTolerance;
+        this.absoluteTolerance = absoluteTolerance;
+        this.fTolerance = fTolerance;
+        this.maxIterations = maxIterations;
+        this.delta = delta;
+        this.divergingError = divergingError;
+        this.maxEvaluations = maxEvaluations;
+    }
+
+    /**
+     * @param relativeTolerance stop once the approximate relative error is below this
+     * @return copy of this config with relativeTolerance changed
+     */
+    public SolverConfig withRelativeTolerance(double relativeTolerance) {
+        return new SolverConfig(relativeTolerance, absoluteTolerance, fTolerance, maxIterations, delta,
+                divergingError, maxEvaluations);
+    }
+
+    /**
+     * @param absoluteTolerance stop once x changes by less than this
+     * @return copy of this config with absoluteTolerance changed
+     */
+    public SolverConfig withAbsoluteTolerance(double absoluteTolerance) {
+        return new SolverConfig(relativeTolerance, absoluteTolerance, fTolerance, maxIterations, delta,
+                divergingError, maxEvaluations);
+    }
+
+    /**
+     * @param fTolerance |f(x)| below this is a root
+     * @return copy of this config with fTolerance changed
+     */
+    public SolverConfig withFTolerance(double fTolerance) {
+        return new SolverConfig(relativeTolerance, absoluteTolerance, fTolerance, maxIterations, delta,
+                divergingError, maxEvaluations);
+    }
+
+    /**
+     * @param maxIterations most iterations per solve
+     * @return copy of this config with maxIterations changed
+     */
+    public SolverConfig withMaxIterations(int maxIterations) {
+        return new SolverConfig(relativeTolerance, absoluteTolerance, fTolerance, maxIterations, delta,
+                divergingError, maxEvaluations);
+    }
+
+    /**
+     * @param delta Modified Secant's step, as a fraction of x
+     * @return copy of this config with delta changed
+     */
+    public SolverConfig withDelta(double delta) {
+        return new SolverConfig(relativeTolerance, absoluteTolerance, fTolerance, maxIterations, delta,
+                divergingError, maxEvaluations);
+    }
+
+    /**
+     * @param divergingError approximate relative error above which a method is diverging
+     * @return copy of this config with divergingError changed
+     */
+    public SolverConfig withDivergingError(double divergingError) {
+        return new SolverConfig(relativeTolerance, absoluteTolerance, fTolerance, maxIterations, delta,
+                divergingError, maxEvaluations);
+    }
+
+    /**
+     * @param maxEvaluations most f(x) plus f'(x) evaluations per solve
+     * @return copy of this config with maxEvaluations changed
+     */
+    public SolverConfig withMaxEvaluations(int maxEvaluations) {
+        return new SolverConfig(relativeTolerance, absoluteTolerance, fTolerance, maxIterations, delta,
+                divergingError, maxEvaluations);
+    }
+
+    /**
+     * Check if we found a root by checking if f(x) is close to 0
+     * @param fx f(x)
+     * @return True if root
+     */
+    public boolean isRoot(double fx) {
+        return fx > -fTolerance && fx < fTolerance;
+    }
+
+    /**
+     * Check if x has stopped changing
+     * @param error approximate relative error
+     * @param step how much x changed, or infinity in the first iteration
+     * @return True if either tolerance is met
+     */
+    public boolean converged(double error, double step) {
+        return error < relativeTolerance || step < absoluteTolerance;
+    }
+
+    /**
+     * Absolute half width a bracket around x has to shrink to
+     * @param x best root guess
+     * @return relativeTolerance * |x| / 2 plus absoluteTolerance / 2
+     */
+    double bracketTolerance(double x) {
+        return (relativeTolerance * Math.abs(x) + absoluteTolerance) / 2;
+    }
+
+    @Override
+    public String toString() {
+        return "relative tolerance = " + relativeTolerance + ", absolute tolerance = " + absoluteTolerance
+                + ", f tolerance = " + fTolerance + ", max iterations = " + maxIterations + ", delta = " + delta
+                + ", diverging error = " + divergingError + ", max evaluations = " + maxEvaluations;
+    }
+}
@@ -0,0 +1,411 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Description: A long running LocateRoots that SolverClient hands its runs to, so the JVM is started once and the
+ *              solvers, the formula compiler and the formulas compiled so far stay warm between runs:
+ *                  java -cp LocateRoots.jar SolverDaemon &
+ *              It listens on a Unix domain socket, see DaemonProtocol, and serves up to CLIENTS clients at
+ *              once, each on a thread of its own; the others wait for a thread. stream runs go on at the same
+ *              time on StreamSolver's shared pool; every other run goes through LocateRoots one at a time,
+ *              since LocateRoots keeps its output file in a static field.
+ *
+ *              So that one of those runs cannot hold up the others for good, it is stopped at its next
+ *              evaluation of f once its client has gone, or once it has been evaluating f for longer than
+ *              the time limit, TIME_LIMIT_PROPERTY seconds or DEFAULT_TIME_LIMIT.
+ *
+ *              System.out and System.err are replaced by streams that write to the output of the client the
+ *              current thread serves, so LocateRoots prints to the client without being changed. Output of
+ *              any other thread goes to the daemon's own stdout and stderr.
+ */
+public final class SolverDaemon {
+
+    private static final ThreadLocal<OutputStream> clientOut = new ThreadLocal<>();
+    private static final ThreadLocal<OutputStream> clientErr = new ThreadLocal<>();
+    private static final AtomicInteger clientNumber = new AtomicInteger();
+
+    private static final int CLIENTS = Math.max(4, 2 * Runtime.getRuntime().availableProcessors());
+    static final String TIME_LIMIT_PROPERTY = "locateroots.timeLimit"; // -Dlocateroots.timeLimit=seconds
+    static final long DEFAULT_TIME_LIMIT = 300;
+    private static final long TIME_LIMIT = Long.getLong(TIME_LIMIT_PROPERTY, DEFAULT_TIME_LIMIT);
+    private static final ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, task -> {
+        Thread thread = new Thread(task, "time-limit");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    static {
+        timer.setRemoveOnCancelPolicy(true); // most runs end long before their time limit
+    }
+
+    private SolverDaemon() {
+    }
+
+    /**
+     * Main method
+     * @param args none, the socket path is set with -Dlocateroots.socket=path and the time limit of a run in
+     *             seconds with -Dlocateroots.timeLimit=seconds
+     * @throws IOException if the socket cannot be created
+     */
+    public static void main(String[] args) throws IOException {
+        Path socket = DaemonProtocol.socketPath().toAbsolutePath();
+        Path directory = socket.getParent();
+        Files.createDirectories(directory);
+        if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")
+                && Files.getOwner(directory).getName().equals(System.getProperty("user.name"))) {
+            Files.setPosixFilePermissions(directory, PosixFilePermissions.fromString("rwx------"));
+        }
+        if (!DaemonProtocol.isPrivate(directory)) { // made by another user, who could open the socket
+            System.err.println(directory + " is not private to " + System.getProperty("user.name"));
+            System.exit(1);
+        }
+        if (Files.exists(socket)) {
+            try {
+                SocketChannel.open(UnixDomainSocketAddress.of(socket)).close();
+                System.err.println("A daemon is already listening on " + socket);
+                System.exit(1);
+            } catch (IOException e) { // left over from a daemon that was killed
+                Files.delete(socket);
+            }
+        }
+
+        ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        server.bind(UnixDomainSocketAddress.of(socket));
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                Files.deleteIfExists(socket);
+            } catch (IOException e) {
+                // nothing left to tell
+            }
+        }));
+        System.out.println("SOLVER DAEMON - Listening on " + socket);
+        System.setOut(new PrintStream(new ThreadOutput(clientOut, System.out), false));
+        System.setErr(new PrintStream(new ThreadOutput(clientErr, System.err), false));
+
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS, task -> {
+            Thread thread = new Thread(task, "client-" + clientNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        while (true) {
+            SocketChannel channel = server.accept();
+            clients.execute(() -> serve(channel));
+        }
+    }
+
+    /**
+     * Read one client's arguments, run LocateRoots for it and send the exit status
+     */
+    private static void serve(SocketChannel channel) {
+        try (channel) {
+            DataInputStream request = new DataInputStream(new BufferedInputStream(DaemonProtocol.input(channel)));
+            DataOutputStream frames = new DataOutputStream(new BufferedOutputStream(DaemonProtocol.output(channel),
+                    1 << 16));
+            Path directory = Paths.get(request.readUTF());
+            int count = request.readInt();
+            if (count < 0 || count > DaemonProtocol.MAX_ARGUMENTS) {
+                throw new IOException("Expected 0 to " + DaemonProtocol.MAX_ARGUMENTS + " arguments, got " + count);
+            }
+            String[] args = new String[count];
+            for (int i = 0; i < count; i++) {
+                args[i] = request.readUTF();
+            }
+
+            Watch watch = new Watch(request);
+            OutputStream stdout = new BufferedOutputStream(new FrameOutput(frames, DaemonProtocol.STDOUT, watch),
+                    1 << 16);
+            OutputStream stderr = new FrameOutput(frames, DaemonProtocol.STDERR, watch);
+            clientOut.set(stdout);
+            clientErr.set(stderr);
+            Thread watcher = new Thread(watch, Thread.currentThread().getName() + "-watch");
+            watcher.setDaemon(true);
+            watcher.start();
+            int status = 0;
+            try {
+                LocateRoots.run(args, directory, new RequestedInput(request, frames, watch), stdout, watch);
+            } catch (IOException | RuntimeException e) {
+                if (watch.stopped) { // a CancellationException from f
+                    System.err.println("LocateRoots: the run was stopped, " + watch.reason);
+                } else {
+                    e.printStackTrace(); // to the client, as if it had run the program itself
+                }
+                status = 1;
+            } finally {
+                watch.close();
+                System.out.flush();
+                clientOut.remove();
+                clientErr.remove();
+            }
+            stdout.flush();
+            synchronized (frames) {
+                frames.writeByte(DaemonProtocol.EXIT);
+                frames.writeInt(status);
+                frames.flush();
+            }
+        } catch (IOException e) { // the client went away, no one is left to tell but the daemon's own stderr
+            System.err.println("SOLVER DAEMON - " + Thread.currentThread().getName() + ": " + e);
+        }
+    }
+
+    /**
+     * Sends whatever the current thread writes to the output of the client it serves, or to the daemon's own
+     * output if it serves none
+     */
+    private static final class ThreadOutput extends OutputStream {
+        private final ThreadLocal<OutputStream> client;
+        private final OutputStream daemon;
+
+        ThreadOutput(ThreadLocal<OutputStream> client, OutputStream daemon) {
+            this.client = client;
+            this.daemon = daemon;
+        }
+
+        private OutputStream target() {
+            OutputStream out = client.get();
+            return out != null ? out : daemon;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            target().write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            target().write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            target().flush();
+        }
+    }
+
+    /**
+     * Writes bytes as STDOUT or STDERR frames. Both share the client's connection, so a frame is written whole
+     * while holding it. Once the client has gone, the bytes are dropped: System.out hides the failed writes,
+     * and a run printing to it would otherwise go on trying every line.
+     */
+    private static final class FrameOutput extends OutputStream {
+        private final DataOutputStream frames;
+        private final byte type;
+        private final Watch watch;
+
+        FrameOutput(DataOutputStream frames, byte type, Watch watch) {
+            this.frames = frames;
+            this.type = type;
+            this.watch = watch;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (len == 0 || watch.gone) {
+                return;
+            }
+            try {
+                synchronized (frames) {
+                    frames.writeByte(type);
+                    frames.writeInt(len);
+                    frames.write(b, off, len);
+                }
+            } catch (IOException e) {
+                watch.gone();
+                throw e;
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (watch.gone) {
+                return;
+            }
+            try {
+                synchronized (frames) {
+                    frames.flush();
+                }
+            } catch (IOException e) {
+                watch.gone();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Tells LocateRoots to stop a client's run once the client has gone or the time limit has passed.
+     *
+     * Until the run asks for stdin, the client sends nothing, so run waits on its own thread for one byte from
+     * the client: the end of the stream then means the client has gone, as does a write to it that fails.
+     * Once stdin has been asked for, that byte is the first of it, and RequestedInput takes it from here.
+     */
+    private static final class Watch implements BooleanSupplier, Runnable {
+        private final InputStream in;
+        private final AtomicBoolean timing = new AtomicBoolean();
+        private volatile boolean stopped;
+        private volatile boolean gone;
+        private volatile String reason;
+        private volatile boolean inputRequested;
+        private volatile ScheduledFuture<?> limit;
+        private int first = -2; // the first byte from the client, -1 at the end of the stream, -2 until read
+
+        Watch(InputStream in) {
+            this.in = in;
+        }
+
+        @Override
+        public void run() {
+            int read;
+            try {
+                read = in.read();
+            } catch (IOException e) { // the client reset the connection, or the run is over and closed it
+                read = -1;
+            }
+            synchronized (this) {
+                first = read;
+                notifyAll();
+            }
+            if (read < 0 && !inputRequested) {
+                gone();
+            }
+        }
+
+        /**
+         * @return true once the run should stop; the time limit starts at the first call, which is the first
+         *         evaluation of f, so waiting for another run to finish does not count
+         */
+        @Override
+        public boolean getAsBoolean() {
+            if (!timing.get() && timing.compareAndSet(false, true)) {
+                limit = timer.schedule(() -> stop("it took longer than the time limit of " + TIME_LIMIT + " s"),
+                        TIME_LIMIT, TimeUnit.SECONDS);
+            }
+            return stopped;
+        }
+
+        private void stop(String why) {
+            reason = why;
+            stopped = true;
+        }
+
+        void gone() {
+            gone = true;
+            stop("the client has gone");
+        }
+
+        /**
+         * @return the first byte of stdin, or -1 if there is none
+         */
+        synchronized int first() throws InterruptedIOException {
+            while (first == -2) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while waiting for stdin");
+                }
+            }
+            return first;
+        }
+
+        /**
+         * The run is over, stop timing it
+         */
+        void close() {
+            ScheduledFuture<?> timed = limit;
+            if (timed != null) {
+                timed.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * The client's stdin, asked for with an INPUT frame on the first read, so a client whose run does not read
+     * stdin leaves it alone. Its first byte is the one Watch read. Closing it does not close the connection.
+     */
+    private static final class RequestedInput extends InputStream {
+        private final InputStream in;
+        private final DataOutputStream frames;
+        private final Watch watch;
+        private boolean requested;
+        private boolean started; // the first byte has been taken from watch
+
+        RequestedInput(InputStream in, DataOutputStream frames, Watch watch) {
+            this.in = in;
+            this.frames = frames;
+            this.watch = watch;
+        }
+
+        private void request() throws IOException {
+            if (!requested) {
+                requested = true;
+                watch.inputRequested = true; // before the client can see INPUT and answer it
+                synchronized (frames) {
+                    frames.writeByte(DaemonProtocol.INPUT);
+                    frames.writeInt(0);
+                    frames.flush();
+                }
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            request();
+            if (!started) {
+                started = true;
+                return watch.first();
+            }
+            return in.read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            request();
+            if (len == 0) {
+                return 0;
+            }
+            if (!started) {
+                started = true;
+                int first = watch.first();
+                if (first < 0) {
+                    return -1;
+                }
+                b[off] = (byte) first;
+                return 1;
+            }
+            return in.read(b, off, len);
+        }
+
+        @Override
+        public int available() throws IOException {
+            return requested && started ? in.available() : 0;
+        }
+    }
+}
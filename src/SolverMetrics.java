@@ -0,0 +1,440 @@
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import jdk.jfr.EventType;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.FlightRecorderListener;
+import jdk.jfr.Recording;
+
+/**
+ * Description: Counts how every solve of RootFinder, BracketedRootFinder and HigherOrderRootFinder ended, per
+ *              method and function: how many found a root, converged where f(x) is not close to 0, diverged,
+ *              hit f'(x) = 0, ran out of iterations or out of budget, the evaluations they made, and
+ *              histograms of their iterations and of how long they took.
+ *
+ *              Off unless started with -Dlocateroots.metrics=true or turned on with enable. When off, a solve
+ *              reads one volatile flag at its start and one at its end and does nothing else. When on, it
+ *              reads the clock twice and adds to LongAdders, which keep a cell per contending thread, so
+ *              solves on many threads do not fight over one counter. The histograms have log-linear buckets
+ *              like HdrHistogram's, 8 per power of two, so a percentile is within 12.5% of the true value.
+ *
+ *              Functions are told apart by toString where their class has one, as formulas and polynomials
+ *              do, and are counted as anonymous otherwise. After MAX_FUNCTIONS names the rest are counted
+ *              together as other, so a stream of distinct formulas cannot grow the counters without bound.
+ *
+ *              Every solve is also a SolveEvent for JDK Flight Recorder, made only while a recording has
+ *              it enabled. The counts can be read as text with the metrics mode of LocateRoots, which
+ *              through SolverClient shows those of the daemon, or over JMX as SolverMetricsMBean, which
+ *              is registered the first time counting is turned on.
+ */
+public final class SolverMetrics implements SolverMetricsMBean {
+
+    static final String PROPERTY = "locateroots.metrics"; // -Dlocateroots.metrics=true counts from the start
+    static final String OBJECT_NAME = "LocateRoots:type=SolverMetrics";
+    static final long NOT_TIMED = Long.MIN_VALUE; // start of a solve that is not counted
+    static final int MAX_FUNCTIONS = 64; // functions counted by name, the rest are counted as other
+    private static final String[] STATUS = {"found", "no root", "diverging", "zero derivative", "max iterations",
+            "budget exhausted"}; // by RootResult status code
+    private static final RootMethod[] METHODS = RootMethod.values();
+
+    private static volatile boolean enabled;
+    private static volatile boolean recording; // a Flight Recorder recording has SolveEvent enabled
+    private static boolean registered;
+    private static final Map<String, AtomicReferenceArray<Stats>> byFunction = new ConcurrentHashMap<>();
+    private static final ClassValue<Boolean> NAMED = new ClassValue<>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            try {
+                return type.getMethod("toString").getDeclaringClass() != Object.class;
+            } catch (NoSuchMethodException e) {
+                return false;
+            }
+        }
+    };
+
+    static {
+        FlightRecorder.addListener(new FlightRecorderListener() {
+            @Override
+            public void recordingStateChanged(Recording r) {
+                recording = EventType.getEventType(SolveEvent.class).isEnabled();
+            }
+        });
+        if (FlightRecorder.isInitialized()) { // e.g. started with -XX:StartFlightRecording
+            recording = EventType.getEventType(SolveEvent.class).isEnabled();
+        }
+        if (Boolean.getBoolean(PROPERTY)) {
+            enable(true);
+        }
+    }
+
+    private SolverMetrics() {
+    }
+
+    /**
+     * @return True if solves are being counted
+     */
+    public static boolean enabled() {
+        return enabled;
+    }
+
+    /**
+     * Start or stop counting solves, the counts so far are kept
+     * @param on True to count
+     */
+    public static void enable(boolean on) {
+        if (on) {
+            register();
+        }
+        enabled = on;
+    }
+
+    private static synchronized void register() {
+        if (registered) {
+            return;
+        }
+        registered = true;
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new SolverMetrics(), new ObjectName(OBJECT_NAME));
+        } catch (JMException e) { // e.g. one already registered by another class loader, counting still works
+            System.err.println("Solver metrics are not registered over JMX: " + e);
+        }
+    }
+
+    /**
+     * Called as a solve starts
+     * @return the time, or NOT_TIMED if solves are not counted
+     */
+    static long start() {
+        return enabled ? System.nanoTime() : NOT_TIMED;
+    }
+
+    /**
+     * Called as a solve starts
+     * @return a begun event, or null if no recording wants one
+     */
+    static SolveEvent event() {
+        if (!recording) {
+            return null;
+        }
+        SolveEvent event = new SolveEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Count a finished solve and commit its event
+     * @param counted the function it solved through, holding its start and event
+     * @param result its result
+     */
+    static void end(CountingFunction counted, RootResult result) {
+        long started = counted.started;
+        SolveEvent event = counted.event;
+        if (started == NOT_TIMED && event == null) {
+            return;
+        }
+        String function = name(counted.function());
+        if (started != NOT_TIMED) {
+            stats(result.method, function).add(result, System.nanoTime() - started);
+        }
+        if (event != null) {
+            event.end();
+            if (event.shouldCommit()) {
+                event.method = result.method.label;
+                event.function = function;
+                event.status = STATUS[result.status];
+                event.iterations = result.iterations;
+                event.evaluations = result.evaluations;
+                event.derivativeEvaluations = result.derivativeEvaluations;
+                event.root = result.root;
+                event.error = result.error;
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * @return toString of f if its class has one, anonymous otherwise. Wrappers such as StoppableFunction
+     *         name themselves by this for the function they wrap, so a wrapped lambda is anonymous too
+     *         rather than one name per instance
+     */
+    static String name(RealFunction f) {
+        return NAMED.get(f.getClass()) ? f.toString() : "anonymous";
+    }
+
+    private static Stats stats(RootMethod method, String function) {
+        AtomicReferenceArray<Stats> methods = byFunction.get(function);
+        if (methods == null) {
+            String key = byFunction.size() < MAX_FUNCTIONS ? function : "other";
+            methods = byFunction.computeIfAbsent(key, k -> new AtomicReferenceArray<>(METHODS.length));
+        }
+        Stats stats = methods.get(method.ordinal());
+        if (stats == null) {
+            methods.compareAndSet(method.ordinal(), null, new Stats());
+            stats = methods.get(method.ordinal());
+        }
+        return stats;
+    }
+
+    /**
+     * Solves counted with a status
+     * @param status RootResult status code
+     * @return count over every method and function
+     */
+    static long count(int status) {
+        long count = 0;
+        for (AtomicReferenceArray<Stats> methods : byFunction.values()) {
+            for (int m = 0; m < methods.length(); m++) {
+                Stats stats = methods.get(m);
+                if (stats != null) {
+                    count += stats.statuses[status].sum();
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Start counting from zero again
+     */
+    public static void clear() {
+        byFunction.clear();
+    }
+
+    /**
+     * The counts as a table, per method over every function and then per method and function
+     * @return text, one line per row
+     */
+    public static String snapshot() {
+        Map<String, AtomicReferenceArray<Stats>> functions = new TreeMap<>(byFunction);
+        StringBuilder s = new StringBuilder();
+        s.append(enabled ? "Counting solves" : "Not counting solves, start with -D" + PROPERTY + "=true")
+                .append('\n');
+        s.append(String.format(Locale.ROOT, "%-15s\t| %-32s\t| %8s\t| %6s\t| %7s\t| %9s\t| %6s\t| %7s\t| %6s\t| " +
+                        "%6s\t| %-20s\t| %s\n", "method", "function", "solves", "found", "no root", "diverging",
+                "f' = 0", "max it.", "budget", "evals", "iterations p50/p99/max", "us p50/p99/max"));
+        List<String> rows = new ArrayList<>();
+        int printed = 0; // rows
+        for (RootMethod method : METHODS) {
+            Totals all = new Totals();
+            int count = 0;
+            for (Map.Entry<String, AtomicReferenceArray<Stats>> entry : functions.entrySet()) {
+                Stats stats = entry.getValue().get(method.ordinal());
+                if (stats != null) {
+                    Totals one = new Totals();
+                    stats.addTo(one);
+                    stats.addTo(all);
+                    rows.add(one.row(method, entry.getKey()));
+                    count++;
+                }
+            }
+            if (count > 1) {
+                s.append(all.row(method, "(all)"));
+            }
+            for (String row : rows) {
+                s.append(row);
+            }
+            printed += rows.size();
+            rows.clear();
+        }
+        if (printed == 0) {
+            s.append("No solves counted\n");
+        }
+        return s.toString();
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled();
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        enable(enabled);
+    }
+
+    @Override
+    public long getSolves() {
+        long solves = 0;
+        for (int status = 0; status < STATUS.length; status++) {
+            solves += count(status);
+        }
+        return solves;
+    }
+
+    @Override
+    public long getFound() {
+        return count(RootResult.FOUND);
+    }
+
+    @Override
+    public long getNoRoot() {
+        return count(RootResult.NO_ROOT);
+    }
+
+    @Override
+    public long getDiverging() {
+        return count(RootResult.DIVERGING);
+    }
+
+    @Override
+    public long getZeroDerivative() {
+        return count(RootResult.ZERO_DERIVATIVE);
+    }
+
+    @Override
+    public long getMaxIterations() {
+        return count(RootResult.MAX_ITERATIONS);
+    }
+
+    @Override
+    public long getBudgetExhausted() {
+        return count(RootResult.BUDGET_EXHAUSTED);
+    }
+
+    @Override
+    public String getSnapshot() {
+        return snapshot();
+    }
+
+    @Override
+    public void reset() {
+        clear();
+    }
+
+    /**
+     * Counters of one method on one function, added to by many threads
+     */
+    private static final class Stats {
+        final LongAdder[] statuses = new LongAdder[STATUS.length];
+        final LongAdder evaluations = new LongAdder(); // f(x) and derivatives
+        final Histogram iterations = new Histogram();
+        final Histogram nanos = new Histogram();
+
+        Stats() {
+            for (int i = 0; i < statuses.length; i++) {
+                statuses[i] = new LongAdder();
+            }
+        }
+
+        void add(RootResult result, long elapsed) {
+            statuses[result.status].increment();
+            evaluations.add(result.evaluations + result.derivativeEvaluations);
+            iterations.add(result.iterations);
+            nanos.add(elapsed);
+        }
+
+        void addTo(Totals totals) {
+            for (int i = 0; i < statuses.length; i++) {
+                totals.statuses[i] += statuses[i].sum();
+            }
+            totals.evaluations += evaluations.sum();
+            iterations.addTo(totals.iterations);
+            nanos.addTo(totals.nanos);
+            totals.maxIterations = Math.max(totals.maxIterations, iterations.max.get());
+            totals.maxNanos = Math.max(totals.maxNanos, nanos.max.get());
+        }
+    }
+
+    /**
+     * Counts read from one or more Stats, for a row of the snapshot
+     */
+    private static final class Totals {
+        final long[] statuses = new long[STATUS.length];
+        long evaluations;
+        final long[] iterations = new long[Histogram.BUCKETS];
+        final long[] nanos = new long[Histogram.BUCKETS];
+        long maxIterations;
+        long maxNanos;
+
+        String row(RootMethod method, String function) {
+            long solves = 0;
+            for (long count : statuses) {
+                solves += count;
+            }
+            if (function.length() > 32) {
+                function = function.substring(0, 29) + "...";
+            }
+            return String.format(Locale.ROOT, "%-15s\t| %-32s\t| %8d\t| %6d\t| %7d\t| %9d\t| %6d\t| %7d\t| " +
+                            "%6d\t| %6.1f\t| %-20s\t| %s\n", method.label, function, solves, statuses[0],
+                    statuses[1], statuses[2], statuses[3], statuses[4], statuses[5],
+                    (double) evaluations / Math.max(1, solves),
+                    Histogram.percentile(iterations, 0.5, maxIterations) + "/"
+                            + Histogram.percentile(iterations, 0.99, maxIterations) + "/" + maxIterations,
+                    String.format(Locale.ROOT, "%.1f/%.1f/%.1f", Histogram.percentile(nanos, 0.5, maxNanos) / 1e3,
+                            Histogram.percentile(nanos, 0.99, maxNanos) / 1e3, maxNanos / 1e3));
+        }
+    }
+
+    /**
+     * Counts of non-negative values in log-linear buckets: values below 16 each have their own, and every power
+     * of two above is split into 8, so a bucket is at most 12.5% wide
+     */
+    static final class Histogram {
+        static final int BUCKETS = 16 + (62 - 4 + 1) * 8; // a long is below 2^63
+
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+        final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+        void add(long value) {
+            counts.incrementAndGet(index(value));
+            max.accumulate(value);
+        }
+
+        void addTo(long[] totals) {
+            for (int i = 0; i < BUCKETS; i++) {
+                totals[i] += counts.get(i);
+            }
+        }
+
+        static int index(long value) {
+            if (value < 16) {
+                return (int) Math.max(value, 0);
+            }
+            int exponent = 63 - Long.numberOfLeadingZeros(value);
+            return 16 + ((exponent - 4) << 3) + (int) ((value >>> (exponent - 3)) & 7);
+        }
+
+        /**
+         * @return the smallest value counted in a bucket
+         */
+        static long lowest(int index) {
+            if (index < 16) {
+                return index;
+            }
+            int exponent = ((index - 16) >> 3) + 4;
+            return (8L + ((index - 16) & 7)) << (exponent - 3);
+        }
+
+        /**
+         * @param counts counts per bucket
+         * @param q quantile, 0.5 for the median
+         * @param max largest value counted
+         * @return the largest value of the bucket holding the quantile, at most max
+         */
+        static long percentile(long[] counts, double q, long max) {
+            long total = 0;
+            for (long count : counts) {
+                total += count;
+            }
+            long rank = (long) Math.ceil(q * total);
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank && seen > 0) {
+                    return i + 1 < BUCKETS ? Math.min(lowest(i + 1) - 1, max) : max;
+                }
+            }
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+/**
+ * What SolverMetrics shows over JMX, e.g. in JConsole under LocateRoots / SolverMetrics
+ */
+public interface SolverMetricsMBean {
+
+    /**
+     * @return True if solves are being counted
+     */
+    boolean isEnabled();
+
+    /**
+     * Start or stop counting solves, the counts so far are kept
+     * @param enabled True to count
+     */
+    void setEnabled(boolean enabled);
+
+    /**
+     * @return solves counted
+     */
+    long getSolves();
+
+    /**
+     * @return solves that found a root
+     */
+    long getFound();
+
+    /**
+     * @return solves that converged where f(x) is not close to 0
+     */
+    long getNoRoot();
+
+    /**
+     * @return solves stopped because the error grew past the diverging error
+     */
+    long getDiverging();
+
+    /**
+     * @return solves stopped because f'(x) was 0
+     */
+    long getZeroDerivative();
+
+    /**
+     * @return solves that ran out of iterations
+     */
+    long getMaxIterations();
+
+    /**
+     * @return solves stopped by their evaluation budget
+     */
+    long getBudgetExhausted();
+
+    /**
+     * @return the counts and histograms per method and function, as text
+     */
+    String getSnapshot();
+
+    /**
+     * Start counting from zero again
+     */
+    void reset();
+}
@@ -0,0 +1,189 @@
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Description: Wraps f so the run using it stops at its next evaluation of f once stop says so, with a
+ *              CancellationException, e.g. when the SolverDaemon client the run is for has gone.
+ *
+ *              It is PortfolioSolver's CancellableFunction for a whole run, but the wrapper keeps what else f
+ *              can do: of gives an IntervalFunction for an IntervalFunction and a PreciseFunction for a
+ *              PreciseFunction, so the interval and adaptive modes still find them.
+ */
+class StoppableFunction implements RealFunction {
+
+    final RealFunction function;
+    final BooleanSupplier stop;
+
+    private StoppableFunction(RealFunction function, BooleanSupplier stop) {
+        this.function = function;
+        this.stop = stop;
+    }
+
+    /**
+     * @param function function to wrap
+     * @param stop true once the run should stop, polled at every evaluation
+     * @return function, stopping once stop says so, and an IntervalFunction or PreciseFunction if function is
+     */
+    static RealFunction of(RealFunction function, BooleanSupplier stop) {
+        if (function instanceof PreciseFunction && function instanceof IntervalFunction) {
+            return new PreciseInterval(function, stop);
+        }
+        if (function instanceof PreciseFunction) {
+            return new Precise(function, stop);
+        }
+        if (function instanceof IntervalFunction) {
+            return new IntervalOnly(function, stop);
+        }
+        return new StoppableFunction(function, stop);
+    }
+
+    /**
+     * @param family family to wrap
+     * @param stop true once the run should stop, polled at every evaluation or batch of evaluations
+     * @return family, stopping once stop says so
+     */
+    static ParametricFunction of(ParametricFunction family, BooleanSupplier stop) {
+        return new ParametricFunction() {
+            @Override
+            public double valueAt(double x, double[][] parameters, int lane) {
+                check(stop);
+                return family.valueAt(x, parameters, lane);
+            }
+
+            @Override
+            public double derivativeAt(double x, double[][] parameters, int lane) {
+                check(stop);
+                return family.derivativeAt(x, parameters, lane);
+            }
+
+            @Override
+            public void valuesAt(double[] x, double[][] parameters, int offset, int length, double[] fx) {
+                check(stop);
+                family.valuesAt(x, parameters, offset, length, fx);
+            }
+
+            @Override
+            public void derivativesAt(double[] x, double[][] parameters, int offset, int length, double[] fPrimeX) {
+                check(stop);
+                family.derivativesAt(x, parameters, offset, length, fPrimeX);
+            }
+
+            @Override
+            public void valuesAndDerivativesAt(double[] x, double[][] parameters, int offset, int length,
+                                               double[] fx, double[] fPrimeX) {
+                check(stop);
+                family.valuesAndDerivativesAt(x, parameters, offset, length, fx, fPrimeX);
+            }
+        };
+    }
+
+    private static void check(BooleanSupplier stop) {
+        if (stop.getAsBoolean()) {
+            throw new CancellationException("The run was stopped");
+        }
+    }
+
+    @Override
+    public double valueAt(double x) {
+        check(stop);
+        return function.valueAt(x);
+    }
+
+    @Override
+    public double derivativeAt(double x) {
+        check(stop);
+        return function.derivativeAt(x);
+    }
+
+    @Override
+    public double secondDerivativeAt(double x) {
+        check(stop);
+        return function.secondDerivativeAt(x);
+    }
+
+    @Override
+    public double thirdDerivativeAt(double x) {
+        check(stop);
+        return function.thirdDerivativeAt(x);
+    }
+
+    @Override
+    public void evaluate(double x, Dual out) {
+        check(stop);
+        function.evaluate(x, out);
+    }
+
+    @Override
+    public void evaluate(double x, Dual out, int order) {
+        check(stop);
+        function.evaluate(x, out, order);
+    }
+
+    @Override
+    public String toString() {
+        return SolverMetrics.name(function); // SolverMetrics tells functions apart by this
+    }
+
+    /**
+     * A wrapped IntervalFunction
+     */
+    private static final class IntervalOnly extends StoppableFunction implements IntervalFunction {
+        IntervalOnly(RealFunction function, BooleanSupplier stop) {
+            super(function, stop);
+        }
+
+        @Override
+        public Interval valueAt(Interval x) {
+            check(stop);
+            return ((IntervalFunction) function).valueAt(x);
+        }
+
+        @Override
+        public Interval derivativeAt(Interval x) {
+            check(stop);
+            return ((IntervalFunction) function).derivativeAt(x);
+        }
+    }
+
+    /**
+     * A wrapped PreciseFunction
+     */
+    private static class Precise extends StoppableFunction implements PreciseFunction {
+        Precise(RealFunction function, BooleanSupplier stop) {
+            super(function, stop);
+        }
+
+        @Override
+        public <T> T valueAt(T x, Arithmetic<T> arithmetic) {
+            check(stop);
+            return ((PreciseFunction) function).valueAt(x, arithmetic);
+        }
+
+        @Override
+        public <T> T derivativeAt(T x, Arithmetic<T> arithmetic) {
+            check(stop);
+            return ((PreciseFunction) function).derivativeAt(x, arithmetic);
+        }
+    }
+
+    /**
+     * A wrapped function that is both, e.g. a Polynomial, which AdaptiveSolver checks over intervals first
+     */
+    private static final class PreciseInterval extends Precise implements IntervalFunction {
+        PreciseInterval(RealFunction function, BooleanSupplier stop) {
+            super(function, stop);
+        }
+
+        @Override
+        public Interval valueAt(Interval x) {
+            check(stop);
+            return ((IntervalFunction) function).valueAt(x);
+        }
+
+        @Override
+        public Interval derivativeAt(Interval x) {
+            check(stop);
+            return ((IntervalFunction) function).derivativeAt(x);
+        }
+    }
+}
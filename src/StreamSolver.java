@@ -0,0 +1,317 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Description: Solves a stream of jobs, one per line, and writes one result line per job in input order.
+ *
+ *              A job is a function, a method, its starting data and an optional tolerance, separated by
+ *              commas:
+ *                  2x^3 - 11.7x^2 + 17.7x - 5, brent, 0, 1
+ *                  2, newton, 130, 1e-10
+ *              The function is a formula in x, or the number of a built in function. Newton-Raphson,
+ *              Halley, Householder and Ostrowski take one guess, every other method takes a and b. The
+ *              tolerance is the relative tolerance, 1% when there is none. Blank lines and lines starting
+ *              with # are skipped, but still counted.
+ *
+ *              The reading thread only cuts the input into chunks of CHUNK lines. Parsing, compiling and
+ *              solving are done on a fixed pool with one thread per processor, shared by every stream in the
+ *              JVM, so the streams of SolverDaemon's clients take turns on it. At most WINDOW chunks are in
+ *              flight; the reading thread writes finished chunks in order and waits on the oldest one once
+ *              the window is full, so memory stays the same however long the input is. Whenever the input
+ *              has nothing more ready, everything pending is written and flushed, so a job typed or piped
+ *              in slowly gets its answer right away.
+ *
+ *              Each worker keeps the compiled functions of the last CACHE formulas it has seen, since
+ *              compiling one takes far longer than solving it. The workers live as long as the JVM, so in
+ *              SolverDaemon a formula is compiled once for all clients.
+ */
+public final class StreamSolver {
+
+    static final int CHUNK = 256; // lines per task
+    private static final int THREADS = Runtime.getRuntime().availableProcessors();
+    private static final int WINDOW = 4 * THREADS; // chunks read ahead of the one being written
+    private static final int CACHE = 256; // compiled formulas kept per worker
+
+    static final String CSV_HEADER = "line,method,root,f(root),iterations,evaluations,status";
+    private static final String[] STATUS = {"found", "no root", "diverging", "zero derivative", "max iterations",
+            "budget exhausted"}; // by RootResult status code
+
+    private static final AtomicInteger threadNumber = new AtomicInteger();
+    private static final ExecutorService pool = Executors.newFixedThreadPool(THREADS, task -> {
+        Thread thread = new Thread(task, "stream-" + threadNumber.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final ThreadLocal<Map<String, RealFunction>> compiled = ThreadLocal.withInitial(
+            () -> new LinkedHashMap<String, RealFunction>(CACHE, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, RealFunction> eldest) {
+                    return size() > CACHE;
+                }
+            });
+
+    private StreamSolver() {
+    }
+
+    /**
+     * Solve every job read from in and write one result line per job to out, in input order
+     * @param in jobs, one per line
+     * @param out results, CSV with a header line or one JSON object per line
+     * @param functions built in functions, by number starting at 1
+     * @param config stopping rules, the tolerance of a job replaces its relative tolerance
+     * @param json true for JSON lines, false for CSV
+     * @return number of jobs solved, including the ones that failed
+     * @throws IOException if reading or writing fails
+     */
+    public static long solve(BufferedReader in, Writer out, List<RealFunction> functions, SolverConfig config,
+                             boolean json) throws IOException {
+        ArrayDeque<Future<Chunk>> pending = new ArrayDeque<>(WINDOW);
+        long jobs = 0;
+        try {
+            if (!json) {
+                out.write(CSV_HEADER);
+                out.write('\n');
+            }
+            String[] lines = new String[CHUNK];
+            int count = 0;
+            long firstLine = 1;
+            String line;
+            while (true) {
+                boolean waiting = count > 0 && !in.ready(); // the next line may be a while, do not sit on these
+                if (waiting || count == CHUNK) {
+                    String[] chunk = Arrays.copyOf(lines, count);
+                    long first = firstLine;
+                    pending.add(pool.submit(() -> solveChunk(chunk, first, functions, config, json)));
+                    firstLine += count;
+                    count = 0;
+                }
+                while (!pending.isEmpty() && (waiting || pending.size() >= WINDOW || pending.peek().isDone())) {
+                    jobs += write(pending.remove(), out);
+                }
+                if (waiting) {
+                    out.flush();
+                }
+                if ((line = in.readLine()) == null) {
+                    break;
+                }
+                lines[count++] = line;
+            }
+            if (count > 0) {
+                String[] chunk = Arrays.copyOf(lines, count);
+                long first = firstLine;
+                pending.add(pool.submit(() -> solveChunk(chunk, first, functions, config, json)));
+            }
+            while (!pending.isEmpty()) {
+                jobs += write(pending.remove(), out);
+            }
+            out.flush();
+        } finally {
+            for (Future<Chunk> future : pending) {
+                future.cancel(true);
+            }
+        }
+        return jobs;
+    }
+
+    /**
+     * Wait for a chunk and write its results
+     * @return number of jobs in the chunk
+     */
+    private static int write(Future<Chunk> future, Writer out) throws IOException {
+        Chunk chunk;
+        try {
+            chunk = future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while waiting for results");
+        } catch (ExecutionException e) { // only a bug gets here, every job catches its own failure
+            throw new IllegalStateException(e.getCause());
+        }
+        out.write(chunk.text);
+        return chunk.jobs;
+    }
+
+    /**
+     * Results of one chunk of lines, already formatted
+     */
+    private static final class Chunk {
+        final String text;
+        final int jobs;
+
+        Chunk(String text, int jobs) {
+            this.text = text;
+            this.jobs = jobs;
+        }
+    }
+
+    private static Chunk solveChunk(String[] lines, long firstLine, List<RealFunction> functions,
+                                    SolverConfig config, boolean json) {
+        StringBuilder text = new StringBuilder(lines.length * 80);
+        int jobs = 0;
+        for (int i = 0; i < lines.length; i++) {
+            String line = lines[i].trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            jobs++;
+            long number = firstLine + i;
+            try {
+                RootResult result = solveJob(line, functions, config);
+                if (json) {
+                    appendJson(text, number, result);
+                } else {
+                    appendCsv(text, number, result);
+                }
+            } catch (RuntimeException | StackOverflowError | LinkageError e) {
+                // a bad line, a function that throws, recurses too deep or cannot be loaded only fails that job
+                if (json) {
+                    appendJsonError(text, number, e);
+                } else {
+                    appendCsvError(text, number, e);
+                }
+            }
+        }
+        return new Chunk(text.toString(), jobs);
+    }
+
+    /**
+     * Parse and solve one job
+     * @param job function, method, one or two numbers and an optional tolerance, separated by commas
+     * @param functions built in functions, by number starting at 1
+     * @param config stopping rules
+     * @return result
+     */
+    static RootResult solveJob(String job, List<RealFunction> functions, SolverConfig config) {
+        String[] fields = job.split(",");
+        if (fields.length < 3) {
+            throw new IllegalArgumentException("Expected function, method, start values [, tolerance]");
+        }
+        RealFunction f = function(fields[0].trim(), functions);
+        RootMethod method = method(fields[1].trim());
+        boolean twoStarts = method.bracketing || method == RootMethod.SECANT
+                || method == RootMethod.MODIFIED_SECANT;
+        int starts = twoStarts ? 2 : 1;
+        if (fields.length != 2 + starts && fields.length != 3 + starts) {
+            throw new IllegalArgumentException(method.label + " takes " + starts + " start value"
+                    + (starts == 1 ? "" : "s") + " and an optional tolerance, got " + (fields.length - 2)
+                    + " numbers");
+        }
+        double a = Double.parseDouble(fields[2].trim());
+        double b = starts == 1 ? a : Double.parseDouble(fields[3].trim());
+        if (fields.length == 3 + starts) {
+            config = config.withRelativeTolerance(Double.parseDouble(fields[2 + starts].trim()));
+        }
+        return PortfolioSolver.run(method, f, a, b, config); // one guess methods start from b, set to the guess
+    }
+
+    private static RealFunction function(String field, List<RealFunction> functions) {
+        if (isNumber(field)) {
+            int number = Integer.parseInt(field);
+            if (number < 1 || number > functions.size()) {
+                throw new IllegalArgumentException("No function #" + number);
+            }
+            return functions.get(number - 1);
+        }
+        Map<String, RealFunction> cache = compiled.get();
+        RealFunction f = cache.get(field);
+        if (f == null) {
+            f = ExpressionCompiler.compile(field);
+            cache.put(field, f);
+        }
+        return f;
+    }
+
+    private static boolean isNumber(String field) { // String.matches would compile a pattern for every job
+        for (int i = 0; i < field.length(); i++) {
+            if (field.charAt(i) < '0' || field.charAt(i) > '9') {
+                return false;
+            }
+        }
+        return !field.isEmpty() && field.length() < 10;
+    }
+
+    /**
+     * @param field method name as in RootMethod or as it prints, any case, e.g. newton, false-position, brent
+     */
+    private static RootMethod method(String field) {
+        String name = field.toUpperCase(Locale.ROOT);
+        for (RootMethod method : RootMethod.values()) {
+            if (method.name().equals(name) || method.label.equals(name)
+                    || method.name().equals(name.replace('-', '_').replace(' ', '_'))) {
+                return method;
+            }
+        }
+        throw new IllegalArgumentException("Unknown method " + field);
+    }
+
+    private static void appendCsv(StringBuilder text, long line, RootResult result) {
+        text.append(line).append(',').append(result.method.label).append(',').append(result.root).append(',')
+                .append(result.fx).append(',').append(result.iterations).append(',')
+                .append(result.evaluations + result.derivativeEvaluations).append(',')
+                .append(STATUS[result.status]).append('\n');
+    }
+
+    private static void appendCsvError(StringBuilder text, long line, Throwable e) {
+        String message = message(e).replace('"', '\'').replace('\n', ' ');
+        text.append(line).append(",,,,,,\"error: ").append(message).append("\"\n");
+    }
+
+    private static void appendJson(StringBuilder text, long line, RootResult result) {
+        text.append("{\"line\":").append(line).append(",\"method\":\"").append(result.method.label)
+                .append("\",\"root\":");
+        appendJsonNumber(text, result.root);
+        text.append(",\"fx\":");
+        appendJsonNumber(text, result.fx);
+        text.append(",\"iterations\":").append(result.iterations).append(",\"evaluations\":")
+                .append(result.evaluations + result.derivativeEvaluations).append(",\"status\":\"")
+                .append(STATUS[result.status]).append("\"}\n");
+    }
+
+    private static void appendJsonError(StringBuilder text, long line, Throwable e) {
+        text.append("{\"line\":").append(line).append(",\"status\":\"error\",\"message\":\"");
+        String message = message(e);
+        for (int i = 0; i < message.length(); i++) {
+            char c = message.charAt(i);
+            if (c == '"' || c == '\\') {
+                text.append('\\').append(c);
+            } else if (c < ' ') {
+                text.append(String.format("\\u%04x", (int) c));
+            } else {
+                text.append(c);
+            }
+        }
+        text.append("\"}\n");
+    }
+
+    /**
+     * @return the message of a failed job, or the kind of failure for an Error without one
+     */
+    private static String message(Throwable e) {
+        return e.getMessage() != null || e instanceof RuntimeException ? String.valueOf(e.getMessage())
+                : e.getClass().getSimpleName();
+    }
+
+    /**
+     * JSON has no NaN or infinity, so they are written as null
+     */
+    private static void appendJsonNumber(StringBuilder text, double x) {
+        if (Double.isFinite(x)) {
+            text.append(x);
+        } else {
+            text.append("null");
+        }
+    }
+}
@@ -0,0 +1,630 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntConsumer;
+
+/**
+ * Description: A sweep too large for one run, e.g. billions of points of function #2 x + b - xcosh(a/x), cut
+ *              into shards of consecutive points that any number of processes solve independently, on one
+ *              machine or on several sharing the job directory, and that a crash does not lose.
+ *
+ *              The directory holds job.properties, the sweep and the stopping rules, which every process
+ *              joining the job must agree on. A process takes a shard by creating shard-N.claim, which
+ *              only one can create. A claim lasts while its process keeps checkpointing: one left by a
+ *              process that died on this machine, or not renewed for a lease on any machine, is taken
+ *              over by renaming a new claim over it. A process that finds its claim taken over stops
+ *              working on that shard. A process that is told to stop does so at its next checkpoint and
+ *              releases its claims, so the shards can be resumed at once.
+ *
+ *              Each shard is written to shard-N.sweep through a memory-mapped buffer, column by column:
+ *                  a 64 byte header: "LRSWEEP1", version, first point, points, points solved
+ *                  a (double), root (double, NaN if none), iterations (int), evaluations (int), status (byte)
+ *              all little endian. It is solved CHUNK points at a time with ContinuationSolver, and after
+ *              each chunk the columns are forced to disk before the header's count of points solved, so
+ *              the count is a checkpoint: a shard is done when it reaches the shard's size, and an
+ *              unfinished one is resumed from it, by whichever process takes the shard next.
+ *
+ *              Every chunk starts a new sweep at a multiple of CHUNK, so the roots do not depend on the
+ *              size of the shards, the number of processes, or where they were stopped and restarted.
+ *              merge joins the shards into one file of the same layout.
+ */
+public final class SweepJob {
+
+    static final int CHUNK = 1 << 16; // points per ContinuationSolver sweep and per checkpoint
+    static final int DEFAULT_SHARD = 64 * CHUNK; // points per shard, 100 MB of shard file
+    static final int MAX_SHARD = 1 << 26; // a shard file stays below the 2 GB one mapping can hold
+    static final long LEASE = 10 * 60_000; // ms a claim lasts without a checkpoint
+    static final String SPEC_FILE = "job.properties";
+    static final String MERGED_FILE = "sweep.bin";
+
+    static final int HEADER = 64;
+    private static final byte[] MAGIC = "LRSWEEP1".getBytes(StandardCharsets.US_ASCII);
+    private static final int VERSION = 1;
+    private static final int FIRST = 16; // header offsets
+    private static final int POINTS = 24;
+    private static final int SOLVED = 32;
+    private static final int[] WIDTHS = {8, 8, 4, 4, 1}; // a, root, iterations, evaluations, status
+    private static final int POINT_BYTES = 25;
+
+    private static final String HOST = hostName();
+    private static final long PID = ProcessHandle.current().pid();
+    private static final AtomicInteger threadNumber = new AtomicInteger();
+
+    private SweepJob() {
+    }
+
+    /**
+     * What is swept: a from, to, in points evenly spaced values, b fixed, every root searched for in
+     * [lower, upper], and how the points are cut into shards
+     */
+    public static final class Spec {
+        public final double from;
+        public final double to;
+        public final long points;
+        public final double b;
+        public final double lower;
+        public final double upper;
+        public final int shardPoints;
+
+        /**
+         * @param from first a
+         * @param to last a
+         * @param points number of values of a
+         * @param b b for every point
+         * @param lower lower end of the interval every root is searched for in
+         * @param upper upper end
+         * @param shardPoints points per shard, a multiple of CHUNK up to MAX_SHARD
+         */
+        public Spec(double from, double to, long points, double b, double lower, double upper, int shardPoints) {
+            if (points < 1 || !(lower < upper) || shardPoints < CHUNK || shardPoints > MAX_SHARD
+                    || shardPoints % CHUNK != 0) {
+                throw new IllegalArgumentException("Expected at least one point, lower < upper and a multiple of "
+                        + CHUNK + " up to " + MAX_SHARD + " points per shard, got " + points + " points, ["
+                        + lower + ", " + upper + "] and " + shardPoints + " points per shard");
+            }
+            this.from = from;
+            this.to = to;
+            this.points = points;
+            this.b = b;
+            this.lower = lower;
+            this.upper = upper;
+            this.shardPoints = shardPoints;
+        }
+
+        /**
+         * @param i point, from 0
+         * @return a at that point, as the sweep mode of LocateRoots spaces it
+         */
+        public double a(long i) {
+            return points == 1 ? from : from + (to - from) * i / (points - 1);
+        }
+
+        /**
+         * @return number of shards
+         */
+        public int shards() {
+            return (int) ((points + shardPoints - 1) / shardPoints);
+        }
+
+        long first(int shard) {
+            return (long) shard * shardPoints;
+        }
+
+        int count(int shard) {
+            return (int) Math.min(shardPoints, points - first(shard));
+        }
+
+        Properties properties(SolverConfig config) {
+            Properties p = new Properties();
+            p.setProperty("from", Double.toString(from));
+            p.setProperty("to", Double.toString(to));
+            p.setProperty("points", Long.toString(points));
+            p.setProperty("b", Double.toString(b));
+            p.setProperty("lower", Double.toString(lower));
+            p.setProperty("upper", Double.toString(upper));
+            p.setProperty("shard", Integer.toString(shardPoints));
+            p.setProperty("config", config.toString());
+            return p;
+        }
+
+        static Spec of(Properties p) {
+            return new Spec(Double.parseDouble(p.getProperty("from")), Double.parseDouble(p.getProperty("to")),
+                    Long.parseLong(p.getProperty("points")), Double.parseDouble(p.getProperty("b")),
+                    Double.parseDouble(p.getProperty("lower")), Double.parseDouble(p.getProperty("upper")),
+                    Integer.parseInt(p.getProperty("shard")));
+        }
+    }
+
+    /**
+     * What one call of work did
+     */
+    public static final class Report {
+        public final int shards; // shards finished by this call
+        public final long points; // points solved by this call
+        public final int done; // shards of the job done, by any process
+        public final int elsewhere; // shards unfinished but claimed by another process
+
+        Report(int shards, long points, int done, int elsewhere) {
+            this.shards = shards;
+            this.points = points;
+            this.done = done;
+            this.elsewhere = elsewhere;
+        }
+    }
+
+    /**
+     * Counts over the merged sweep
+     */
+    public static final class Summary {
+        public final long points;
+        public final long found;
+        public final long iterations; // total over all points
+        public final long evaluations; // total over all points
+
+        Summary(long points, long found, long iterations, long evaluations) {
+            this.points = points;
+            this.found = found;
+            this.iterations = iterations;
+            this.evaluations = evaluations;
+        }
+    }
+
+    /**
+     * Start a job in a directory, or join the one there
+     * @param directory job directory, created if needed
+     * @param spec the sweep
+     * @param config stopping rules
+     * @return spec
+     * @throws IOException if the directory cannot be written
+     * @throws IllegalStateException if the directory holds another job
+     */
+    public static Spec create(Path directory, Spec spec, SolverConfig config) throws IOException {
+        Files.createDirectories(directory);
+        Path file = directory.resolve(SPEC_FILE);
+        Path temporary = Files.createTempFile(directory, SPEC_FILE, ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(temporary)) {
+                spec.properties(config).store(out, "LocateRoots sweep job");
+            }
+            Files.createLink(file, temporary); // fails if there is one, and is never seen half written
+        } catch (FileAlreadyExistsException e) {
+            Properties existing = load(file);
+            if (!existing.equals(spec.properties(config))) {
+                throw new IllegalStateException(directory + " holds another job: " + existing);
+            }
+        } finally {
+            Files.delete(temporary);
+        }
+        return spec;
+    }
+
+    /**
+     * Join the job in a directory
+     * @param directory job directory
+     * @param config stopping rules, which must be the job's
+     * @return its spec
+     * @throws IOException if there is no job there
+     * @throws IllegalStateException if the job has other stopping rules
+     */
+    public static Spec open(Path directory, SolverConfig config) throws IOException {
+        Properties p = load(directory.resolve(SPEC_FILE));
+        if (!config.toString().equals(p.getProperty("config"))) {
+            throw new IllegalStateException("The job in " + directory + " was started with " + p.getProperty("config"));
+        }
+        return Spec.of(p);
+    }
+
+    private static Properties load(Path file) throws IOException {
+        Properties p = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            p.load(in);
+        }
+        return p;
+    }
+
+    /**
+     * Solve every shard no other process is solving, on several threads, until none is left or stop says so
+     * @param directory job directory
+     * @param spec the job's spec
+     * @param f function family, with a and b as parameters 0 and 1
+     * @param config stopping rules
+     * @param threads shards solved at once
+     * @param finished called with each shard this call finishes, from the thread that solved it
+     * @param stop polled at every checkpoint; once it is true each thread releases its claim and returns
+     * @return what was done
+     * @throws IOException if a shard file cannot be written
+     */
+    public static Report work(Path directory, Spec spec, ParametricFunction f, SolverConfig config, int threads,
+                              IntConsumer finished, BooleanSupplier stop) throws IOException {
+        AtomicInteger shards = new AtomicInteger();
+        AtomicLong points = new AtomicLong();
+        ExecutorService pool = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "sweep-job-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            Future<?>[] workers = new Future<?>[threads];
+            for (int t = 0; t < threads; t++) {
+                int offset = t;
+                workers[t] = pool.submit(() -> {
+                    // each thread starts at its own shard, so they do not all race for the same claims
+                    for (int i = 0; i < spec.shards() && !stop.getAsBoolean(); i++) {
+                        int shard = (i + offset) % spec.shards();
+                        if (solved(directory, spec, shard) == spec.count(shard)) {
+                            continue;
+                        }
+                        Claim claim = Claim.take(claimFile(directory, shard));
+                        if (claim == null) {
+                            continue;
+                        }
+                        try {
+                            long before = solved(directory, spec, shard);
+                            if (solve(directory, spec, shard, f, config, claim, stop)) {
+                                shards.incrementAndGet();
+                                points.addAndGet(spec.count(shard) - before);
+                                finished.accept(shard);
+                            }
+                        } finally {
+                            claim.release();
+                        }
+                    }
+                    return null;
+                });
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while solving shards", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause()
+                    : new IllegalStateException(e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+
+        int done = 0;
+        int elsewhere = 0;
+        for (int shard = 0; shard < spec.shards(); shard++) {
+            if (solved(directory, spec, shard) == spec.count(shard)) {
+                done++;
+            } else if (Files.exists(claimFile(directory, shard))) {
+                elsewhere++;
+            }
+        }
+        return new Report(shards.get(), points.get(), done, elsewhere);
+    }
+
+    /**
+     * Solve a shard from its last checkpoint
+     * @return true if it is done, false if the claim was taken over or stop said so first
+     */
+    private static boolean solve(Path directory, Spec spec, int shard, ParametricFunction f, SolverConfig config,
+                                 Claim claim, BooleanSupplier stop) throws IOException {
+        long first = spec.first(shard);
+        int count = spec.count(shard);
+        try (FileChannel channel = FileChannel.open(shardFile(directory, shard), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER + (long) POINT_BYTES * count);
+            map.order(ByteOrder.LITTLE_ENDIAN);
+            int solved;
+            if (hasMagic(map)) {
+                if (map.getLong(FIRST) != first || map.getLong(POINTS) != count) {
+                    throw new IllegalStateException(shardFile(directory, shard) + " is not shard " + shard
+                            + " of this job");
+                }
+                solved = (int) map.getLong(SOLVED);
+            } else {
+                writeHeader(map, first, count, 0);
+                map.force();
+                solved = 0;
+            }
+
+            int a = shardColumn(0, count);
+            int roots = shardColumn(1, count);
+            int iterations = shardColumn(2, count);
+            int evaluations = shardColumn(3, count);
+            int status = shardColumn(4, count);
+            double[][] parameters = new double[2][CHUNK];
+            while (solved < count) {
+                if (!claim.held()) {
+                    return false;
+                }
+                int n = Math.min(CHUNK, count - solved);
+                if (n != parameters[0].length) {
+                    parameters = new double[2][n];
+                }
+                for (int i = 0; i < n; i++) {
+                    parameters[0][i] = spec.a(first + solved + i);
+                    parameters[1][i] = spec.b;
+                }
+                ContinuationSolver.Sweep sweep = ContinuationSolver.solve(f, parameters, spec.lower, spec.upper,
+                        true, config);
+                for (int i = 0; i < n; i++) {
+                    int point = solved + i;
+                    map.putDouble(a + 8 * point, parameters[0][i]);
+                    map.putDouble(roots + 8 * point, sweep.roots[i]);
+                    map.putInt(iterations + 4 * point, sweep.iterations[i]);
+                    map.putInt(evaluations + 4 * point, sweep.evaluations[i]);
+                    map.put(status + point, (byte) sweep.status[i]);
+                }
+                map.force(); // the points, before the checkpoint that says they are there
+                solved += n;
+                map.putLong(SOLVED, solved);
+                map.force(SOLVED, 8);
+                claim.renew();
+                if (solved < count && stop.getAsBoolean()) { // the caller releases the claim
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Points of a shard solved so far, from its header
+     */
+    static long solved(Path directory, Spec spec, int shard) throws IOException {
+        try (FileChannel channel = FileChannel.open(shardFile(directory, shard), StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // read the whole header
+            }
+            if (header.hasRemaining() || !hasMagic(header) || header.getLong(POINTS) != spec.count(shard)) {
+                return 0;
+            }
+            return header.getLong(SOLVED);
+        } catch (NoSuchFileException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Join the shards of a finished job into one file of the same layout
+     * @param directory job directory
+     * @param spec the job's spec
+     * @param target merged file, replaced once it is complete
+     * @return counts over the sweep
+     * @throws IOException if a file cannot be read or written
+     * @throws IllegalStateException if a shard is not done
+     */
+    public static Summary merge(Path directory, Spec spec, Path target) throws IOException {
+        int unfinished = 0;
+        for (int shard = 0; shard < spec.shards(); shard++) {
+            if (solved(directory, spec, shard) != spec.count(shard)) {
+                unfinished++;
+            }
+        }
+        if (unfinished > 0) {
+            throw new IllegalStateException(unfinished + " of " + spec.shards() + " shards are not done");
+        }
+
+        long found = 0;
+        long iterations = 0;
+        long evaluations = 0;
+        Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer header = out.map(FileChannel.MapMode.READ_WRITE, 0, HEADER);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            writeHeader(header, 0, spec.points, spec.points);
+            for (int shard = 0; shard < spec.shards(); shard++) {
+                long first = spec.first(shard);
+                int count = spec.count(shard);
+                try (FileChannel in = FileChannel.open(shardFile(directory, shard), StandardOpenOption.READ)) {
+                    // one mapping per column of a shard, so the merged file can be far larger than 2 GB
+                    for (int c = 0; c < WIDTHS.length; c++) {
+                        MappedByteBuffer from = in.map(FileChannel.MapMode.READ_ONLY, column(c, (long) count),
+                                (long) WIDTHS[c] * count);
+                        from.order(ByteOrder.LITTLE_ENDIAN);
+                        for (int i = 0; i < count; i++) {
+                            if (c == 2) {
+                                iterations += from.getInt(4 * i);
+                            } else if (c == 3) {
+                                evaluations += from.getInt(4 * i);
+                            } else if (c == 4 && from.get(i) == RootResult.FOUND) {
+                                found++;
+                            }
+                        }
+                        out.map(FileChannel.MapMode.READ_WRITE, column(c, spec.points) + first * WIDTHS[c],
+                                (long) WIDTHS[c] * count).put(from);
+                    }
+                }
+            }
+            out.force(true);
+        }
+        Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return new Summary(spec.points, found, iterations, evaluations);
+    }
+
+    /**
+     * Byte offset of a column in a file of count points
+     */
+    static long column(int c, long count) {
+        long offset = HEADER;
+        for (int k = 0; k < c; k++) {
+            offset += WIDTHS[k] * count;
+        }
+        return offset;
+    }
+
+    private static int shardColumn(int c, int count) {
+        return (int) column(c, (long) count);
+    }
+
+    private static void writeHeader(ByteBuffer header, long first, long points, long solved) {
+        header.put(0, MAGIC);
+        header.putInt(8, VERSION);
+        header.putLong(FIRST, first);
+        header.putLong(POINTS, points);
+        header.putLong(SOLVED, solved);
+    }
+
+    private static boolean hasMagic(ByteBuffer header) {
+        byte[] magic = new byte[MAGIC.length];
+        header.get(0, magic);
+        return Arrays.equals(magic, MAGIC) && header.getInt(8) == VERSION;
+    }
+
+    static Path shardFile(Path directory, int shard) {
+        return directory.resolve(String.format("shard-%06d.sweep", shard));
+    }
+
+    private static Path claimFile(Path directory, int shard) {
+        return directory.resolve(String.format("shard-%06d.claim", shard));
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (IOException e) {
+            return ManagementFactory.getRuntimeMXBean().getName();
+        }
+    }
+
+    /**
+     * A shard taken by one thread of this process: its claim file holds the host, the process id and a number
+     * for the thread
+     */
+    private static final class Claim {
+        private static final AtomicLong claimNumber = new AtomicLong();
+        private final Path file;
+        private final String owner;
+
+        private Claim(Path file, String owner) {
+            this.file = file;
+            this.owner = owner;
+        }
+
+        /**
+         * @return the claim, or null if another process or thread holds it
+         */
+        static Claim take(Path file) throws IOException {
+            long number = claimNumber.incrementAndGet();
+            String owner = HOST + " " + PID + " " + number;
+            for (int attempt = 0; attempt < 2; attempt++) {
+                try {
+                    Files.write(file, owner.getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE_NEW,
+                            StandardOpenOption.WRITE);
+                    return new Claim(file, owner);
+                } catch (FileAlreadyExistsException e) {
+                    String stale = abandoned(file);
+                    if (stale == null) {
+                        return null;
+                    }
+                    if (stale.isEmpty()) { // released since
+                        continue;
+                    }
+                    return takeOver(file, stale, owner, number);
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Replace the stale claim in one rename, so the file is never missing for a third process to create,
+         * and only if it is still the one found abandoned. Two processes that both get past that check can
+         * still both move theirs over it; the one moved over stops at its next checkpoint, where held() fails.
+         */
+        private static Claim takeOver(Path file, String stale, String owner, long number) throws IOException {
+            Path temp = file.resolveSibling(file.getFileName() + "." + PID + "-" + number + ".tmp");
+            try {
+                Files.write(temp, owner.getBytes(StandardCharsets.UTF_8));
+                if (!stale.equals(owner(file))) {
+                    return null;
+                }
+                Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+            Claim claim = new Claim(file, owner);
+            return claim.held() ? claim : null;
+        }
+
+        /**
+         * A claim that has not been renewed for a lease, or of a process that is gone from this machine. The
+         * lease also applies on this machine, where a reused process id would otherwise keep a dead claim.
+         * @return the owner written in the claim, "" if there is no claim any more, or null if it is held
+         */
+        private static String abandoned(Path file) throws IOException {
+            try {
+                String owner = owner(file);
+                if (owner.isEmpty()) {
+                    return "";
+                }
+                String[] parts = owner.split(" ");
+                if (parts.length != 3) { // still being written
+                    return null;
+                }
+                if (System.currentTimeMillis() - Files.getLastModifiedTime(file).toMillis() > LEASE) {
+                    return owner;
+                }
+                if (parts[0].equals(HOST)) {
+                    long pid = Long.parseLong(parts[1]);
+                    return pid != PID && ProcessHandle.of(pid).map(p -> !p.isAlive()).orElse(true) ? owner : null;
+                }
+                return null;
+            } catch (NoSuchFileException e) {
+                return "";
+            } catch (NumberFormatException e) { // still being written
+                return null;
+            }
+        }
+
+        /**
+         * @return the owner written in the claim file, or "" if there is none
+         */
+        private static String owner(Path file) throws IOException {
+            try {
+                return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+            } catch (NoSuchFileException e) {
+                return "";
+            }
+        }
+
+        /**
+         * @return true if the claim file is still this one's, false if another process took it over
+         */
+        boolean held() throws IOException {
+            return owner(file).equals(owner);
+        }
+
+        void renew() throws IOException {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        }
+
+        void release() throws IOException {
+            if (held()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+}
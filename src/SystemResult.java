@@ -0,0 +1,45 @@
+import java.util.Arrays;
+
+/**
+ * Outcome of one SystemSolver solve: the root, F there, how many iterations, evaluations of F and Jacobians it
+ * took, the final approximate error and why the method stopped, with RootResult's status codes.
+ */
+public final class SystemResult {
+
+    public final SystemSolver.Method method;
+    public final double[] root; // last guess, also when no root was found
+    public final double[] fx; // F(root)
+    public final double fNorm; // max |fi(root)|
+    public final double error; // approximate relative error of the last iteration, max |dx| / max |x|
+    public final int iterations;
+    public final int status;
+    public final int evaluations; // evaluations of F, not counting forward differences
+    public final int jacobians; // Jacobians, analytic or by forward differences
+
+    SystemResult(SystemSolver.Method method, double[] root, double[] fx, double fNorm, double error, int iterations,
+                 int status, int evaluations, int jacobians) {
+        this.method = method;
+        this.root = root;
+        this.fx = fx;
+        this.fNorm = fNorm;
+        this.error = error;
+        this.iterations = iterations;
+        this.status = status;
+        this.evaluations = evaluations;
+        this.jacobians = jacobians;
+    }
+
+    /**
+     * @return True if a root was found
+     */
+    public boolean found() {
+        return status == RootResult.FOUND;
+    }
+
+    @Override
+    public String toString() {
+        return method + " root = " + Arrays.toString(root) + ", max |f(root)| = " + fNorm + ", error = " + error
+                + ", iterations = " + iterations + ", evaluations = " + evaluations + ", jacobians = " + jacobians
+                + ", status = " + status;
+    }
+}
@@ -0,0 +1,354 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Description: Solves a system of n nonlinear equations F(x) = 0 in n unknowns, the way RootFinder solves one.
+ *
+ *              Newton's Method solves J(x) dx = -F(x) by LU decomposition every iteration, with the
+ *              Jacobian J from the system itself or from forward differences. Broyden's Method takes J once,
+ *              inverts it, and from then on updates the inverse H with each step s and change of F y,
+ *                  H += (s - H y) (s^T H) / (s^T H y)   (Sherman-Morrison on Broyden's rank one update of J),
+ *              so an iteration costs one evaluation of F and O(n^2) work instead of a Jacobian and an
+ *              O(n^3) factorization. It takes a fresh Jacobian when the update breaks down or F grows.
+ *
+ *              A SystemSolver holds the work arrays for one size of system and reuses them for every
+ *              iteration and every solve, so solving allocates nothing but the result. It is not thread
+ *              safe; solveAll gives each fork-join task its own.
+ *
+ *              The stopping rules are SolverConfig's, on the largest component: the approximate relative
+ *              error is max |dx| / max |x| and f(x) is max |fi(x)|.
+ */
+public final class SystemSolver {
+
+    /**
+     * How the next step is found
+     */
+    public enum Method {
+        NEWTON("Newton's Method"),
+        BROYDEN("Broyden's Method");
+
+        public final String label;
+
+        Method(String label) {
+            this.label = label;
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    private static final int LEAF_SYSTEMS = 16; // systems solved by one task of solveAll without splitting
+    private static final double GROWTH = 2; // Broyden takes a fresh Jacobian when max |fi| grows by more
+
+    private final int n;
+    private final double[] x;
+    private final double[] fx;
+    private final double[] step;
+    private final double[] jacobian; // J, its LU factors, or for Broyden the inverse H
+    private final double[] lu; // Broyden's factors of J while H is built
+    private final int[] pivot;
+    private final double[] work;
+    private final double[] hy; // H y
+    private final double[] sh; // s^T H
+    private int evaluations;
+    private int jacobians;
+
+    /**
+     * @param n number of unknowns and of equations of the systems to solve
+     */
+    public SystemSolver(int n) {
+        if (n < 1) {
+            throw new IllegalArgumentException("Expected at least one equation, got " + n);
+        }
+        this.n = n;
+        x = new double[n];
+        fx = new double[n];
+        step = new double[n];
+        jacobian = new double[n * n];
+        lu = new double[n * n];
+        pivot = new int[n];
+        work = new double[n];
+        hy = new double[n];
+        sh = new double[n];
+    }
+
+    /**
+     * Solve F(x) = 0 from an initial guess
+     * @param f system, of this solver's size
+     * @param guess initial values, not changed
+     * @param method Newton or Broyden
+     * @param config stopping rules
+     * @return result
+     */
+    public SystemResult solve(VectorFunction f, double[] guess, Method method, SolverConfig config) {
+        if (f.dimension() != n || guess.length != n) {
+            throw new IllegalArgumentException("Expected a system of " + n + " equations and " + n + " values, got "
+                    + f.dimension() + " and " + guess.length);
+        }
+        System.arraycopy(guess, 0, x, 0, n);
+        evaluations = 0;
+        jacobians = 0;
+        return method == Method.NEWTON ? newton(f, config) : broyden(f, config);
+    }
+
+    private SystemResult newton(VectorFunction f, SolverConfig config) {
+        double currentError = 1;
+        double fNorm = Double.NaN;
+        int iteration = 0;
+        for (; iteration < config.maxIterations; iteration++) {
+            if (!evaluate(f, config)) {
+                return result(Method.NEWTON, fNorm, currentError, iteration, RootResult.BUDGET_EXHAUSTED);
+            }
+            fNorm = norm(fx);
+            if (fNorm == 0) {
+                return result(Method.NEWTON, fNorm, currentError, iteration + 1, RootResult.FOUND);
+            }
+            if (!differentiate(f, config)) {
+                return result(Method.NEWTON, fNorm, currentError, iteration, RootResult.BUDGET_EXHAUSTED);
+            }
+            if (!LinearSystem.factor(jacobian, n, pivot)) {
+                return result(Method.NEWTON, fNorm, currentError, iteration + 1, RootResult.ZERO_DERIVATIVE);
+            }
+            for (int i = 0; i < n; i++) {
+                step[i] = -fx[i];
+            }
+            LinearSystem.solve(jacobian, n, pivot, step);
+
+            // xn+1 = xn + dx, J(xn) dx = -F(xn)
+            currentError = move();
+            if (currentError > config.divergingError) {
+                return result(Method.NEWTON, fNorm, currentError, iteration + 1, RootResult.DIVERGING);
+            }
+            if (config.converged(currentError, norm(step))) {
+                return converged(f, Method.NEWTON, config, currentError, iteration + 1);
+            }
+        }
+        return result(Method.NEWTON, fNorm, currentError, iteration, RootResult.MAX_ITERATIONS);
+    }
+
+    private SystemResult broyden(VectorFunction f, SolverConfig config) {
+        double currentError = 1;
+        if (!evaluate(f, config)) {
+            return result(Method.BROYDEN, Double.NaN, currentError, 0, RootResult.BUDGET_EXHAUSTED);
+        }
+        double fNorm = norm(fx);
+        boolean refresh = true; // take a Jacobian at the current x before the next step
+        int iteration = 0;
+        for (; iteration < config.maxIterations; iteration++) {
+            if (fNorm == 0) {
+                return result(Method.BROYDEN, fNorm, currentError, iteration + 1, RootResult.FOUND);
+            }
+            if (refresh) {
+                if (!differentiate(f, config)) {
+                    return result(Method.BROYDEN, fNorm, currentError, iteration, RootResult.BUDGET_EXHAUSTED);
+                }
+                if (!invert()) {
+                    return result(Method.BROYDEN, fNorm, currentError, iteration + 1, RootResult.ZERO_DERIVATIVE);
+                }
+                refresh = false;
+            }
+
+            // s = -H F(xn), xn+1 = xn + s
+            for (int i = 0; i < n; i++) {
+                double s = 0;
+                for (int j = 0; j < n; j++) {
+                    s -= jacobian[i * n + j] * fx[j];
+                }
+                step[i] = s;
+            }
+            currentError = move();
+            if (currentError > config.divergingError) {
+                return result(Method.BROYDEN, fNorm, currentError, iteration + 1, RootResult.DIVERGING);
+            }
+            if (config.converged(currentError, norm(step))) {
+                return converged(f, Method.BROYDEN, config, currentError, iteration + 1);
+            }
+
+            // y = F(xn+1) - F(xn), kept in work
+            System.arraycopy(fx, 0, work, 0, n);
+            if (!evaluate(f, config)) {
+                return result(Method.BROYDEN, fNorm, currentError, iteration + 1, RootResult.BUDGET_EXHAUSTED);
+            }
+            double previousNorm = fNorm;
+            fNorm = norm(fx);
+            for (int i = 0; i < n; i++) {
+                work[i] = fx[i] - work[i];
+            }
+            refresh = !(fNorm <= GROWTH * previousNorm) || !update();
+        }
+        return result(Method.BROYDEN, fNorm, currentError, iteration, RootResult.MAX_ITERATIONS);
+    }
+
+    /**
+     * Update H with s in step and y in work, H += (s - H y) (s^T H) / (s^T H y)
+     * @return false if s^T H y is 0 or not finite, so the update is not defined
+     */
+    private boolean update() {
+        double denominator = 0;
+        Arrays.fill(sh, 0);
+        for (int i = 0; i < n; i++) { // row by row, H is row-major
+            double t = 0;
+            double s = step[i];
+            for (int j = 0; j < n; j++) {
+                double h = jacobian[i * n + j];
+                t += h * work[j];
+                sh[j] += s * h;
+            }
+            hy[i] = t;
+        }
+        for (int i = 0; i < n; i++) {
+            denominator += step[i] * hy[i];
+        }
+        if (denominator == 0 || !Double.isFinite(denominator)) {
+            return false;
+        }
+        for (int i = 0; i < n; i++) {
+            double c = (step[i] - hy[i]) / denominator;
+            if (c != 0) {
+                for (int j = 0; j < n; j++) {
+                    jacobian[i * n + j] += c * sh[j];
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Replace J in jacobian by its inverse
+     * @return false if J is singular
+     */
+    private boolean invert() {
+        System.arraycopy(jacobian, 0, lu, 0, n * n);
+        if (!LinearSystem.factor(lu, n, pivot)) {
+            return false;
+        }
+        LinearSystem.invert(lu, n, pivot, jacobian);
+        return true;
+    }
+
+    /**
+     * x += step
+     * @return the approximate relative error max |dx| / max |x|
+     */
+    private double move() {
+        for (int i = 0; i < n; i++) {
+            x[i] += step[i];
+        }
+        return norm(step) / norm(x);
+    }
+
+    /**
+     * The step was small enough: check F at the last x
+     */
+    private SystemResult converged(VectorFunction f, Method method, SolverConfig config, double currentError,
+                                   int iterations) {
+        if (!evaluate(f, config)) {
+            return result(method, Double.NaN, currentError, iterations, RootResult.BUDGET_EXHAUSTED);
+        }
+        double fNorm = norm(fx);
+        return result(method, fNorm, currentError, iterations,
+                config.isRoot(fNorm) ? RootResult.FOUND : RootResult.NO_ROOT);
+    }
+
+    /**
+     * F(x) into fx, if the budget allows
+     */
+    private boolean evaluate(VectorFunction f, SolverConfig config) {
+        if (evaluations + (long) jacobians * n + 1 > config.maxEvaluations) {
+            return false;
+        }
+        evaluations++;
+        f.valueAt(x, fx);
+        return true;
+    }
+
+    /**
+     * J(x) into jacobian, counted as n evaluations of F against the budget
+     */
+    private boolean differentiate(VectorFunction f, SolverConfig config) {
+        if (evaluations + (long) (jacobians + 1) * n > config.maxEvaluations) {
+            return false;
+        }
+        jacobians++;
+        f.jacobianAt(x, fx, jacobian, work);
+        return true;
+    }
+
+    private SystemResult result(Method method, double fNorm, double error, int iterations, int status) {
+        return new SystemResult(method, x.clone(), fx.clone(), fNorm, error, iterations, status, evaluations,
+                jacobians);
+    }
+
+    private static double norm(double[] v) {
+        double max = 0;
+        for (double e : v) {
+            max = Math.max(max, Math.abs(e));
+        }
+        return max;
+    }
+
+    /**
+     * Solve F(x) = 0 from many initial guesses, or many systems of the same size, in parallel on the common
+     * fork-join pool. Each task solves its share with one SystemSolver.
+     * @param systems systems to solve, all of the same size, or one system for every guess
+     * @param guesses one initial guess per system
+     * @param method Newton or Broyden
+     * @param config stopping rules
+     * @return results in the order of the guesses
+     */
+    public static SystemResult[] solveAll(VectorFunction[] systems, double[][] guesses, Method method,
+                                          SolverConfig config) {
+        if (systems.length != 1 && systems.length != guesses.length) {
+            throw new IllegalArgumentException("Expected one system, or one per guess, got " + systems.length
+                    + " systems for " + guesses.length + " guesses");
+        }
+        SystemResult[] results = new SystemResult[guesses.length];
+        if (guesses.length > 0) {
+            ForkJoinPool.commonPool().invoke(new SolveTask(systems, guesses, method, config, results, 0,
+                    guesses.length));
+        }
+        return results;
+    }
+
+    /**
+     * Solves guesses [first, last) into results
+     */
+    private static final class SolveTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final VectorFunction[] systems;
+        private final double[][] guesses;
+        private final Method method;
+        private final SolverConfig config;
+        private final SystemResult[] results;
+        private final int first;
+        private final int last;
+
+        SolveTask(VectorFunction[] systems, double[][] guesses, Method method, SolverConfig config,
+                  SystemResult[] results, int first, int last) {
+            this.systems = systems;
+            this.guesses = guesses;
+            this.method = method;
+            this.config = config;
+            this.results = results;
+            this.first = first;
+            this.last = last;
+        }
+
+        @Override
+        protected void compute() {
+            if (last - first > LEAF_SYSTEMS) {
+                int middle = (first + last) >>> 1;
+                invokeAll(new SolveTask(systems, guesses, method, config, results, first, middle),
+                        new SolveTask(systems, guesses, method, config, results, middle, last));
+                return;
+            }
+            SystemSolver solver = new SystemSolver(systems[0].dimension());
+            for (int i = first; i < last; i++) {
+                results[i] = solver.solve(systems[systems.length == 1 ? 0 : i], guesses[i], method, config);
+            }
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/**
+ * Receives every iteration of a solve as primitive values. The methods in RootFinder only call a
+ * sink when one is given, so solving without tracing does no formatting or output at all.
+ *
+ * Each solve calls begin, then the row method matching its table once per iteration, then end.
+ */
+public interface TraceSink {
+
+    /**
+     * A solve is starting
+     * @param method method being run
+     * @param first a for bracketing methods, otherwise the first guess
+     * @param second b for bracketing methods, otherwise the second guess (same as first for Newton-Raphson)
+     */
+    default void begin(RootMethod method, double first, double second) {
+    }
+
+    /**
+     * Whether the sink shows f'(x) in the Secant and Modified Secant rows. Those methods do not use f'(x)
+     * themselves, so they only evaluate it for a sink that needs it and pass NaN otherwise.
+     * @return true if the sink needs f'(x) in secant and modifiedSecant
+     */
+    default boolean needsDerivative() {
+        return false;
+    }
+
+    /**
+     * One iteration of Bisection or False-Position
+     * @param n iteration
+     * @param a left / lower value
+     * @param b right / upper value
+     * @param c current root guess
+     * @param fa f(a)
+     * @param fb f(b)
+     * @param fc f(c)
+     * @param error approximate error
+     */
+    default void bracketing(int n, double a, double b, double c, double fa, double fb, double fc, double error) {
+    }
+
+    /**
+     * One iteration of Newton-Raphson
+     * @param n iteration
+     * @param x current root x
+     * @param fx f(x) value
+     * @param fPrimeX f'(x) value
+     * @param error approximate error
+     */
+    default void newton(int n, double x, double fx, double fPrimeX, double error) {
+    }
+
+    /**
+     * One iteration of Secant
+     * @param n iteration
+     * @param previousX xn-1
+     * @param x xn
+     * @param fPreviousX f(xn-1)
+     * @param fx f(x)
+     * @param fPrimeX f'(x), or NaN unless needsDerivative()
+     * @param error approximate error
+     */
+    default void secant(int n, double previousX, double x, double fPreviousX, double fx, double fPrimeX,
+                        double error) {
+    }
+
+    /**
+     * One iteration of Modified Secant
+     * @param n iteration
+     * @param x xn
+     * @param deltaX delta * xn
+     * @param fx f(xn)
+     * @param fxAndDeltaX f(xn + delta * xn)
+     * @param fPrimeX f'(xn), or NaN unless needsDerivative()
+     * @param error approximate error
+     */
+    default void modifiedSecant(int n, double x, double deltaX, double fx, double fxAndDeltaX, double fPrimeX,
+                                double error) {
+    }
+
+    /**
+     * The solve has finished
+     * @param result its result
+     */
+    default void end(RootResult result) {
+    }
+
+    /**
+     * Send every call to both sinks
+     * @param first first sink
+     * @param second second sink
+     * @return combined sink
+     */
+    static TraceSink both(TraceSink first, TraceSink second) {
+        return new TraceSink() {
+            @Override
+            public void begin(RootMethod method, double a, double b) {
+                first.begin(method, a, b);
+                second.begin(method, a, b);
+            }
+
+            @Override
+            public boolean needsDerivative() {
+                return first.needsDerivative() || second.needsDerivative();
+            }
+
+            @Override
+            public void bracketing(int n, double a, double b, double c, double fa, double fb, double fc,
+                                   double error) {
+                first.bracketing(n, a, b, c, fa, fb, fc, error);
+                second.bracketing(n, a, b, c, fa, fb, fc, error);
+            }
+
+            @Override
+            public void newton(int n, double x, double fx, double fPrimeX, double error) {
+                first.newton(n, x, fx, fPrimeX, error);
+                second.newton(n, x, fx, fPrimeX, error);
+            }
+
+            @Override
+            public void secant(int n, double previousX, double x, double fPreviousX, double fx, double fPrimeX,
+                               double error) {
+                first.secant(n, previousX, x, fPreviousX, fx, fPrimeX, error);
+                second.secant(n, previousX, x, fPreviousX, fx, fPrimeX, error);
+            }
+
+            @Override
+            public void modifiedSecant(int n, double x, double deltaX, double fx, double fxAndDeltaX,
+                                       double fPrimeX, double error) {
+                first.modifiedSecant(n, x, deltaX, fx, fxAndDeltaX, fPrimeX, error);
+                second.modifiedSecant(n, x, deltaX, fx, fxAndDeltaX, fPrimeX, error);
+            }
+
+            @Override
+            public void end(RootResult result) {
+                first.end(result);
+                second.end(result);
+            }
+        };
+    }
+}
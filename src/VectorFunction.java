@@ -0,0 +1,43 @@
+/**
+ * A system of n equations F(x) = 0 in n unknowns, for SystemSolver.
+ *
+ * Values go into arrays the caller owns, so a solve reuses the same arrays every iteration instead of
+ * allocating new ones.
+ */
+public interface VectorFunction {
+
+    /**
+     * @return n, the number of unknowns and of equations
+     */
+    int dimension();
+
+    /**
+     * Get F(x)
+     * @param x current values, length n, not changed
+     * @param fx receives f1(x) ... fn(x), length n
+     */
+    void valueAt(double[] x, double[] fx);
+
+    /**
+     * Get the Jacobian of F at x. Uses forward differences, n more evaluations of F, unless the system knows
+     * its own Jacobian.
+     * @param x current values, length n; changed one entry at a time while differencing and then restored
+     * @param fx F(x), already evaluated
+     * @param jacobian receives dfi/dxj at jacobian[i * n + j], length n * n
+     * @param work scratch space of length n
+     */
+    default void jacobianAt(double[] x, double[] fx, double[] jacobian, double[] work) {
+        int n = fx.length;
+        for (int j = 0; j < n; j++) {
+            double xj = x[j];
+            double h = 1.4901161193847656e-8 * Math.max(1, Math.abs(xj)); // square root of machine epsilon
+            x[j] = xj + h;
+            h = x[j] - xj; // the step x actually took
+            valueAt(x, work);
+            x[j] = xj;
+            for (int i = 0; i < n; i++) {
+                jacobian[i * n + j] = (work[i] - fx[i]) / h;
+            }
+        }
+    }
+}
@@ -0,0 +1,96 @@
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Description: Function #2's family, x + b - xcosh(a/x) with parameters[0] = a and parameters[1] = b, evaluated
+ *              with the JDK Vector API, SPECIES lanes at a time, for BatchSolver. Lanes past the last whole
+ *              vector are evaluated one at a time by LocateRoots.FUNCTION_2_FAMILY. Its roots agree with
+ *              FUNCTION_2_FAMILY's to within the rounding of cosh and sinh, which the Vector API computes in
+ *              its own way.
+ *
+ *              jdk.incubator.vector is an incubating module that a run only has if it is added:
+ *                  java --add-modules jdk.incubator.vector -jar LocateRoots.jar
+ *              Loading this class without it fails, so it is only reached through
+ *              LocateRoots.function2BatchFamily(), which checks for the module and otherwise gives the scalar
+ *              FUNCTION_2_FAMILY.
+ */
+final class VectorFunction2Family implements ParametricFunction {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+    private static final ParametricFunction SCALAR = LocateRoots.FUNCTION_2_FAMILY;
+
+    private VectorFunction2Family() {
+    }
+
+    /**
+     * @return the family, loading jdk.incubator.vector
+     */
+    static ParametricFunction create() {
+        return new VectorFunction2Family();
+    }
+
+    /**
+     * @return lanes per vector
+     */
+    static int lanes() {
+        return SPECIES.length();
+    }
+
+    @Override
+    public double valueAt(double x, double[][] parameters, int lane) {
+        return SCALAR.valueAt(x, parameters, lane);
+    }
+
+    @Override
+    public double derivativeAt(double x, double[][] parameters, int lane) {
+        return SCALAR.derivativeAt(x, parameters, lane);
+    }
+
+    @Override
+    public void valuesAt(double[] x, double[][] parameters, int offset, int length, double[] fx) {
+        double[] a = parameters[0];
+        double[] b = parameters[1];
+        int i = 0;
+        for (int bound = SPECIES.loopBound(length); i < bound; i += SPECIES.length()) {
+            DoubleVector vx = DoubleVector.fromArray(SPECIES, x, i);
+            DoubleVector cosh = DoubleVector.fromArray(SPECIES, a, offset + i).div(vx).lanewise(VectorOperators.COSH);
+            vx.add(DoubleVector.fromArray(SPECIES, b, offset + i)).sub(vx.mul(cosh)).intoArray(fx, i);
+        }
+        for (; i < length; i++) {
+            fx[i] = SCALAR.valueAt(x[i], parameters, offset + i);
+        }
+    }
+
+    @Override
+    public void derivativesAt(double[] x, double[][] parameters, int offset, int length, double[] fPrimeX) {
+        double[] a = parameters[0];
+        int i = 0;
+        for (int bound = SPECIES.loopBound(length); i < bound; i += SPECIES.length()) {
+            DoubleVector u = DoubleVector.fromArray(SPECIES, a, offset + i).div(DoubleVector.fromArray(SPECIES, x, i));
+            u.lanewise(VectorOperators.SINH).mul(u).sub(u.lanewise(VectorOperators.COSH)).add(1).intoArray(fPrimeX, i);
+        }
+        for (; i < length; i++) {
+            fPrimeX[i] = SCALAR.derivativeAt(x[i], parameters, offset + i);
+        }
+    }
+
+    @Override
+    public void valuesAndDerivativesAt(double[] x, double[][] parameters, int offset, int length,
+                                       double[] fx, double[] fPrimeX) {
+        double[] a = parameters[0];
+        double[] b = parameters[1];
+        int i = 0;
+        for (int bound = SPECIES.loopBound(length); i < bound; i += SPECIES.length()) {
+            DoubleVector vx = DoubleVector.fromArray(SPECIES, x, i);
+            DoubleVector u = DoubleVector.fromArray(SPECIES, a, offset + i).div(vx);
+            DoubleVector cosh = u.lanewise(VectorOperators.COSH);
+            vx.add(DoubleVector.fromArray(SPECIES, b, offset + i)).sub(vx.mul(cosh)).intoArray(fx, i);
+            u.lanewise(VectorOperators.SINH).mul(u).sub(cosh).add(1).intoArray(fPrimeX, i); // 1 - cosh + u sinh
+        }
+        for (; i < length; i++) {
+            fx[i] = SCALAR.valueAt(x[i], parameters, offset + i);
+            fPrimeX[i] = SCALAR.derivativeAt(x[i], parameters, offset + i);
+        }
+    }
+}